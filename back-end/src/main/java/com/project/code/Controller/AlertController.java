@@ -0,0 +1,89 @@
+package com.project.code.Controller;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.code.Model.ReorderThreshold;
+import com.project.code.Model.ReorderThresholdDto;
+import com.project.code.Service.LowStockAlertService;
+import com.project.code.exception.InventoryNotFoundException;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/alerts")
+public class AlertController {
+
+    private final LowStockAlertService lowStockAlertService;
+
+    @PutMapping("/thresholds")
+    public ResponseEntity<Map<String, Object>> setThreshold(@RequestBody ReorderThresholdDto request) {
+        try {
+            ReorderThreshold threshold = lowStockAlertService.setThreshold(request);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Reorder threshold set successfully");
+            response.put("threshold", threshold);
+            return ResponseEntity.ok(response);
+
+        } catch (InventoryNotFoundException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error setting reorder threshold: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @DeleteMapping("/thresholds")
+    public ResponseEntity<Map<String, Object>> removeThreshold(@RequestParam Long storeId,
+            @RequestParam Long productId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!lowStockAlertService.removeThreshold(storeId, productId)) {
+            response.put("message", "No reorder threshold for StoreId=" + storeId + " ProductId=" + productId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("message", "Reorder threshold removed successfully");
+        return ResponseEntity.ok(response);
+    }
+
+    // the most recent alerts, or those raised after the given id
+    @GetMapping("/low-stock")
+    public ResponseEntity<Map<String, Object>> getLowStockAlerts(@RequestParam(defaultValue = "0") long after) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("alerts", lowStockAlertService.alertsAfter(after));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Server-Sent Events of new alerts, named low or recovered, e.g.
+     * new EventSource("/api/v1/alerts/low-stock/stream"). The browser sends
+     * Last-Event-ID when it reconnects and gets the alerts it missed.
+     */
+    @GetMapping(path = "/low-stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLowStockAlerts(
+            @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        return lowStockAlertService.subscribe(lastEventId);
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.project.code.Controller;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.code.Service.AnalyticsService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Ad-hoc analytics over the in-memory order lines. Every query takes an
+ * optional storeId and an optional from/to day range, both days inclusive.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/analytics")
+public class AnalyticsController {
+
+    private final AnalyticsService analyticsService;
+
+    @GetMapping("/top-sellers")
+    public ResponseEntity<Map<String, Object>> getTopSellers(@RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "limit must be positive");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        return query("products", () -> analyticsService.topSellers(storeId, from, to, limit));
+    }
+
+    @GetMapping("/categories/revenue")
+    public ResponseEntity<Map<String, Object>> getRevenueByCategory(@RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return query("categories", () -> analyticsService.revenueByCategory(storeId, from, to));
+    }
+
+    @GetMapping("/basket-sizes")
+    public ResponseEntity<Map<String, Object>> getBasketSizes(@RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return query("basketSizes", () -> analyticsService.basketSizes(storeId, from, to));
+    }
+
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, Object>> reload() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            analyticsService.reload();
+            response.put("message", "Analytics reloaded successfully");
+            response.put("lines", analyticsService.columns().lineCount());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("message", "Error reloading analytics: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> query(String key, Supplier<Object> rows) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put(key, rows.get());
+            response.put("lines", analyticsService.columns().lineCount());
+            response.put("loadedAt", analyticsService.loadedAt());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("message", "Error running analytics query: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+}
@@ -1,10 +1,17 @@
 package com.project.code.Controller;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 import com.project.code.Model.ApiResponse;
+import com.project.code.exception.IdempotencyKeyMismatchException;
+import com.project.code.exception.InvalidPageRequestException;
+import com.project.code.exception.OrderIntakeRejectedException;
 import com.project.code.exception.ProductNotFoundException;
+import com.project.code.exception.ReservationNotFoundException;
 import com.project.code.exception.StoreNotFoundException;
 
 @RestControllerAdvice
@@ -15,9 +22,40 @@ public class GlobalExceptionHandler {
         return new ApiResponse<>("error", ex.getMessage(), null);
     }
 
+    @ExceptionHandler(OrderIntakeRejectedException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ApiResponse<?> handleOrderIntakeRejected(OrderIntakeRejectedException ex) {
+        return new ApiResponse<>("error", ex.getMessage(), null);
+    }
+
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ApiResponse<?> handleReservationNotFound(ReservationNotFoundException ex) {
+        return new ApiResponse<>("error", ex.getMessage(), null);
+    }
+
     @ExceptionHandler(ProductNotFoundException.class)
     public ApiResponse<?> handleProductNotFound(ProductNotFoundException ex) {
         return new ApiResponse<>("error", ex.getMessage(), null);
     }
 
+    @ExceptionHandler(InvalidPageRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ApiResponse<?> handleInvalidPageRequest(InvalidPageRequestException ex) {
+        return new ApiResponse<>("error", ex.getMessage(), null);
+    }
+
+    // the Idempotency-Key was first used for another customer or another request
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ApiResponse<?> handleIdempotencyKeyMismatch(IdempotencyKeyMismatchException ex) {
+        return new ApiResponse<>("error", ex.getMessage(), null);
+    }
+
+    // a versioned row (Inventory) was written by another transaction between this request's read and its commit
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ApiResponse<?> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return new ApiResponse<>("error", "The data was changed by another request, please retry", null);
+    }
+
 }
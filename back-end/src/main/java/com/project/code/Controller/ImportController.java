@@ -0,0 +1,84 @@
+package com.project.code.Controller;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.code.Model.ImportCheckpoint;
+import com.project.code.Model.ImportResult;
+import com.project.code.Repo.ImportCheckpointRepository;
+import com.project.code.Service.DataImportService;
+import com.project.code.exception.ImportAlreadyRunningException;
+import com.project.code.importer.ImportFormat;
+import com.project.code.importer.ImportKind;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/imports")
+public class ImportController {
+
+    private final DataImportService dataImportService;
+    private final ImportCheckpointRepository importCheckpointRepository;
+
+    /**
+     * Imports the request body as it arrives, e.g.
+     * curl -T products.csv "localhost:8080/api/v1/imports/products?name=products-2024-06"
+     * Posting the same input under the same name resumes an import that failed.
+     */
+    // commits chunk by chunk, so no @Transactional here
+    @PostMapping("/{kind}")
+    public ResponseEntity<Map<String, Object>> importRecords(@PathVariable String kind, @RequestParam String name,
+            @RequestParam(defaultValue = "csv") String format, InputStream body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            ImportResult result = dataImportService.importRecords(name, ImportKind.of(kind), ImportFormat.of(format),
+                    body);
+
+            response.put("message", "Import " + name + " processed " + result.getRowsRead() + " rows");
+            response.put("resumedFrom", result.getResumedFrom());
+            response.put("counts", result.getCounts());
+            response.put("rejectedCount", result.getRejectedCount());
+            response.put("rejected", result.getRejected());
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            response.put("message", "Invalid import: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (ImportAlreadyRunningException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            response.put("message", "Error importing " + name + ": " + e.getMessage());
+            // what a retry under the same name skips
+            importCheckpointRepository.findById(name)
+                    .ifPresent(checkpoint -> response.put("rowsCommitted", checkpoint.getRowsCommitted()));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    // progress of a running import, or the outcome of the last run
+    @GetMapping("/{name}")
+    public ResponseEntity<Map<String, Object>> getImport(@PathVariable String name) {
+        Map<String, Object> response = new HashMap<>();
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(name).orElse(null);
+        if (checkpoint == null) {
+            response.put("message", "Import not found with name: " + name);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("message", "Import retrieved successfully");
+        response.put("import", checkpoint);
+        return ResponseEntity.ok(response);
+    }
+
+}
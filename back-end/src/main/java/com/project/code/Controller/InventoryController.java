@@ -3,9 +3,11 @@ package com.project.code.Controller;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.OptionalInt;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,14 +18,28 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.project.code.Model.AvailabilityRequestDto;
+import com.project.code.Model.CatalogPageRequest;
 import com.project.code.Model.CombinedRequest;
 import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.ItemAvailabilityDto;
 import com.project.code.Model.Product;
+import com.project.code.Model.StockChangedEvent;
 import com.project.code.Repo.InventoryRepository;
 import com.project.code.Repo.ProductRepository;
+import com.project.code.Service.AvailabilityIndexService;
+import com.project.code.Service.InventoryBulkService;
 import com.project.code.Service.ServiceClass;
+import com.project.code.Service.ShardedStockService;
+import com.project.code.Service.StockReservationService;
+import com.project.code.Service.StoreCatalogService;
+import com.project.code.exception.InventoryNotFoundException;
 
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 
 @RequiredArgsConstructor
@@ -34,7 +50,14 @@ public class InventoryController {
     private final ProductRepository productRepository;
     private final InventoryRepository inventoryRepository;
     private final ServiceClass serviceClass;
-
+    private final ShardedStockService shardedStockService;
+    private final StockReservationService stockReservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryBulkService inventoryBulkService;
+    private final AvailabilityIndexService availabilityIndexService;
+    private final StoreCatalogService storeCatalogService;
+
+    @Transactional
     @PutMapping("/update")
     public ResponseEntity<Map<String, Object>> updateInventory(@RequestBody CombinedRequest combinedRequest) {
         try {
@@ -52,10 +75,27 @@ public class InventoryController {
             Inventory existingInventory = serviceClass.getInventoryId(inventory);
 
             Map<String, Object> response = new HashMap<>();
-            if (existingInventory != null) {
+            if (existingInventory != null && inventory.isVersionGiven()
+                    && inventory.getVersion() != existingInventory.getVersion()) {
+                // the caller edited an older read of the row, an order or another update wrote it since
+                response.put("message", "Inventory was changed by another request, reload it and try again");
+                response.put("inventory", existingInventory);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+            }
+            if (existingInventory != null && existingInventory.isSharded()) {
+                // Hot SKU, spread the new level over its buckets
+                int previousStockLevel = shardedStockService.totalStock(existingInventory);
+                shardedStockService.setTotalStock(existingInventory, inventory.getStockLevel());
+                publishStockChanged(existingInventory, inventory.getStockLevel() - previousStockLevel,
+                        inventory.getStockLevel(), StockChangedEvent.Reason.ADJUSTMENT);
+                response.put("message", "Inventory updated successfully");
+            } else if (existingInventory != null) {
                 // Update existing inventory
+                int previousStockLevel = existingInventory.getStockLevel();
                 existingInventory.setStockLevel(inventory.getStockLevel());
                 inventoryRepository.save(existingInventory);
+                publishStockChanged(existingInventory, inventory.getStockLevel() - previousStockLevel,
+                        inventory.getStockLevel(), StockChangedEvent.Reason.ADJUSTMENT);
                 response.put("message", "Inventory updated successfully");
             } else {
                 response.put("message", "No inventory data available for this product and store combination");
@@ -70,6 +110,27 @@ public class InventoryController {
         }
     }
 
+    // commits chunk by chunk, so no @Transactional here
+    @PutMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkUpdateInventory(@RequestBody List<InventoryUpdateDto> entries) {
+        try {
+            InventoryBulkResult result = inventoryBulkService.update(entries);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Bulk inventory update processed " + entries.size() + " entries");
+            response.put("counts", result.getCounts());
+            response.put("rejected", result.getRejected());
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error updating inventory in bulk: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @Transactional
     @PostMapping("/save")
     public ResponseEntity<Map<String, Object>> saveInventory(@RequestBody Inventory inventory) {
         try {
@@ -84,6 +145,8 @@ public class InventoryController {
 
             // Save new inventory
             Inventory savedInventory = inventoryRepository.save(inventory);
+            publishStockChanged(savedInventory, savedInventory.getStockLevel(), savedInventory.getStockLevel(),
+                    StockChangedEvent.Reason.RESTOCK);
             response.put("message", "Inventory saved successfully");
             response.put("inventory", savedInventory);
 
@@ -96,25 +159,19 @@ public class InventoryController {
         }
     }
 
+    /**
+     * The store's products with their stock, a page at a time, e.g.
+     * ?page=2&size=100&sort=stockLevel,desc. Bad parameters get a 400 before
+     * streaming starts.
+     */
     @GetMapping("/stores/{storeId}")
-    public ResponseEntity<Map<String, Object>> getAllProducts(@PathVariable Long storeId) {
-        try {
-            List<Inventory> inventories = inventoryRepository.findByStoreId(storeId);
-
-            List<Product> products = inventories.stream()
-                    .map(Inventory::getProduct)
-                    .collect(Collectors.toList());
-
-            Map<String, Object> response = new HashMap<>();
-            response.put("products", products);
-
-            return ResponseEntity.ok(response);
-
-        } catch (Exception e) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Error retrieving products: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
-        }
+    public ResponseEntity<StreamingResponseBody> getStoreProducts(@PathVariable long storeId,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String sort) {
+        CatalogPageRequest catalogPage = CatalogPageRequest.of(page, size, sort);
+        StreamingResponseBody body = out -> storeCatalogService.writeStoreProducts(storeId, catalogPage, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
     @GetMapping("/filter/{category}/{name}")
@@ -126,11 +183,11 @@ public class InventoryController {
             List<Product> products;
 
             if ("null".equals(category) && "null".equals(name)) {
-                products = productRepository.findAll();
+                products = productRepository.findAllWithInventoriesBy();
             } else if ("null".equals(category)) {
-                products = productRepository.findProductBySubName(name);
+                products = productRepository.findWithInventoriesBySubName(name);
             } else if ("null".equals(name)) {
-                products = productRepository.findByCategory(category);
+                products = productRepository.findWithInventoriesByCategory(category);
             } else {
                 products = productRepository.findProductBySubNameAndCategory(name, category);
             }
@@ -179,6 +236,7 @@ public class InventoryController {
 
             // Delete inventory records first
             inventoryRepository.deleteByProductId(id);
+            availabilityIndexService.productRemoved(id);
 
             // Delete the product
             productRepository.deleteById(id);
@@ -195,6 +253,33 @@ public class InventoryController {
         }
     }
 
+    @PutMapping("/shards")
+    public ResponseEntity<Map<String, Object>> reshardInventory(
+            @RequestParam Long storeId,
+            @RequestParam Long productId,
+            @RequestParam Integer shardCount) {
+
+        try {
+            Inventory inventory = shardedStockService.reshard(storeId, productId, shardCount);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Inventory split into " + inventory.getShardCount() + " shards");
+            response.put("shardCount", inventory.getShardCount());
+            response.put("stockLevel", shardedStockService.totalStock(inventory));
+
+            return ResponseEntity.ok(response);
+
+        } catch (InventoryNotFoundException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error sharding inventory: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
     @GetMapping("/validate")
     public ResponseEntity<Map<String, Object>> validateQuantity(
             @RequestParam Long productId,
@@ -202,32 +287,35 @@ public class InventoryController {
             @RequestParam Integer quantity) {
 
         try {
-            // Get the product
-            Product product = productRepository.findById(productId)
-                    .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
-
-            // Get the store - we need to create a store object or find it
-            // For now, let's assume we can create a store with the ID
-            com.project.code.Model.Store store = new com.project.code.Model.Store();
-            store.setId(storeId);
-
-            // Find inventory for this product and store
-            Inventory inventory = inventoryRepository.findByStoreAndProduct(store, product)
-                    .orElse(null);
-
-            boolean isAvailable = false;
-            if (inventory != null) {
-                isAvailable = inventory.getStockLevel() >= quantity;
+            // served from memory for every indexed row, the database only answers for the rest
+            OptionalInt indexedStock = availabilityIndexService.stockLevel(storeId, productId);
+            Integer totalStock = indexedStock.isPresent() ? indexedStock.getAsInt() : null;
+            if (totalStock == null) {
+                // Get the product
+                Product product = productRepository.findById(productId)
+                        .orElseThrow(() -> new RuntimeException("Product not found with ID: " + productId));
+
+                // Get the store - we need to create a store object or find it
+                // For now, let's assume we can create a store with the ID
+                com.project.code.Model.Store store = new com.project.code.Model.Store();
+                store.setId(storeId);
+
+                // Find inventory for this product and store
+                totalStock = inventoryRepository.findByStoreAndProduct(store, product)
+                        .map(this::stockLevelOf)
+                        .orElse(null);
             }
 
+            // stock held by open reservations is not available to anyone else
+            int stockLevel = totalStock != null
+                    ? Math.max(totalStock - stockReservationService.reservedQuantity(storeId, productId), 0)
+                    : 0;
+            boolean isAvailable = totalStock != null && stockLevel >= quantity;
+
             Map<String, Object> response = new HashMap<>();
             response.put("available", isAvailable);
             response.put("requestedQuantity", quantity);
-            if (inventory != null) {
-                response.put("availableStock", inventory.getStockLevel());
-            } else {
-                response.put("availableStock", 0);
-            }
+            response.put("availableStock", stockLevel);
 
             return ResponseEntity.ok(response);
 
@@ -243,4 +331,43 @@ public class InventoryController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
         }
     }
+
+    // a whole cart in one request, e.g. {"storeId": 1, "items": [{"productId": 2, "quantity": 3}]}
+    @PostMapping("/availability")
+    public ResponseEntity<Map<String, Object>> checkAvailability(@RequestBody AvailabilityRequestDto request) {
+        try {
+            List<ItemAvailabilityDto> items = availabilityIndexService.checkAvailability(request.storeId(),
+                    request.items());
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("available", items.stream().allMatch(ItemAvailabilityDto::available));
+            response.put("items", items);
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            errorResponse.put("available", false);
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error checking availability: " + e.getMessage());
+            errorResponse.put("available", false);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    private void publishStockChanged(Inventory inventory, int delta, int stockLevel,
+            StockChangedEvent.Reason reason) {
+        // written to the outbox in this request's transaction
+        if (inventory.getStore() != null && inventory.getProduct() != null) {
+            eventPublisher.publishEvent(new StockChangedEvent(
+                    inventory.getStore().getId(), inventory.getProduct().getId(), delta, stockLevel, reason));
+        }
+    }
+
+    private int stockLevelOf(Inventory inventory) {
+        return inventory.isSharded() ? shardedStockService.totalStock(inventory) : inventory.getStockLevel();
+    }
 }
@@ -0,0 +1,111 @@
+package com.project.code.Controller;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.OrderSummaryDto;
+import com.project.code.Service.OrderArchiveService;
+import com.project.code.Service.OrderHistoryService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Order history, newest first. Each page carries a nextCursor to pass back as
+ * the cursor parameter; from is inclusive, to is exclusive. Archived orders
+ * are read from the archive segments transparently.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/orders")
+public class OrderController {
+
+    private final OrderHistoryService orderHistoryService;
+    private final OrderArchiveService orderArchiveService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderPageRequest page = OrderPageRequest.of(from, to, cursor, limit);
+        return stream(out -> orderHistoryService.writeOrders(page, out));
+    }
+
+    @GetMapping("/stores/{storeId}")
+    public ResponseEntity<StreamingResponseBody> getStoreOrders(@PathVariable long storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderPageRequest page = OrderPageRequest.of(from, to, cursor, limit);
+        return stream(out -> orderHistoryService.writeStoreOrders(storeId, page, out));
+    }
+
+    @GetMapping("/customers/{customerId}")
+    public ResponseEntity<StreamingResponseBody> getCustomerOrders(@PathVariable long customerId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        OrderPageRequest page = OrderPageRequest.of(from, to, cursor, limit);
+        return stream(out -> orderHistoryService.writeCustomerOrders(customerId, page, out));
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<Map<String, Object>> getOrder(@PathVariable long orderId) {
+        try {
+            Map<String, Object> response = new HashMap<>();
+            OrderSummaryDto order = orderHistoryService.findOrder(orderId).orElse(null);
+            if (order == null) {
+                response.put("message", "Order not found with ID: " + orderId);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            }
+            response.put("order", order);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error retrieving order: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @PostMapping("/archive")
+    public ResponseEntity<Map<String, Object>> archiveOrders() {
+        try {
+            long archived = orderArchiveService.archive();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Archived " + archived + " orders");
+            response.put("archived", archived);
+            response.put("archivedBefore", orderArchiveService.archivedBefore());
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error archiving orders: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(StreamingResponseBody body) {
+        // the page request is validated above, so bad parameters still get a 400 before streaming starts
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+}
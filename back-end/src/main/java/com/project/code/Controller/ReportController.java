@@ -0,0 +1,80 @@
+package com.project.code.Controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.code.Service.SalesReportService;
+import com.project.code.Service.SalesRollupService;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/reports")
+public class ReportController {
+
+    private final SalesReportService salesReportService;
+    private final SalesRollupService salesRollupService;
+
+    @GetMapping("/stores/revenue")
+    public ResponseEntity<Map<String, Object>> getRevenueByStore(@RequestParam(defaultValue = "30") int days) {
+        return report(days, "stores", () -> salesReportService.revenueByStore(days));
+    }
+
+    @GetMapping("/stores/{storeId}/daily")
+    public ResponseEntity<Map<String, Object>> getDailySalesOfStore(@PathVariable long storeId,
+            @RequestParam(defaultValue = "30") int days) {
+        return report(days, "days", () -> salesReportService.dailySalesOfStore(storeId, days));
+    }
+
+    @GetMapping("/stores/{storeId}/categories")
+    public ResponseEntity<Map<String, Object>> getRevenueByCategory(@PathVariable long storeId,
+            @RequestParam(defaultValue = "30") int days) {
+        return report(days, "categories", () -> salesReportService.revenueByCategory(storeId, days));
+    }
+
+    @GetMapping("/products/top")
+    public ResponseEntity<Map<String, Object>> getTopSellingProducts(@RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "10") int limit) {
+        return report(days, "products", () -> salesReportService.topSellingProducts(days, limit));
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildRollups() {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            salesRollupService.rebuild();
+            response.put("message", "Sales rollups rebuilt successfully");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("message", "Error rebuilding sales rollups: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> report(int days, String key, Supplier<Object> rows) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("since", salesReportService.since(days));
+            response.put(key, rows.get());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("message", "Error retrieving sales report: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+}
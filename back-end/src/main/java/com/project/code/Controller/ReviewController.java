@@ -3,6 +3,7 @@ package com.project.code.Controller;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.http.HttpStatus;
@@ -39,20 +40,21 @@ public class ReviewController {
         try {
             List<Review> reviews = reviewService.getReviewsByStoreAndProduct(storeId, productId);
 
+            // Get customer names of all reviews with one query
+            Map<Long, String> customerNames = customerRepository.findAllById(reviews.stream()
+                    .map(Review::getCustomerId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()))
+                    .stream()
+                    .collect(Collectors.toMap(Customer::getId, Customer::getName));
+
             List<Map<String, Object>> filteredReviews = reviews.stream()
                     .map(review -> {
                         Map<String, Object> reviewMap = new HashMap<>();
                         reviewMap.put("comment", review.getComment());
                         reviewMap.put("rating", review.getRating());
-
-                        // Get customer name
-                        try {
-                            Customer customer = customerRepository.findById(review.getCustomerId())
-                                    .orElseThrow(() -> new RuntimeException("Customer not found"));
-                            reviewMap.put("customerName", customer.getName());
-                        } catch (Exception e) {
-                            reviewMap.put("customerName", "Unknown Customer");
-                        }
+                        reviewMap.put("customerName",
+                                customerNames.getOrDefault(review.getCustomerId(), "Unknown Customer"));
 
                         return reviewMap;
                     })
@@ -0,0 +1,81 @@
+package com.project.code.Controller;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Service.StockLedgerService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Audit trail of stock changes and point-in-time recovery from it. Sequences
+ * are the ledger's entry numbers as returned by the history; a restore sets
+ * a store's stock back to what it was right after the given entry.
+ */
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/stock-ledger")
+@ConditionalOnProperty(prefix = "ledger", name = "enabled", havingValue = "true")
+public class StockLedgerController {
+
+    private final StockLedgerService stockLedgerService;
+
+    // the changes to one row, newest first
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getHistory(@RequestParam long storeId, @RequestParam long productId,
+            @RequestParam(defaultValue = "100") int limit) {
+        Map<String, Object> response = new HashMap<>();
+        if (limit <= 0) {
+            response.put("message", "Limit must be positive");
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("entries", stockLedgerService.history(storeId, productId, limit));
+        response.put("lastSequence", stockLedgerService.lastSequence());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/levels")
+    public ResponseEntity<Map<String, Object>> getLevelsAt(@RequestParam long storeId, @RequestParam long sequence) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<InventoryUpdateDto> levels = stockLedgerService.levelsAt(storeId, sequence);
+            response.put("sequence", sequence);
+            response.put("levels", levels);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
+    @PostMapping("/restore")
+    public ResponseEntity<Map<String, Object>> restore(@RequestParam long storeId, @RequestParam long sequence) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            InventoryBulkResult result = stockLedgerService.restore(storeId, sequence);
+            response.put("message", "Restored stock of StoreId=" + storeId + " to ledger sequence " + sequence);
+            response.put("counts", result.getCounts());
+            response.put("rejected", result.getRejected());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        } catch (Exception e) {
+            response.put("message", "Error restoring stock: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+}
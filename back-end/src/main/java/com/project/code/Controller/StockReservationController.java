@@ -0,0 +1,93 @@
+package com.project.code.Controller;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.project.code.Model.ReservationRequestDto;
+import com.project.code.Model.StockReservation;
+import com.project.code.Service.StockReservationService;
+import com.project.code.exception.InventoryNotFoundException;
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.ReservationLimitExceededException;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("/api/v1/inventories/reservations")
+public class StockReservationController {
+
+    private final StockReservationService stockReservationService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> reserve(@RequestBody ReservationRequestDto request) {
+        try {
+            Duration ttl = request.ttlSeconds() == null ? null : Duration.ofSeconds(request.ttlSeconds());
+            StockReservation reservation = stockReservationService.reserve(request.storeId(), request.customerEmail(),
+                    request.items(), ttl);
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Stock reserved successfully");
+            response.put("reservation", reservation);
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+
+        } catch (InventoryNotFoundException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+        } catch (InventoryStockInsufficientException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+        } catch (ReservationLimitExceededException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(errorResponse);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+        } catch (Exception e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Error reserving stock: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
+        }
+    }
+
+    @GetMapping("/{reservationId}")
+    public ResponseEntity<Map<String, Object>> getReservation(@PathVariable String reservationId) {
+        Map<String, Object> response = new HashMap<>();
+        return stockReservationService.find(reservationId)
+                .map(reservation -> {
+                    response.put("reservation", reservation);
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> {
+                    response.put("message", "Reservation not found or expired id=" + reservationId);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+                });
+    }
+
+    @DeleteMapping("/{reservationId}")
+    public ResponseEntity<Map<String, Object>> release(@PathVariable String reservationId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!stockReservationService.release(reservationId)) {
+            response.put("message", "Reservation not found or expired id=" + reservationId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+        response.put("message", "Reservation released successfully");
+        return ResponseEntity.ok(response);
+    }
+
+}
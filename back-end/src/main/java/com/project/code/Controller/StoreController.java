@@ -6,6 +6,8 @@ import com.project.code.Model.ApiResponse;
 import com.project.code.Model.OrderDetails;
 import com.project.code.Model.PlaceOrderRequestDTO;
 import com.project.code.Model.StoreDto;
+import com.project.code.Service.GroupCommitOrderIntake;
+import com.project.code.Service.OrderIdempotencyService;
 import com.project.code.Service.OrderService;
 import com.project.code.Service.StoreService;
 
@@ -13,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -24,15 +27,30 @@ public class StoreController {
 
     private final OrderService orderService;
     private final StoreService storeService;
+    private final GroupCommitOrderIntake groupCommitOrderIntake;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     @PostMapping("/placeOrder")
-    public ApiResponse<OrderDetails> placeOrder(@RequestBody PlaceOrderRequestDTO request) {
+    public ApiResponse<OrderDetails> placeOrder(@RequestBody PlaceOrderRequestDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
-        OrderDetails orderDetails = orderService.saveOrder(request);
+        OrderDetails orderDetails = idempotencyKey == null
+                ? submitOrder(request, null)
+                : orderIdempotencyService.placeOrder(idempotencyKey, request,
+                        () -> submitOrder(request, idempotencyKey));
 
         return new ApiResponse<OrderDetails>("success", "Place order successfully", orderDetails);
     }
 
+    private OrderDetails submitOrder(PlaceOrderRequestDTO request, String idempotencyKey) {
+        if (groupCommitOrderIntake.isEnabled()) {
+            return groupCommitOrderIntake.placeOrder(request, idempotencyKey);
+        }
+        return idempotencyKey == null
+                ? orderService.saveOrder(request)
+                : orderService.saveOrder(request, idempotencyKey);
+    }
+
     @PostMapping("/")
     public ApiResponse<Boolean> addStore(@RequestBody StoreDto storeDto) {
         boolean isAdded = storeService.addStore(storeDto);
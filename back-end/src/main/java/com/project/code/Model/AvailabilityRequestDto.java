@@ -0,0 +1,9 @@
+package com.project.code.Model;
+
+import java.util.List;
+
+public record AvailabilityRequestDto(
+        Long storeId,
+        List<StockItemDto> items) {
+
+}
@@ -0,0 +1,4 @@
+package com.project.code.Model;
+
+public record BasketSizeDto(int units, long orders) {
+}
@@ -0,0 +1,80 @@
+package com.project.code.Model;
+
+import java.util.Locale;
+
+import com.project.code.exception.InvalidPageRequestException;
+
+/**
+ * One page of a store's catalog: size products from page * size on, in the
+ * order of sort. sort is a field and an optional direction, e.g. "price,desc";
+ * ties are broken by product id, so pages never overlap.
+ */
+public record CatalogPageRequest(int page, int size, Sort sort, boolean descending) {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 5000;
+
+    public enum Sort {
+        ID("p.id"),
+        NAME("p.name"),
+        CATEGORY("p.category"),
+        PRICE("p.price"),
+        SKU("p.sku"),
+        // the selected total, repeated because JPQL can't order by a constructor argument
+        STOCK_LEVEL("i.stockLevel + COALESCE(SUM(s.stockLevel), 0)");
+
+        private final String expression;
+
+        Sort(String expression) {
+            this.expression = expression;
+        }
+
+        static Sort of(String field) {
+            return switch (field) {
+                case "id" -> ID;
+                case "name" -> NAME;
+                case "category" -> CATEGORY;
+                case "price" -> PRICE;
+                case "sku" -> SKU;
+                case "stockLevel" -> STOCK_LEVEL;
+                default -> throw new InvalidPageRequestException(
+                        "sort must be one of id, name, category, price, sku, stockLevel");
+            };
+        }
+    }
+
+    public static CatalogPageRequest of(Integer page, Integer size, String sort) {
+        int pageNumber = page == null ? 0 : page;
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : size;
+        if (pageNumber < 0) {
+            throw new InvalidPageRequestException("page must not be negative");
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if ((long) pageNumber * pageSize > Integer.MAX_VALUE) {
+            throw new InvalidPageRequestException("page is out of range");
+        }
+        if (sort == null || sort.isBlank()) {
+            return new CatalogPageRequest(pageNumber, pageSize, Sort.ID, false);
+        }
+        String[] parts = sort.split(",", 2);
+        String direction = parts.length > 1 ? parts[1].trim().toLowerCase(Locale.ROOT) : "asc";
+        if (!direction.equals("asc") && !direction.equals("desc")) {
+            throw new InvalidPageRequestException("sort direction must be asc or desc");
+        }
+        return new CatalogPageRequest(pageNumber, pageSize, Sort.of(parts[0].trim()), direction.equals("desc"));
+    }
+
+    public int offset() {
+        return page * size;
+    }
+
+    /** The ORDER BY clause, from whitelisted expressions only. */
+    public String orderBy() {
+        String order = descending ? " DESC" : " ASC";
+        return sort == Sort.ID
+                ? " ORDER BY p.id" + order
+                : " ORDER BY " + sort.expression + order + ", p.id" + order;
+    }
+}
@@ -0,0 +1,4 @@
+package com.project.code.Model;
+
+public record CategorySalesDto(String category, long unitsSold, double revenue) {
+}
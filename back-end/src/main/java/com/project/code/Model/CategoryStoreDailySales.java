@@ -0,0 +1,54 @@
+package com.project.code.Model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Units and revenue of one product category in one store on one day.
+ * Maintained by SalesRollupService with SQL increments, read-only to the ORM.
+ */
+@Getter
+@NoArgsConstructor
+@ToString
+@Entity
+@Immutable
+@IdClass(CategoryStoreDailySales.Key.class)
+@Table(indexes = @Index(columnList = "storeId, salesDate"))
+public class CategoryStoreDailySales {
+
+    @Id
+    private String category;
+
+    @Id
+    private long storeId;
+
+    @Id
+    private LocalDate salesDate;
+
+    private long unitsSold;
+
+    private double revenue;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String category;
+        private long storeId;
+        private LocalDate salesDate;
+    }
+
+}
@@ -6,11 +6,12 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -22,10 +23,15 @@ import lombok.ToString;
 @NoArgsConstructor
 @ToString
 @Entity
+@EntityListeners(CustomerCacheEvictionListener.class)
 public class Customer {
 
+    // ids handed out per value fetched from customer_seq, CustomerResolutionService draws from it as well
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @SequenceGenerator(name = "customer_seq", allocationSize = ID_ALLOCATION_SIZE)
     private long id;
 
     @NotNull(message = "Name cannot be null")
@@ -38,7 +44,7 @@ public class Customer {
     @NotNull(message = "Phone cannot be null")
     private String phone;
 
-    @OneToMany(mappedBy = "customer", fetch = FetchType.EAGER) // A customer can have multiple orders.
+    @OneToMany(mappedBy = "customer") // A customer can have multiple orders.
     @JsonManagedReference("order-customer") // @JsonManagedReference to ensure proper JSON serialization of related
                                             // orders.
     private List<OrderDetails> orderDetails;
@@ -0,0 +1,27 @@
+package com.project.code.Model;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.project.code.Service.CustomerResolutionService;
+
+import jakarta.persistence.PostRemove;
+
+/**
+ * Drops a deleted customer's email from the checkout cache so the next order
+ * with that email creates a new customer instead of pointing at a gone row.
+ */
+public class CustomerCacheEvictionListener {
+
+    // resolved on first use, the service depends on the EntityManagerFactory that creates this listener
+    private final ObjectProvider<CustomerResolutionService> customerResolutionService;
+
+    public CustomerCacheEvictionListener(ObjectProvider<CustomerResolutionService> customerResolutionService) {
+        this.customerResolutionService = customerResolutionService;
+    }
+
+    @PostRemove
+    void evict(Customer customer) {
+        customerResolutionService.ifAvailable(service -> service.evict(customer.getEmail()));
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Idempotency-Key of a placed order, written in the same transaction as the
+ * order so a retried request can be answered with the original order. The
+ * customer and a hash of the request are kept with it, a reuse of the key
+ * for another request is refused instead of answered with this order.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+@Table(indexes = @Index(columnList = "createdAt"))
+public class IdempotencyKey {
+
+    @Id
+    private String idempotencyKey;
+
+    private long orderId;
+
+    private String customerEmail;
+
+    // SHA-256 in hex of what the order was placed from, see OrderIdempotencyService.requestHash
+    @Column(length = 64)
+    private String requestHash;
+
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey(String idempotencyKey, long orderId, String customerEmail, String requestHash) {
+        this.idempotencyKey = idempotencyKey;
+        this.orderId = orderId;
+        this.customerEmail = customerEmail;
+        this.requestHash = requestHash;
+        this.createdAt = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import com.project.code.importer.ImportKind;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * How far a named import got: the records of every committed chunk, written
+ * in that chunk's transaction. An import run again under the same name skips
+ * that many records.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+public class ImportCheckpoint {
+
+    @Id
+    private String name;
+
+    @Enumerated(EnumType.STRING)
+    private ImportKind kind;
+
+    private long rowsCommitted;
+
+    private long rowsApplied;
+
+    private long rowsRejected;
+
+    // the last run reached the end of its input, the next one starts over
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+
+    public ImportCheckpoint(String name, ImportKind kind) {
+        this.name = name;
+        this.kind = kind;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.project.code.Model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.importer.ImportKind;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Outcome of one import run: how many records ended in each status, and the
+ * first rejected records by their row number in the input (the header row
+ * and blank lines not counted).
+ */
+@Getter
+public class ImportResult {
+
+    public record Rejected(long row, Status status, String reason) {
+    }
+
+    private final String name;
+    private final ImportKind kind;
+    // records an earlier run had already committed, skipped by this one
+    private final long resumedFrom;
+    private final Map<Status, Long> counts = new EnumMap<>(Status.class);
+    private final List<Rejected> rejected = new ArrayList<>();
+    private long rejectedCount;
+    @Setter
+    private long rowsRead;
+
+    private final int maxRejectedReported;
+
+    public ImportResult(String name, ImportKind kind, long resumedFrom, int maxRejectedReported) {
+        this.name = name;
+        this.kind = kind;
+        this.resumedFrom = resumedFrom;
+        this.maxRejectedReported = maxRejectedReported;
+    }
+
+    public void add(long row, Status status, String reason) {
+        counts.merge(status, 1L, Long::sum);
+        if (!status.isApplied()) {
+            rejectedCount++;
+            if (rejected.size() < maxRejectedReported) {
+                rejected.add(new Rejected(row, status, reason));
+            }
+        }
+    }
+
+    public long count(Status status) {
+        return counts.getOrDefault(status, 0L);
+    }
+
+}
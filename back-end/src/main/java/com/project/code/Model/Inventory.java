@@ -1,14 +1,21 @@
 package com.project.code.Model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Min;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -24,15 +31,16 @@ import lombok.extern.slf4j.Slf4j;
 public class Inventory implements AutoCloseable {
 
    @Id
-   @GeneratedValue(strategy = GenerationType.IDENTITY)
+   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_seq")
+   @SequenceGenerator(name = "inventory_seq", allocationSize = 50)
    private long id;
 
-   @ManyToOne
+   @ManyToOne(fetch = FetchType.LAZY)
    @JoinColumn(name = "store_id")
    @JsonBackReference("inventory-store")
    private Store store;
 
-   @ManyToOne
+   @ManyToOne(fetch = FetchType.LAZY)
    @JoinColumn(name = "product_id")
    @JsonBackReference("inventory-product")
    private Product product;
@@ -40,6 +48,21 @@ public class Inventory implements AutoCloseable {
    @Min(value = 0, message = "Stock level cannot be negative")
    private int stockLevel;
 
+   // > 0 when the stock of this row is split across InventoryShard rows (hot-SKU mode),
+   // the total is then stockLevel plus the sum of the shards
+   private int shardCount;
+
+   // bumped by every write, so a write based on an older read of the row fails instead of overwriting it
+   @Version
+   @Column(nullable = false)
+   private long version;
+
+   // whether a request body carried the version it read, a missing one reads as 0
+   @Transient
+   @JsonIgnore
+   @Setter(AccessLevel.NONE)
+   private boolean versionGiven;
+
    public Inventory(Store store, Product product, int stockLevel) {
       if (stockLevel < 0) {
          throw new IllegalArgumentException("Stock level cannot be negative");
@@ -49,6 +72,11 @@ public class Inventory implements AutoCloseable {
       this.stockLevel = stockLevel;
    }
 
+   public void setVersion(long version) {
+      this.version = version;
+      this.versionGiven = true;
+   }
+
    public void setStockLevel(int stockLevel) {
       if (stockLevel < 0) {
          throw new IllegalArgumentException("Stock level cannot be negative");
@@ -56,6 +84,11 @@ public class Inventory implements AutoCloseable {
       this.stockLevel = stockLevel;
    }
 
+   @JsonIgnore
+   public boolean isSharded() {
+      return shardCount > 0;
+   }
+
    @Override
    public void close() throws Exception {
       log.debug("Inventory object is closed");
@@ -0,0 +1,53 @@
+package com.project.code.Model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Outcome of a bulk inventory update: how many entries ended in each status,
+ * and the entries that were not applied with their position in the request.
+ */
+@Getter
+public class InventoryBulkResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        // the row already had this stock level, nothing was written
+        UNCHANGED,
+        // the row was written by another request between the lookup and the update, send the entry again
+        CONFLICT,
+        // storeId, productId or stockLevel missing, or a negative stockLevel
+        INVALID,
+        // the same store and product came earlier in the request, only the first one counts
+        DUPLICATE,
+        STORE_NOT_FOUND,
+        PRODUCT_NOT_FOUND;
+
+        public boolean isApplied() {
+            return this == CREATED || this == UPDATED || this == UNCHANGED;
+        }
+    }
+
+    public record Rejected(int index, Long storeId, Long productId, Status status) {
+    }
+
+    private final Map<Status, Integer> counts = new EnumMap<>(Status.class);
+    private final List<Rejected> rejected = new ArrayList<>();
+
+    public void add(int index, InventoryUpdateDto entry, Status status) {
+        counts.merge(status, 1, Integer::sum);
+        if (!status.isApplied()) {
+            rejected.add(new Rejected(index, entry.storeId(), entry.productId(), status));
+        }
+    }
+
+    public int count(Status status) {
+        return counts.getOrDefault(status, 0);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.project.code.Model;
+
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.validation.constraints.Min;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One bucket of a hot inventory row. Checkouts deduct from a single bucket so
+ * concurrent orders of the same SKU don't queue behind one row lock.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = { "inventory_id", "shard_index" }))
+public class InventoryShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_shard_seq")
+    @SequenceGenerator(name = "inventory_shard_seq", allocationSize = 50)
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "inventory_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    private Inventory inventory;
+
+    private int shardIndex;
+
+    @Min(value = 0, message = "Stock level cannot be negative")
+    private int stockLevel;
+
+    public InventoryShard(Inventory inventory, int shardIndex, int stockLevel) {
+        this.inventory = inventory;
+        this.shardIndex = shardIndex;
+        this.stockLevel = stockLevel;
+    }
+
+}
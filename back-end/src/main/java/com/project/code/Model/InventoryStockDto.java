@@ -0,0 +1,5 @@
+package com.project.code.Model;
+
+/** The current stock columns of one inventory row, read back after a version conflict. */
+public record InventoryStockDto(int stockLevel, long version, int shardCount) {
+}
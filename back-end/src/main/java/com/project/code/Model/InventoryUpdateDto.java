@@ -0,0 +1,5 @@
+package com.project.code.Model;
+
+/** One entry of a bulk inventory update: the stock level to set for a product in a store. */
+public record InventoryUpdateDto(Long storeId, Long productId, Integer stockLevel) {
+}
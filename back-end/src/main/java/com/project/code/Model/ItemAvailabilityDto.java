@@ -0,0 +1,8 @@
+package com.project.code.Model;
+
+/**
+ * Availability of one product of a cart: the stock not held by reservations
+ * against the quantity asked for, summed over the cart's lines of the product.
+ */
+public record ItemAvailabilityDto(Long productId, int requestedQuantity, int availableStock, boolean available) {
+}
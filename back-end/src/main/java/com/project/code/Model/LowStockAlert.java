@@ -0,0 +1,18 @@
+package com.project.code.Model;
+
+import java.time.Instant;
+
+/**
+ * Stock of a product in a store crossed its reorder point: LOW when it fell
+ * to the reorder level, RECOVERED when it came back to the clear level. Ids
+ * increase in the order the alerts were raised.
+ */
+public record LowStockAlert(long id, Type type, long storeId, long productId, int stockLevel, int reorderLevel,
+        Instant raisedAt) {
+
+    public enum Type {
+        LOW,
+        RECOVERED
+    }
+
+}
@@ -12,9 +12,12 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -25,23 +28,30 @@ import lombok.ToString;
 @NoArgsConstructor
 @ToString
 @Entity
+// keyset pages of the order history walk these newest first
+@Table(indexes = {
+        @Index(columnList = "store_id, orderDate, id"),
+        @Index(columnList = "customer_id, orderDate, id"),
+        @Index(columnList = "orderDate, id")
+})
 public class OrderDetails {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_details_seq")
+    @SequenceGenerator(name = "order_details_seq", allocationSize = 50)
     private long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     @JsonBackReference("order-customer") // to handle bidirectional relationships and JSON serialization.
     private Customer customer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "store_id")
     @JsonBackReference // to handle bidirectional relationships and JSON serialization.
     private Store store;
 
-    @OneToMany(mappedBy = "order", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "order")
     @JsonManagedReference("order-orderItems")
     private List<OrderItem> orderItems;
 
@@ -0,0 +1,35 @@
+package com.project.code.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.project.code.exception.InvalidPageRequestException;
+
+/**
+ * Keyset position in the order history: the (orderDate, id) of the last order
+ * on the previous page. Handed to clients as an opaque url-safe token.
+ */
+public record OrderPageCursor(LocalDateTime orderDate, long orderId) {
+
+    public static OrderPageCursor after(OrderSummaryDto order) {
+        return new OrderPageCursor(order.orderDate(), order.orderId());
+    }
+
+    public String encode() {
+        String raw = orderDate + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderPageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new OrderPageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new InvalidPageRequestException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.domain.Limit;
+
+import com.project.code.exception.InvalidPageRequestException;
+
+/**
+ * One page of the order history: orders with from <= orderDate < to that come
+ * after the cursor, newest first.
+ */
+public record OrderPageRequest(LocalDateTime from, LocalDateTime afterDate, long afterId, int limit) {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 5000;
+
+    // widest range both H2 and MySQL DATETIME columns accept
+    private static final LocalDateTime MIN_DATE = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public static OrderPageRequest of(LocalDateTime from, LocalDateTime to, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : limit;
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidPageRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        LocalDateTime lower = from == null ? MIN_DATE : from;
+        LocalDateTime upper = to == null ? MAX_DATE : to;
+        if (!lower.isBefore(upper)) {
+            throw new InvalidPageRequestException("from must be before to");
+        }
+        if (cursor == null || cursor.isBlank()) {
+            // id 0 keeps the upper bound exclusive
+            return new OrderPageRequest(lower, upper, 0, pageSize);
+        }
+        OrderPageCursor position = OrderPageCursor.decode(cursor);
+        return new OrderPageRequest(lower, position.orderDate(), position.orderId(), pageSize);
+    }
+
+    /** One row more than the page, its presence tells whether a next page exists. */
+    public Limit fetchLimit() {
+        return Limit.of(limit + 1);
+    }
+}
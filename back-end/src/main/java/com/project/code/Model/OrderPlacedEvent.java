@@ -0,0 +1,16 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * An order was placed, published in the transaction that saved it.
+ */
+public record OrderPlacedEvent(long orderId, long storeId, long customerId, double totalPrice,
+        LocalDateTime orderDate, List<Line> lines) {
+
+    // category travels with the line so per-category consumers need no product lookup
+    public record Line(long productId, String category, int quantity, double price) {
+    }
+
+}
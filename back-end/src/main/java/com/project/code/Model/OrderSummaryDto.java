@@ -0,0 +1,19 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * One row of the order history, built by the query's constructor expression
+ * so no OrderDetails entity (or its lines) is loaded into the persistence context.
+ */
+public record OrderSummaryDto(
+        long orderId,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime orderDate,
+        long storeId,
+        long customerId,
+        String customerName,
+        double totalPrice,
+        long itemCount) {
+}
@@ -0,0 +1,51 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.MapKeyColumn;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * How far a consumer has got through the outbox: the highest event id it has
+ * processed, and the ids below that which were still missing when it did.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+public class OutboxCursor {
+
+    @Id
+    private String consumer;
+
+    private long lastEventId;
+
+    // skipped ids and the creation time of the event that skipped them; one can still commit late
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "outbox_cursor_gap", joinColumns = @JoinColumn(name = "consumer"))
+    @MapKeyColumn(name = "event_id")
+    @Column(name = "skipped_at")
+    private Map<Long, LocalDateTime> gaps = new HashMap<>();
+
+    private LocalDateTime updatedAt;
+
+    public OutboxCursor(String consumer, long lastEventId) {
+        this.consumer = consumer;
+        this.lastEventId = lastEventId;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+}
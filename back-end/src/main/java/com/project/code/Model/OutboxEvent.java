@@ -0,0 +1,50 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.SequenceGenerator;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A domain event waiting for delivery, written in the same transaction as the
+ * change it describes. The relay hands events to subscribers in id order,
+ * except one whose transaction commits after a later event's, which follows
+ * once it has committed.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @SequenceGenerator(name = "outbox_event_seq", allocationSize = 50)
+    private long id;
+
+    @Column(nullable = false, length = 64)
+    private String eventType;
+
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+
+    private LocalDateTime createdAt;
+
+    public OutboxEvent(String eventType, String payload) {
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.project.code.Model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Random id of the outbox, its one row created on first use. Outbox event
+ * ids kept outside the database are only meaningful next to it: a recreated
+ * database gets a new one, and its event ids start over.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+@Entity
+public class OutboxIdentity {
+
+    @Id
+    private String id;
+
+    private LocalDateTime createdAt;
+
+    public OutboxIdentity(String id) {
+        this.id = id;
+        this.createdAt = LocalDateTime.now();
+    }
+
+}
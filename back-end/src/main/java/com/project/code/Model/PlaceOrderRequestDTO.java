@@ -15,6 +15,7 @@ public class PlaceOrderRequestDTO {
     private String datetime;
     private List<PurchaseProductDTO> purchaseProduct;
     private Double totalPrice;
+    private String reservationId;
 
     public PlaceOrderRequestDTO(Long storeId, String customerName, String customerEmail, String customerPhone,
             String datetime, List<PurchaseProductDTO> purchaseProduct) {
@@ -81,4 +82,12 @@ public class PlaceOrderRequestDTO {
     public void setTotalPrice(Double totalPrice) {
         this.totalPrice = totalPrice;
     }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
 }
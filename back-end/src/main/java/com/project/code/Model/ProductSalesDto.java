@@ -0,0 +1,4 @@
+package com.project.code.Model;
+
+public record ProductSalesDto(long productId, String productName, long unitsSold, double revenue) {
+}
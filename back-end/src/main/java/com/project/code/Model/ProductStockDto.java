@@ -0,0 +1,5 @@
+package com.project.code.Model;
+
+/** Total stock of one product in a store, the shard buckets of a hot SKU included. */
+public record ProductStockDto(Long productId, Long stockLevel) {
+}
@@ -0,0 +1,48 @@
+package com.project.code.Model;
+
+import java.io.Serializable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Reorder point of one product in one store: stock at or below reorderLevel
+ * raises a low-stock alert, and only stock back at clearLevel or above ends
+ * it, so a level moving around the reorder point doesn't raise one alert
+ * after another.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+@Entity
+@IdClass(ReorderThreshold.Key.class)
+public class ReorderThreshold {
+
+    @Id
+    private long storeId;
+
+    @Id
+    private long productId;
+
+    private int reorderLevel;
+
+    private int clearLevel;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private long storeId;
+        private long productId;
+    }
+
+}
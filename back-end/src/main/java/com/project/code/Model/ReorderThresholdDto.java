@@ -0,0 +1,5 @@
+package com.project.code.Model;
+
+/** A reorder point to set; clearLevel defaults to reorderLevel plus alerts.default-hysteresis. */
+public record ReorderThresholdDto(Long storeId, Long productId, Integer reorderLevel, Integer clearLevel) {
+}
@@ -0,0 +1,12 @@
+package com.project.code.Model;
+
+import java.util.List;
+
+public record ReservationRequestDto(
+        Long storeId,
+        Long ttlSeconds,
+        List<StockItemDto> items,
+        // optional, caps the holds of one customer when given
+        String customerEmail) {
+
+}
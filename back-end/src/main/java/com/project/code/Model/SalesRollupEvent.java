@@ -0,0 +1,26 @@
+package com.project.code.Model;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Outbox event already added to the sales rollups. Written by
+ * SalesRollupService in the same transaction as the increments, so an event
+ * the relay hands over again is not counted twice. Read-only to the ORM.
+ */
+@Getter
+@NoArgsConstructor
+@ToString
+@Entity
+@Immutable
+public class SalesRollupEvent {
+
+    @Id
+    private long eventId;
+
+}
@@ -0,0 +1,21 @@
+package com.project.code.Model;
+
+/**
+ * Stock of one product in one store went up or down by delta. stockLevel is
+ * the level after the change when the writer knew it, null otherwise (guarded
+ * decrements and sharded rows don't read the row back). reason is null in
+ * events written before it was added.
+ */
+public record StockChangedEvent(long storeId, long productId, int delta, Integer stockLevel, Reason reason) {
+
+    public enum Reason {
+        SALE,
+        // stock taken in, or a new row's first stock
+        RESTOCK,
+        // a level set by hand, a bulk update or an import
+        ADJUSTMENT,
+        // moved between stores, one event for each side
+        TRANSFER
+    }
+
+}
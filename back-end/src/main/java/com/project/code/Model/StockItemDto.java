@@ -0,0 +1,5 @@
+package com.project.code.Model;
+
+public record StockItemDto(Long productId, Integer quantity) {
+
+}
@@ -0,0 +1,16 @@
+package com.project.code.Model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Stock held for a cart or checkout session. Lives in memory only, quantities
+ * are keyed by productId.
+ */
+public record StockReservation(
+        String id,
+        long storeId,
+        Map<Long, Integer> quantities,
+        Instant expiresAt) {
+
+}
@@ -0,0 +1,52 @@
+package com.project.code.Model;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Orders, units and revenue of one store on one day. Maintained by
+ * SalesRollupService with SQL increments, read-only to the ORM.
+ */
+@Getter
+@NoArgsConstructor
+@ToString
+@Entity
+@Immutable
+@IdClass(StoreDailySales.Key.class)
+@Table(indexes = @Index(columnList = "salesDate"))
+public class StoreDailySales {
+
+    @Id
+    private long storeId;
+
+    @Id
+    private LocalDate salesDate;
+
+    private long orderCount;
+
+    private long unitsSold;
+
+    private double revenue;
+
+    @EqualsAndHashCode
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private long storeId;
+        private LocalDate salesDate;
+    }
+
+}
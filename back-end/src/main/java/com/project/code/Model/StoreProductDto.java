@@ -0,0 +1,12 @@
+package com.project.code.Model;
+
+// a product a store stocks, with its total stock there (sharded rows summed)
+public record StoreProductDto(
+        Long id,
+        String name,
+        String category,
+        Double price,
+        String sku,
+        Long stockLevel) {
+
+}
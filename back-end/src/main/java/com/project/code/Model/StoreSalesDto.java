@@ -0,0 +1,4 @@
+package com.project.code.Model;
+
+public record StoreSalesDto(long storeId, String storeName, long orderCount, long unitsSold, double revenue) {
+}
@@ -0,0 +1,23 @@
+package com.project.code.Repo;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.CategoryStoreDailySales;
+
+@Repository
+public interface CategoryStoreDailySalesRepository
+        extends JpaRepository<CategoryStoreDailySales, CategoryStoreDailySales.Key> {
+
+    @Query("SELECT new com.project.code.Model.CategorySalesDto(s.category, SUM(s.unitsSold), SUM(s.revenue))"
+            + " FROM CategoryStoreDailySales s WHERE s.storeId = :storeId AND s.salesDate >= :since"
+            + " GROUP BY s.category ORDER BY SUM(s.revenue) DESC")
+    List<CategorySalesDto> sumByCategorySince(@Param("storeId") long storeId, @Param("since") LocalDate since);
+
+}
@@ -4,15 +4,30 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.project.code.Model.Customer;
 
+import jakarta.persistence.LockModeType;
+
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByEmail(String email);
 
+    // the id alone, without loading the customer and its order history
+    @Query("SELECT c.id FROM Customer c WHERE c.email = :email")
+    Optional<Long> findIdByEmail(@Param("email") String email);
+
+    // a locking read sees the row a concurrent transaction committed after this one's snapshot (MySQL's
+    // repeatable read); FOR SHARE where the dialect has it, FOR UPDATE otherwise
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c.id FROM Customer c WHERE c.email = :email")
+    Optional<Long> findIdByEmailForShare(@Param("email") String email);
+
     List<Customer> findByName(String name);
 
 }
@@ -1,29 +1,85 @@
 package com.project.code.Repo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryStockDto;
 import com.project.code.Model.Product;
+import com.project.code.Model.ProductStockDto;
 import com.project.code.Model.Store;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     Optional<Inventory> findByStoreAndProduct(Store store, Product product);
 
-    List<Inventory> findByStoreId(Long storeId);
+    List<Inventory> findByStoreIdAndProductIdIn(Long storeId, Collection<Long> productIds);
 
     @Modifying
     @Transactional
     @Query("DELETE FROM Inventory i WHERE i.product.id = :productId")
     void deleteByProductId(@Param("productId") Long productId);
 
+    Optional<Inventory> findByStoreIdAndProductId(Long storeId, Long productId);
+
+    // one statement for a whole cart, the buckets of sharded rows summed in the same query
+    @Query("SELECT new com.project.code.Model.ProductStockDto(i.product.id, i.stockLevel + "
+            + "COALESCE((SELECT SUM(s.stockLevel) FROM InventoryShard s WHERE s.inventory = i), 0)) "
+            + "FROM Inventory i WHERE i.store.id = :storeId AND i.product.id IN :productIds")
+    List<ProductStockDto> findStockLevels(@Param("storeId") Long storeId,
+            @Param("productIds") Collection<Long> productIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.store.id = :storeId AND i.product.id = :productId")
+    Optional<Inventory> findForUpdate(@Param("storeId") Long storeId, @Param("productId") Long productId);
+
+    // locks the rows in productId order, so two baskets naming the same products can't each hold a row the
+    // other waits for. Databases without a per-statement lock timeout (H2, MySQL) use their session timeout.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000"))
+    @Query("SELECT i FROM Inventory i WHERE i.store.id = :storeId AND i.product.id IN :productIds "
+            + "ORDER BY i.product.id")
+    List<Inventory> findForUpdateOrderByProductId(@Param("storeId") Long storeId,
+            @Param("productIds") Collection<Long> productIds);
+
+    // deducts only when at least requiredStock remains (the quantity plus what other carts hold),
+    // returns the affected row count (0 or 1). Sharded rows never match, their stock lives in InventoryShard.
+    @Modifying
+    @Transactional
+    @Query("UPDATE Inventory i SET i.stockLevel = i.stockLevel - :quantity, i.version = i.version + 1 "
+            + "WHERE i.store.id = :storeId AND i.product.id = :productId AND i.shardCount = 0 "
+            + "AND i.stockLevel >= :requiredStock")
+    int decrementStock(@Param("storeId") Long storeId,
+            @Param("productId") Long productId,
+            @Param("quantity") int quantity,
+            @Param("requiredStock") int requiredStock);
+
+    // compare-and-set against the version the row was read with, returns 0 when another
+    // transaction wrote the row since
+    @Modifying
+    @Transactional
+    @Query("UPDATE Inventory i SET i.stockLevel = :stockLevel, i.version = i.version + 1 "
+            + "WHERE i.id = :id AND i.version = :version")
+    int updateStockLevel(@Param("id") Long id, @Param("version") Long version, @Param("stockLevel") int stockLevel);
+
+    // a locking read sees the latest committed row even under REPEATABLE READ and keeps it until commit
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.project.code.Model.InventoryStockDto(i.stockLevel, i.version, i.shardCount) "
+            + "FROM Inventory i WHERE i.id = :id")
+    Optional<InventoryStockDto> findStockForUpdate(@Param("id") Long id);
+
 }
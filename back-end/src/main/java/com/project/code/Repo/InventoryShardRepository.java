@@ -0,0 +1,43 @@
+package com.project.code.Repo;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.code.Model.InventoryShard;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface InventoryShardRepository extends JpaRepository<InventoryShard, Long> {
+
+    List<InventoryShard> findByInventoryIdOrderByShardIndex(Long inventoryId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InventoryShard s WHERE s.inventory.id = :inventoryId ORDER BY s.shardIndex")
+    List<InventoryShard> findForUpdateByInventoryId(@Param("inventoryId") Long inventoryId);
+
+    @Query("SELECT COALESCE(SUM(s.stockLevel), 0) FROM InventoryShard s WHERE s.inventory.id = :inventoryId")
+    int sumStockLevel(@Param("inventoryId") Long inventoryId);
+
+    // deducts only when the bucket holds enough stock, returns the affected row count (0 or 1)
+    @Modifying
+    @Transactional
+    @Query("UPDATE InventoryShard s SET s.stockLevel = s.stockLevel - :quantity "
+            + "WHERE s.inventory.id = :inventoryId AND s.shardIndex = :shardIndex AND s.stockLevel >= :quantity")
+    int decrementStock(@Param("inventoryId") Long inventoryId,
+            @Param("shardIndex") int shardIndex,
+            @Param("quantity") int quantity);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM InventoryShard s WHERE s.inventory.id = :inventoryId")
+    void deleteByInventoryId(@Param("inventoryId") Long inventoryId);
+
+}
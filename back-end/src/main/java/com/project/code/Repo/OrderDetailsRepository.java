@@ -1,11 +1,58 @@
 package com.project.code.Repo;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderSummaryDto;
+
+import jakarta.persistence.QueryHint;
 
 @Repository
 public interface OrderDetailsRepository extends JpaRepository<OrderDetails, Long> {
 
+    String ORDER_SUMMARY = "SELECT new com.project.code.Model.OrderSummaryDto(o.id, o.orderDate, o.store.id, c.id, c.name,"
+            + " o.totalPrice, (SELECT COUNT(i) FROM OrderItem i WHERE i.order = o))"
+            + " FROM OrderDetails o JOIN o.customer c";
+
+    // rows strictly after the cursor, newest first; the first page passes the upper date bound and id 0
+    String AFTER_CURSOR = " AND o.orderDate >= :from"
+            + " AND (o.orderDate < :afterDate OR (o.orderDate = :afterDate AND o.id < :afterId))"
+            + " ORDER BY o.orderDate DESC, o.id DESC";
+
+    // the order as placeOrder returns it, with its lines
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<OrderDetails> findWithItemsById(Long id);
+
+    @Query(ORDER_SUMMARY + " WHERE o.id = :orderId")
+    Optional<OrderSummaryDto> findSummaryById(@Param("orderId") long orderId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ORDER_SUMMARY + " WHERE o.store.id = :storeId" + AFTER_CURSOR)
+    Stream<OrderSummaryDto> streamSummariesByStore(@Param("storeId") long storeId,
+            @Param("from") LocalDateTime from, @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ORDER_SUMMARY + " WHERE c.id = :customerId" + AFTER_CURSOR)
+    Stream<OrderSummaryDto> streamSummariesByCustomer(@Param("customerId") long customerId,
+            @Param("from") LocalDateTime from, @Param("afterDate") LocalDateTime afterDate,
+            @Param("afterId") long afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ORDER_SUMMARY + " WHERE 1 = 1" + AFTER_CURSOR)
+    Stream<OrderSummaryDto> streamSummaries(@Param("from") LocalDateTime from,
+            @Param("afterDate") LocalDateTime afterDate, @Param("afterId") long afterId, Limit limit);
+
 }
@@ -0,0 +1,11 @@
+package com.project.code.Repo;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.project.code.Model.OutboxCursor;
+
+@Repository
+public interface OutboxCursorRepository extends JpaRepository<OutboxCursor, String> {
+
+}
@@ -0,0 +1,29 @@
+package com.project.code.Repo;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.project.code.Model.OutboxEvent;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByIdGreaterThanOrderById(long id, Limit limit);
+
+    List<OutboxEvent> findByIdGreaterThanOrIdInOrderById(long id, Collection<Long> ids, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.id <= :maxId AND e.createdAt < :createdBefore")
+    int deleteDelivered(@Param("maxId") long maxId, @Param("createdBefore") LocalDateTime createdBefore);
+
+}
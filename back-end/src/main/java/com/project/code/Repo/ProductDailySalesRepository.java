@@ -0,0 +1,23 @@
+package com.project.code.Repo;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.project.code.Model.ProductDailySales;
+import com.project.code.Model.ProductSalesDto;
+
+@Repository
+public interface ProductDailySalesRepository extends JpaRepository<ProductDailySales, ProductDailySales.Key> {
+
+    @Query("SELECT new com.project.code.Model.ProductSalesDto(s.productId, p.name, SUM(s.unitsSold), SUM(s.revenue))"
+            + " FROM ProductDailySales s JOIN Product p ON p.id = s.productId"
+            + " WHERE s.salesDate >= :since GROUP BY s.productId, p.name ORDER BY SUM(s.unitsSold) DESC, s.productId")
+    List<ProductSalesDto> findTopSellingSince(@Param("since") LocalDate since, Limit limit);
+
+}
@@ -2,6 +2,7 @@ package com.project.code.Repo;
 
 import java.util.List;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -19,16 +20,33 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     Product findByName(String name);
 
+    @EntityGraph(attributePaths = "inventories")
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:pname% AND EXISTS (SELECT i FROM Inventory i WHERE i.product = p AND i.store.id = :storeId)")
     List<Product> findByNameLike(Long storeId, String pname);
 
     @Query("SELECT p FROM Product p WHERE p.category = :category")
     List<Product> findProductByCategory(String category);
 
+    @EntityGraph(attributePaths = "inventories")
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:subName% AND p.category = :category")
     List<Product> findProductBySubNameAndCategory(String subName, String category);
 
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:subName%")
     List<Product> findProductBySubName(String subName);
 
+    @Query("SELECT p FROM Product p WHERE p.category = :category AND EXISTS (SELECT i FROM Inventory i WHERE i.product = p AND i.store.id = :storeId)")
+    List<Product> findByCategoryAndStoreId(String category, Long storeId);
+
+    // variants for endpoints that serialize Product entities, inventories come in the same query
+
+    @EntityGraph(attributePaths = "inventories")
+    List<Product> findAllWithInventoriesBy();
+
+    @EntityGraph(attributePaths = "inventories")
+    List<Product> findWithInventoriesByCategory(String category);
+
+    @EntityGraph(attributePaths = "inventories")
+    @Query("SELECT p FROM Product p WHERE p.name LIKE %:subName%")
+    List<Product> findWithInventoriesBySubName(String subName);
+
 }
@@ -0,0 +1,24 @@
+package com.project.code.Repo;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.project.code.Model.StoreDailySales;
+import com.project.code.Model.StoreSalesDto;
+
+@Repository
+public interface StoreDailySalesRepository extends JpaRepository<StoreDailySales, StoreDailySales.Key> {
+
+    @Query("SELECT new com.project.code.Model.StoreSalesDto(s.storeId, st.name, SUM(s.orderCount), SUM(s.unitsSold),"
+            + " SUM(s.revenue)) FROM StoreDailySales s JOIN Store st ON st.id = s.storeId"
+            + " WHERE s.salesDate >= :since GROUP BY s.storeId, st.name ORDER BY SUM(s.revenue) DESC")
+    List<StoreSalesDto> sumByStoreSince(@Param("since") LocalDate since);
+
+    List<StoreDailySales> findByStoreIdAndSalesDateGreaterThanEqualOrderBySalesDate(long storeId, LocalDate since);
+
+}
@@ -0,0 +1,266 @@
+package com.project.code.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.BasketSizeDto;
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.OrderPlacedEvent;
+import com.project.code.Model.Product;
+import com.project.code.Model.ProductSalesDto;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.analytics.OrderLineColumns;
+import com.project.code.archive.ArchivedOrder;
+import com.project.code.config.AnalyticsProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ad-hoc sales analytics answered from an in-memory columnar copy of the
+ * order lines, without touching the database. The copy is bulk loaded from
+ * the database and the order archive at startup and on every reload; orders
+ * placed in between arrive through the outbox and are appended on the next
+ * refresh.
+ */
+@Slf4j
+@Service
+public class AnalyticsService implements OutboxSubscriber {
+
+    // in order id order, so the loaded orders can be binary searched when outbox events are replayed
+    private static final String LOAD_LINES = """
+            SELECT o.id, o.store_id, o.order_date, i.product_id, p.name, p.category, i.quantity, i.price
+            FROM order_details o
+            JOIN order_item i ON i.order_id = o.id
+            JOIN product p ON p.id = i.product_id
+            ORDER BY o.id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final AnalyticsProperties analyticsProperties;
+    private final Queue<OrderPlacedEvent> placedOrders = new ConcurrentLinkedQueue<>();
+    // one writer at a time: the startup load, the scheduled reload and the refresh
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // orders appended by refresh since the last load, the load itself is checked by binary search
+    private final Set<Long> appendedOrders = new HashSet<>();
+
+    private OrderLineColumns.Builder builder;
+    private volatile OrderLineColumns columns = OrderLineColumns.empty();
+    private volatile LocalDateTime loadedAt;
+
+    public AnalyticsService(JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+            OrderArchiveService orderArchiveService, AnalyticsProperties analyticsProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.orderArchiveService = orderArchiveService;
+        this.analyticsProperties = analyticsProperties;
+    }
+
+    @Override
+    public String consumerName() {
+        return "analytics";
+    }
+
+    @Override
+    public void handle(long eventId, Object event) {
+        if (analyticsProperties.isEnabled() && event instanceof OrderPlacedEvent orderPlaced) {
+            placedOrders.add(orderPlaced);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (analyticsProperties.isEnabled()) {
+            reload();
+        }
+    }
+
+    // a full reload also drops orders deleted since the last one
+    @Scheduled(fixedDelayString = "${analytics.reload-interval-millis:3600000}",
+            initialDelayString = "${analytics.reload-interval-millis:3600000}")
+    public void scheduledReload() {
+        if (analyticsProperties.isEnabled()) {
+            reload();
+        }
+    }
+
+    /** Replaces the in-memory copy with every order line in the database and the archive. */
+    public void reload() {
+        writeLock.lock();
+        try {
+            long started = System.nanoTime();
+            // presized so the load doesn't copy the columns while they grow
+            int lines = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_item", Integer.class);
+            int orders = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_details", Integer.class);
+            OrderLineColumns.Builder loading = new OrderLineColumns.Builder(
+                    lines + (int) orderArchiveService.lineCount(), orders + (int) orderArchiveService.orderCount());
+            long[] currentOrder = { Long.MIN_VALUE };
+
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_LINES,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(analyticsProperties.getFetchSize());
+                return statement;
+            }, row -> {
+                long orderId = row.getLong(1);
+                if (orderId != currentOrder[0]) {
+                    loading.addOrder(orderId, row.getLong(2),
+                            (int) row.getTimestamp(3).toLocalDateTime().toLocalDate().toEpochDay());
+                    currentOrder[0] = orderId;
+                }
+                loading.addLine(row.getLong(4), row.getString(5), row.getString(6), row.getInt(7),
+                        Math.round(row.getDouble(8) * 100));
+            });
+            loading.markLoaded();
+            addArchived(loading);
+
+            builder = loading;
+            // the database now has every order appended before the load
+            appendedOrders.clear();
+            loadedAt = LocalDateTime.now();
+            columns = loading.snapshot();
+            log.info("Loaded {} order lines of {} orders for analytics in {} ms", columns.lineCount(),
+                    columns.orderCount(), (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            writeLock.unlock();
+        }
+        refresh();
+    }
+
+    /** Appends the orders delivered by the outbox since the last refresh. */
+    @Scheduled(fixedDelayString = "${analytics.refresh-interval-millis:1000}")
+    public void refresh() {
+        if (placedOrders.isEmpty() || !writeLock.tryLock()) {
+            return;
+        }
+        try {
+            if (builder == null) {
+                // not loaded yet, the load will pick these orders up from the database
+                return;
+            }
+            List<OrderPlacedEvent> batch = new ArrayList<>();
+            OrderPlacedEvent event;
+            while ((event = placedOrders.poll()) != null) {
+                // the outbox delivers at least once: an order may already have been read by the bulk
+                // load or appended by an earlier refresh, or come twice in this batch
+                if (!builder.isLoaded(event.orderId()) && appendedOrders.add(event.orderId())) {
+                    batch.add(event);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            Map<Long, String> newProductNames = newProductNames(batch);
+            for (OrderPlacedEvent order : batch) {
+                builder.addOrder(order.orderId(), order.storeId(), (int) order.orderDate().toLocalDate().toEpochDay());
+                for (OrderPlacedEvent.Line line : order.lines()) {
+                    builder.addLine(line.productId(), newProductNames.get(line.productId()), line.category(),
+                            line.quantity(), Math.round(line.price() * 100));
+                }
+            }
+            columns = builder.snapshot();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public OrderLineColumns columns() {
+        return columns;
+    }
+
+    public LocalDateTime loadedAt() {
+        return loadedAt;
+    }
+
+    public List<ProductSalesDto> topSellers(Long storeId, LocalDate from, LocalDate to, int limit) {
+        OrderLineColumns snapshot = columns;
+        return snapshot.topSellers(filter(snapshot, storeId, from, to), limit);
+    }
+
+    public List<CategorySalesDto> revenueByCategory(Long storeId, LocalDate from, LocalDate to) {
+        OrderLineColumns snapshot = columns;
+        return snapshot.revenueByCategory(filter(snapshot, storeId, from, to));
+    }
+
+    public List<BasketSizeDto> basketSizes(Long storeId, LocalDate from, LocalDate to) {
+        OrderLineColumns snapshot = columns;
+        long[] histogram = snapshot.basketSizeHistogram(filter(snapshot, storeId, from, to));
+        List<BasketSizeDto> basketSizes = new ArrayList<>();
+        for (int units = 0; units < histogram.length; units++) {
+            if (histogram[units] > 0) {
+                basketSizes.add(new BasketSizeDto(units, histogram[units]));
+            }
+        }
+        return basketSizes;
+    }
+
+    private OrderLineColumns.Filter filter(OrderLineColumns snapshot, Long storeId, LocalDate from, LocalDate to) {
+        return snapshot.filter(storeId,
+                from == null ? Integer.MIN_VALUE : (int) from.toEpochDay(),
+                to == null ? Integer.MAX_VALUE : (int) to.toEpochDay());
+    }
+
+    // after the sorted prefix; orders archived but not trimmed yet were already read from the database
+    private void addArchived(OrderLineColumns.Builder loading) {
+        if (orderArchiveService.orderCount() == 0) {
+            return;
+        }
+        Map<Long, Product> products = productRepository.findAll().stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        try (Stream<ArchivedOrder> archived = orderArchiveService.orders()) {
+            archived.filter(order -> !loading.isLoaded(order.orderId())).forEach(order -> {
+                // like the database load, which joins product, lines of deleted products are left out
+                List<ArchivedOrder.Line> lines = order.lines().stream()
+                        .filter(line -> products.containsKey(line.productId()))
+                        .toList();
+                if (lines.isEmpty()) {
+                    return;
+                }
+                loading.addOrder(order.orderId(), order.storeId(), (int) order.orderDate().toLocalDate().toEpochDay());
+                for (ArchivedOrder.Line line : lines) {
+                    Product product = products.get(line.productId());
+                    loading.addLine(line.productId(), product.getName(), product.getCategory(), line.quantity(),
+                            Math.round(line.price() * 100));
+                }
+            });
+        }
+    }
+
+    // names of products the columns haven't seen yet, one query for the whole batch
+    private Map<Long, String> newProductNames(List<OrderPlacedEvent> batch) {
+        Set<Long> unknown = new HashSet<>();
+        for (OrderPlacedEvent order : batch) {
+            for (OrderPlacedEvent.Line line : order.lines()) {
+                if (!builder.hasProduct(line.productId())) {
+                    unknown.add(line.productId());
+                }
+            }
+        }
+        if (unknown.isEmpty()) {
+            return Map.of();
+        }
+        return productRepository.findAllById(unknown).stream()
+                .collect(Collectors.toMap(Product::getId, Product::getName));
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.project.code.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.code.Model.ItemAvailabilityDto;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockItemDto;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.config.InventoryProperties;
+import com.project.code.support.StockLevelIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Total stock of every inventory row (sharded rows included) held in a
+ * {@link StockLevelIndex}, so availability checks don't read the database.
+ * The index is loaded at startup and on every reload; in between, every
+ * stock change is written through from its StockChangedEvent once the
+ * transaction that made it commits.
+ * <p>
+ * A row changed while a reload reads the table is dropped from the new index
+ * and read from the database until the next reload. Two writers of a row may
+ * run their commit callbacks out of commit order: a change known only by its
+ * delta then drifts, and an absolute level can be overwritten by the older
+ * one, leaving a stale value. The reload puts such rows right. Reads of a
+ * row that isn't indexed, or of any row before the first load, come back
+ * empty and the caller asks the database.
+ */
+@Slf4j
+@Service
+public class AvailabilityIndexService {
+
+    private static final String LOAD_STOCK = """
+            SELECT i.store_id, i.product_id,
+                   i.stock_level + COALESCE((SELECT SUM(s.stock_level) FROM inventory_shard s
+                                             WHERE s.inventory_id = i.id), 0)
+            FROM inventory i""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryRepository inventoryRepository;
+    private final StockReservationService stockReservationService;
+    private final InventoryProperties inventoryProperties;
+    // one reload at a time: the startup load and the scheduled one
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    // held briefly by every write-through and by the swap, so a change lands in the old index or the new one
+    private final ReentrantLock swapLock = new ReentrantLock();
+
+    private volatile StockLevelIndex index;
+    // rows changed and products removed while a reload runs, null otherwise; guarded by swapLock
+    private Set<RowKey> changedDuringReload;
+    private Set<Long> removedDuringReload;
+
+    public AvailabilityIndexService(JdbcTemplate jdbcTemplate, InventoryRepository inventoryRepository,
+            StockReservationService stockReservationService, InventoryProperties inventoryProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryRepository = inventoryRepository;
+        this.stockReservationService = stockReservationService;
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (inventoryProperties.getAvailabilityIndex().isEnabled()) {
+            reload();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.availability-index.reload-interval-millis:3600000}",
+            initialDelayString = "${inventory.availability-index.reload-interval-millis:3600000}")
+    public void scheduledReload() {
+        if (inventoryProperties.getAvailabilityIndex().isEnabled()) {
+            reload();
+        }
+    }
+
+    /** Replaces the index with the stock of every inventory row in the database. */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            long started = System.nanoTime();
+            Set<RowKey> changed = new HashSet<>();
+            Set<Long> removed = new HashSet<>();
+            swapLock.lock();
+            try {
+                changedDuringReload = changed;
+                removedDuringReload = removed;
+            } finally {
+                swapLock.unlock();
+            }
+
+            int rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM inventory", Integer.class);
+            StockLevelIndex loading = new StockLevelIndex(rows);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(LOAD_STOCK,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(inventoryProperties.getAvailabilityIndex().getFetchSize());
+                return statement;
+            }, row -> {
+                loading.put(row.getLong(1), row.getLong(2), row.getInt(3));
+            });
+
+            swapLock.lock();
+            try {
+                // the load may have read these rows before or after their change, neither index can be trusted
+                changed.forEach(row -> loading.remove(row.storeId(), row.productId()));
+                removed.forEach(loading::removeProduct);
+                changedDuringReload = null;
+                removedDuringReload = null;
+                index = loading;
+            } finally {
+                swapLock.unlock();
+            }
+            log.info("Loaded the stock of {} inventory rows for availability checks in {} ms", loading.size(),
+                    (System.nanoTime() - started) / 1_000_000);
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /** Stock of the row as of the last committed change, empty when the database has to be asked. */
+    public OptionalInt stockLevel(long storeId, long productId) {
+        StockLevelIndex current = index;
+        if (current == null) {
+            return OptionalInt.empty();
+        }
+        int stockLevel = current.get(storeId, productId);
+        return stockLevel == StockLevelIndex.MISSING ? OptionalInt.empty() : OptionalInt.of(stockLevel);
+    }
+
+    /**
+     * Availability of every product of a cart in one store, lines of the same
+     * product summed. Indexed rows are answered from memory and the rest with
+     * one query, whatever the size of the cart.
+     */
+    public List<ItemAvailabilityDto> checkAvailability(Long storeId, List<StockItemDto> items) {
+        if (storeId == null) {
+            throw new IllegalArgumentException("Store id is required");
+        }
+        if (items == null || items.isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (StockItemDto item : items) {
+            if (item.productId() == null) {
+                throw new IllegalArgumentException("Product id is required for every item");
+            }
+            if (item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for ProductId=" + item.productId());
+            }
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+
+        Map<Long, Integer> stockLevels = new HashMap<>();
+        List<Long> notIndexed = new ArrayList<>();
+        for (Long productId : quantities.keySet()) {
+            OptionalInt indexed = stockLevel(storeId, productId);
+            if (indexed.isPresent()) {
+                stockLevels.put(productId, indexed.getAsInt());
+            } else {
+                notIndexed.add(productId);
+            }
+        }
+        if (!notIndexed.isEmpty()) {
+            inventoryRepository.findStockLevels(storeId, notIndexed)
+                    .forEach(row -> stockLevels.put(row.productId(), row.stockLevel().intValue()));
+        }
+
+        List<ItemAvailabilityDto> availability = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> {
+            Integer stockLevel = stockLevels.get(productId);
+            // stock held by open reservations is not available to anyone else
+            int availableStock = stockLevel != null
+                    ? Math.max(stockLevel - stockReservationService.reservedQuantity(storeId, productId), 0)
+                    : 0;
+            availability.add(new ItemAvailabilityDto(productId, quantity, availableStock,
+                    stockLevel != null && availableStock >= quantity));
+        });
+        return availability;
+    }
+
+    // published in the writer's transaction, applied once it commits; a group-committed order rolled back
+    // to its savepoint drops the synchronization again, see GroupCommitOrderIntake
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        if (!inventoryProperties.getAvailabilityIndex().isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply(event);
+            }
+
+            // ahead of the callbacks that read the index for the same change, e.g. low-stock alerts
+            @Override
+            public int getOrder() {
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+        });
+    }
+
+    /** For deletes that publish no event: the product's rows are gone from every store. */
+    public void productRemoved(long productId) {
+        swapLock.lock();
+        try {
+            if (index != null) {
+                index.removeProduct(productId);
+            }
+            if (removedDuringReload != null) {
+                // the reload may have read the rows before the delete
+                removedDuringReload.add(productId);
+            }
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    private void apply(StockChangedEvent event) {
+        swapLock.lock();
+        try {
+            if (index != null) {
+                if (event.stockLevel() != null) {
+                    index.put(event.storeId(), event.productId(), event.stockLevel());
+                } else {
+                    // a guarded decrement or a shard bucket, only the delta is known
+                    index.add(event.storeId(), event.productId(), event.delta());
+                }
+            }
+            if (changedDuringReload != null) {
+                changedDuringReload.add(new RowKey(event.storeId(), event.productId()));
+            }
+        } finally {
+            swapLock.unlock();
+        }
+    }
+
+    private record RowKey(long storeId, long productId) {
+    }
+
+}
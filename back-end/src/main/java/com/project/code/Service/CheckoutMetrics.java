@@ -0,0 +1,187 @@
+package com.project.code.Service;
+
+import java.util.function.Supplier;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.project.code.exception.CustomerNotFoundException;
+import com.project.code.exception.InventoryNotFoundException;
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.ProductNotFoundException;
+import com.project.code.exception.ReservationNotFoundException;
+import com.project.code.exception.StoreNotFoundException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checkout latency as Micrometer timers with percentile histograms:
+ * checkout.order for a whole order and checkout.phase for each step of it,
+ * both tagged with the order's line count (bucketed) and the outcome.
+ * A phase's outcome is that of the phase itself, so a failing order shows
+ * which phase it failed in.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class CheckoutMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String INSUFFICIENT_STOCK = "insufficient_stock";
+    public static final String NOT_FOUND = "not_found";
+    public static final String LOCK_TIMEOUT = "lock_timeout";
+    public static final String VERSION_CONFLICT = "version_conflict";
+    public static final String ERROR = "error";
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public <T> T phase(String phase, int lines, Supplier<T> work) {
+        Timer.Sample sample = start();
+        try {
+            T result = work.get();
+            sample.stop(phaseTimer(phase, lines, SUCCESS));
+            return result;
+        } catch (RuntimeException e) {
+            sample.stop(phaseTimer(phase, lines, outcome(e)));
+            throw e;
+        }
+    }
+
+    public void phase(String phase, int lines, Runnable work) {
+        phase(phase, lines, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public void orderFailed(Timer.Sample sample, int lines, RuntimeException e) {
+        sample.stop(orderTimer(lines, outcome(e)));
+    }
+
+    public void orderSucceeded(Timer.Sample sample, int lines) {
+        sample.stop(orderTimer(lines, SUCCESS));
+    }
+
+    /**
+     * Stops the order timer once the surrounding transaction completes and
+     * times its commit as the "commit" phase, which is where the batched
+     * inserts and updates are flushed.
+     */
+    public void orderSucceededOnCommit(Timer.Sample sample, int lines) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            orderSucceeded(sample, lines);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private Timer.Sample commit;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commit = start();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                String outcome = status == STATUS_COMMITTED ? SUCCESS : ERROR;
+                if (commit != null) {
+                    commit.stop(phaseTimer("commit", lines, outcome));
+                }
+                sample.stop(orderTimer(lines, outcome));
+            }
+        });
+    }
+
+    /** Counts an order placed again because its previous attempt failed for reason. */
+    public void retried(String reason) {
+        Counter.builder("checkout.retries")
+                .description("Orders placed again after their transaction failed")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a write to an inventory row that another transaction had changed
+     * since it was read. The counter is untagged, a series per SKU would grow
+     * with the catalog; the row is logged at debug to find the SKU that keeps
+     * conflicting.
+     */
+    public void inventoryConflict(long storeId, long productId) {
+        log.debug("Version conflict on inventory of StoreId={} ProductId={}", storeId, productId);
+        inventoryConflicts().increment();
+    }
+
+    /** Counts a conflict found by the flush at commit, where a batched update doesn't tell which row lost. */
+    public void inventoryConflict() {
+        inventoryConflicts().increment();
+    }
+
+    private Counter inventoryConflicts() {
+        return Counter.builder("inventory.version.conflicts")
+                .description("Inventory writes that found the row changed since it was read")
+                .register(meterRegistry);
+    }
+
+    static String outcome(RuntimeException e) {
+        if (e instanceof InventoryStockInsufficientException) {
+            return INSUFFICIENT_STOCK;
+        }
+        if (e instanceof CustomerNotFoundException || e instanceof StoreNotFoundException
+                || e instanceof ProductNotFoundException || e instanceof InventoryNotFoundException
+                || e instanceof ReservationNotFoundException) {
+            return NOT_FOUND;
+        }
+        if (e instanceof PessimisticLockingFailureException) {
+            return LOCK_TIMEOUT;
+        }
+        if (e instanceof OptimisticLockingFailureException) {
+            return VERSION_CONFLICT;
+        }
+        return ERROR;
+    }
+
+    // a handful of buckets keeps the number of time series small
+    static String lineBucket(int lines) {
+        if (lines <= 1) {
+            return "1";
+        }
+        if (lines <= 5) {
+            return "2-5";
+        }
+        if (lines <= 20) {
+            return "6-20";
+        }
+        return "21+";
+    }
+
+    private Timer phaseTimer(String phase, int lines, String outcome) {
+        return Timer.builder("checkout.phase")
+                .description("Time spent in one phase of placing an order")
+                .tag("phase", phase)
+                .tag("lines", lineBucket(lines))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer orderTimer(int lines, String outcome) {
+        return Timer.builder("checkout.order")
+                .description("Time to place an order, commit included when the order has its own transaction")
+                .tag("lines", lineBucket(lines))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+}
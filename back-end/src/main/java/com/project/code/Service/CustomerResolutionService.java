@@ -0,0 +1,149 @@
+package com.project.code.Service;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.Customer;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.config.OrderProperties;
+import com.project.code.exception.CustomerNotFoundException;
+import com.project.code.support.ExpiringLruCache;
+
+/**
+ * Resolves the customer of a checkout to its id without loading the customer
+ * entity. Known emails are answered from memory; emails seen without a
+ * customer row are cached as well (a negative entry) so the next checkout
+ * skips the lookup and goes straight to the insert.
+ */
+@Service
+public class CustomerResolutionService {
+
+    // the NOT EXISTS guard makes the insert a no-op when the email is already taken
+    private static final String INSERT_IF_ABSENT = """
+            INSERT INTO customer (id, name, email, phone)
+            SELECT ?, ?, ?, ? FROM DUAL
+            WHERE NOT EXISTS (SELECT 1 FROM customer WHERE email = ?)""";
+
+    // the first id of a block of Customer.ID_ALLOCATION_SIZE, as Hibernate's pooled-lo optimizer reads it
+    private static final String NEXT_ID_BLOCK = "SELECT NEXT VALUE FOR customer_seq";
+    // MySQL has no sequences, Hibernate keeps customer_seq as a one-row table there
+    private static final String NEXT_ID_BLOCK_MYSQL = "UPDATE customer_seq SET next_val = LAST_INSERT_ID(next_val + "
+            + Customer.ID_ALLOCATION_SIZE + ")";
+
+    private final CustomerRepository customerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate newTransaction;
+    private final ExpiringLruCache<String, OptionalLong> customerIds;
+    // guards the block of ids being handed out
+    private final ReentrantLock idLock = new ReentrantLock();
+    private long nextId;
+    private long idBlockEnd;
+    private Boolean mysql;
+
+    public CustomerResolutionService(CustomerRepository customerRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, OrderProperties orderProperties) {
+        this.customerRepository = customerRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.customerIds = new ExpiringLruCache<>(
+                orderProperties.getCustomerCache().getSize(),
+                orderProperties.getCustomerCache().getTtl());
+    }
+
+    /**
+     * Returns the id of the customer with this email, creating the customer
+     * when there is none. Has to run inside a transaction; a customer created
+     * here only becomes visible to the cache once that transaction commits.
+     */
+    public long resolveCustomerId(String name, String email, String phone) {
+        Optional<OptionalLong> cached = customerIds.get(email);
+        if (cached.isPresent() && cached.get().isPresent()) {
+            return cached.get().getAsLong();
+        }
+
+        if (cached.isEmpty()) {
+            Optional<Long> existingId = customerRepository.findIdByEmail(email);
+            if (existingId.isPresent()) {
+                cacheAfterCommit(email, existingId.get());
+                return existingId.get();
+            }
+            customerIds.put(email, OptionalLong.empty());
+        }
+
+        long customerId = nextCustomerId();
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(INSERT_IF_ABSENT, customerId, name, email, phone, email);
+        } catch (DuplicateKeyException e) {
+            // a concurrent checkout inserted the same email between our check and our insert
+            inserted = 0;
+        }
+        if (inserted == 0) {
+            // a plain read would answer from this transaction's snapshot, taken before the other row committed
+            customerId = customerRepository.findIdByEmailForShare(email)
+                    .orElseThrow(() -> new CustomerNotFoundException("Customer not found email=" + email));
+        }
+        cacheAfterCommit(email, customerId);
+        return customerId;
+    }
+
+    public void evict(String email) {
+        customerIds.invalidate(email);
+    }
+
+    private void cacheAfterCommit(String email, long customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            customerIds.put(email, OptionalLong.of(customerId));
+            return;
+        }
+        // a rolled back insert must not leave an id behind that no row has
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                customerIds.put(email, OptionalLong.of(customerId));
+            }
+        });
+    }
+
+    // blocks from the entity's own sequence, a value fetched here is one Hibernate never hands out ids from
+    private long nextCustomerId() {
+        idLock.lock();
+        try {
+            if (nextId == idBlockEnd) {
+                nextId = nextIdBlock();
+                idBlockEnd = nextId + Customer.ID_ALLOCATION_SIZE;
+            }
+            return nextId++;
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private long nextIdBlock() {
+        if (mysql == null) {
+            mysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().equals("MySQL"));
+        }
+        if (!mysql) {
+            return jdbcTemplate.queryForObject(NEXT_ID_BLOCK, Long.class);
+        }
+        // committed at once like Hibernate's own table access, the row lock is not held for the checkout
+        return newTransaction.execute(status -> {
+            jdbcTemplate.update(NEXT_ID_BLOCK_MYSQL);
+            return jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class) - Customer.ID_ALLOCATION_SIZE;
+        });
+    }
+
+}
@@ -0,0 +1,373 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.ImportCheckpoint;
+import com.project.code.Model.ImportResult;
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.Product;
+import com.project.code.Model.ProductDto;
+import com.project.code.Model.Store;
+import com.project.code.Model.StoreDto;
+import com.project.code.Repo.ImportCheckpointRepository;
+import com.project.code.config.ImportProperties;
+import com.project.code.exception.ImportAlreadyRunningException;
+import com.project.code.exception.MalformedImportRecordException;
+import com.project.code.importer.ImportFormat;
+import com.project.code.importer.ImportKind;
+import com.project.code.importer.ImportRecordReader;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams products, stores or inventory rows from CSV or NDJSON into the
+ * database. A parser thread reads and converts the records into chunks of
+ * data-import.chunk-size and hands them over through a bounded queue; the
+ * calling thread writes each chunk in its own transaction. When the writer
+ * falls behind the queue fills up and the parser waits, so the heap holds a
+ * few chunks whatever the size of the input.
+ * <p>
+ * Products are matched by sku and stores by name and address: new ones are
+ * inserted through Hibernate's insert batching, products whose fields differ
+ * are updated with one JDBC batch. A record repeating one of the same chunk is
+ * rejected as a duplicate; a repeat in a later chunk is applied over the
+ * first, nothing is remembered across chunks. Inventory chunks go through the bulk
+ * inventory update. The import's checkpoint moves in the transaction of
+ * each chunk, so a run that stopped is resumed from the record after the last
+ * committed chunk by importing the same input under the same name.
+ */
+@Slf4j
+@Service
+public class DataImportService {
+
+    private static final String UPDATE_PRODUCT = "UPDATE product SET name = ?, category = ?, price = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final InventoryBulkService inventoryBulkService;
+    private final ImportCheckpointRepository importCheckpointRepository;
+    private final ImportProperties importProperties;
+    private final ObjectMapper objectMapper;
+
+    // names of the imports running on this instance
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public DataImportService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManager entityManager, InventoryBulkService inventoryBulkService,
+            ImportCheckpointRepository importCheckpointRepository, ImportProperties importProperties,
+            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.inventoryBulkService = inventoryBulkService;
+        this.importCheckpointRepository = importCheckpointRepository;
+        this.importProperties = importProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Imports the input, resuming the unfinished import of that name if there
+     * is one, and returns once everything is committed.
+     *
+     * @throws IllegalArgumentException      when the input has no usable CSV header, or the name belongs to an
+     *         import of another kind
+     * @throws ImportAlreadyRunningException when an import of that name is already running
+     */
+    public ImportResult importRecords(String name, ImportKind kind, ImportFormat format, InputStream in)
+            throws IOException {
+        if (!running.add(name)) {
+            throw new ImportAlreadyRunningException("Import " + name + " is already running");
+        }
+        try (ImportRecordReader reader = format.open(in, kind.columns(), objectMapper)) {
+            ImportCheckpoint checkpoint = transactionTemplate.execute(status -> startCheckpoint(name, kind));
+            return run(name, kind, reader, checkpoint.getRowsCommitted());
+        } finally {
+            running.remove(name);
+        }
+    }
+
+    private ImportCheckpoint startCheckpoint(String name, ImportKind kind) {
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById(name)
+                .orElseGet(() -> new ImportCheckpoint(name, kind));
+        if (checkpoint.getKind() != kind) {
+            throw new IllegalArgumentException(
+                    "Import " + name + " imports " + checkpoint.getKind() + ", not " + kind);
+        }
+        if (checkpoint.isCompleted()) {
+            checkpoint.setRowsCommitted(0);
+            checkpoint.setRowsApplied(0);
+            checkpoint.setRowsRejected(0);
+            checkpoint.setCompleted(false);
+        }
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        return importCheckpointRepository.save(checkpoint);
+    }
+
+    private ImportResult run(String name, ImportKind kind, ImportRecordReader reader, long resumeFrom) {
+        long started = System.nanoTime();
+        ImportResult result = new ImportResult(name, kind, resumeFrom, importProperties.getMaxRejectedReported());
+        if (resumeFrom > 0) {
+            log.info("Resuming import {} after row {}", name, resumeFrom);
+        }
+
+        BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(importProperties.getQueueCapacity());
+        Thread parser = new Thread(() -> parse(reader, kind, resumeFrom, queue), "import-parser-" + name);
+        parser.setDaemon(true);
+        parser.start();
+        try {
+            long nextProgress = resumeFrom + importProperties.getProgressInterval();
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk.failure() != null) {
+                    throw new IllegalStateException("Reading import " + name + " failed after row "
+                            + (resumeFrom + result.getRowsRead()) + ": " + chunk.failure().getMessage(),
+                            chunk.failure());
+                }
+                if (!chunk.rows().isEmpty()) {
+                    commit(name, kind, chunk, result);
+                }
+                result.setRowsRead(chunk.lastRow() - resumeFrom);
+                if (chunk.last()) {
+                    break;
+                }
+                if (chunk.lastRow() >= nextProgress) {
+                    nextProgress = chunk.lastRow() + importProperties.getProgressInterval();
+                    log.info("Import {}: {} rows committed, {} rows/s", name, chunk.lastRow(),
+                            Math.round(result.getRowsRead() / seconds(started)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while importing " + name, e);
+        } finally {
+            // stops a parser blocked on the full queue when the writer failed, and leaves room for its last word
+            parser.interrupt();
+            queue.clear();
+        }
+
+        long lastRow = resumeFrom + result.getRowsRead();
+        transactionTemplate.executeWithoutResult(status -> {
+            ImportCheckpoint checkpoint = entityManager.find(ImportCheckpoint.class, name);
+            checkpoint.setRowsCommitted(lastRow);
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+        });
+        log.info("Import {} of {} rows in {} ms: {}", name, result.getRowsRead(),
+                Math.round(seconds(started) * 1000), result.getCounts());
+        return result;
+    }
+
+    // runs on the parser thread, every record read is counted even when it was committed before
+    private void parse(ImportRecordReader reader, ImportKind kind, long resumeFrom, BlockingQueue<Chunk> queue) {
+        int chunkSize = importProperties.getChunkSize();
+        List<ParsedRow> rows = new ArrayList<>(chunkSize);
+        long row = 0;
+        try {
+            while (true) {
+                String[] values;
+                try {
+                    values = reader.next();
+                    if (values == null) {
+                        break;
+                    }
+                    row++;
+                    if (row > resumeFrom) {
+                        rows.add(parseRow(kind, row, values));
+                    }
+                } catch (MalformedImportRecordException e) {
+                    // the reader couldn't make out the record
+                    row++;
+                    if (row > resumeFrom) {
+                        rows.add(new ParsedRow(row, null, e.getMessage()));
+                    }
+                }
+                if (rows.size() == chunkSize) {
+                    queue.put(new Chunk(rows, row, false, null));
+                    rows = new ArrayList<>(chunkSize);
+                }
+            }
+            queue.put(new Chunk(rows, Math.max(row, resumeFrom), true, null));
+        } catch (InterruptedException e) {
+            // the writer stopped
+        } catch (IOException | RuntimeException e) {
+            deliverFailure(queue, new Chunk(List.of(), row, true, e));
+        }
+    }
+
+    private static ParsedRow parseRow(ImportKind kind, long row, String[] values) {
+        try {
+            return new ParsedRow(row, kind.parse(values), null);
+        } catch (MalformedImportRecordException e) {
+            return new ParsedRow(row, null, e.getMessage());
+        }
+    }
+
+    // waits for room like any other chunk, a writer that stopped interrupts the wait
+    private void deliverFailure(BlockingQueue<Chunk> queue, Chunk failure) {
+        try {
+            queue.put(failure);
+        } catch (InterruptedException e) {
+            // the writer stopped
+        }
+    }
+
+    private void commit(String name, ImportKind kind, Chunk chunk, ImportResult result) {
+        List<ParsedRow> rows = chunk.rows();
+        Status[] statuses = transactionTemplate.execute(status -> {
+            Status[] chunkStatuses = new Status[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).value() == null) {
+                    chunkStatuses[i] = Status.INVALID;
+                }
+            }
+            switch (kind) {
+                case PRODUCTS -> importProducts(rows, chunkStatuses);
+                case STORES -> importStores(rows, chunkStatuses);
+                case INVENTORY -> importInventory(rows, chunkStatuses);
+            }
+
+            long rejected = 0;
+            for (Status chunkStatus : chunkStatuses) {
+                if (!chunkStatus.isApplied()) {
+                    rejected++;
+                }
+            }
+            ImportCheckpoint checkpoint = entityManager.find(ImportCheckpoint.class, name);
+            checkpoint.setRowsCommitted(chunk.lastRow());
+            checkpoint.setRowsApplied(checkpoint.getRowsApplied() + rows.size() - rejected);
+            checkpoint.setRowsRejected(checkpoint.getRowsRejected() + rejected);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            entityManager.flush();
+            entityManager.clear();
+            return chunkStatuses;
+        });
+        for (int i = 0; i < rows.size(); i++) {
+            result.add(rows.get(i).row(), statuses[i], rows.get(i).error());
+        }
+    }
+
+    private void importProducts(List<ParsedRow> rows, Status[] statuses) {
+        Map<String, Integer> rowBySku = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (statuses[i] == null && rowBySku.putIfAbsent(((ProductDto) rows.get(i).value()).sku(), i) != null) {
+                statuses[i] = Status.DUPLICATE;
+            }
+        }
+        Map<String, ProductDto> existing = new HashMap<>();
+        if (!rowBySku.isEmpty()) {
+            jdbcTemplate.query("SELECT id, name, category, price, sku FROM product WHERE sku IN ("
+                    + placeholders(rowBySku.size()) + ")", row -> {
+                        existing.put(row.getString(5), new ProductDto(row.getLong(1), row.getString(2),
+                                row.getString(3), row.getDouble(4), row.getString(5)));
+                    }, rowBySku.keySet().toArray());
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (statuses[i] != null) {
+                continue;
+            }
+            ProductDto product = (ProductDto) rows.get(i).value();
+            ProductDto current = existing.get(product.sku());
+            if (current == null) {
+                entityManager.persist(new Product(product.name(), product.category(), product.price(), product.sku()));
+                statuses[i] = Status.CREATED;
+            } else if (current.name().equals(product.name()) && current.category().equals(product.category())
+                    && current.price().equals(product.price())) {
+                statuses[i] = Status.UNCHANGED;
+            } else {
+                updates.add(new Object[] { product.name(), product.category(), product.price(), current.id() });
+                statuses[i] = Status.UPDATED;
+            }
+        }
+        jdbcTemplate.batchUpdate(UPDATE_PRODUCT, updates);
+    }
+
+    private void importStores(List<ParsedRow> rows, Status[] statuses) {
+        Set<StoreDto> inChunk = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (statuses[i] == null) {
+                StoreDto store = (StoreDto) rows.get(i).value();
+                if (inChunk.add(store)) {
+                    names.add(store.name());
+                } else {
+                    statuses[i] = Status.DUPLICATE;
+                }
+            }
+        }
+        Set<StoreDto> existing = new HashSet<>();
+        if (!names.isEmpty()) {
+            jdbcTemplate.query("SELECT name, address FROM store WHERE name IN (" + placeholders(names.size()) + ")",
+                    row -> {
+                        existing.add(new StoreDto(row.getString(1), row.getString(2)));
+                    }, names.toArray());
+        }
+
+        for (int i = 0; i < rows.size(); i++) {
+            if (statuses[i] != null) {
+                continue;
+            }
+            StoreDto store = (StoreDto) rows.get(i).value();
+            if (existing.contains(store)) {
+                statuses[i] = Status.UNCHANGED;
+            } else {
+                entityManager.persist(new Store(store.name(), store.address()));
+                statuses[i] = Status.CREATED;
+            }
+        }
+    }
+
+    private void importInventory(List<ParsedRow> rows, Status[] statuses) {
+        List<InventoryUpdateDto> entries = new ArrayList<>();
+        List<Integer> entryRows = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (statuses[i] == null) {
+                entries.add((InventoryUpdateDto) rows.get(i).value());
+                entryRows.add(i);
+            }
+        }
+        Status[] entryStatuses = inventoryBulkService.applyChunkInCurrentTransaction(entries);
+        for (int j = 0; j < entryStatuses.length; j++) {
+            statuses[entryRows.get(j)] = entryStatuses[j];
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static double seconds(long startedNanos) {
+        return Math.max(System.nanoTime() - startedNanos, 1) / 1_000_000_000.0;
+    }
+
+    // value is the kind's DTO, or null with the reason the record was rejected
+    private record ParsedRow(long row, Object value, String error) {
+    }
+
+    // failure ends the import, the rows of the chunks before it are committed
+    private record Chunk(List<ParsedRow> rows, long lastRow, boolean last, Exception failure) {
+    }
+
+}
@@ -0,0 +1,298 @@
+package com.project.code.Service;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.config.OrderProperties;
+import com.project.code.config.OrderProperties.IntakeMode;
+import com.project.code.exception.OrderIntakeRejectedException;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Group-commit intake for placeOrder. Callers enqueue their order and wait; a
+ * single committer thread drains up to maxBatchSize orders (or whatever arrived
+ * within maxWaitMillis) and places all of them in one transaction, each behind
+ * its own savepoint so a failing order doesn't abort the rest of the batch.
+ * <p>
+ * Rolling back to the savepoint also drops the transaction synchronizations
+ * the failed order registered, the cache fills, index updates and releases
+ * meant to follow its commit. A failure that went through a @Transactional
+ * proxy, a repository method say, has marked the whole transaction
+ * rollback-only on its way out; that batch is rolled back and run again
+ * without the order, which is then placed on its own.
+ */
+@Slf4j
+@Service
+public class GroupCommitOrderIntake {
+
+    private final OrderService orderService;
+    private final OrderProperties orderProperties;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingOrder> queue;
+
+    // every submit checks it, a lock instead of synchronized keeps virtual threads from pinning
+    private final ReentrantLock committerLock = new ReentrantLock();
+    private volatile Thread committer;
+    private volatile boolean running = true;
+
+    public GroupCommitOrderIntake(OrderService orderService, OrderProperties orderProperties,
+            EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.orderProperties = orderProperties;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(orderProperties.getIntake().getQueueCapacity());
+    }
+
+    public boolean isEnabled() {
+        return orderProperties.getIntake().getMode() == IntakeMode.GROUP_COMMIT;
+    }
+
+    /**
+     * Queues the order and blocks until its batch is committed, at most
+     * order.intake.commit-timeout-millis.
+     *
+     * @throws OrderIntakeRejectedException when the queue is full or the order wasn't committed in time
+     */
+    public OrderDetails placeOrder(PlaceOrderRequestDTO request, String idempotencyKey) {
+        PendingOrder pendingOrder = enqueue(request, idempotencyKey);
+        try {
+            return pendingOrder.result().get(orderProperties.getIntake().getCommitTimeoutMillis(),
+                    TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(pendingOrder)) {
+                throw new OrderIntakeRejectedException("Order intake is not keeping up, try again later");
+            }
+            // in a batch being committed, a retry with the same Idempotency-Key is answered with the order
+            throw new OrderIntakeRejectedException("Order was not committed in time, it may still be placed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderIntakeRejectedException("Interrupted while waiting for the order to be committed");
+        }
+    }
+
+    public CompletableFuture<OrderDetails> submit(PlaceOrderRequestDTO request, String idempotencyKey) {
+        return enqueue(request, idempotencyKey).result();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        Thread thread = committer;
+        if (thread != null) {
+            thread.interrupt();
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // nothing commits these anymore
+        PendingOrder pendingOrder;
+        while ((pendingOrder = queue.poll()) != null) {
+            pendingOrder.result().completeExceptionally(
+                    new OrderIntakeRejectedException("Order intake is shutting down"));
+        }
+    }
+
+    private PendingOrder enqueue(PlaceOrderRequestDTO request, String idempotencyKey) {
+        startCommitter();
+        PendingOrder pendingOrder = new PendingOrder(request, idempotencyKey, new CompletableFuture<>());
+        if (!queue.offer(pendingOrder)) {
+            throw new OrderIntakeRejectedException("Order intake queue is full, try again later");
+        }
+        return pendingOrder;
+    }
+
+    // also replaces a committer that died, so queued orders don't wait for a thread that is gone
+    private void startCommitter() {
+        Thread current = committer;
+        if (current != null && current.isAlive() || !running) {
+            return;
+        }
+        committerLock.lock();
+        try {
+            if (committer == null || !committer.isAlive()) {
+                if (committer != null) {
+                    log.warn("Order group committer {} died, starting a new one", committer.getName());
+                }
+                Thread thread = new Thread(this::runCommitter, "order-group-committer");
+                thread.setDaemon(true);
+                thread.start();
+                committer = thread;
+            }
+        } finally {
+            committerLock.unlock();
+        }
+    }
+
+    private void runCommitter() {
+        while (running) {
+            List<PendingOrder> batch;
+            try {
+                batch = nextBatch();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                commit(batch);
+            } catch (Throwable e) {
+                // an Error too: the thread goes on with the next batch, the callers of this one get an answer
+                log.error("Order group committer failed on a batch of {} orders", batch.size(), e);
+                OrderIntakeRejectedException rejected = new OrderIntakeRejectedException(
+                        "Order could not be committed, try again later", e);
+                batch.forEach(pendingOrder -> pendingOrder.result().completeExceptionally(rejected));
+            }
+        }
+    }
+
+    private List<PendingOrder> nextBatch() throws InterruptedException {
+        List<PendingOrder> batch = new ArrayList<>();
+        PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+
+        int maxBatchSize = orderProperties.getIntake().getMaxBatchSize();
+        long deadline = System.nanoTime()
+                + TimeUnit.MILLISECONDS.toNanos(orderProperties.getIntake().getMaxWaitMillis());
+        while (batch.size() < maxBatchSize) {
+            // take what is already queued without waiting, then wait out the rest of the window
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        List<Object> outcomes = new ArrayList<>(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // JpaTransactionManager has no savepoint support for Hibernate, use the JDBC connection directly
+                Session session = entityManager.unwrap(Session.class);
+                for (PendingOrder pendingOrder : batch) {
+                    List<TransactionSynchronization> synchronizations =
+                            TransactionSynchronizationManager.getSynchronizations();
+                    Savepoint savepoint = session.doReturningWork(Connection::setSavepoint);
+                    try {
+                        OrderDetails orderDetails = orderService.saveOrderInCurrentTransaction(
+                                pendingOrder.request(), pendingOrder.idempotencyKey());
+                        // surface constraint violations of this order while its savepoint is still open
+                        entityManager.flush();
+                        session.doWork(connection -> connection.releaseSavepoint(savepoint));
+                        outcomes.add(orderDetails);
+                    } catch (RuntimeException e) {
+                        session.doWork(connection -> connection.rollback(savepoint));
+                        // drop the unflushed changes of the failed order, earlier orders are already flushed
+                        entityManager.clear();
+                        restoreSynchronizations(synchronizations);
+                        outcomes.add(e);
+                        if (status.isRollbackOnly()) {
+                            // rolled back without an UnexpectedRollbackException, the batch is run again
+                            status.setRollbackOnly();
+                            return;
+                        }
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} orders failed, placing them one by one: {}", batch.size(), e.getMessage());
+            commitOneByOne(batch);
+            return;
+        }
+
+        if (outcomes.size() < batch.size()) {
+            int failed = outcomes.size() - 1;
+            log.debug("Order {} of a batch of {} left the transaction rollback-only, running the batch without it",
+                    failed + 1, batch.size());
+            List<PendingOrder> rest = new ArrayList<>(batch);
+            PendingOrder alone = rest.remove(failed);
+            if (!rest.isEmpty()) {
+                commit(rest);
+            }
+            // maybe a lock timeout, which its own transaction retries
+            commitOneByOne(List.of(alone));
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            complete(batch.get(i), outcomes.get(i));
+        }
+    }
+
+    // what was registered since the snapshot belongs to the order rolled back to its savepoint
+    private static void restoreSynchronizations(List<TransactionSynchronization> synchronizations) {
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.initSynchronization();
+        synchronizations.forEach(TransactionSynchronizationManager::registerSynchronization);
+    }
+
+    private void commitOneByOne(List<PendingOrder> batch) {
+        for (PendingOrder pendingOrder : batch) {
+            try {
+                pendingOrder.result().complete(
+                        orderService.saveOrder(pendingOrder.request(), pendingOrder.idempotencyKey()));
+            } catch (RuntimeException e) {
+                pendingOrder.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void complete(PendingOrder pendingOrder, Object outcome) {
+        if (outcome instanceof OrderDetails orderDetails) {
+            pendingOrder.result().complete(orderDetails);
+        } else {
+            pendingOrder.result().completeExceptionally((Throwable) outcome);
+        }
+    }
+
+    private RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private record PendingOrder(PlaceOrderRequestDTO request, String idempotencyKey,
+            CompletableFuture<OrderDetails> result) {
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.project.code.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.Product;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.Store;
+import com.project.code.config.InventoryProperties;
+
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sets the stock level of many (store, product) pairs at once, for stock syncs.
+ * Entries are handled inventory.bulk.chunk-size at a time, each chunk in its
+ * own transaction: the ids are checked and the existing rows read with one
+ * query per table, changed rows are written with one JDBC batch and missing
+ * rows inserted through Hibernate's insert batching. Entries carry absolute
+ * levels, so a sync that stopped half way can simply be sent again.
+ */
+@Slf4j
+@Service
+public class InventoryBulkService {
+
+    // guarded by the version read with the row, like every other inventory write; rows written before
+    // the version column was NOT NULL may still hold NULL, read and compared as 0
+    private static final String UPDATE_STOCK_LEVEL = "UPDATE inventory SET stock_level = ?,"
+            + " version = COALESCE(version, 0) + 1 WHERE id = ? AND COALESCE(version, 0) = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ShardedStockService shardedStockService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final InventoryProperties inventoryProperties;
+
+    public InventoryBulkService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            EntityManager entityManager, ShardedStockService shardedStockService,
+            ApplicationEventPublisher eventPublisher, InventoryProperties inventoryProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.shardedStockService = shardedStockService;
+        this.eventPublisher = eventPublisher;
+        this.inventoryProperties = inventoryProperties;
+    }
+
+    /**
+     * Applies the entries and reports the status of each. Chunks commit one
+     * by one, so when a chunk fails the ones before it stay applied.
+     */
+    public InventoryBulkResult update(List<InventoryUpdateDto> entries) {
+        long started = System.nanoTime();
+        InventoryBulkResult result = new InventoryBulkResult();
+        Set<StockKey> seen = new HashSet<>();
+        int chunkSize = inventoryProperties.getBulk().getChunkSize();
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<InventoryUpdateDto> chunk = entries.subList(from, Math.min(from + chunkSize, entries.size()));
+            Status[] statuses = transactionTemplate.execute(status -> applyChunk(chunk, seen));
+            for (int i = 0; i < chunk.size(); i++) {
+                result.add(from + i, chunk.get(i), statuses[i]);
+            }
+        }
+        log.info("Bulk inventory update of {} entries in {} ms: {}", entries.size(),
+                (System.nanoTime() - started) / 1_000_000, result.getCounts());
+        return result;
+    }
+
+    /**
+     * Applies one chunk in the caller's transaction, for callers that commit
+     * more with it. Duplicates are only looked for within the chunk.
+     */
+    @Transactional(TxType.MANDATORY)
+    public Status[] applyChunkInCurrentTransaction(List<InventoryUpdateDto> chunk) {
+        return applyChunk(chunk, new HashSet<>());
+    }
+
+    private Status[] applyChunk(List<InventoryUpdateDto> chunk, Set<StockKey> seen) {
+        Status[] statuses = new Status[chunk.size()];
+
+        // entries that are wrong on their own, then the ids against the database with one query per table
+        Set<Long> storeIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            InventoryUpdateDto entry = chunk.get(i);
+            if (entry.storeId() == null || entry.productId() == null || entry.stockLevel() == null
+                    || entry.stockLevel() < 0) {
+                statuses[i] = Status.INVALID;
+            } else if (!seen.add(new StockKey(entry.storeId(), entry.productId()))) {
+                statuses[i] = Status.DUPLICATE;
+            } else {
+                storeIds.add(entry.storeId());
+                productIds.add(entry.productId());
+            }
+        }
+        Set<Long> knownStores = existingIds("store", storeIds);
+        Set<Long> knownProducts = existingIds("product", productIds);
+        Map<StockKey, StockRow> rows = findRows(chunk, statuses, knownStores);
+
+        List<Object[]> updates = new ArrayList<>();
+        List<Integer> updatedEntries = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (statuses[i] != null) {
+                continue;
+            }
+            InventoryUpdateDto entry = chunk.get(i);
+            StockRow row = rows.get(new StockKey(entry.storeId(), entry.productId()));
+            if (!knownStores.contains(entry.storeId())) {
+                statuses[i] = Status.STORE_NOT_FOUND;
+            } else if (!knownProducts.contains(entry.productId())) {
+                statuses[i] = Status.PRODUCT_NOT_FOUND;
+            } else if (row == null) {
+                entityManager.persist(new Inventory(entityManager.getReference(Store.class, entry.storeId()),
+                        entityManager.getReference(Product.class, entry.productId()), entry.stockLevel()));
+                publishStockChanged(entry, entry.stockLevel());
+                statuses[i] = Status.CREATED;
+            } else if (row.shardCount() > 0) {
+                statuses[i] = setShardedStock(entry, row);
+            } else if (row.stockLevel() == entry.stockLevel()) {
+                statuses[i] = Status.UNCHANGED;
+            } else {
+                updates.add(new Object[] { entry.stockLevel(), row.id(), row.version() });
+                updatedEntries.add(i);
+            }
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_STOCK_LEVEL, updates);
+        for (int j = 0; j < updatedEntries.size(); j++) {
+            int i = updatedEntries.get(j);
+            // drivers that rewrite batches report SUCCESS_NO_INFO (-2) instead of a row count
+            if (updated[j] == 0) {
+                statuses[i] = Status.CONFLICT;
+            } else {
+                InventoryUpdateDto entry = chunk.get(i);
+                publishStockChanged(entry,
+                        entry.stockLevel() - rows.get(new StockKey(entry.storeId(), entry.productId())).stockLevel());
+                statuses[i] = Status.UPDATED;
+            }
+        }
+
+        // write the inserts and outbox events of this chunk and keep the persistence context small
+        entityManager.flush();
+        entityManager.clear();
+        return statuses;
+    }
+
+    // hot SKU, the new level is spread over its buckets
+    private Status setShardedStock(InventoryUpdateDto entry, StockRow row) {
+        Inventory inventory = entityManager.find(Inventory.class, row.id());
+        int previousStockLevel = shardedStockService.totalStock(inventory);
+        if (previousStockLevel == entry.stockLevel()) {
+            return Status.UNCHANGED;
+        }
+        shardedStockService.setTotalStock(inventory, entry.stockLevel());
+        publishStockChanged(entry, entry.stockLevel() - previousStockLevel);
+        return Status.UPDATED;
+    }
+
+    private Set<Long> existingIds(String table, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM " + table + " WHERE id IN (" + placeholders(ids.size()) + ")", Long.class,
+                ids.toArray()));
+    }
+
+    // the inventory rows of the entries still pending, one query per store of the chunk
+    private Map<StockKey, StockRow> findRows(List<InventoryUpdateDto> chunk, Status[] statuses, Set<Long> knownStores) {
+        Map<Long, List<Long>> productsByStore = new HashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            InventoryUpdateDto entry = chunk.get(i);
+            if (statuses[i] == null && knownStores.contains(entry.storeId())) {
+                productsByStore.computeIfAbsent(entry.storeId(), storeId -> new ArrayList<>()).add(entry.productId());
+            }
+        }
+        Map<StockKey, StockRow> rows = new HashMap<>();
+        productsByStore.forEach((storeId, storeProductIds) -> {
+            List<Object> args = new ArrayList<>(storeProductIds.size() + 1);
+            args.add(storeId);
+            args.addAll(storeProductIds);
+            jdbcTemplate.query("SELECT id, product_id, stock_level, shard_count, COALESCE(version, 0) FROM inventory"
+                    + " WHERE store_id = ? AND product_id IN (" + placeholders(storeProductIds.size()) + ")",
+                    row -> {
+                        rows.put(new StockKey(storeId, row.getLong(2)),
+                                new StockRow(row.getLong(1), row.getInt(3), row.getInt(4), row.getLong(5)));
+                    }, args.toArray());
+        });
+        return rows;
+    }
+
+    private void publishStockChanged(InventoryUpdateDto entry, int delta) {
+        // written to the outbox in the chunk's transaction
+        eventPublisher.publishEvent(new StockChangedEvent(entry.storeId(), entry.productId(), delta,
+                entry.stockLevel(), StockChangedEvent.Reason.ADJUSTMENT));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private record StockKey(long storeId, long productId) {
+    }
+
+    private record StockRow(long id, int stockLevel, int shardCount, long version) {
+    }
+
+}
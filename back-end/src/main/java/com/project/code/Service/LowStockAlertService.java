@@ -0,0 +1,374 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.code.Model.LowStockAlert;
+import com.project.code.Model.LowStockAlert.Type;
+import com.project.code.Model.ReorderThreshold;
+import com.project.code.Model.ReorderThresholdDto;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.ReorderThresholdRepository;
+import com.project.code.config.AlertProperties;
+import com.project.code.exception.InventoryNotFoundException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Raises low-stock alerts as stock changes instead of scanning for them. Each
+ * reorder threshold is watched in memory together with whether its row is
+ * below it; a stock change looks its row up once and raises an alert only
+ * when the level crosses the reorder level going down or the clear level
+ * going up. Rows without a threshold cost one map lookup.
+ * <p>
+ * Alerts go into a bounded in-memory feed and out to every open event
+ * stream. A stream that reconnects with Last-Event-ID gets the alerts it
+ * missed, as long as they are still in the feed.
+ * <p>
+ * Alerts are raised after the commit of the change, on the thread that made
+ * it, so they are only queued there. Each stream has its own queue, written
+ * to the client by a sender thread; a client that lets its queue fill up is
+ * disconnected and catches up from the feed when it reconnects.
+ */
+@Slf4j
+@Service
+public class LowStockAlertService {
+
+    private static final String LOAD_LEVELS = """
+            SELECT t.store_id, t.product_id,
+                   i.stock_level + COALESCE((SELECT SUM(s.stock_level) FROM inventory_shard s
+                                             WHERE s.inventory_id = i.id), 0)
+            FROM reorder_threshold t
+            JOIN inventory i ON i.store_id = t.store_id AND i.product_id = t.product_id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReorderThresholdRepository reorderThresholdRepository;
+    private final InventoryRepository inventoryRepository;
+    private final AvailabilityIndexService availabilityIndexService;
+    private final AlertProperties alertProperties;
+
+    private final ConcurrentMap<StockKey, Watch> watches = new ConcurrentHashMap<>();
+    private final List<AlertStream> streams = new CopyOnWriteArrayList<>();
+    // a thread per stream being written to, idle ones go away after a minute
+    private final ExecutorService sender = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "low-stock-alert-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // guards the feed and the ids, so a stream subscribing sees each alert either replayed or sent
+    private final ReentrantLock feedLock = new ReentrantLock();
+    private final ArrayDeque<LowStockAlert> feed = new ArrayDeque<>();
+    private long lastAlertId;
+
+    public LowStockAlertService(JdbcTemplate jdbcTemplate, ReorderThresholdRepository reorderThresholdRepository,
+            InventoryRepository inventoryRepository, AvailabilityIndexService availabilityIndexService,
+            AlertProperties alertProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reorderThresholdRepository = reorderThresholdRepository;
+        this.inventoryRepository = inventoryRepository;
+        this.availabilityIndexService = availabilityIndexService;
+        this.alertProperties = alertProperties;
+    }
+
+    // rows already below their threshold start out low, without an alert
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        Map<StockKey, Integer> stockLevels = new HashMap<>();
+        jdbcTemplate.query(LOAD_LEVELS, row -> {
+            stockLevels.put(new StockKey(row.getLong(1), row.getLong(2)), row.getInt(3));
+        });
+        int low = 0;
+        for (ReorderThreshold threshold : reorderThresholdRepository.findAll()) {
+            StockKey key = new StockKey(threshold.getStoreId(), threshold.getProductId());
+            Integer stockLevel = stockLevels.get(key);
+            Watch watch = new Watch(threshold.getReorderLevel(), threshold.getClearLevel(),
+                    stockLevel != null && stockLevel <= threshold.getReorderLevel());
+            watches.put(key, watch);
+            low += watch.low() ? 1 : 0;
+        }
+        log.info("Watching {} reorder thresholds, {} rows below theirs", watches.size(), low);
+    }
+
+    /**
+     * Sets the reorder point of a row and checks its current stock against it
+     * right away, so a threshold set above the stock raises its alert now.
+     *
+     * @throws IllegalArgumentException   when a field is missing or the clear level isn't above the reorder level
+     * @throws InventoryNotFoundException when the store doesn't stock the product
+     */
+    public ReorderThreshold setThreshold(ReorderThresholdDto request) {
+        if (request.storeId() == null || request.productId() == null) {
+            throw new IllegalArgumentException("Store id and product id are required");
+        }
+        if (request.reorderLevel() == null || request.reorderLevel() < 0) {
+            throw new IllegalArgumentException("Reorder level must be zero or more");
+        }
+        int clearLevel = request.clearLevel() != null
+                ? request.clearLevel()
+                : request.reorderLevel() + alertProperties.getDefaultHysteresis();
+        if (clearLevel <= request.reorderLevel()) {
+            throw new IllegalArgumentException("Clear level must be above the reorder level");
+        }
+        int stockLevel = readStockLevel(request.storeId(), request.productId())
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory of StoreId=%s ProductId=%s not found"
+                        .formatted(request.storeId(), request.productId())));
+
+        ReorderThreshold threshold = reorderThresholdRepository.save(new ReorderThreshold(request.storeId(),
+                request.productId(), request.reorderLevel(), clearLevel));
+        StockKey key = new StockKey(threshold.getStoreId(), threshold.getProductId());
+        watches.compute(key, (k, current) -> new Watch(threshold.getReorderLevel(), threshold.getClearLevel(),
+                current != null && current.low()));
+        evaluate(key, stockLevel);
+        return threshold;
+    }
+
+    /** Returns false when the row had no threshold. */
+    public boolean removeThreshold(long storeId, long productId) {
+        ReorderThreshold.Key id = new ReorderThreshold.Key(storeId, productId);
+        if (!reorderThresholdRepository.existsById(id)) {
+            return false;
+        }
+        reorderThresholdRepository.deleteById(id);
+        watches.remove(new StockKey(storeId, productId));
+        return true;
+    }
+
+    // published in the writer's transaction, evaluated once it commits
+    @EventListener
+    public void onStockChanged(StockChangedEvent event) {
+        StockKey key = new StockKey(event.storeId(), event.productId());
+        if (!watches.containsKey(key)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evaluate(key, event);
+            return;
+        }
+        // runs after the availability index took the change, see AvailabilityIndexService
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evaluate(key, event);
+            }
+        });
+    }
+
+    /** Alerts in the feed raised after the given id, oldest first. */
+    public List<LowStockAlert> alertsAfter(long afterId) {
+        feedLock.lock();
+        try {
+            return feed.stream().filter(alert -> alert.id() > afterId).toList();
+        } finally {
+            feedLock.unlock();
+        }
+    }
+
+    /** Opens an event stream of new alerts, preceded by those after lastEventId when given. */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(new SseEmitter(alertProperties.getStreamTimeout().toMillis()), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, Long lastEventId) {
+        AlertStream stream = new AlertStream(emitter);
+        emitter.onCompletion(() -> streams.remove(stream));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> streams.remove(stream));
+
+        feedLock.lock();
+        try {
+            if (lastEventId != null) {
+                // sent before the handler returns, so the emitter only buffers them
+                for (LowStockAlert alert : feed) {
+                    if (alert.id() > lastEventId) {
+                        stream.send(alert);
+                    }
+                }
+            }
+            streams.add(stream);
+        } finally {
+            feedLock.unlock();
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    private void evaluate(StockKey key, StockChangedEvent event) {
+        OptionalInt stockLevel = event.stockLevel() != null
+                ? OptionalInt.of(event.stockLevel())
+                : availabilityIndexService.stockLevel(key.storeId(), key.productId());
+        if (stockLevel.isEmpty()) {
+            // a delta on a row the index doesn't hold, one read of the row
+            stockLevel = readStockLevel(key.storeId(), key.productId());
+        }
+        if (stockLevel.isPresent()) {
+            evaluate(key, stockLevel.getAsInt());
+        }
+    }
+
+    private void evaluate(StockKey key, int stockLevel) {
+        Type[] crossed = new Type[1];
+        Watch watch = watches.computeIfPresent(key, (k, current) -> {
+            if (!current.low() && stockLevel <= current.reorderLevel()) {
+                crossed[0] = Type.LOW;
+                return current.withLow(true);
+            }
+            if (current.low() && stockLevel >= current.clearLevel()) {
+                crossed[0] = Type.RECOVERED;
+                return current.withLow(false);
+            }
+            return current;
+        });
+        if (crossed[0] != null) {
+            publish(crossed[0], key, stockLevel, watch.reorderLevel());
+        }
+    }
+
+    private void publish(Type type, StockKey key, int stockLevel, int reorderLevel) {
+        List<AlertStream> overflowed = new ArrayList<>();
+        feedLock.lock();
+        try {
+            LowStockAlert alert = new LowStockAlert(++lastAlertId, type, key.storeId(), key.productId(), stockLevel,
+                    reorderLevel, Instant.now());
+            feed.addLast(alert);
+            while (feed.size() > alertProperties.getFeedSize()) {
+                feed.removeFirst();
+            }
+            // queued under the lock, so every stream gets the alerts in the order of their ids; enqueue only
+            // touches the stream's queue, the sender threads write to the clients
+            for (AlertStream stream : streams) {
+                if (!stream.enqueue(alert)) {
+                    overflowed.add(stream);
+                }
+            }
+        } finally {
+            feedLock.unlock();
+        }
+        // completing an emitter waits for a send in progress, not something to do while holding the feed
+        overflowed.forEach(AlertStream::close);
+        log.info("Stock of ProductId={} in StoreId={} is {} at {}, reorder level {}", key.productId(),
+                key.storeId(), type, stockLevel, reorderLevel);
+    }
+
+    private OptionalInt readStockLevel(long storeId, long productId) {
+        return inventoryRepository.findStockLevels(storeId, List.of(productId)).stream()
+                .mapToInt(row -> row.stockLevel().intValue())
+                .findFirst();
+    }
+
+    private record StockKey(long storeId, long productId) {
+    }
+
+    // the alerts not yet written to one client, in the order they were raised
+    private final class AlertStream {
+
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<LowStockAlert> pending = new ArrayDeque<>();
+        // a sender is draining the queue, at most one per stream so the alerts stay in order
+        private boolean draining;
+
+        AlertStream(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        // false when the client is too far behind, the stream is dropped and the caller has to close it
+        boolean enqueue(LowStockAlert alert) {
+            lock.lock();
+            try {
+                if (pending.size() >= alertProperties.getStreamQueueSize()) {
+                    log.debug("Closing a low-stock alert stream that is {} alerts behind", pending.size());
+                    pending.clear();
+                    streams.remove(this);
+                    return false;
+                }
+                pending.addLast(alert);
+                if (draining) {
+                    return true;
+                }
+                draining = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // shutting down
+                streams.remove(this);
+            }
+            return true;
+        }
+
+        void close() {
+            emitter.complete();
+        }
+
+        private void drain() {
+            while (true) {
+                LowStockAlert alert;
+                lock.lock();
+                try {
+                    alert = pending.pollFirst();
+                    if (alert == null) {
+                        draining = false;
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (!send(alert)) {
+                    return;
+                }
+            }
+        }
+
+        boolean send(LowStockAlert alert) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(alert.id()))
+                        .name(alert.type().name().toLowerCase(Locale.ROOT))
+                        .data(alert));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                // the client went away
+                streams.remove(this);
+                return false;
+            }
+        }
+    }
+
+    private record Watch(int reorderLevel, int clearLevel, boolean low) {
+
+        Watch withLow(boolean low) {
+            return new Watch(reorderLevel, clearLevel, low);
+        }
+    }
+
+}
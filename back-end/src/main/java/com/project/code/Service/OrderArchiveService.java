@@ -0,0 +1,316 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.OrderSummaryDto;
+import com.project.code.archive.ArchivedOrder;
+import com.project.code.archive.OrderSegment;
+import com.project.code.config.ArchiveProperties;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Moves old orders out of order_details and order_item into compressed
+ * segment files, whole days at a time, and answers reads of them.
+ * <p>
+ * A run writes and publishes its segment before it deletes anything, then
+ * deletes the archived orders in short transactions. Everything dated before
+ * the newest segment's archivedBefore day is in the archive, so a run that
+ * stopped half way is finished by deleting below that day again. Until then an
+ * order can be in both places; readers drop the second copy.
+ */
+@Slf4j
+@Service
+public class OrderArchiveService {
+
+    // newest first, the order segments keep their orders in
+    private static final String ARCHIVE_ORDERS = """
+            SELECT o.id, o.order_date, COALESCE(o.store_id, 0), COALESCE(o.customer_id, 0), c.name, o.total_price,
+                   i.id, COALESCE(i.product_id, 0), i.quantity, i.price
+            FROM order_details o
+            LEFT JOIN customer c ON c.id = o.customer_id
+            LEFT JOIN order_item i ON i.order_id = o.id
+            WHERE o.order_date < ?
+            ORDER BY o.order_date DESC, o.id DESC""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ArchiveProperties archiveProperties;
+    // one run at a time, the scheduled one or one asked for through the API
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    // newest first, replaced whole when a run publishes a segment
+    private volatile List<OrderSegment> segments = List.of();
+
+    public OrderArchiveService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            ArchiveProperties archiveProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveProperties = archiveProperties;
+    }
+
+    /** Opens the segments in archive.directory, replacing any opened before. */
+    @PostConstruct
+    public void openSegments() {
+        runLock.lock();
+        try {
+            List<OrderSegment> opened = new ArrayList<>();
+            Path directory = Path.of(archiveProperties.getDirectory());
+            if (Files.isDirectory(directory)) {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : files.sorted().toList()) {
+                        if (file.getFileName().toString().endsWith(OrderSegment.EXTENSION)) {
+                            opened.add(OrderSegment.open(file));
+                        } else if (file.getFileName().toString().endsWith(OrderSegment.EXTENSION + ".tmp")) {
+                            // a run that died while writing, its orders are still in the hot tables
+                            Files.delete(file);
+                        }
+                    }
+                }
+            }
+            opened.sort(Comparator.comparing(OrderSegment::archivedBefore).reversed());
+            List<OrderSegment> previous = segments;
+            segments = List.copyOf(opened);
+            closeAll(previous);
+            log.info("Opened {} order archive segments in {}", opened.size(), directory.toAbsolutePath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the order archive", e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        closeAll(segments);
+        segments = List.of();
+    }
+
+    @Scheduled(fixedDelayString = "${archive.interval-millis:3600000}",
+            initialDelayString = "${archive.interval-millis:3600000}")
+    public void scheduledArchive() {
+        if (archiveProperties.isEnabled()) {
+            archive();
+        }
+    }
+
+    /**
+     * Archives the orders placed before the start of the day archive.min-age
+     * ago, at most archive.max-orders-per-run of them, and deletes them from
+     * the hot tables. Returns the number of orders archived, 0 when there was
+     * nothing to do or another run is in progress.
+     */
+    public long archive() {
+        if (!runLock.tryLock()) {
+            return 0;
+        }
+        try {
+            trim();
+            LocalDate cutoff = LocalDate.now().minusDays(archiveProperties.getMinAge().toDays());
+            LocalDateTime oldest = jdbcTemplate.queryForObject(
+                    "SELECT MIN(order_date) FROM order_details WHERE order_date < ?", LocalDateTime.class,
+                    cutoff.atStartOfDay());
+            if (oldest == null) {
+                return 0;
+            }
+            LocalDate archivedBefore = runCutoff(cutoff, oldest.toLocalDate());
+
+            long started = System.nanoTime();
+            OrderSegment segment = write(oldest.toLocalDate(), archivedBefore);
+            List<OrderSegment> published = new ArrayList<>(segments);
+            published.add(segment);
+            published.sort(Comparator.comparing(OrderSegment::archivedBefore).reversed());
+            segments = List.copyOf(published);
+            long trimmed = trim();
+            log.info("Archived {} orders dated before {} to {} and trimmed {} from the hot tables in {} ms",
+                    segment.orderCount(), archivedBefore, segment.path(), trimmed,
+                    (System.nanoTime() - started) / 1_000_000);
+            return segment.orderCount();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive orders", e);
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /** Every order dated before this day is archived; null when nothing is. */
+    public LocalDate archivedBefore() {
+        List<OrderSegment> current = segments;
+        return current.isEmpty() ? null : current.get(0).archivedBefore();
+    }
+
+    public long orderCount() {
+        return segments.stream().mapToLong(OrderSegment::orderCount).sum();
+    }
+
+    public long lineCount() {
+        return segments.stream().mapToLong(OrderSegment::lineCount).sum();
+    }
+
+    /** Every archived order, newest first. */
+    public Stream<ArchivedOrder> orders() {
+        return segments.stream().flatMap(OrderSegment::orders);
+    }
+
+    /**
+     * Archived orders matching filter with from <= orderDate that come after
+     * the (afterDate, afterId) cursor, newest first, read block by block as
+     * the stream is consumed.
+     */
+    public Stream<OrderSummaryDto> summaries(Predicate<OrderSummaryDto> filter, LocalDateTime from,
+            LocalDateTime afterDate, long afterId) {
+        return segments.stream()
+                .filter(segment -> segment.archivedBefore().atStartOfDay().isAfter(from)
+                        && !segment.firstDay().atStartOfDay().isAfter(afterDate))
+                .flatMap(segment -> segment.orders(from, afterDate))
+                .map(ArchivedOrder::summary)
+                .filter(order -> order.orderDate().isBefore(afterDate) || order.orderId() < afterId)
+                .filter(filter);
+    }
+
+    public Optional<OrderSummaryDto> findSummary(long orderId) {
+        return segments.stream()
+                .map(segment -> segment.find(orderId))
+                .flatMap(Optional::stream)
+                .map(ArchivedOrder::summary)
+                .findFirst();
+    }
+
+    /**
+     * The day this run archives up to: the cutoff, or the start of the day
+     * max-orders-per-run is reached on, so a segment always holds whole days.
+     * A single day above the cap is archived whole.
+     */
+    private LocalDate runCutoff(LocalDate cutoff, LocalDate oldestDay) {
+        List<LocalDateTime> pastCap = jdbcTemplate.queryForList(
+                "SELECT order_date FROM order_details WHERE order_date < ? ORDER BY order_date, id LIMIT 1 OFFSET ?",
+                LocalDateTime.class, cutoff.atStartOfDay(), archiveProperties.getMaxOrdersPerRun());
+        if (pastCap.isEmpty()) {
+            return cutoff;
+        }
+        LocalDate capDay = pastCap.get(0).toLocalDate();
+        return capDay.isAfter(oldestDay) ? capDay : oldestDay.plusDays(1);
+    }
+
+    private OrderSegment write(LocalDate firstDay, LocalDate archivedBefore) throws IOException {
+        Path directory = Files.createDirectories(Path.of(archiveProperties.getDirectory()));
+        Path file = directory.resolve("orders-" + firstDay + "-" + archivedBefore + OrderSegment.EXTENSION);
+        try (OrderSegment.Writer writer = OrderSegment.create(file, archiveProperties.getBlockSize())) {
+            OrderCollector collector = new OrderCollector(writer);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(ARCHIVE_ORDERS,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(archiveProperties.getBlockSize());
+                statement.setObject(1, archivedBefore.atStartOfDay());
+                return statement;
+            }, collector);
+            collector.finish();
+            return writer.publish(firstDay, archivedBefore);
+        }
+    }
+
+    /**
+     * Deletes the hot rows of archived orders, delete-batch-size orders per
+     * transaction, so checkout never waits long on these deletes. Orders are
+     * dated when they are placed, so nothing new lands below the archive day.
+     */
+    private long trim() {
+        LocalDate archivedBefore = archivedBefore();
+        if (archivedBefore == null) {
+            return 0;
+        }
+        long trimmed = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM order_details WHERE order_date < ? ORDER BY order_date, id LIMIT ?",
+                    Long.class, archivedBefore.atStartOfDay(), archiveProperties.getDeleteBatchSize());
+            if (ids.isEmpty()) {
+                return trimmed;
+            }
+            String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+            Object[] args = ids.toArray();
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("DELETE FROM order_item WHERE order_id IN (" + placeholders + ")", args);
+                jdbcTemplate.update("DELETE FROM order_details WHERE id IN (" + placeholders + ")", args);
+            });
+            trimmed += ids.size();
+        }
+    }
+
+    private void closeAll(List<OrderSegment> closing) {
+        for (OrderSegment segment : closing) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close order archive segment {}", segment.path(), e);
+            }
+        }
+    }
+
+    /** Folds the one-row-per-line result set back into orders and hands them to the writer. */
+    private static final class OrderCollector implements RowCallbackHandler {
+
+        private final OrderSegment.Writer writer;
+        private ArchivedOrder current;
+        private List<ArchivedOrder.Line> lines = new ArrayList<>();
+
+        OrderCollector(OrderSegment.Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void processRow(ResultSet row) throws SQLException {
+            long orderId = row.getLong(1);
+            if (current == null || current.orderId() != orderId) {
+                finish();
+                current = new ArchivedOrder(orderId, row.getObject(2, LocalDateTime.class), row.getLong(3),
+                        row.getLong(4), row.getString(5), row.getDouble(6), List.of());
+            }
+            // an order without lines comes back as one row of nulls
+            row.getLong(7);
+            if (!row.wasNull()) {
+                lines.add(new ArchivedOrder.Line(row.getLong(8), row.getInt(9), row.getDouble(10)));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                writer.add(new ArchivedOrder(current.orderId(), current.orderDate(), current.storeId(),
+                        current.customerId(), current.customerName(), current.totalPrice(), List.copyOf(lines)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            current = null;
+            lines = new ArrayList<>();
+        }
+    }
+
+}
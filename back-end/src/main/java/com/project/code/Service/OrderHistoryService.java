@@ -0,0 +1,162 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.OrderPageCursor;
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.OrderSummaryDto;
+import com.project.code.Repo.OrderDetailsRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Order history reads. Pages are keyset pages on (orderDate, id) and are
+ * written to the response row by row while the result set is read, so memory
+ * stays flat however large the page or deep the cursor. Orders older than the
+ * archive horizon are merged in from the archive segments.
+ */
+@RequiredArgsConstructor
+@Service
+public class OrderHistoryService {
+
+    private static final Comparator<OrderSummaryDto> NEWEST_FIRST = Comparator
+            .comparing(OrderSummaryDto::orderDate).thenComparingLong(OrderSummaryDto::orderId).reversed();
+
+    private final OrderDetailsRepository orderDetailsRepository;
+    private final OrderArchiveService orderArchiveService;
+    private final ObjectMapper objectMapper;
+
+    @Transactional(readOnly = true)
+    public void writeStoreOrders(long storeId, OrderPageRequest page, OutputStream out) throws IOException {
+        try (Stream<OrderSummaryDto> rows = orderDetailsRepository.streamSummariesByStore(
+                storeId, page.from(), page.afterDate(), page.afterId(), page.fetchLimit())) {
+            writePage(withArchived(rows, page, order -> order.storeId() == storeId), page.limit(), out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeCustomerOrders(long customerId, OrderPageRequest page, OutputStream out) throws IOException {
+        try (Stream<OrderSummaryDto> rows = orderDetailsRepository.streamSummariesByCustomer(
+                customerId, page.from(), page.afterDate(), page.afterId(), page.fetchLimit())) {
+            writePage(withArchived(rows, page, order -> order.customerId() == customerId), page.limit(), out);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void writeOrders(OrderPageRequest page, OutputStream out) throws IOException {
+        try (Stream<OrderSummaryDto> rows = orderDetailsRepository.streamSummaries(
+                page.from(), page.afterDate(), page.afterId(), page.fetchLimit())) {
+            writePage(withArchived(rows, page, order -> true), page.limit(), out);
+        }
+    }
+
+    public Optional<OrderSummaryDto> findOrder(long orderId) {
+        return orderDetailsRepository.findSummaryById(orderId).or(() -> orderArchiveService.findSummary(orderId));
+    }
+
+    private Iterator<OrderSummaryDto> withArchived(Stream<OrderSummaryDto> rows, OrderPageRequest page,
+            Predicate<OrderSummaryDto> filter) {
+        LocalDate archivedBefore = orderArchiveService.archivedBefore();
+        if (archivedBefore == null || !page.from().isBefore(archivedBefore.atStartOfDay())) {
+            return rows.iterator();
+        }
+        return new NewestFirst(rows.iterator(), archivedBefore.atStartOfDay(),
+                () -> orderArchiveService.summaries(filter, page.from(), page.afterDate(), page.afterId()).iterator());
+    }
+
+    /** Writes {"orders": [...], "nextCursor": "..."}; nextCursor is null on the last page. */
+    private void writePage(Iterator<OrderSummaryDto> iterator, int limit, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("orders");
+
+            OrderSummaryDto last = null;
+            int written = 0;
+            while (written < limit && iterator.hasNext()) {
+                last = iterator.next();
+                objectMapper.writeValue(json, last);
+                written++;
+            }
+            boolean hasNext = written == limit && iterator.hasNext();
+
+            json.writeEndArray();
+            json.writeStringField("nextCursor", hasNext ? OrderPageCursor.after(last).encode() : null);
+            json.writeEndObject();
+        }
+    }
+
+    /**
+     * Merges the database rows with the archived ones, newest first. Rows at
+     * or after the horizon can only be in the database, so the archive is
+     * opened only once the page reaches past it. An order archived but not
+     * yet trimmed comes from both sides and is written once.
+     */
+    private static final class NewestFirst implements Iterator<OrderSummaryDto> {
+
+        private final Iterator<OrderSummaryDto> database;
+        private final LocalDateTime horizon;
+        private final Supplier<Iterator<OrderSummaryDto>> openArchive;
+        private Iterator<OrderSummaryDto> archive;
+        private OrderSummaryDto nextDatabase;
+        private OrderSummaryDto nextArchived;
+
+        NewestFirst(Iterator<OrderSummaryDto> database, LocalDateTime horizon,
+                Supplier<Iterator<OrderSummaryDto>> openArchive) {
+            this.database = database;
+            this.horizon = horizon;
+            this.openArchive = openArchive;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextDatabase == null && database.hasNext()) {
+                nextDatabase = database.next();
+            }
+            if (nextDatabase != null && !nextDatabase.orderDate().isBefore(horizon)) {
+                return true;
+            }
+            if (archive == null) {
+                archive = openArchive.get();
+            }
+            if (nextArchived == null && archive.hasNext()) {
+                nextArchived = archive.next();
+            }
+            return nextDatabase != null || nextArchived != null;
+        }
+
+        @Override
+        public OrderSummaryDto next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int order = nextArchived == null ? -1
+                    : nextDatabase == null ? 1
+                    : NEWEST_FIRST.compare(nextDatabase, nextArchived);
+            OrderSummaryDto next = order <= 0 ? nextDatabase : nextArchived;
+            if (order <= 0) {
+                nextDatabase = null;
+            }
+            if (order >= 0) {
+                nextArchived = null;
+            }
+            return next;
+        }
+    }
+
+}
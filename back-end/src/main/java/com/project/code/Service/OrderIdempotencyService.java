@@ -0,0 +1,191 @@
+package com.project.code.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.IdempotencyKey;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Repo.IdempotencyKeyRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.config.OrderProperties;
+import com.project.code.exception.IdempotencyKeyMismatchException;
+import com.project.code.support.ExpiringLruCache;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes placeOrder safe to retry with an Idempotency-Key header. A duplicate
+ * that arrives while the first request is still running waits for its result,
+ * later duplicates are answered from memory or from the idempotency_key table
+ * without touching inventory again. A key reused by another customer or for
+ * another request is refused with IdempotencyKeyMismatchException.
+ */
+@Slf4j
+@Service
+public class OrderIdempotencyService {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderDetailsRepository orderDetailsRepository;
+    private final OrderProperties orderProperties;
+    private final ExpiringLruCache<String, Completed> completedOrders;
+    private final ConcurrentMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    public OrderIdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+            OrderDetailsRepository orderDetailsRepository, OrderProperties orderProperties) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderDetailsRepository = orderDetailsRepository;
+        this.orderProperties = orderProperties;
+        this.completedOrders = new ExpiringLruCache<>(
+                orderProperties.getIdempotency().getCacheSize(),
+                orderProperties.getIdempotency().getCacheTtl());
+    }
+
+    /**
+     * Runs placeOrder once per idempotency key. placeOrder has to store the key
+     * in the same transaction as the order, with the customer email of the
+     * request and its {@link #requestHash}.
+     *
+     * @throws IdempotencyKeyMismatchException when the key was first used by another customer or for another request
+     */
+    public OrderDetails placeOrder(String idempotencyKey, PlaceOrderRequestDTO request,
+            Supplier<OrderDetails> placeOrder) {
+        Fingerprint fingerprint = new Fingerprint(request.getCustomerEmail(), requestHash(request));
+        Optional<Completed> completed = completedOrders.get(idempotencyKey);
+        if (completed.isPresent()) {
+            check(idempotencyKey, completed.get().fingerprint(), fingerprint);
+            return completed.get().orderDetails();
+        }
+
+        InFlight result = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(idempotencyKey, result);
+        if (running != null) {
+            check(idempotencyKey, running.fingerprint(), fingerprint);
+            log.info("Order with idempotency key {} is in flight, waiting for its result", idempotencyKey);
+            return await(running.result());
+        }
+
+        try {
+            OrderDetails orderDetails = findPersistedOrder(idempotencyKey, fingerprint)
+                    .orElseGet(() -> execute(idempotencyKey, fingerprint, placeOrder));
+            completedOrders.put(idempotencyKey, new Completed(fingerprint, orderDetails));
+            result.result().complete(orderDetails);
+            return orderDetails;
+        } catch (RuntimeException e) {
+            // failures are not remembered, the client may fix the cause and retry with the same key
+            result.result().completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, result);
+        }
+    }
+
+    /**
+     * SHA-256 in hex of what an order is placed from: the store, the customer,
+     * the reservation and each line's product and quantity. Names, prices and
+     * totals sent along are not used to place the order and are left out.
+     */
+    public static String requestHash(PlaceOrderRequestDTO request) {
+        StringBuilder canonical = new StringBuilder();
+        append(canonical, request.getStoreId());
+        append(canonical, request.getCustomerName());
+        append(canonical, request.getCustomerEmail());
+        append(canonical, request.getCustomerPhone());
+        append(canonical, request.getReservationId());
+        if (request.getPurchaseProduct() != null) {
+            for (PurchaseProductDTO line : request.getPurchaseProduct()) {
+                append(canonical, line.getId());
+                append(canonical, line.getQuantity());
+            }
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-millis:3600000}")
+    public void purgeExpiredKeys() {
+        LocalDateTime createdBefore = LocalDateTime.now().minus(orderProperties.getIdempotency().getKeyRetention());
+        int purged = idempotencyKeyRepository.deleteByCreatedAtBefore(createdBefore);
+        if (purged > 0) {
+            log.info("Purged {} idempotency keys created before {}", purged, createdBefore);
+        }
+    }
+
+    private OrderDetails execute(String idempotencyKey, Fingerprint fingerprint, Supplier<OrderDetails> placeOrder) {
+        try {
+            return placeOrder.get();
+        } catch (DataIntegrityViolationException e) {
+            // another instance stored the same key first, answer with its order
+            return findPersistedOrder(idempotencyKey, fingerprint).orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<OrderDetails> findPersistedOrder(String idempotencyKey, Fingerprint fingerprint) {
+        Optional<IdempotencyKey> persisted = idempotencyKeyRepository.findById(idempotencyKey);
+        persisted.ifPresent(key -> check(idempotencyKey,
+                new Fingerprint(key.getCustomerEmail(), key.getRequestHash()), fingerprint));
+        return persisted.flatMap(key -> orderDetailsRepository.findWithItemsById(key.getOrderId()));
+    }
+
+    private static void check(String idempotencyKey, Fingerprint used, Fingerprint requested) {
+        if (!Objects.equals(used.customerEmail(), requested.customerEmail())) {
+            throw new IdempotencyKeyMismatchException(
+                    "Idempotency key " + idempotencyKey + " was already used by another customer");
+        }
+        if (!used.requestHash().equals(requested.requestHash())) {
+            throw new IdempotencyKeyMismatchException(
+                    "Idempotency key " + idempotencyKey + " was already used for a different order");
+        }
+    }
+
+    // each value prefixed with its length, so no two requests run together into the same text
+    private static void append(StringBuilder canonical, Object value) {
+        String text = value == null ? "" : value.toString();
+        canonical.append(value == null ? -1 : text.length()).append(':').append(text);
+    }
+
+    private OrderDetails await(CompletableFuture<OrderDetails> running) {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the in-flight order", e);
+        }
+    }
+
+    // what a key was first used with, a reuse has to match it
+    private record Fingerprint(String customerEmail, String requestHash) {
+    }
+
+    private record Completed(Fingerprint fingerprint, OrderDetails orderDetails) {
+    }
+
+    private record InFlight(Fingerprint fingerprint, CompletableFuture<OrderDetails> result) {
+    }
+
+}
@@ -1,17 +1,35 @@
 package com.project.code.Service;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.project.code.Model.Customer;
+import com.project.code.Model.IdempotencyKey;
 import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryStockDto;
 import com.project.code.Model.OrderDetails;
 import com.project.code.Model.OrderItem;
+import com.project.code.Model.OrderPlacedEvent;
 import com.project.code.Model.PlaceOrderRequestDTO;
 import com.project.code.Model.Product;
 import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StockChangedEvent;
 import com.project.code.Model.Store;
 import com.project.code.Repo.CustomerRepository;
 import com.project.code.Repo.InventoryRepository;
@@ -19,7 +37,7 @@ import com.project.code.Repo.OrderDetailsRepository;
 import com.project.code.Repo.OrderItemRepository;
 import com.project.code.Repo.ProductRepository;
 import com.project.code.Repo.StoreRepository;
-import com.project.code.exception.CustomerNotFoundException;
+import com.project.code.config.OrderProperties;
 import com.project.code.exception.InventoryNotFoundException;
 import com.project.code.exception.InventorySaveException;
 import com.project.code.exception.InventoryStockInsufficientException;
@@ -28,86 +46,412 @@ import com.project.code.exception.OrderItemSaveException;
 import com.project.code.exception.ProductNotFoundException;
 import com.project.code.exception.StoreNotFoundException;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class OrderService {
 
     private final CustomerRepository customerRepository;
+    private final CustomerResolutionService customerResolutionService;
     private final StoreRepository storeRepository;
     private final InventoryRepository inventoryRepository;
     private final ProductRepository productRepository;
     private final OrderDetailsRepository orderDetailsRepository;
     private final OrderItemRepository orderItemRepository;
+    private final ShardedStockService shardedStockService;
+    private final StockReservationService stockReservationService;
+    private final OrderProperties orderProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CheckoutMetrics checkoutMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
 
-    @Transactional(rollbackOn = {
-            CustomerNotFoundException.class,
-            StoreNotFoundException.class,
-            ProductNotFoundException.class,
-            InventoryNotFoundException.class,
-            InventoryStockInsufficientException.class,
-            InventorySaveException.class
-    })
     public OrderDetails saveOrder(PlaceOrderRequestDTO request) {
-        // get/create customer
-        Customer customer = customerRepository.findByEmail(request.getCustomerEmail())
-                .orElseGet(() -> customerRepository.save(
-                        new Customer(
-                                request.getCustomerName(),
-                                request.getCustomerEmail(),
-                                request.getCustomerPhone())));
+        return saveOrder(request, null);
+    }
+
+    /**
+     * Places the order in its own transaction. A transaction that timed out
+     * waiting for a row lock (or lost a deadlock) is rolled back and run again
+     * after a jittered backoff, up to order.lock-retry.max-attempts times. So is
+     * one whose commit found a versioned row (the inventory deducted in memory by
+     * the batched mode) changed since it was read, the retry reads it again. A
+     * non-null idempotencyKey is stored in the same transaction as the order.
+     */
+    public OrderDetails saveOrder(PlaceOrderRequestDTO request, String idempotencyKey) {
+        // joined to the caller's transaction the whole of it would have to be retried, not just this order
+        int maxAttempts = TransactionSynchronizationManager.isActualTransactionActive()
+                ? 1
+                : orderProperties.getLockRetry().getMaxAttempts();
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> placeOrder(request, idempotencyKey, true));
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Order for store {} timed out on a row lock, attempt {} of {}: {}",
+                        request.getStoreId(), attempt, maxAttempts, e.getMessage());
+                checkoutMetrics.retried(CheckoutMetrics.LOCK_TIMEOUT);
+                backOff(attempt, e);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("Order for store {} found a row changed since it was read, attempt {} of {}: {}",
+                        request.getStoreId(), attempt, maxAttempts, e.getMessage());
+                countVersionConflict();
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    // Inventory is the only versioned entity, a batched update that lost doesn't say which row it was
+    private void countVersionConflict() {
+        checkoutMetrics.inventoryConflict();
+        checkoutMetrics.retried(CheckoutMetrics.VERSION_CONFLICT);
+    }
+
+    /**
+     * Places the order inside the caller's transaction. Used by the group-commit
+     * intake, which runs many orders in one transaction with a savepoint each.
+     * A non-null idempotencyKey is stored in the same transaction as the order.
+     */
+    public OrderDetails saveOrderInCurrentTransaction(PlaceOrderRequestDTO request, String idempotencyKey) {
+        // the transaction is shared with other orders, its commit isn't this order's to time
+        return placeOrder(request, idempotencyKey, false);
+    }
+
+    /** Full jitter: a random wait up to the exponential backoff, so retried orders don't collide again. */
+    private void backOff(int attempt, RuntimeException cause) {
+        OrderProperties.LockRetry lockRetry = orderProperties.getLockRetry();
+        long ceiling = Math.min(lockRetry.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20),
+                lockRetry.getMaxBackoff().toMillis());
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private OrderDetails placeOrder(PlaceOrderRequestDTO request, String idempotencyKey, boolean ownTransaction) {
+        int lines = request.getPurchaseProduct().size();
+        Timer.Sample sample = checkoutMetrics.start();
+        OrderDetails orderDetails;
+        try {
+            orderDetails = placeOrderPhases(request, idempotencyKey, lines);
+        } catch (RuntimeException e) {
+            checkoutMetrics.orderFailed(sample, lines, e);
+            throw e;
+        }
+        if (ownTransaction) {
+            checkoutMetrics.orderSucceededOnCommit(sample, lines);
+        } else {
+            checkoutMetrics.orderSucceeded(sample, lines);
+        }
+        return orderDetails;
+    }
+
+    private OrderDetails placeOrderPhases(PlaceOrderRequestDTO request, String idempotencyKey, int lines) {
+        // get/create customer, only its id is needed so the entity and its orders stay unloaded
+        long customerId = checkoutMetrics.phase("customer", lines, () -> customerResolutionService.resolveCustomerId(
+                request.getCustomerName(), request.getCustomerEmail(), request.getCustomerPhone()));
+        Customer customer = customerRepository.getReferenceById(customerId);
 
         // check store
-        Store store = storeRepository.findById(request.getStoreId())
-                .orElseThrow(() -> new StoreNotFoundException("Store not found id=" + request.getStoreId()));
+        Store store = checkoutMetrics.phase("store", lines, () -> storeRepository.findById(request.getStoreId())
+                .orElseThrow(() -> new StoreNotFoundException("Store not found id=" + request.getStoreId())));
 
-        List<OrderItem> orderItems = new ArrayList<>();
-        OrderDetails orderDetails = orderDetailsRepository.save(new OrderDetails(customer, store));
+        // stock the buyer reserved earlier is sold without checking it against other holds again
+        Map<Long, Integer> heldQuantities = request.getReservationId() == null
+                ? Map.of()
+                : checkoutMetrics.phase("reservation", lines,
+                        () -> stockReservationService.get(request.getReservationId(), store.getId()).quantities());
 
-        for (PurchaseProductDTO requestProduct : request.getPurchaseProduct()) {
-            Product product = productRepository.findById(requestProduct.getId())
-                    .orElseThrow(() -> new ProductNotFoundException("Product not found id=" + requestProduct.getId()));
-            // get inventory by storeId, productId
-            Inventory inventory = inventoryRepository.findByStoreAndProduct(store, product)
-                    .orElseThrow(() -> new InventoryNotFoundException("Inventory of StoreId=%s ProductId=%s not found"
-                            .formatted(store.getId(), requestProduct.getId())));
-
-            if (inventory.getStockLevel() < requestProduct.getQuantity()) {
-                throw new InventoryStockInsufficientException(
-                        "Inventory stock insufficient of StoreId=%s ProductId=%s"
-                                .formatted(store.getId(), requestProduct.getId()));
-            }
+        // resolve every product of the basket up front with one IN-list query
+        Map<Long, Integer> requestedQuantities = sumQuantityByProduct(request.getPurchaseProduct());
+        Map<Long, Product> products = checkoutMetrics.phase("products", lines,
+                () -> findProducts(requestedQuantities.keySet()));
 
-            // deduct stockLevel of that inventory product
-            inventory.setStockLevel(inventory.getStockLevel() - requestProduct.getQuantity());
+        switch (orderProperties.getStockDeduction()) {
+            case CONDITIONAL_UPDATE -> checkoutMetrics.phase("inventory_update", lines,
+                    () -> decrementStock(store, requestedQuantities, heldQuantities));
+            case PESSIMISTIC -> deductStockLocked(store, requestedQuantities, heldQuantities, lines);
+            case OPTIMISTIC -> deductStockOptimistically(store, requestedQuantities, heldQuantities, lines);
+            default -> deductStockInMemory(store, requestedQuantities, heldQuantities, lines);
+        }
+
+        OrderDetails orderDetails = checkoutMetrics.phase("order_save", lines,
+                () -> orderDetailsRepository.save(new OrderDetails(customer, store)));
+
+        List<OrderItem> newItems = new ArrayList<>();
+        for (PurchaseProductDTO requestProduct : request.getPurchaseProduct()) {
+            Product product = products.get(requestProduct.getId());
+            newItems.add(new OrderItem(orderDetails, product, requestProduct.getQuantity(), product.getPrice()));
+        }
 
+        List<OrderItem> orderItems = checkoutMetrics.phase("order_items_save", lines, () -> {
             try {
-                inventoryRepository.save(inventory);
+                return orderItemRepository.saveAll(newItems);
             } catch (Exception e) {
-                throw new InventorySaveException("Saving inventory got exception:" + e.getMessage());
+                throw new OrderItemSaveException("Saving OrderItem got exception:" + e.getMessage());
             }
+        });
 
+        // the response carries the lines, as the order read back for a retried Idempotency-Key does
+        orderDetails.setOrderItems(orderItems);
+
+        checkoutMetrics.phase("order_total_save", lines, () -> {
             try {
-                OrderItem savedOrderItem = orderItemRepository
-                        .save(new OrderItem(orderDetails, product, requestProduct.getQuantity(),
-                                product.getPrice()));
-                orderItems.add(savedOrderItem);
+                orderDetails.setTotalPrice(
+                        orderItems.stream()
+                                .mapToDouble(order -> order.getPrice() * order.getQuantity()).sum());
+                orderDetailsRepository.save(orderDetails);
             } catch (Exception e) {
-                throw new OrderItemSaveException("Saving OrderItem got exception:" + e.getMessage());
+                throw new OrderDetailSaveException("Saving OrderDetail got exception:" + e.getMessage());
+            }
+        });
+
+        // the outbox writes the event in this transaction, its consumers (sales rollups, analytics) read it from there
+        checkoutMetrics.phase("events", lines,
+                () -> eventPublisher.publishEvent(orderPlaced(orderDetails, customerId, store, orderItems)));
+
+        if (idempotencyKey != null) {
+            // persisted, not saved: save() merges an entity with an assigned id, and would overwrite the key a
+            // concurrent request stored in the meantime; an insert fails on the primary key and rolls back
+            checkoutMetrics.phase("idempotency_key", lines,
+                    () -> entityManager.persist(new IdempotencyKey(idempotencyKey, orderDetails.getId(),
+                            request.getCustomerEmail(), OrderIdempotencyService.requestHash(request))));
+        }
+        if (request.getReservationId() != null) {
+            releaseAfterCommit(request.getReservationId());
+        }
+        return orderDetails;
+    }
+
+    private Map<Long, Integer> sumQuantityByProduct(List<PurchaseProductDTO> purchaseProducts) {
+        // the same product may appear on several lines, its stock has to cover all of them
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (PurchaseProductDTO purchaseProduct : purchaseProducts) {
+            quantities.merge(purchaseProduct.getId(), purchaseProduct.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private Map<Long, Product> findProducts(Collection<Long> productIds) {
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ProductNotFoundException("Product not found id=" + productId);
+            }
+        }
+        return products;
+    }
+
+    private void deductStockInMemory(Store store, Map<Long, Integer> requestedQuantities,
+            Map<Long, Integer> heldQuantities, int lines) {
+        Map<Long, Inventory> inventories = checkoutMetrics.phase("inventory_fetch", lines,
+                () -> findInventories(store, requestedQuantities.keySet()));
+        checkoutMetrics.phase("inventory_update", lines,
+                () -> deductStock(store, inventories, requestedQuantities, heldQuantities));
+    }
+
+    private void deductStockLocked(Store store, Map<Long, Integer> requestedQuantities,
+            Map<Long, Integer> heldQuantities, int lines) {
+        // the lines sorted by productId and locked by one statement in that order, so two baskets
+        // holding the same products in a different order queue up instead of deadlocking
+        Map<Long, Inventory> inventories = checkoutMetrics.phase("inventory_lock", lines,
+                () -> inventoryRepository.findForUpdateOrderByProductId(store.getId(),
+                        new TreeSet<>(requestedQuantities.keySet())).stream()
+                        .collect(Collectors.toMap(inventory -> inventory.getProduct().getId(), Function.identity())));
+        checkoutMetrics.phase("inventory_update", lines,
+                () -> deductStock(store, inventories, requestedQuantities, heldQuantities));
+    }
+
+    private void deductStock(Store store, Map<Long, Inventory> inventories, Map<Long, Integer> requestedQuantities,
+            Map<Long, Integer> heldQuantities) {
+
+        // validate and deduct stockLevel in memory, the updates are flushed together as one batch
+        for (Map.Entry<Long, Integer> requested : requestedQuantities.entrySet()) {
+            Inventory inventory = inventories.get(requested.getKey());
+            if (inventory == null) {
+                throw inventoryNotFound(store.getId(), requested.getKey());
+            }
+
+            int requiredStock = requiredStock(store.getId(), requested.getKey(), requested.getValue(), heldQuantities);
+
+            if (inventory.isSharded()) {
+                deductFromShards(store, inventory, requested.getKey(), requested.getValue(), requiredStock);
+                continue;
+            }
+
+            if (inventory.getStockLevel() < requiredStock) {
+                throw stockInsufficient(store.getId(), requested.getKey());
             }
 
+            inventory.setStockLevel(inventory.getStockLevel() - requested.getValue());
+            publishStockChanged(store, requested.getKey(), requested.getValue(), inventory.getStockLevel());
         }
 
         try {
-            orderDetails.setTotalPrice(
-                    orderItems.stream()
-                            .mapToDouble(order -> order.getPrice() * order.getQuantity()).sum());
-            return orderDetailsRepository.save(orderDetails);
+            inventoryRepository.saveAll(inventories.values());
         } catch (Exception e) {
-            throw new OrderDetailSaveException("Saving OrderDetail got exception:" + e.getMessage());
+            throw new InventorySaveException("Saving inventory got exception:" + e.getMessage());
+        }
+    }
+
+    private void deductStockOptimistically(Store store, Map<Long, Integer> requestedQuantities,
+            Map<Long, Integer> heldQuantities, int lines) {
+        Map<Long, Inventory> inventories = checkoutMetrics.phase("inventory_fetch", lines,
+                () -> findInventories(store, requestedQuantities.keySet()));
+        checkoutMetrics.phase("inventory_update", lines, () -> {
+            // written in productId order, a conflicting row is re-read with a lock and two orders
+            // taking those locks in a different order could deadlock
+            for (Map.Entry<Long, Integer> requested : new TreeMap<>(requestedQuantities).entrySet()) {
+                Inventory inventory = inventories.get(requested.getKey());
+                if (inventory == null) {
+                    throw inventoryNotFound(store.getId(), requested.getKey());
+                }
+                int requiredStock = requiredStock(store.getId(), requested.getKey(), requested.getValue(),
+                        heldQuantities);
+                if (inventory.isSharded()) {
+                    deductFromShards(store, inventory, requested.getKey(), requested.getValue(), requiredStock);
+                } else {
+                    compareAndDeduct(store, inventory, requested.getKey(), requested.getValue(), requiredStock);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the deducted level with a compare-and-set on the version the row
+     * was read with. When another transaction wrote the row in between only
+     * this row is read again, locked so the second write can't conflict, and
+     * the stock check is repeated against what is there now.
+     */
+    private void compareAndDeduct(Store store, Inventory inventory, Long productId, int quantity, int requiredStock) {
+        int stockLevel = inventory.getStockLevel();
+        long version = inventory.getVersion();
+        while (true) {
+            if (stockLevel < requiredStock) {
+                throw stockInsufficient(store.getId(), productId);
+            }
+            if (inventoryRepository.updateStockLevel(inventory.getId(), version, stockLevel - quantity) == 1) {
+                publishStockChanged(store, productId, quantity, stockLevel - quantity);
+                return;
+            }
+            checkoutMetrics.inventoryConflict(store.getId(), productId);
+            checkoutMetrics.retried(CheckoutMetrics.VERSION_CONFLICT);
+            InventoryStockDto current = inventoryRepository.findStockForUpdate(inventory.getId())
+                    .orElseThrow(() -> inventoryNotFound(store.getId(), productId));
+            if (current.shardCount() > 0) {
+                // resharded in the meantime, the stock now lives in the buckets
+                deductFromShards(store, inventory, productId, quantity, requiredStock);
+                return;
+            }
+            stockLevel = current.stockLevel();
+            version = current.version();
+        }
+    }
+
+    // hot SKU, deduct from one of its buckets and leave the row itself untouched
+    private void deductFromShards(Store store, Inventory inventory, Long productId, int quantity, int requiredStock) {
+        if (requiredStock > quantity && shardedStockService.totalStock(inventory) < requiredStock
+                || !shardedStockService.deduct(inventory, quantity)) {
+            throw stockInsufficient(store.getId(), productId);
+        }
+        publishStockChanged(store, productId, quantity, null);
+    }
+
+    private void decrementStock(Store store, Map<Long, Integer> requestedQuantities,
+            Map<Long, Integer> heldQuantities) {
+        for (Map.Entry<Long, Integer> requested : requestedQuantities.entrySet()) {
+            int requiredStock = requiredStock(store.getId(), requested.getKey(), requested.getValue(), heldQuantities);
+            int updated = inventoryRepository.decrementStock(
+                    store.getId(), requested.getKey(), requested.getValue(), requiredStock);
+            if (updated == 0) {
+                // nothing matched the guard, find out why only on this (rare) path
+                Inventory inventory = inventoryRepository.findByStoreIdAndProductId(store.getId(), requested.getKey())
+                        .orElseThrow(() -> inventoryNotFound(store.getId(), requested.getKey()));
+                if (!inventory.isSharded()
+                        || requiredStock > requested.getValue() && shardedStockService.totalStock(inventory) < requiredStock
+                        || !shardedStockService.deduct(inventory, requested.getValue())) {
+                    throw stockInsufficient(store.getId(), requested.getKey());
+                }
+            }
+            // the guarded update doesn't read the row back, the new level is unknown here
+            publishStockChanged(store, requested.getKey(), requested.getValue(), null);
+        }
+    }
+
+    /**
+     * Stock the row must hold for the line to go through: just the quantity when
+     * the buyer's own reservation covers it, otherwise the quantity plus what
+     * other carts have on hold.
+     */
+    private int requiredStock(long storeId, Long productId, int quantity, Map<Long, Integer> heldQuantities) {
+        int held = heldQuantities.getOrDefault(productId, 0);
+        if (held >= quantity) {
+            return quantity;
+        }
+        int reservedByOthers = stockReservationService.reservedQuantity(storeId, productId) - held;
+        return quantity + Math.max(reservedByOthers, 0);
+    }
+
+    private void publishStockChanged(Store store, Long productId, int soldQuantity, Integer stockLevel) {
+        eventPublisher.publishEvent(new StockChangedEvent(store.getId(), productId, -soldQuantity, stockLevel,
+                StockChangedEvent.Reason.SALE));
+    }
+
+    private OrderPlacedEvent orderPlaced(OrderDetails orderDetails, long customerId, Store store,
+            List<OrderItem> orderItems) {
+        return new OrderPlacedEvent(
+                orderDetails.getId(),
+                store.getId(),
+                customerId,
+                orderDetails.getTotalPrice(),
+                orderDetails.getOrderDate(),
+                orderItems.stream()
+                        .map(item -> new OrderPlacedEvent.Line(item.getProduct().getId(),
+                                item.getProduct().getCategory(), item.getQuantity(), item.getPrice()))
+                        .toList());
+    }
+
+    private void releaseAfterCommit(String reservationId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stockReservationService.release(reservationId);
+            return;
         }
+        // the hold has to outlive a rollback, the buyer may retry with the same reservation
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stockReservationService.release(reservationId);
+            }
+        });
+    }
+
+    private InventoryNotFoundException inventoryNotFound(long storeId, Long productId) {
+        return new InventoryNotFoundException("Inventory of StoreId=%s ProductId=%s not found"
+                .formatted(storeId, productId));
+    }
+
+    private InventoryStockInsufficientException stockInsufficient(long storeId, Long productId) {
+        return new InventoryStockInsufficientException("Inventory stock insufficient of StoreId=%s ProductId=%s"
+                .formatted(storeId, productId));
+    }
+
+    private Map<Long, Inventory> findInventories(Store store, Collection<Long> productIds) {
+        return inventoryRepository.findByStoreIdAndProductIdIn(store.getId(), productIds).stream()
+                .collect(Collectors.toMap(inventory -> inventory.getProduct().getId(), Function.identity()));
     }
 
 }
@@ -0,0 +1,156 @@
+package com.project.code.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.OutboxCursor;
+import com.project.code.Model.OutboxEvent;
+import com.project.code.Repo.OutboxCursorRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.config.OutboxProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drains the outbox to every {@link OutboxSubscriber} in id order. Each
+ * consumer has its own persisted cursor, advanced after its batch was handled;
+ * a consumer that throws is retried from the failing event on the next poll
+ * without holding back the others.
+ * <p>
+ * Ids are taken when an event is written, not when it commits, so a slow
+ * transaction can commit an event below ids already delivered. The cursor
+ * keeps the ids it skipped over and picks up any of them that show up within
+ * outbox.gap-timeout; most never do, they belong to rolled back transactions
+ * or were never handed out by the pooled sequence.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+    // a larger jump is ids the sequence never handed out, a new consumer on an old outbox, not open transactions
+    private static final int MAX_SKIPPED_IDS = 1_000;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCursorRepository outboxCursorRepository;
+    private final OutboxService outboxService;
+    private final ObjectProvider<OutboxSubscriber> subscribers;
+    private final OutboxProperties outboxProperties;
+    // one relay at a time, two would both create a new consumer's cursor
+    private final ReentrantLock relayLock = new ReentrantLock();
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxCursorRepository outboxCursorRepository,
+            OutboxService outboxService, ObjectProvider<OutboxSubscriber> subscribers,
+            OutboxProperties outboxProperties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxCursorRepository = outboxCursorRepository;
+        this.outboxService = outboxService;
+        this.subscribers = subscribers;
+        this.outboxProperties = outboxProperties;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-millis:500}")
+    public void relay() {
+        relayLock.lock();
+        try {
+            subscribers.orderedStream().forEach(subscriber -> {
+                // keep draining while batches come back full
+                while (deliverBatch(subscriber) == outboxProperties.getBatchSize()) {
+                    log.debug("Outbox consumer {} is catching up", subscriber.consumerName());
+                }
+            });
+        } finally {
+            relayLock.unlock();
+        }
+    }
+
+    /**
+     * Hands the next batch after the consumer's cursor, skipped ids that have
+     * committed since first, to it and returns how many events it handled.
+     */
+    int deliverBatch(OutboxSubscriber subscriber) {
+        OutboxCursor cursor = cursorOf(subscriber);
+        LocalDateTime watchedSince = LocalDateTime.now().minus(outboxProperties.getGapTimeout());
+        boolean expired = cursor.getGaps().values().removeIf(skippedAt -> skippedAt.isBefore(watchedSince));
+        Limit limit = Limit.of(outboxProperties.getBatchSize());
+        List<OutboxEvent> batch = cursor.getGaps().isEmpty()
+                ? outboxEventRepository.findByIdGreaterThanOrderById(cursor.getLastEventId(), limit)
+                : outboxEventRepository.findByIdGreaterThanOrIdInOrderById(cursor.getLastEventId(),
+                        List.copyOf(cursor.getGaps().keySet()), limit);
+
+        int handled = 0;
+        for (OutboxEvent outboxEvent : batch) {
+            try {
+                subscriber.handle(outboxEvent.getId(), outboxService.decode(outboxEvent));
+            } catch (RuntimeException e) {
+                log.warn("Outbox consumer {} failed on event {}, retrying from there on the next poll: {}",
+                        subscriber.consumerName(), outboxEvent.getId(), e.getMessage());
+                break;
+            }
+            if (outboxEvent.getId() > cursor.getLastEventId()) {
+                skip(cursor, outboxEvent, watchedSince);
+                cursor.setLastEventId(outboxEvent.getId());
+            } else {
+                cursor.getGaps().remove(outboxEvent.getId());
+            }
+            handled++;
+        }
+
+        if (handled > 0) {
+            try {
+                subscriber.flush();
+            } catch (RuntimeException e) {
+                log.warn("Outbox consumer {} failed to flush up to event {}, redelivering the batch: {}",
+                        subscriber.consumerName(), cursor.getLastEventId(), e.getMessage());
+                return 0;
+            }
+        }
+        if (handled > 0 || expired) {
+            cursor.setUpdatedAt(LocalDateTime.now());
+            outboxCursorRepository.save(cursor);
+        }
+        return handled;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-millis:3600000}")
+    public void purgeDeliveredEvents() {
+        // without subscribers nothing waits for delivery, everything past retention can go
+        long deliveredToAll = subscribers.orderedStream()
+                .map(this::cursorOf)
+                // a skipped id may still commit, the events from there on are kept
+                .mapToLong(cursor -> cursor.getGaps().keySet().stream()
+                        .mapToLong(skipped -> skipped - 1)
+                        .min()
+                        .orElse(cursor.getLastEventId()))
+                .min()
+                .orElse(Long.MAX_VALUE);
+        LocalDateTime createdBefore = LocalDateTime.now().minus(outboxProperties.getRetention());
+        int purged = outboxEventRepository.deleteDelivered(deliveredToAll, createdBefore);
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox events created before {}", purged, createdBefore);
+        }
+    }
+
+    private OutboxCursor cursorOf(OutboxSubscriber subscriber) {
+        return outboxCursorRepository.findById(subscriber.consumerName())
+                .orElseGet(() -> new OutboxCursor(subscriber.consumerName(), 0));
+    }
+
+    // the ids between the cursor and the event may belong to transactions that are still open
+    private void skip(OutboxCursor cursor, OutboxEvent outboxEvent, LocalDateTime watchedSince) {
+        if (outboxEvent.getCreatedAt().isBefore(watchedSince)) {
+            // written after the skipped ids were taken, whatever holds them has been open too long already
+            return;
+        }
+        long from = Math.max(cursor.getLastEventId() + 1, outboxEvent.getId() - MAX_SKIPPED_IDS);
+        for (long id = from; id < outboxEvent.getId(); id++) {
+            cursor.getGaps().put(id, outboxEvent.getCreatedAt());
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.project.code.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.OrderPlacedEvent;
+import com.project.code.Model.OutboxEvent;
+import com.project.code.Model.OutboxIdentity;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.OutboxIdentityRepository;
+
+import jakarta.transaction.Transactional;
+import jakarta.transaction.Transactional.TxType;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Writes published domain events to the outbox table. The listeners run
+ * synchronously in the publisher's transaction, so an event is stored if and
+ * only if the change it describes commits.
+ */
+@RequiredArgsConstructor
+@Service
+public class OutboxService {
+
+    private static final Map<String, Class<?>> EVENT_TYPES = Stream.of(OrderPlacedEvent.class, StockChangedEvent.class)
+            .collect(Collectors.toMap(Class::getSimpleName, Function.identity()));
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxIdentityRepository outboxIdentityRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional(TxType.MANDATORY)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        append(event);
+    }
+
+    @EventListener
+    @Transactional(TxType.MANDATORY)
+    public void onStockChanged(StockChangedEvent event) {
+        append(event);
+    }
+
+    /** The id of this outbox, see {@link OutboxIdentity}. */
+    @Transactional
+    public String identity() {
+        return outboxIdentityRepository.findAll().stream()
+                .findFirst()
+                .orElseGet(() -> outboxIdentityRepository.save(new OutboxIdentity(UUID.randomUUID().toString())))
+                .getId();
+    }
+
+    public Object decode(OutboxEvent outboxEvent) {
+        Class<?> eventType = EVENT_TYPES.get(outboxEvent.getEventType());
+        if (eventType == null) {
+            throw new IllegalStateException("Unknown outbox event type " + outboxEvent.getEventType());
+        }
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), eventType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox event " + outboxEvent.getId() + " could not be read", e);
+        }
+    }
+
+    private void append(Object event) {
+        try {
+            outboxEventRepository.save(
+                    new OutboxEvent(event.getClass().getSimpleName(), objectMapper.writeValueAsString(event)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Event " + event + " could not be written to the outbox", e);
+        }
+    }
+
+}
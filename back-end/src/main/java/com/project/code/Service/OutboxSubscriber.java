@@ -0,0 +1,21 @@
+package com.project.code.Service;
+
+/**
+ * In-process consumer of outbox events, picked up by {@link OutboxRelay} as a
+ * Spring bean. Delivery is at least once: after a failure or a restart the
+ * events since the last stored cursor are handed over again, so handlers have
+ * to tolerate seeing an event twice. Events come in id order, except one
+ * whose transaction committed after a later event's, which comes late.
+ */
+public interface OutboxSubscriber {
+
+    // key of the persisted cursor, renaming a consumer makes it start from the oldest retained event
+    String consumerName();
+
+    void handle(long eventId, Object event);
+
+    // called once a batch was handled, before the cursor moves past it; the place to make the batch durable
+    default void flush() {
+    }
+
+}
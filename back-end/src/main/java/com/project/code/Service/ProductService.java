@@ -21,6 +21,7 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final InventoryRepository inventoryRepository;
     private final ServiceClass serviceClass;
+    private final AvailabilityIndexService availabilityIndexService;
 
     public ProductDto addProduct(ProductDto productDto) {
         log.info("Adding new product: {}", productDto.name());
@@ -119,12 +120,10 @@ public class ProductService {
     public List<ProductDto> getProductByCategoryAndStoreId(String category, Long storeId) {
         log.info("Getting products by category: {} and store ID: {}", category, storeId);
 
-        List<Product> products = productRepository.findProductByCategory(category);
+        // the store filter runs in the query, products without inventory in the store are never loaded
+        List<Product> products = productRepository.findByCategoryAndStoreId(category, storeId);
 
-        // Filter by store availability
         return products.stream()
-                .filter(product -> product.getInventories().stream()
-                        .anyMatch(inventory -> inventory.getStore().getId() == storeId))
                 .map(product -> new ProductDto(
                         product.getId(),
                         product.getName(),
@@ -144,6 +143,7 @@ public class ProductService {
 
         // Delete inventory records first
         inventoryRepository.deleteByProductId(id);
+        availabilityIndexService.productRemoved(id);
 
         // Delete the product
         productRepository.deleteById(id);
@@ -0,0 +1,61 @@
+package com.project.code.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.ProductSalesDto;
+import com.project.code.Model.StoreDailySales;
+import com.project.code.Model.StoreSalesDto;
+import com.project.code.Repo.CategoryStoreDailySalesRepository;
+import com.project.code.Repo.ProductDailySalesRepository;
+import com.project.code.Repo.StoreDailySalesRepository;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sales reports over the last N days, today included. Every report is one
+ * read of the daily rollups, its cost depends on the number of days and
+ * stores or products, not on how many orders were placed.
+ */
+@RequiredArgsConstructor
+@Service
+public class SalesReportService {
+
+    public static final int MAX_DAYS = 366;
+
+    private final StoreDailySalesRepository storeDailySalesRepository;
+    private final ProductDailySalesRepository productDailySalesRepository;
+    private final CategoryStoreDailySalesRepository categoryStoreDailySalesRepository;
+
+    public List<StoreSalesDto> revenueByStore(int days) {
+        return storeDailySalesRepository.sumByStoreSince(since(days));
+    }
+
+    public List<StoreDailySales> dailySalesOfStore(long storeId, int days) {
+        return storeDailySalesRepository.findByStoreIdAndSalesDateGreaterThanEqualOrderBySalesDate(storeId,
+                since(days));
+    }
+
+    public List<CategorySalesDto> revenueByCategory(long storeId, int days) {
+        return categoryStoreDailySalesRepository.sumByCategorySince(storeId, since(days));
+    }
+
+    public List<ProductSalesDto> topSellingProducts(int days, int limit) {
+        if (limit < 1 || limit > 1000) {
+            throw new IllegalArgumentException("limit must be between 1 and 1000");
+        }
+        return productDailySalesRepository.findTopSellingSince(since(days), Limit.of(limit));
+    }
+
+    public LocalDate since(int days) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_DAYS);
+        }
+        return LocalDate.now().minusDays(days - 1);
+    }
+
+}
@@ -0,0 +1,267 @@
+package com.project.code.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.OrderPlacedEvent;
+
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the daily sales rollups (store, product, category x store) in step
+ * with placed orders. The orders arrive through the outbox, after they
+ * committed, so a rolled back order never shows up in a report and checkout
+ * doesn't wait on a store's row for the day, which every order of that store
+ * would otherwise update in its own transaction. A relay batch is summed per
+ * rollup row and applied in one transaction, together with the ids of its
+ * events; an event handed over again is found among them and skipped, so no
+ * order is counted twice. Reports trail checkout by about one relay poll.
+ */
+@Slf4j
+@Service
+public class SalesRollupService implements OutboxSubscriber {
+
+    private static final Rollup STORE_DAILY = Rollup.of("store_daily_sales",
+            List.of("store_id", "sales_date"), List.of("order_count", "units_sold", "revenue"));
+    private static final Rollup PRODUCT_DAILY = Rollup.of("product_daily_sales",
+            List.of("product_id", "sales_date"), List.of("units_sold", "revenue"));
+    private static final Rollup CATEGORY_STORE_DAILY = Rollup.of("category_store_daily_sales",
+            List.of("category", "store_id", "sales_date"), List.of("units_sold", "revenue"));
+
+    // the NOT EXISTS guard makes the insert a no-op for an event counted before
+    private static final String MARK_APPLIED = """
+            INSERT INTO sales_rollup_event (event_id)
+            SELECT ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM sales_rollup_event WHERE event_id = ?)""";
+
+    // the day rebuilds start from when nothing is archived
+    private static final LocalDate FIRST_DAY = LocalDate.of(1000, 1, 1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderArchiveService orderArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    // orders handed over since the last flush by event id; the relay calls handle and flush from one thread
+    private final Map<Long, OrderPlacedEvent> pending = new LinkedHashMap<>();
+
+    public SalesRollupService(JdbcTemplate jdbcTemplate, OrderArchiveService orderArchiveService,
+            TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderArchiveService = orderArchiveService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public String consumerName() {
+        return "sales-rollups";
+    }
+
+    @Override
+    public void handle(long eventId, Object event) {
+        if (event instanceof OrderPlacedEvent orderPlaced) {
+            pending.put(eventId, orderPlaced);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(pending));
+        } finally {
+            // applied, or rolled back and handed over again by the relay
+            pending.clear();
+        }
+    }
+
+    /**
+     * Deletes the ids of events gone from the outbox, which can't be handed
+     * over again.
+     */
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-millis:3600000}")
+    public void purgeAppliedEvents() {
+        int purged = jdbcTemplate.update("""
+                DELETE FROM sales_rollup_event
+                WHERE NOT EXISTS (SELECT 1 FROM outbox_event e WHERE e.id = sales_rollup_event.event_id)""");
+        if (purged > 0) {
+            log.debug("Purged {} sales rollup event ids no longer in the outbox", purged);
+        }
+    }
+
+    /**
+     * Recomputes every rollup from the order history, for orders placed before
+     * the rollups existed. Orders committed while this runs may be missed, so
+     * run it while order intake is quiet. Days that were archived are no longer
+     * in the order tables, their rollup rows are kept as they are.
+     */
+    @Transactional
+    public void rebuild() {
+        LocalDate archivedBefore = orderArchiveService.archivedBefore();
+        LocalDate since = archivedBefore == null ? FIRST_DAY : archivedBefore;
+        jdbcTemplate.update("DELETE FROM store_daily_sales WHERE sales_date >= ?", since);
+        jdbcTemplate.update("DELETE FROM product_daily_sales WHERE sales_date >= ?", since);
+        jdbcTemplate.update("DELETE FROM category_store_daily_sales WHERE sales_date >= ?", since);
+
+        int stores = jdbcTemplate.update("""
+                INSERT INTO store_daily_sales (store_id, sales_date, order_count, units_sold, revenue)
+                SELECT o.store_id, CAST(o.order_date AS DATE), COUNT(*), COALESCE(SUM(i.units), 0), SUM(o.total_price)
+                FROM order_details o
+                LEFT JOIN (SELECT order_id, SUM(quantity) AS units FROM order_item GROUP BY order_id) i
+                  ON i.order_id = o.id
+                WHERE o.order_date >= ?
+                GROUP BY o.store_id, CAST(o.order_date AS DATE)""", since.atStartOfDay());
+        int products = jdbcTemplate.update("""
+                INSERT INTO product_daily_sales (product_id, sales_date, units_sold, revenue)
+                SELECT i.product_id, CAST(o.order_date AS DATE), SUM(i.quantity), SUM(i.quantity * i.price)
+                FROM order_item i JOIN order_details o ON o.id = i.order_id
+                WHERE o.order_date >= ?
+                GROUP BY i.product_id, CAST(o.order_date AS DATE)""", since.atStartOfDay());
+        int categories = jdbcTemplate.update("""
+                INSERT INTO category_store_daily_sales (category, store_id, sales_date, units_sold, revenue)
+                SELECT p.category, o.store_id, CAST(o.order_date AS DATE), SUM(i.quantity), SUM(i.quantity * i.price)
+                FROM order_item i JOIN order_details o ON o.id = i.order_id JOIN product p ON p.id = i.product_id
+                WHERE o.order_date >= ?
+                GROUP BY p.category, o.store_id, CAST(o.order_date AS DATE)""", since.atStartOfDay());
+        // the orders still in the outbox were counted from the order tables, the relay must not add them again
+        jdbcTemplate.update("""
+                INSERT INTO sales_rollup_event (event_id)
+                SELECT e.id FROM outbox_event e
+                WHERE e.event_type = ?
+                  AND NOT EXISTS (SELECT 1 FROM sales_rollup_event r WHERE r.event_id = e.id)""",
+                OrderPlacedEvent.class.getSimpleName());
+        log.info("Rebuilt sales rollups: {} store days, {} product days, {} category days", stores, products,
+                categories);
+    }
+
+    private void apply(Map<Long, OrderPlacedEvent> orders) {
+        List<Long> eventIds = List.copyOf(orders.keySet());
+        int[] marked = jdbcTemplate.batchUpdate(MARK_APPLIED,
+                eventIds.stream().map(eventId -> new Object[] { eventId, eventId }).toList());
+
+        // sorted keys, so a rebuild or another instance's relay locks the rollup rows in the same order
+        Map<List<Object>, Object[]> storeDays = new TreeMap<>(Rollup.KEY_ORDER);
+        Map<List<Object>, Object[]> productDays = new TreeMap<>(Rollup.KEY_ORDER);
+        Map<List<Object>, Object[]> categoryStoreDays = new TreeMap<>(Rollup.KEY_ORDER);
+        for (int i = 0; i < eventIds.size(); i++) {
+            if (marked[i] == 0) {
+                log.debug("Outbox event {} is already in the sales rollups", eventIds.get(i));
+                continue;
+            }
+            OrderPlacedEvent event = orders.get(eventIds.get(i));
+            LocalDate salesDate = event.orderDate().toLocalDate();
+            long units = 0;
+            for (OrderPlacedEvent.Line line : event.lines()) {
+                units += line.quantity();
+                double revenue = line.quantity() * line.price();
+                PRODUCT_DAILY.add(productDays, line.productId(), salesDate, (long) line.quantity(), revenue);
+                CATEGORY_STORE_DAILY.add(categoryStoreDays, line.category(), event.storeId(), salesDate,
+                        (long) line.quantity(), revenue);
+            }
+            STORE_DAILY.add(storeDays, event.storeId(), salesDate, 1L, units, event.totalPrice());
+        }
+
+        increment(STORE_DAILY, List.copyOf(storeDays.values()));
+        increment(PRODUCT_DAILY, List.copyOf(productDays.values()));
+        increment(CATEGORY_STORE_DAILY, List.copyOf(categoryStoreDays.values()));
+    }
+
+    /**
+     * Adds each row's amounts to its rollup row, creating the row on the first
+     * sale of the day. Rows are key columns followed by amounts.
+     */
+    private void increment(Rollup rollup, List<Object[]> rows) {
+        int[] updated = jdbcTemplate.batchUpdate(rollup.update(), rows.stream().map(rollup::updateArgs).toList());
+        for (int i = 0; i < rows.size(); i++) {
+            if (updated[i] == 0) {
+                insertOrIncrement(rollup, rows.get(i));
+            }
+        }
+    }
+
+    private void insertOrIncrement(Rollup rollup, Object[] row) {
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(rollup.insertIfAbsent(), rollup.insertArgs(row));
+        } catch (DuplicateKeyException e) {
+            // a rebuild or another instance created the row between our update and our insert
+            inserted = 0;
+        }
+        if (inserted == 0) {
+            jdbcTemplate.update(rollup.update(), rollup.updateArgs(row));
+        }
+    }
+
+    /** Statements of one rollup table, built once from its key and amount columns. */
+    private record Rollup(String update, String insertIfAbsent, int keyCount) {
+
+        // key columns compared left to right, every key column type is Comparable
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        static final Comparator<List<Object>> KEY_ORDER = (left, right) -> {
+            for (int i = 0; i < left.size(); i++) {
+                int order = ((Comparable) left.get(i)).compareTo(right.get(i));
+                if (order != 0) {
+                    return order;
+                }
+            }
+            return 0;
+        };
+
+        static Rollup of(String table, List<String> keys, List<String> amounts) {
+            String keyCondition = String.join(" AND ", keys.stream().map(column -> column + " = ?").toList());
+            String increments = String.join(", ",
+                    amounts.stream().map(column -> column + " = " + column + " + ?").toList());
+            List<String> columns = new ArrayList<>(keys);
+            columns.addAll(amounts);
+            return new Rollup(
+                    "UPDATE " + table + " SET " + increments + " WHERE " + keyCondition,
+                    // the NOT EXISTS guard makes the insert a no-op when the row is already there
+                    "INSERT INTO " + table + " (" + String.join(", ", columns) + ")"
+                            + " SELECT " + String.join(", ", columns.stream().map(column -> "?").toList())
+                            + " FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM " + table + " WHERE " + keyCondition + ")",
+                    keys.size());
+        }
+
+        // sums the row into the one of the same key, a long amount stays a long
+        void add(Map<List<Object>, Object[]> rows, Object... row) {
+            rows.merge(Arrays.asList(row).subList(0, keyCount), row, (sum, more) -> {
+                Object[] merged = sum.clone();
+                for (int i = keyCount; i < merged.length; i++) {
+                    merged[i] = sum[i] instanceof Long count
+                            ? (Object) (count + (Long) more[i])
+                            : (Object) ((Double) sum[i] + (Double) more[i]);
+                }
+                return merged;
+            });
+        }
+
+        // amounts first for the SET clause, then the key
+        Object[] updateArgs(Object[] row) {
+            Object[] args = new Object[row.length];
+            System.arraycopy(row, keyCount, args, 0, row.length - keyCount);
+            System.arraycopy(row, 0, args, row.length - keyCount, keyCount);
+            return args;
+        }
+
+        // the whole row, then the key again for the NOT EXISTS guard
+        Object[] insertArgs(Object[] row) {
+            Object[] args = new Object[row.length + keyCount];
+            System.arraycopy(row, 0, args, 0, row.length);
+            System.arraycopy(row, 0, args, row.length, keyCount);
+            return args;
+        }
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.project.code.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryShard;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.exception.InventoryNotFoundException;
+
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hot-SKU mode: the stock of one inventory row is split across N InventoryShard
+ * buckets. A checkout deducts from a randomly chosen bucket and only falls back
+ * to its siblings when that bucket runs dry, so concurrent checkouts of the same
+ * SKU mostly touch different rows.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ShardedStockService {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryShardRepository inventoryShardRepository;
+
+    public int totalStock(Inventory inventory) {
+        if (!inventory.isSharded()) {
+            return inventory.getStockLevel();
+        }
+        return inventory.getStockLevel() + inventoryShardRepository.sumStockLevel(inventory.getId());
+    }
+
+    /**
+     * Splits the current stock of the row into shardCount buckets, 0 folds the
+     * buckets back into Inventory.stockLevel.
+     */
+    @Transactional
+    public Inventory reshard(Long storeId, Long productId, int shardCount) {
+        if (shardCount < 0) {
+            throw new IllegalArgumentException("Shard count cannot be negative");
+        }
+        Inventory inventory = inventoryRepository.findForUpdate(storeId, productId)
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory of StoreId=%s ProductId=%s not found"
+                        .formatted(storeId, productId)));
+
+        int total = lockedTotalStock(inventory);
+        log.info("Resharding inventory {} from {} to {} buckets, total stock {}",
+                inventory.getId(), inventory.getShardCount(), shardCount, total);
+        redistribute(inventory, shardCount, total);
+        return inventory;
+    }
+
+    /** Sets the total stock of a sharded row, spreading it evenly over its buckets. */
+    @Transactional
+    public void setTotalStock(Inventory inventory, int stockLevel) {
+        if (stockLevel < 0) {
+            throw new IllegalArgumentException("Stock level cannot be negative");
+        }
+        Inventory locked = inventoryRepository.findForUpdate(inventory.getStore().getId(), inventory.getProduct().getId())
+                .orElseThrow(() -> new InventoryNotFoundException("Inventory id=" + inventory.getId() + " not found"));
+        // lock the buckets so no checkout deducts from a bucket that is about to be replaced
+        inventoryShardRepository.findForUpdateByInventoryId(locked.getId());
+        redistribute(locked, locked.getShardCount(), stockLevel);
+    }
+
+    /**
+     * Deducts quantity from the buckets of a sharded row, returns false when the
+     * buckets together don't hold enough stock.
+     */
+    @Transactional
+    public boolean deduct(Inventory inventory, int quantity) {
+        int shardCount = inventory.getShardCount();
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            int shardIndex = (start + i) % shardCount;
+            if (inventoryShardRepository.decrementStock(inventory.getId(), shardIndex, quantity) == 1) {
+                return true;
+            }
+        }
+
+        // no single bucket covers the quantity, take it from several buckets under lock
+        List<InventoryShard> shards = inventoryShardRepository.findForUpdateByInventoryId(inventory.getId());
+        int available = shards.stream().mapToInt(InventoryShard::getStockLevel).sum();
+        if (available < quantity) {
+            return false;
+        }
+
+        int remaining = quantity;
+        for (int i = 0; i < shards.size() && remaining > 0; i++) {
+            InventoryShard shard = shards.get((start + i) % shards.size());
+            int taken = Math.min(shard.getStockLevel(), remaining);
+            shard.setStockLevel(shard.getStockLevel() - taken);
+            remaining -= taken;
+        }
+        inventoryShardRepository.saveAll(shards);
+        return true;
+    }
+
+    private int lockedTotalStock(Inventory inventory) {
+        List<InventoryShard> shards = inventoryShardRepository.findForUpdateByInventoryId(inventory.getId());
+        return inventory.getStockLevel() + shards.stream().mapToInt(InventoryShard::getStockLevel).sum();
+    }
+
+    private void redistribute(Inventory inventory, int shardCount, int total) {
+        inventoryShardRepository.deleteByInventoryId(inventory.getId());
+
+        if (shardCount == 0) {
+            inventory.setStockLevel(total);
+            inventory.setShardCount(0);
+            inventoryRepository.save(inventory);
+            return;
+        }
+
+        List<InventoryShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            // spread the remainder over the first buckets
+            int stockLevel = total / shardCount + (i < total % shardCount ? 1 : 0);
+            shards.add(new InventoryShard(inventory, i, stockLevel));
+        }
+        inventoryShardRepository.saveAll(shards);
+
+        inventory.setStockLevel(0);
+        inventory.setShardCount(shardCount);
+        inventoryRepository.save(inventory);
+    }
+
+}
@@ -0,0 +1,539 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.config.LedgerProperties;
+import com.project.code.config.OutboxProperties;
+import com.project.code.ledger.LedgerEntry;
+import com.project.code.ledger.LedgerSegment;
+import com.project.code.ledger.StockSnapshot;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only ledger of every stock change: sales, restocks, adjustments and
+ * transfers, one entry per StockChangedEvent, written to memory-mapped
+ * segment files in sequence order. Snapshots of every row's level are taken
+ * periodically; current stock is rebuilt at startup from the latest snapshot
+ * plus the entries after it, and any earlier point from the snapshot before it.
+ * <p>
+ * The ledger reads the events from the outbox rather than from the writers,
+ * so checkout only pays for the outbox row it writes anyway. Entries are
+ * synced once per relay batch, before the relay moves the cursor past it; a
+ * crash loses at most the unsynced tail, which the relay hands over again.
+ * Events are told apart by their outbox id: one past the highest in the
+ * ledger is new, one below it is either redelivered, and then among the
+ * newest entries, or committed late and new as well.
+ * <p>
+ * On the first start, with no snapshot yet, the ledger seeds one from the
+ * inventory table. An order still committing while it does can be counted
+ * twice or not at all; later snapshots carry that over, a restore from the
+ * log doesn't depend on it.
+ * <p>
+ * The event ids only mean something next to the outbox they came from, so
+ * the ledger keeps that outbox's identity in a file beside its snapshots.
+ * Opened against another one, a database recreated on restart say, it moves
+ * its files into a superseded-* directory and seeds itself anew; only the
+ * newest ledger.superseded-kept of those directories are kept.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "ledger", name = "enabled", havingValue = "true")
+public class StockLedgerService implements OutboxSubscriber {
+
+    private static final String OUTBOX_ID_FILE = "outbox-id";
+    private static final String SUPERSEDED_PREFIX = "superseded-";
+
+    private static final String LOAD_STOCK = """
+            SELECT i.store_id, i.product_id,
+                   i.stock_level + COALESCE((SELECT SUM(s.stock_level) FROM inventory_shard s
+                                             WHERE s.inventory_id = i.id), 0)
+            FROM inventory i""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryBulkService inventoryBulkService;
+    private final OutboxService outboxService;
+    private final LedgerProperties ledgerProperties;
+    private final OutboxProperties outboxProperties;
+    // taken by the relay appending, by snapshots and by reads; checkout never waits on it
+    private final ReentrantLock ledgerLock = new ReentrantLock();
+
+    // all guarded by ledgerLock; directory is null until the ledger is opened
+    private Path directory;
+    private final List<LedgerSegment> segments = new ArrayList<>();
+    private final Map<StockKey, Integer> levels = new HashMap<>();
+    private long lastSequence;
+    private long lastEventId;
+    private long seededEventId;
+    private boolean unsynced;
+
+    public StockLedgerService(JdbcTemplate jdbcTemplate, InventoryBulkService inventoryBulkService,
+            OutboxService outboxService, LedgerProperties ledgerProperties, OutboxProperties outboxProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.inventoryBulkService = inventoryBulkService;
+        this.outboxService = outboxService;
+        this.ledgerProperties = ledgerProperties;
+        this.outboxProperties = outboxProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void openOnStartup() {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Closes the ledger and rebuilds current stock from the files in
+     * ledger.directory: the latest readable snapshot, then every entry after it.
+     */
+    public void rebuild() {
+        ledgerLock.lock();
+        try {
+            sync();
+            closeSegments();
+            ensureOpen();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        ledgerLock.lock();
+        try {
+            sync();
+            closeSegments();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    @Override
+    public String consumerName() {
+        return "stock-ledger";
+    }
+
+    @Override
+    public void handle(long eventId, Object event) {
+        if (!(event instanceof StockChangedEvent changed)) {
+            return;
+        }
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            if (eventId <= seededEventId || eventId <= lastEventId && isRecorded(eventId)) {
+                // in the stock the ledger was seeded with, or handed over again after a restart or a failed batch
+                return;
+            }
+            LedgerSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+            if (segment == null || segment.isFull()) {
+                segment = roll();
+            }
+            LedgerEntry entry = new LedgerEntry(lastSequence + 1, eventId, Instant.now(), changed.storeId(),
+                    changed.productId(), changed.delta(), changed.stockLevel(),
+                    // written before events carried one
+                    changed.reason() != null ? changed.reason() : Reason.ADJUSTMENT);
+            segment.append(entry);
+            apply(levels, entry);
+            lastSequence = entry.sequence();
+            lastEventId = Math.max(lastEventId, eventId);
+            unsynced = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to the stock ledger", e);
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    // one sync for the whole relay batch
+    @Override
+    public void flush() {
+        ledgerLock.lock();
+        try {
+            sync();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ledger.snapshot-interval-millis:600000}",
+            initialDelayString = "${ledger.snapshot-interval-millis:600000}")
+    public void scheduledSnapshot() {
+        snapshot();
+    }
+
+    /**
+     * Writes the current levels as a snapshot at the last sequence, unless
+     * there is one already, and drops the snapshots past ledger.snapshots-kept.
+     * Returns the sequence of the snapshot.
+     */
+    public long snapshot() {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            // a snapshot must never be ahead of the entries on disk
+            sync();
+            Path file = StockSnapshot.path(directory, lastSequence);
+            if (!Files.exists(file)) {
+                StockSnapshot.write(file, lastSequence, lastEventId, seededEventId, levels.entrySet().stream()
+                        .map(level -> new StockSnapshot.Level(level.getKey().storeId(), level.getKey().productId(),
+                                level.getValue()))
+                        .toList());
+                log.info("Wrote stock snapshot of {} rows at ledger sequence {}", levels.size(), lastSequence);
+            }
+            List<Path> snapshots = list(StockSnapshot.EXTENSION);
+            int expired = Math.max(snapshots.size() - ledgerProperties.getSnapshotsKept(), 0);
+            for (Path old : snapshots.subList(0, expired)) {
+                Files.delete(old);
+            }
+            return lastSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write a stock snapshot", e);
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    public long lastSequence() {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            return lastSequence;
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /** The level of the row as the ledger has it, empty when the ledger never saw the row. */
+    public OptionalInt stockLevel(long storeId, long productId) {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            Integer stockLevel = levels.get(new StockKey(storeId, productId));
+            return stockLevel != null ? OptionalInt.of(stockLevel) : OptionalInt.empty();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /** The entries of the row, newest first, at most limit of them. A scan of the log from its end. */
+    public List<LedgerEntry> history(long storeId, long productId, int limit) {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            List<LedgerEntry> entries = new ArrayList<>();
+            for (int s = segments.size() - 1; s >= 0 && entries.size() < limit; s--) {
+                LedgerSegment segment = segments.get(s);
+                for (int i = segment.size() - 1; i >= 0 && entries.size() < limit; i--) {
+                    LedgerEntry entry = segment.get(i);
+                    if (entry.storeId() == storeId && entry.productId() == productId) {
+                        entries.add(entry);
+                    }
+                }
+            }
+            return entries;
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * The level of every row of the store right after the entry with this
+     * sequence, replayed from the latest snapshot at or before it.
+     *
+     * @throws IllegalArgumentException when the sequence is past the end of the ledger or older than every snapshot
+     */
+    public List<InventoryUpdateDto> levelsAt(long storeId, long sequence) {
+        ledgerLock.lock();
+        try {
+            ensureOpen();
+            if (sequence < 0 || sequence > lastSequence) {
+                throw new IllegalArgumentException("Ledger sequence must be between 0 and " + lastSequence);
+            }
+            StockSnapshot snapshot = latestSnapshot(sequence);
+            if (snapshot == null) {
+                throw new IllegalArgumentException("No stock snapshot at or before ledger sequence " + sequence);
+            }
+            Map<StockKey, Integer> storeLevels = new HashMap<>();
+            for (StockSnapshot.Level level : snapshot.levels()) {
+                if (level.storeId() == storeId) {
+                    storeLevels.put(new StockKey(level.storeId(), level.productId()), level.stockLevel());
+                }
+            }
+            replay(snapshot.sequence(), sequence, entry -> {
+                if (entry.storeId() == storeId) {
+                    apply(storeLevels, entry);
+                }
+            });
+            return storeLevels.entrySet().stream()
+                    .sorted(Map.Entry.comparingByKey(Comparator.comparingLong(StockKey::productId)))
+                    .map(level -> new InventoryUpdateDto(storeId, level.getKey().productId(), level.getValue()))
+                    .toList();
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    /**
+     * Sets the stock of the store back to what it was right after the entry
+     * with this sequence, through a bulk update whose changes the ledger
+     * records as adjustments. Rows created since are left as they are.
+     */
+    public InventoryBulkResult restore(long storeId, long sequence) {
+        List<InventoryUpdateDto> restored = levelsAt(storeId, sequence);
+        log.info("Restoring {} rows of StoreId={} to ledger sequence {}", restored.size(), storeId, sequence);
+        return inventoryBulkService.update(restored);
+    }
+
+    private void ensureOpen() {
+        if (directory != null) {
+            return;
+        }
+        try {
+            long started = System.nanoTime();
+            if (ledgerProperties.getDirectory() == null || ledgerProperties.getDirectory().isBlank()) {
+                throw new IllegalStateException("ledger.directory must be set when the stock ledger is enabled");
+            }
+            directory = Files.createDirectories(Path.of(ledgerProperties.getDirectory()).toAbsolutePath());
+            String outboxId = outboxService.identity();
+            if (!outboxId.equals(readOutboxId())) {
+                supersede();
+                writeOutboxId(outboxId);
+            }
+            levels.clear();
+            for (Path file : list(StockSnapshot.EXTENSION + ".tmp")) {
+                // a snapshot that was never finished
+                Files.delete(file);
+            }
+            for (Path file : list(LedgerSegment.EXTENSION)) {
+                segments.add(LedgerSegment.open(file, ledgerProperties.getSegmentEntries()));
+            }
+
+            StockSnapshot snapshot = latestSnapshot(Long.MAX_VALUE);
+            if (snapshot == null) {
+                if (!segments.isEmpty()) {
+                    throw new IllegalStateException("Stock ledger in " + directory
+                            + " has entries but no readable snapshot to replay them onto");
+                }
+                snapshot = seed();
+            }
+            for (StockSnapshot.Level level : snapshot.levels()) {
+                levels.put(new StockKey(level.storeId(), level.productId()), level.stockLevel());
+            }
+            lastSequence = snapshot.sequence();
+            lastEventId = snapshot.lastEventId();
+            seededEventId = snapshot.seededEventId();
+            replay(snapshot.sequence(), Long.MAX_VALUE, entry -> {
+                apply(levels, entry);
+                lastSequence = entry.sequence();
+                lastEventId = Math.max(lastEventId, entry.eventId());
+            });
+            log.info("Rebuilt stock of {} rows from the snapshot at {} and the ledger up to {} in {} ms",
+                    levels.size(), snapshot.sequence(), lastSequence, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            closeSegments();
+            throw new UncheckedIOException("Failed to open the stock ledger", e);
+        } catch (RuntimeException e) {
+            closeSegments();
+            throw e;
+        }
+    }
+
+    // the events up to the newest one in the outbox count as already in the stock read here
+    private StockSnapshot seed() throws IOException {
+        long seededEventId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM outbox_event",
+                Long.class);
+        List<StockSnapshot.Level> seeded = new ArrayList<>();
+        jdbcTemplate.query(LOAD_STOCK, row -> {
+            seeded.add(new StockSnapshot.Level(row.getLong(1), row.getLong(2), row.getInt(3)));
+        });
+        StockSnapshot.write(StockSnapshot.path(directory, 0), 0, seededEventId, seededEventId, seeded);
+        log.info("Seeded the stock ledger in {} with {} rows from the inventory table", directory, seeded.size());
+        return new StockSnapshot(0, seededEventId, seededEventId, seeded);
+    }
+
+    // whether one of the newest entries came from the event: the relay only redelivers what it hasn't recorded
+    // as delivered, a batch or a few while recording fails, so a batch worth and those within the gap timeout
+    private boolean isRecorded(long eventId) {
+        Instant recentSince = Instant.now().minus(outboxProperties.getGapTimeout());
+        int looked = 0;
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            LedgerSegment segment = segments.get(s);
+            for (int i = segment.size() - 1; i >= 0; i--, looked++) {
+                LedgerEntry entry = segment.get(i);
+                if (entry.eventId() == eventId) {
+                    return true;
+                }
+                if (looked >= outboxProperties.getBatchSize() && entry.recordedAt().isBefore(recentSince)) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    // null for a ledger that never recorded one
+    private String readOutboxId() throws IOException {
+        Path file = directory.resolve(OUTBOX_ID_FILE);
+        return Files.exists(file) ? Files.readString(file).strip() : null;
+    }
+
+    private void writeOutboxId(String outboxId) throws IOException {
+        Path file = directory.resolve(OUTBOX_ID_FILE);
+        Path temporary = file.resolveSibling(OUTBOX_ID_FILE + ".tmp");
+        Files.writeString(temporary, outboxId);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // kept for reading, not replayed: the entries' event ids belong to another outbox
+    private void supersede() throws IOException {
+        List<Path> files = new ArrayList<>(list(LedgerSegment.EXTENSION));
+        files.addAll(list(StockSnapshot.EXTENSION));
+        Path outboxIdFile = directory.resolve(OUTBOX_ID_FILE);
+        if (Files.exists(outboxIdFile)) {
+            files.add(outboxIdFile);
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+        Path superseded = Files.createDirectories(directory.resolve(SUPERSEDED_PREFIX + System.currentTimeMillis()));
+        for (Path file : files) {
+            Files.move(file, superseded.resolve(file.getFileName()));
+        }
+        log.warn("Stock ledger in {} was recorded from another outbox, moved its files to {} and seeding it anew",
+                directory, superseded);
+        pruneSuperseded();
+    }
+
+    // the names end in the time they were set aside, so the oldest sort first
+    private void pruneSuperseded() throws IOException {
+        List<Path> superseded;
+        try (Stream<Path> files = Files.list(directory)) {
+            superseded = files.filter(file -> Files.isDirectory(file)
+                            && file.getFileName().toString().startsWith(SUPERSEDED_PREFIX))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < superseded.size() - ledgerProperties.getSupersededKept(); i++) {
+            try (Stream<Path> files = Files.walk(superseded.get(i))) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+            log.info("Deleted the superseded stock ledger files in {}", superseded.get(i));
+        }
+    }
+
+    // the newest readable snapshot at or before sequence, null when there is none
+    private StockSnapshot latestSnapshot(long sequence) {
+        List<Path> snapshots = list(StockSnapshot.EXTENSION);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            try {
+                StockSnapshot snapshot = StockSnapshot.read(snapshots.get(i));
+                if (snapshot.sequence() <= sequence) {
+                    return snapshot;
+                }
+            } catch (IOException e) {
+                log.warn("Skipping unreadable stock snapshot {}: {}", snapshots.get(i), e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    // hands the entries with after < sequence <= until to action, in order
+    private void replay(long after, long until, Consumer<LedgerEntry> action) {
+        for (LedgerSegment segment : segments) {
+            if (segment.lastSequence() <= after) {
+                continue;
+            }
+            if (segment.firstSequence() > until) {
+                return;
+            }
+            int from = (int) Math.max(after + 1 - segment.firstSequence(), 0);
+            int to = (int) Math.min(until - segment.firstSequence() + 1, segment.size());
+            for (int i = from; i < to; i++) {
+                action.accept(segment.get(i));
+            }
+        }
+    }
+
+    private LedgerSegment roll() throws IOException {
+        // the full segment's tail is synced before entries land in the next one
+        sync();
+        LedgerSegment segment = LedgerSegment.open(LedgerSegment.path(directory, lastSequence + 1),
+                ledgerProperties.getSegmentEntries());
+        segments.add(segment);
+        return segment;
+    }
+
+    private void sync() {
+        if (unsynced) {
+            segments.get(segments.size() - 1).force();
+            unsynced = false;
+        }
+    }
+
+    private void closeSegments() {
+        for (LedgerSegment segment : segments) {
+            try {
+                segment.close();
+            } catch (IOException e) {
+                log.warn("Failed to close stock ledger segment {}", segment.path(), e);
+            }
+        }
+        segments.clear();
+        directory = null;
+    }
+
+    // files of the ledger directory with this extension, in sequence order
+    private List<Path> list(String extension) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(extension)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list the stock ledger in " + directory, e);
+        }
+    }
+
+    private static void apply(Map<StockKey, Integer> levels, LedgerEntry entry) {
+        StockKey key = new StockKey(entry.storeId(), entry.productId());
+        if (entry.stockLevel() != null) {
+            levels.put(key, entry.stockLevel());
+        } else {
+            levels.merge(key, Math.max(entry.delta(), 0), (level, ignored) -> Math.max(level + entry.delta(), 0));
+        }
+    }
+
+    private record StockKey(long storeId, long productId) {
+    }
+
+}
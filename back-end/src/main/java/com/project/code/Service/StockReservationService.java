@@ -0,0 +1,244 @@
+package com.project.code.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.StockItemDto;
+import com.project.code.Model.StockReservation;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.config.ReservationProperties;
+import com.project.code.exception.InventoryNotFoundException;
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.ReservationLimitExceededException;
+import com.project.code.exception.ReservationNotFoundException;
+import com.project.code.support.HashedTimingWheel;
+import com.project.code.support.HashedTimingWheel.Timeout;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Time-limited stock holds for carts and checkout sessions. Holds are kept in
+ * memory per (storeId, productId) and count against available stock; no row
+ * is locked while a hold is open. Each hold expires through a hashed timing
+ * wheel instead of a periodic sweep. The open holds of a store, and of a
+ * customer when the hold names one, are capped so abandoned carts can't grow
+ * the table without bound.
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final InventoryRepository inventoryRepository;
+    private final ShardedStockService shardedStockService;
+    private final ReservationProperties reservationProperties;
+    private final HashedTimingWheel timingWheel;
+    private final ConcurrentMap<String, Hold> holds = new ConcurrentHashMap<>();
+    private final ConcurrentMap<StockKey, Integer> reserved = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Integer> holdsPerStore = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> holdsPerCustomer = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    public StockReservationService(InventoryRepository inventoryRepository, ShardedStockService shardedStockService,
+            ReservationProperties reservationProperties) {
+        this.inventoryRepository = inventoryRepository;
+        this.shardedStockService = shardedStockService;
+        this.reservationProperties = reservationProperties;
+        this.timingWheel = new HashedTimingWheel("reservation-expiry",
+                reservationProperties.getTickDuration(), reservationProperties.getTicksPerWheel());
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public StockReservation reserve(Long storeId, List<StockItemDto> items, Duration ttl) {
+        return reserve(storeId, null, items, ttl);
+    }
+
+    /**
+     * Holds the items for ttl, clamped to the configured maximum.
+     *
+     * @param customerEmail who the hold is for, or null; only counted against the per-customer cap
+     * @throws ReservationLimitExceededException when the store or the customer has too many open holds
+     */
+    public StockReservation reserve(Long storeId, String customerEmail, List<StockItemDto> items, Duration ttl) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (StockItemDto item : items) {
+            if (item.quantity() == null || item.quantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive for ProductId=" + item.productId());
+            }
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+        Duration holdFor = clampTtl(ttl);
+        String customer = customerKey(customerEmail);
+        claimHold(storeId, customer);
+        try {
+            return hold(storeId, customer, quantities, holdFor);
+        } catch (RuntimeException e) {
+            releaseHold(storeId, customer);
+            throw e;
+        }
+    }
+
+    private StockReservation hold(Long storeId, String customer, Map<Long, Integer> quantities, Duration holdFor) {
+        // stripes are locked in ascending order so overlapping reservations can't deadlock
+        TreeSet<Integer> stripes = quantities.keySet().stream()
+                .map(productId -> stripeOf(new StockKey(storeId, productId)))
+                .collect(Collectors.toCollection(TreeSet::new));
+        stripes.forEach(stripe -> locks[stripe].lock());
+        try {
+            Map<Long, Inventory> inventories = inventoryRepository
+                    .findByStoreIdAndProductIdIn(storeId, quantities.keySet()).stream()
+                    .collect(Collectors.toMap(inventory -> inventory.getProduct().getId(), Function.identity()));
+
+            for (Map.Entry<Long, Integer> requested : quantities.entrySet()) {
+                Inventory inventory = inventories.get(requested.getKey());
+                if (inventory == null) {
+                    throw new InventoryNotFoundException("Inventory of StoreId=%s ProductId=%s not found"
+                            .formatted(storeId, requested.getKey()));
+                }
+                int free = shardedStockService.totalStock(inventory) - reservedQuantity(storeId, requested.getKey());
+                if (free < requested.getValue()) {
+                    throw new InventoryStockInsufficientException(
+                            "Inventory stock insufficient of StoreId=%s ProductId=%s"
+                                    .formatted(storeId, requested.getKey()));
+                }
+            }
+
+            quantities.forEach((productId, quantity) -> reserved.merge(new StockKey(storeId, productId), quantity,
+                    Integer::sum));
+        } finally {
+            stripes.descendingSet().forEach(stripe -> locks[stripe].unlock());
+        }
+
+        StockReservation reservation = new StockReservation(UUID.randomUUID().toString(), storeId,
+                Collections.unmodifiableMap(quantities), Instant.now().plus(holdFor));
+        Timeout timeout = timingWheel.schedule(() -> expire(reservation.id()), holdFor);
+        holds.put(reservation.id(), new Hold(reservation, customer, timeout));
+        log.info("Reserved {} for StoreId={} until {}", quantities, storeId, reservation.expiresAt());
+        return reservation;
+    }
+
+    public Optional<StockReservation> find(String reservationId) {
+        return Optional.ofNullable(holds.get(reservationId)).map(Hold::reservation);
+    }
+
+    /** The open reservation of the given store, or ReservationNotFoundException. */
+    public StockReservation get(String reservationId, long storeId) {
+        return find(reservationId)
+                .filter(reservation -> reservation.storeId() == storeId)
+                .orElseThrow(() -> new ReservationNotFoundException(
+                        "Reservation not found or expired id=" + reservationId));
+    }
+
+    public boolean release(String reservationId) {
+        Hold hold = holds.remove(reservationId);
+        if (hold == null) {
+            return false;
+        }
+        hold.timeout().cancel();
+        StockReservation reservation = hold.reservation();
+        releaseHold(reservation.storeId(), hold.customer());
+        reservation.quantities().forEach((productId, quantity) -> reserved.computeIfPresent(
+                new StockKey(reservation.storeId(), productId),
+                (key, current) -> current - quantity > 0 ? current - quantity : null));
+        return true;
+    }
+
+    public int reservedQuantity(long storeId, long productId) {
+        return reserved.getOrDefault(new StockKey(storeId, productId), 0);
+    }
+
+    @PreDestroy
+    public void stop() {
+        timingWheel.close();
+    }
+
+    private void expire(String reservationId) {
+        if (release(reservationId)) {
+            log.info("Reservation {} expired", reservationId);
+        }
+    }
+
+    // takes a slot of the store's and the customer's quota, or throws leaving both as they were
+    private void claimHold(long storeId, String customer) {
+        holdsPerStore.compute(storeId, (key, open) -> {
+            int count = open == null ? 0 : open;
+            if (count >= reservationProperties.getMaxHoldsPerStore()) {
+                throw new ReservationLimitExceededException(
+                        "StoreId=" + storeId + " has too many open reservations, try again later");
+            }
+            return count + 1;
+        });
+        if (customer == null) {
+            return;
+        }
+        try {
+            holdsPerCustomer.compute(customer, (key, open) -> {
+                int count = open == null ? 0 : open;
+                if (count >= reservationProperties.getMaxHoldsPerCustomer()) {
+                    throw new ReservationLimitExceededException(
+                            "Customer " + customer + " has too many open reservations, release one first");
+                }
+                return count + 1;
+            });
+        } catch (ReservationLimitExceededException e) {
+            holdsPerStore.computeIfPresent(storeId, (key, open) -> open > 1 ? open - 1 : null);
+            throw e;
+        }
+    }
+
+    private void releaseHold(long storeId, String customer) {
+        holdsPerStore.computeIfPresent(storeId, (key, open) -> open > 1 ? open - 1 : null);
+        if (customer != null) {
+            holdsPerCustomer.computeIfPresent(customer, (key, open) -> open > 1 ? open - 1 : null);
+        }
+    }
+
+    private static String customerKey(String customerEmail) {
+        if (customerEmail == null || customerEmail.isBlank()) {
+            return null;
+        }
+        return customerEmail.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private Duration clampTtl(Duration ttl) {
+        if (ttl == null) {
+            return reservationProperties.getDefaultTtl();
+        }
+        if (ttl.compareTo(Duration.ofSeconds(1)) < 0) {
+            throw new IllegalArgumentException("Reservation ttl must be at least one second");
+        }
+        return ttl.compareTo(reservationProperties.getMaxTtl()) > 0 ? reservationProperties.getMaxTtl() : ttl;
+    }
+
+    private int stripeOf(StockKey key) {
+        return Math.floorMod(key.hashCode(), LOCK_STRIPES);
+    }
+
+    private record StockKey(long storeId, long productId) {
+    }
+
+    // customer is the normalized email the hold counts against, or null
+    private record Hold(StockReservation reservation, String customer, Timeout timeout) {
+    }
+
+}
@@ -0,0 +1,73 @@
+package com.project.code.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.CatalogPageRequest;
+import com.project.code.Model.StoreProductDto;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A store's catalog, a page at a time. One statement reads the page's
+ * products with their stock, buckets of sharded rows summed in the same
+ * query, as DTOs rather than entities; rows are written to the response as
+ * the result set is read, so a large page costs no more memory than a small one.
+ */
+@RequiredArgsConstructor
+@Service
+public class StoreCatalogService {
+
+    private static final String STORE_PRODUCTS = """
+            SELECT new com.project.code.Model.StoreProductDto(p.id, p.name, p.category, p.price, p.sku,
+                   i.stockLevel + COALESCE(SUM(s.stockLevel), 0))
+            FROM Inventory i
+            JOIN i.product p
+            LEFT JOIN InventoryShard s ON s.inventory = i
+            WHERE i.store.id = :storeId
+            GROUP BY i.id, i.stockLevel, p.id, p.name, p.category, p.price, p.sku""";
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /** Writes {"products": [...], "page": n, "size": n, "hasNext": bool}. */
+    @Transactional(readOnly = true)
+    public void writeStoreProducts(long storeId, CatalogPageRequest page, OutputStream out) throws IOException {
+        try (Stream<StoreProductDto> rows = entityManager
+                .createQuery(STORE_PRODUCTS + page.orderBy(), StoreProductDto.class)
+                .setParameter("storeId", storeId)
+                .setFirstResult(page.offset())
+                // one row more than the page, its presence tells whether a next page exists
+                .setMaxResults(page.size() + 1)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .getResultStream();
+                JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.writeStartObject();
+            json.writeArrayFieldStart("products");
+
+            Iterator<StoreProductDto> iterator = rows.iterator();
+            int written = 0;
+            while (written < page.size() && iterator.hasNext()) {
+                objectMapper.writeValue(json, iterator.next());
+                written++;
+            }
+
+            json.writeEndArray();
+            json.writeNumberField("page", page.page());
+            json.writeNumberField("size", page.size());
+            json.writeBooleanField("hasNext", iterator.hasNext());
+            json.writeEndObject();
+        }
+    }
+
+}
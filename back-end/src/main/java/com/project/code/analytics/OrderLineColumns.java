@@ -0,0 +1,383 @@
+package com.project.code.analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.ProductSalesDto;
+
+/**
+ * Immutable snapshot of order lines held as primitive columns: one array per
+ * attribute, indexed by line (and a second set indexed by order). Products,
+ * stores and categories are dictionary encoded into dense int codes, so a
+ * group-by is an array increment instead of a hash lookup.
+ * <p>
+ * Queries split the lines into fixed partitions, aggregate each into its own
+ * primitive arrays on the common fork-join pool and add the partials up.
+ * <p>
+ * Snapshots are cut from a {@link Builder}. A snapshot shares the builder's
+ * arrays but only reads the first lineCount/orderCount rows; the builder only
+ * writes past every size it has handed out, and replaces an array (leaving
+ * the old one to older snapshots) when it grows. Publish snapshots through a
+ * volatile field so readers see every row below their size.
+ */
+public final class OrderLineColumns {
+
+    // orders with more units than this are counted in the last basket-size bucket
+    public static final int MAX_BASKET_UNITS = 100;
+
+    // lines one fork-join leaf aggregates, large enough to amortise a task and small enough to balance
+    static final int PARTITION_SIZE = 1 << 16;
+
+    private static final OrderLineColumns EMPTY = new Builder(0, 0).snapshot();
+
+    private final int lineCount;
+    private final int[] lineProduct;
+    private final int[] lineStore;
+    private final int[] lineCategory;
+    private final int[] lineDay;
+    private final int[] lineQuantity;
+    private final long[] linePriceCents;
+
+    private final int orderCount;
+    private final int[] orderStore;
+    private final int[] orderDay;
+    private final int[] orderUnits;
+
+    private final int productCount;
+    private final long[] productIds;
+    private final String[] productNames;
+    private final int storeCount;
+    private final long[] storeIds;
+    private final int categoryCount;
+    private final String[] categories;
+
+    private OrderLineColumns(Builder builder) {
+        this.lineCount = builder.lineCount;
+        this.lineProduct = builder.lineProduct;
+        this.lineStore = builder.lineStore;
+        this.lineCategory = builder.lineCategory;
+        this.lineDay = builder.lineDay;
+        this.lineQuantity = builder.lineQuantity;
+        this.linePriceCents = builder.linePriceCents;
+        this.orderCount = builder.orderCount;
+        this.orderStore = builder.orderStore;
+        this.orderDay = builder.orderDay;
+        this.orderUnits = builder.orderUnits;
+        this.productCount = builder.productCount;
+        this.productIds = builder.productIds;
+        this.productNames = builder.productNames;
+        this.storeCount = builder.storeCount;
+        this.storeIds = builder.storeIds;
+        this.categoryCount = builder.categoryCount;
+        this.categories = builder.categories;
+    }
+
+    public static OrderLineColumns empty() {
+        return EMPTY;
+    }
+
+    public int lineCount() {
+        return lineCount;
+    }
+
+    public int orderCount() {
+        return orderCount;
+    }
+
+    /**
+     * Lines of one store (all stores when storeId is null) with fromDay <=
+     * epochDay <= toDay. A store without any order matches nothing.
+     */
+    public Filter filter(Long storeId, int fromDay, int toDay) {
+        if (storeId == null) {
+            return new Filter(Filter.ANY_STORE, fromDay, toDay);
+        }
+        for (int code = 0; code < storeCount; code++) {
+            if (storeIds[code] == storeId) {
+                return new Filter(code, fromDay, toDay);
+            }
+        }
+        // no line carries this code
+        return new Filter(storeCount, fromDay, toDay);
+    }
+
+    /** Products by units sold, then by id. */
+    public List<ProductSalesDto> topSellers(Filter filter, int limit) {
+        long[][] sums = aggregate(lineCount, productCount, (from, to, units, cents) -> {
+            for (int i = from; i < to; i++) {
+                if (filter.matches(lineStore[i], lineDay[i])) {
+                    int product = lineProduct[i];
+                    units[product] += lineQuantity[i];
+                    cents[product] += lineQuantity[i] * linePriceCents[i];
+                }
+            }
+        });
+
+        List<Integer> sold = new ArrayList<>();
+        for (int product = 0; product < productCount; product++) {
+            if (sums[0][product] > 0) {
+                sold.add(product);
+            }
+        }
+        sold.sort((a, b) -> sums[0][a] != sums[0][b]
+                ? Long.compare(sums[0][b], sums[0][a])
+                : Long.compare(productIds[a], productIds[b]));
+
+        return sold.stream()
+                .limit(limit)
+                .map(product -> new ProductSalesDto(productIds[product], productNames[product], sums[0][product],
+                        sums[1][product] / 100.0))
+                .toList();
+    }
+
+    /** Categories by revenue. */
+    public List<CategorySalesDto> revenueByCategory(Filter filter) {
+        long[][] sums = aggregate(lineCount, categoryCount, (from, to, units, cents) -> {
+            for (int i = from; i < to; i++) {
+                if (filter.matches(lineStore[i], lineDay[i])) {
+                    int category = lineCategory[i];
+                    units[category] += lineQuantity[i];
+                    cents[category] += lineQuantity[i] * linePriceCents[i];
+                }
+            }
+        });
+
+        List<CategorySalesDto> revenue = new ArrayList<>();
+        for (int category = 0; category < categoryCount; category++) {
+            if (sums[0][category] > 0) {
+                revenue.add(new CategorySalesDto(categories[category], sums[0][category], sums[1][category] / 100.0));
+            }
+        }
+        revenue.sort((a, b) -> Double.compare(b.revenue(), a.revenue()));
+        return revenue;
+    }
+
+    /**
+     * Number of orders per basket size in units: index n holds the orders of
+     * n units, the last index those of MAX_BASKET_UNITS units or more.
+     */
+    public long[] basketSizeHistogram(Filter filter) {
+        return aggregate(orderCount, MAX_BASKET_UNITS + 1, (from, to, orders, unused) -> {
+            for (int i = from; i < to; i++) {
+                if (filter.matches(orderStore[i], orderDay[i])) {
+                    orders[Math.min(orderUnits[i], MAX_BASKET_UNITS)]++;
+                }
+            }
+        })[0];
+    }
+
+    private static long[][] aggregate(int rows, int groups, RangeAggregator aggregator) {
+        AggregateTask task = new AggregateTask(0, rows, groups, aggregator);
+        // small inputs aren't worth a trip through the pool
+        return rows <= PARTITION_SIZE ? task.compute() : ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /** Adds the rows [from, to) into two per-group accumulators. */
+    @FunctionalInterface
+    private interface RangeAggregator {
+        void accumulate(int from, int to, long[] first, long[] second);
+    }
+
+    private static final class AggregateTask extends RecursiveTask<long[][]> {
+
+        private final int from;
+        private final int to;
+        private final int groups;
+        private final RangeAggregator aggregator;
+
+        AggregateTask(int from, int to, int groups, RangeAggregator aggregator) {
+            this.from = from;
+            this.to = to;
+            this.groups = groups;
+            this.aggregator = aggregator;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (to - from <= PARTITION_SIZE) {
+                long[][] sums = new long[2][groups];
+                aggregator.accumulate(from, to, sums[0], sums[1]);
+                return sums;
+            }
+            int middle = (from + to) >>> 1;
+            AggregateTask left = new AggregateTask(from, middle, groups, aggregator);
+            left.fork();
+            long[][] sums = new AggregateTask(middle, to, groups, aggregator).compute();
+            long[][] leftSums = left.join();
+            for (int group = 0; group < groups; group++) {
+                sums[0][group] += leftSums[0][group];
+                sums[1][group] += leftSums[1][group];
+            }
+            return sums;
+        }
+    }
+
+    /** Store and day range of a query, the day range inclusive on both ends. */
+    public record Filter(int storeCode, int fromDay, int toDay) {
+
+        static final int ANY_STORE = -1;
+
+        boolean matches(int store, int day) {
+            // non-short-circuit operators keep the hot loops free of extra branches
+            return (day >= fromDay & day <= toDay) & (storeCode == ANY_STORE | store == storeCode);
+        }
+    }
+
+    /**
+     * Appends orders and their lines. Not thread-safe: one writer at a time,
+     * readers only through {@link #snapshot()}.
+     */
+    public static final class Builder {
+
+        private int lineCount;
+        private int[] lineProduct;
+        private int[] lineStore;
+        private int[] lineCategory;
+        private int[] lineDay;
+        private int[] lineQuantity;
+        private long[] linePriceCents;
+
+        private int orderCount;
+        private long[] orderIds;
+        private int[] orderStore;
+        private int[] orderDay;
+        private int[] orderUnits;
+        // orders [0, sortedOrders) were bulk loaded in id order and can be binary searched
+        private int sortedOrders;
+
+        private int productCount;
+        private long[] productIds = new long[16];
+        private String[] productNames = new String[16];
+        private final Map<Long, Integer> productCodes = new HashMap<>();
+        private int storeCount;
+        private long[] storeIds = new long[16];
+        private final Map<Long, Integer> storeCodes = new HashMap<>();
+        private int categoryCount;
+        private String[] categories = new String[16];
+        private final Map<String, Integer> categoryCodes = new HashMap<>();
+
+        public Builder(int lineCapacity, int orderCapacity) {
+            lineProduct = new int[lineCapacity];
+            lineStore = new int[lineCapacity];
+            lineCategory = new int[lineCapacity];
+            lineDay = new int[lineCapacity];
+            lineQuantity = new int[lineCapacity];
+            linePriceCents = new long[lineCapacity];
+            orderIds = new long[orderCapacity];
+            orderStore = new int[orderCapacity];
+            orderDay = new int[orderCapacity];
+            orderUnits = new int[orderCapacity];
+        }
+
+        /** Starts an order, the following {@link #addLine} calls belong to it. */
+        public void addOrder(long orderId, long storeId, int epochDay) {
+            if (orderCount == orderIds.length) {
+                int capacity = grow(orderCount);
+                orderIds = Arrays.copyOf(orderIds, capacity);
+                orderStore = Arrays.copyOf(orderStore, capacity);
+                orderDay = Arrays.copyOf(orderDay, capacity);
+                orderUnits = Arrays.copyOf(orderUnits, capacity);
+            }
+            orderIds[orderCount] = orderId;
+            orderStore[orderCount] = storeCode(storeId);
+            orderDay[orderCount] = epochDay;
+            orderUnits[orderCount] = 0;
+            orderCount++;
+        }
+
+        /** Adds a line to the last started order; productName is only kept the first time a product is seen. */
+        public void addLine(long productId, String productName, String category, int quantity, long priceCents) {
+            if (orderCount == 0) {
+                throw new IllegalStateException("addLine before addOrder");
+            }
+            if (lineCount == lineProduct.length) {
+                int capacity = grow(lineCount);
+                lineProduct = Arrays.copyOf(lineProduct, capacity);
+                lineStore = Arrays.copyOf(lineStore, capacity);
+                lineCategory = Arrays.copyOf(lineCategory, capacity);
+                lineDay = Arrays.copyOf(lineDay, capacity);
+                lineQuantity = Arrays.copyOf(lineQuantity, capacity);
+                linePriceCents = Arrays.copyOf(linePriceCents, capacity);
+            }
+            int order = orderCount - 1;
+            lineProduct[lineCount] = productCode(productId, productName);
+            lineStore[lineCount] = orderStore[order];
+            lineCategory[lineCount] = categoryCode(category);
+            lineDay[lineCount] = orderDay[order];
+            lineQuantity[lineCount] = quantity;
+            linePriceCents[lineCount] = priceCents;
+            lineCount++;
+            orderUnits[order] += quantity;
+        }
+
+        /** Marks everything added so far as a bulk load in ascending order id. */
+        public void markLoaded() {
+            sortedOrders = orderCount;
+        }
+
+        /** Whether the bulk load already contained this order. */
+        public boolean isLoaded(long orderId) {
+            return Arrays.binarySearch(orderIds, 0, sortedOrders, orderId) >= 0;
+        }
+
+        public boolean hasProduct(long productId) {
+            return productCodes.containsKey(productId);
+        }
+
+        public OrderLineColumns snapshot() {
+            return new OrderLineColumns(this);
+        }
+
+        private int productCode(long productId, String productName) {
+            Integer code = productCodes.get(productId);
+            if (code != null) {
+                return code;
+            }
+            if (productCount == productIds.length) {
+                productIds = Arrays.copyOf(productIds, grow(productCount));
+                productNames = Arrays.copyOf(productNames, productIds.length);
+            }
+            productIds[productCount] = productId;
+            productNames[productCount] = productName;
+            productCodes.put(productId, productCount);
+            return productCount++;
+        }
+
+        private int storeCode(long storeId) {
+            Integer code = storeCodes.get(storeId);
+            if (code != null) {
+                return code;
+            }
+            if (storeCount == storeIds.length) {
+                storeIds = Arrays.copyOf(storeIds, grow(storeCount));
+            }
+            storeIds[storeCount] = storeId;
+            storeCodes.put(storeId, storeCount);
+            return storeCount++;
+        }
+
+        private int categoryCode(String category) {
+            Integer code = categoryCodes.get(category);
+            if (code != null) {
+                return code;
+            }
+            if (categoryCount == categories.length) {
+                categories = Arrays.copyOf(categories, grow(categoryCount));
+            }
+            categories[categoryCount] = category;
+            categoryCodes.put(category, categoryCount);
+            return categoryCount++;
+        }
+
+        private static int grow(int size) {
+            return Math.max(16, size + (size >> 1));
+        }
+    }
+
+}
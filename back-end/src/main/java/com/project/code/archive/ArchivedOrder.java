@@ -0,0 +1,22 @@
+package com.project.code.archive;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.project.code.Model.OrderSummaryDto;
+
+/**
+ * An order as kept in an archive segment: the order row, its customer's name
+ * when it was archived and its lines. Store and customer ids are 0 when the
+ * order had none.
+ */
+public record ArchivedOrder(long orderId, LocalDateTime orderDate, long storeId, long customerId,
+        String customerName, double totalPrice, List<Line> lines) {
+
+    public record Line(long productId, int quantity, double price) {
+    }
+
+    public OrderSummaryDto summary() {
+        return new OrderSummaryDto(orderId, orderDate, storeId, customerId, customerName, totalPrice, lines.size());
+    }
+}
@@ -0,0 +1,418 @@
+package com.project.code.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Immutable file of archived orders, newest first, covering whole days: every
+ * order dated from firstDay up to, not including, archivedBefore.
+ * <p>
+ * The orders are cut into blocks of a fixed number of orders. A block holds
+ * its orders column by column (ids and dates as varint deltas, then stores,
+ * customers, names, totals and the lines' columns) and is deflated on its
+ * own, so a read inflates only the blocks whose id or date range it needs. An
+ * index after the blocks records each block's position and ranges, and a
+ * fixed-size trailer at the end of the file points at the index.
+ * <p>
+ * A {@link Writer} writes to a temporary file and moves it into place once
+ * it is complete and synced, so a segment under its final name is always whole.
+ */
+public final class OrderSegment implements Closeable {
+
+    public static final String EXTENSION = ".seg";
+
+    private static final int MAGIC = 0x4f524431;
+    private static final int INDEX_ENTRY_BYTES = 48;
+    private static final int TRAILER_BYTES = 48;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final LocalDate firstDay;
+    private final LocalDate archivedBefore;
+    private final long orderCount;
+    private final long lineCount;
+    private final List<Block> blocks;
+
+    private OrderSegment(Path path, FileChannel channel, LocalDate firstDay, LocalDate archivedBefore,
+            long orderCount, long lineCount, List<Block> blocks) {
+        this.path = path;
+        this.channel = channel;
+        this.firstDay = firstDay;
+        this.archivedBefore = archivedBefore;
+        this.orderCount = orderCount;
+        this.lineCount = lineCount;
+        this.blocks = blocks;
+    }
+
+    public static OrderSegment open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < TRAILER_BYTES) {
+                throw new IOException("Not an order segment: " + path);
+            }
+            ByteBuffer trailer = read(channel, size - TRAILER_BYTES, TRAILER_BYTES);
+            LocalDate firstDay = LocalDate.ofEpochDay(trailer.getLong());
+            LocalDate archivedBefore = LocalDate.ofEpochDay(trailer.getLong());
+            long orderCount = trailer.getLong();
+            long lineCount = trailer.getLong();
+            long indexOffset = trailer.getLong();
+            int blockCount = trailer.getInt();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Not an order segment: " + path);
+            }
+
+            ByteBuffer index = read(channel, indexOffset, blockCount * INDEX_ENTRY_BYTES);
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int i = 0; i < blockCount; i++) {
+                blocks.add(new Block(index.getLong(), index.getInt(), index.getInt(), index.getLong(),
+                        index.getLong(), index.getLong(), index.getLong()));
+            }
+            return new OrderSegment(path, channel, firstDay, archivedBefore, orderCount, lineCount,
+                    List.copyOf(blocks));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Starts a segment at path; nothing appears there until {@link Writer#publish} succeeds. */
+    public static Writer create(Path path, int blockSize) throws IOException {
+        return new Writer(path, blockSize);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public LocalDate firstDay() {
+        return firstDay;
+    }
+
+    public LocalDate archivedBefore() {
+        return archivedBefore;
+    }
+
+    public long orderCount() {
+        return orderCount;
+    }
+
+    public long lineCount() {
+        return lineCount;
+    }
+
+    /** Every order of the segment, newest first. */
+    public Stream<ArchivedOrder> orders() {
+        return blocks.stream().flatMap(block -> decode(block).stream());
+    }
+
+    /** Orders dated from from to until, both inclusive, newest first. Blocks outside the range are not read. */
+    public Stream<ArchivedOrder> orders(LocalDateTime from, LocalDateTime until) {
+        long fromMicros = micros(from);
+        long untilMicros = micros(until);
+        return blocks.stream()
+                // blocks are newest first, the first one entirely before from ends the scan
+                .takeWhile(block -> block.newestMicros() >= fromMicros)
+                .filter(block -> block.oldestMicros() <= untilMicros)
+                .flatMap(block -> decode(block).stream())
+                .filter(order -> !order.orderDate().isBefore(from) && !order.orderDate().isAfter(until));
+    }
+
+    public Optional<ArchivedOrder> find(long orderId) {
+        return blocks.stream()
+                .filter(block -> block.minId() <= orderId && orderId <= block.maxId())
+                .flatMap(block -> decode(block).stream())
+                .filter(order -> order.orderId() == orderId)
+                .findFirst();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<ArchivedOrder> decode(Block block) {
+        int count = block.orders();
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(read(channel, block.offset(), block.length()).array())))) {
+            long[] ids = new long[count];
+            long[] dates = new long[count];
+            long previousId = 0;
+            long previousDate = 0;
+            for (int i = 0; i < count; i++) {
+                previousId += readZigZag(in);
+                ids[i] = previousId;
+            }
+            for (int i = 0; i < count; i++) {
+                previousDate += readZigZag(in);
+                dates[i] = previousDate;
+            }
+            long[] stores = new long[count];
+            for (int i = 0; i < count; i++) {
+                stores[i] = readVarLong(in);
+            }
+            long[] customers = new long[count];
+            for (int i = 0; i < count; i++) {
+                customers[i] = readVarLong(in);
+            }
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = in.readBoolean() ? in.readUTF() : null;
+            }
+            double[] totals = new double[count];
+            for (int i = 0; i < count; i++) {
+                totals[i] = in.readDouble();
+            }
+            int[] lineCounts = new int[count];
+            int lines = 0;
+            for (int i = 0; i < count; i++) {
+                lineCounts[i] = (int) readVarLong(in);
+                lines += lineCounts[i];
+            }
+            long[] products = new long[lines];
+            for (int i = 0; i < lines; i++) {
+                products[i] = readVarLong(in);
+            }
+            int[] quantities = new int[lines];
+            for (int i = 0; i < lines; i++) {
+                quantities[i] = (int) readZigZag(in);
+            }
+            double[] prices = new double[lines];
+            for (int i = 0; i < lines; i++) {
+                prices[i] = in.readDouble();
+            }
+
+            List<ArchivedOrder> orders = new ArrayList<>(count);
+            int line = 0;
+            for (int i = 0; i < count; i++) {
+                List<ArchivedOrder.Line> orderLines = new ArrayList<>(lineCounts[i]);
+                for (int j = 0; j < lineCounts[i]; j++, line++) {
+                    orderLines.add(new ArchivedOrder.Line(products[line], quantities[line], prices[line]));
+                }
+                orders.add(new ArchivedOrder(ids[i], dateOf(dates[i]), stores[i], customers[i], names[i], totals[i],
+                        List.copyOf(orderLines)));
+            }
+            return orders;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read a block of " + path, e);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Segment truncated at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    // microseconds, the precision of the order_date column
+    private static long micros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + date.getNano() / 1_000;
+    }
+
+    private static LocalDateTime dateOf(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte next;
+        do {
+            next = in.readByte();
+            value |= (long) (next & 0x7F) << shift;
+            shift += 7;
+        } while ((next & 0x80) != 0);
+        return value;
+    }
+
+    // deltas can be negative, zigzag keeps small ones short
+    private static void writeZigZag(DataOutputStream out, long value) throws IOException {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static long readZigZag(DataInputStream in) throws IOException {
+        long value = readVarLong(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private record Block(long offset, int length, int orders, long minId, long maxId, long newestMicros,
+            long oldestMicros) {
+    }
+
+    /** Takes orders newest first and writes them out a block at a time. */
+    public static final class Writer implements Closeable {
+
+        private final Path path;
+        private final Path temporary;
+        private final FileChannel channel;
+        private final int blockSize;
+        private final List<ArchivedOrder> pending;
+        private final List<Block> blocks = new ArrayList<>();
+
+        private long position;
+        private long orderCount;
+        private long lineCount;
+        private boolean published;
+
+        private Writer(Path path, int blockSize) throws IOException {
+            this.path = path;
+            this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            this.blockSize = blockSize;
+            this.pending = new ArrayList<>(blockSize);
+        }
+
+        public void add(ArchivedOrder order) throws IOException {
+            pending.add(order);
+            if (pending.size() == blockSize) {
+                writeBlock();
+            }
+        }
+
+        public long orderCount() {
+            return orderCount + pending.size();
+        }
+
+        /** Writes the index, syncs and moves the segment under its name, then opens it for reading. */
+        public OrderSegment publish(LocalDate firstDay, LocalDate archivedBefore) throws IOException {
+            if (!pending.isEmpty()) {
+                writeBlock();
+            }
+            long indexOffset = position;
+            ByteBuffer index = ByteBuffer.allocate(blocks.size() * INDEX_ENTRY_BYTES + TRAILER_BYTES);
+            for (Block block : blocks) {
+                index.putLong(block.offset()).putInt(block.length()).putInt(block.orders())
+                        .putLong(block.minId()).putLong(block.maxId())
+                        .putLong(block.newestMicros()).putLong(block.oldestMicros());
+            }
+            index.putLong(firstDay.toEpochDay()).putLong(archivedBefore.toEpochDay())
+                    .putLong(orderCount).putLong(lineCount).putLong(indexOffset)
+                    .putInt(blocks.size()).putInt(MAGIC);
+            write(index.flip());
+            channel.force(true);
+            channel.close();
+
+            Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            published = true;
+            return open(path);
+        }
+
+        /** Drops the temporary file of a segment that was never published. */
+        @Override
+        public void close() throws IOException {
+            if (!published) {
+                channel.close();
+                Files.deleteIfExists(temporary);
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            long minId = Long.MAX_VALUE;
+            long maxId = Long.MIN_VALUE;
+            long newest = Long.MIN_VALUE;
+            long oldest = Long.MAX_VALUE;
+            int lines = 0;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+                long previousId = 0;
+                for (ArchivedOrder order : pending) {
+                    writeZigZag(out, order.orderId() - previousId);
+                    previousId = order.orderId();
+                    minId = Math.min(minId, order.orderId());
+                    maxId = Math.max(maxId, order.orderId());
+                }
+                long previousDate = 0;
+                for (ArchivedOrder order : pending) {
+                    long date = micros(order.orderDate());
+                    writeZigZag(out, date - previousDate);
+                    previousDate = date;
+                    newest = Math.max(newest, date);
+                    oldest = Math.min(oldest, date);
+                }
+                for (ArchivedOrder order : pending) {
+                    writeVarLong(out, order.storeId());
+                }
+                for (ArchivedOrder order : pending) {
+                    writeVarLong(out, order.customerId());
+                }
+                for (ArchivedOrder order : pending) {
+                    out.writeBoolean(order.customerName() != null);
+                    if (order.customerName() != null) {
+                        out.writeUTF(order.customerName());
+                    }
+                }
+                for (ArchivedOrder order : pending) {
+                    out.writeDouble(order.totalPrice());
+                }
+                for (ArchivedOrder order : pending) {
+                    writeVarLong(out, order.lines().size());
+                    lines += order.lines().size();
+                }
+                for (ArchivedOrder order : pending) {
+                    for (ArchivedOrder.Line line : order.lines()) {
+                        writeVarLong(out, line.productId());
+                    }
+                }
+                for (ArchivedOrder order : pending) {
+                    for (ArchivedOrder.Line line : order.lines()) {
+                        writeZigZag(out, line.quantity());
+                    }
+                }
+                for (ArchivedOrder order : pending) {
+                    for (ArchivedOrder.Line line : order.lines()) {
+                        out.writeDouble(line.price());
+                    }
+                }
+            }
+
+            blocks.add(new Block(position, bytes.size(), pending.size(), minId, maxId, newest, oldest));
+            write(ByteBuffer.wrap(bytes.toByteArray()));
+            orderCount += pending.size();
+            lineCount += lines;
+            pending.clear();
+        }
+
+        private void write(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package com.project.code.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "alerts")
+public class AlertProperties {
+
+    // units above the reorder level stock must come back to before a low-stock alert ends,
+    // for thresholds set without a clear level
+    private int defaultHysteresis = 5;
+
+    // most recent alerts kept for GET and for streams that reconnect with Last-Event-ID
+    private int feedSize = 1_000;
+
+    // an open stream is closed after this long, EventSource clients reconnect by themselves
+    private Duration streamTimeout = Duration.ofMinutes(30);
+
+    // alerts a stream may fall behind by before it is closed, the client catches up from the feed on reconnect
+    private int streamQueueSize = 100;
+
+}
@@ -0,0 +1,21 @@
+package com.project.code.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+
+    // order lines are held in memory, a node that serves no analytics can skip loading them
+    private boolean enabled = true;
+
+    // rows the driver fetches per round trip while loading
+    private int fetchSize = 10_000;
+
+}
@@ -0,0 +1,34 @@
+package com.project.code.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "archive")
+public class ArchiveProperties {
+
+    // runs the scheduled archival; segments already on disk are read either way
+    private boolean enabled = false;
+
+    private String directory = "data/order-archive";
+
+    // orders placed before the start of the day this long ago are moved out of the hot tables
+    private Duration minAge = Duration.ofDays(180);
+
+    // caps the size of one segment, a run stops at the last whole day under the cap
+    private int maxOrdersPerRun = 100_000;
+
+    // orders per compressed block, the unit a segment read decodes
+    private int blockSize = 1024;
+
+    // orders deleted from the hot tables per transaction
+    private int deleteBatchSize = 500;
+
+}
@@ -0,0 +1,27 @@
+package com.project.code.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "data-import")
+public class ImportProperties {
+
+    // records written and committed together, and the unit an import resumes from
+    private int chunkSize = 1_000;
+
+    // parsed chunks waiting for the writer; a full queue stops the parser, bounding the heap
+    private int queueCapacity = 4;
+
+    // records between two progress log lines
+    private long progressInterval = 100_000;
+
+    // rejected records listed in the result, all of them are counted
+    private int maxRejectedReported = 1_000;
+
+}
@@ -0,0 +1,38 @@
+package com.project.code.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "inventory")
+public class InventoryProperties {
+
+    private Bulk bulk = new Bulk();
+
+    private AvailabilityIndex availabilityIndex = new AvailabilityIndex();
+
+    @Getter
+    @Setter
+    public static class Bulk {
+
+        // entries looked up, written and committed together by a bulk update
+        private int chunkSize = 1_000;
+    }
+
+    @Getter
+    @Setter
+    public static class AvailabilityIndex {
+
+        // stock levels are held in memory for availability checks, without it they read the database
+        private boolean enabled = true;
+
+        // rows the driver fetches per round trip while loading
+        private int fetchSize = 10_000;
+    }
+
+}
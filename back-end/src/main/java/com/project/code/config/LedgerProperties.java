@@ -0,0 +1,30 @@
+package com.project.code.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "ledger")
+public class LedgerProperties {
+
+    // records every stock change delivered through the outbox
+    private boolean enabled = false;
+
+    // required when enabled; an absolute path outside the working directory, the files outlive the process
+    private String directory;
+
+    // entries per memory-mapped segment file, 56 bytes each; segments are kept as the audit trail
+    private int segmentEntries = 262_144;
+
+    // levels can be rebuilt as far back as the oldest snapshot kept
+    private int snapshotsKept = 24;
+
+    // superseded-* directories kept when the ledger is opened against a new outbox, the oldest go first
+    private int supersededKept = 2;
+
+}
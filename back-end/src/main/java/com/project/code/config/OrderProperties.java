@@ -0,0 +1,104 @@
+package com.project.code.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "order")
+public class OrderProperties {
+
+    private StockDeductionMode stockDeduction = StockDeductionMode.BATCHED;
+
+    private Intake intake = new Intake();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private CustomerCache customerCache = new CustomerCache();
+
+    private LockRetry lockRetry = new LockRetry();
+
+    public enum StockDeductionMode {
+        // load the inventory rows, check and deduct in memory, flush the updates as one batch;
+        // a row another transaction changed since the read fails the order at commit
+        BATCHED,
+        // one guarded "UPDATE ... WHERE stock_level >= qty" per line, no entity read
+        CONDITIONAL_UPDATE,
+        // lock every inventory row of the basket with one SELECT ... FOR UPDATE in productId order,
+        // then check and deduct in memory
+        PESSIMISTIC,
+        // read the rows without locking, write each with a compare-and-set on its version; a row
+        // another transaction changed in between is re-read and written again, the rest of the order is kept
+        OPTIMISTIC
+    }
+
+    @Getter
+    @Setter
+    public static class Intake {
+
+        private IntakeMode mode = IntakeMode.DIRECT;
+
+        // orders waiting for the committer, placeOrder is rejected when full
+        private int queueCapacity = 1_000;
+
+        // a batch is committed when it reaches this many orders ...
+        private int maxBatchSize = 50;
+
+        // ... or when the oldest order in it waited this long
+        private long maxWaitMillis = 5;
+
+        // placeOrder gives up waiting for the commit after this long, the order may still be committed
+        private long commitTimeoutMillis = 30_000;
+    }
+
+    @Getter
+    @Setter
+    public static class Idempotency {
+
+        // completed orders kept in memory for replays
+        private int cacheSize = 10_000;
+
+        private Duration cacheTtl = Duration.ofMinutes(10);
+
+        // how long a key stays in the idempotency_key table
+        private Duration keyRetention = Duration.ofHours(24);
+    }
+
+    @Getter
+    @Setter
+    public static class CustomerCache {
+
+        // email -> customer id entries used by checkout
+        private int size = 10_000;
+
+        private Duration ttl = Duration.ofMinutes(30);
+    }
+
+    @Getter
+    @Setter
+    public static class LockRetry {
+
+        // attempts of an order whose transaction timed out waiting for a row lock or found a versioned row
+        // changed at commit, the first included
+        private int maxAttempts = 4;
+
+        // the wait before attempt n is random in [0, min(initialBackoff * 2^(n-2), maxBackoff)]
+        private Duration initialBackoff = Duration.ofMillis(20);
+
+        private Duration maxBackoff = Duration.ofMillis(500);
+    }
+
+    public enum IntakeMode {
+        // every placeOrder call commits its own transaction
+        DIRECT,
+        // orders are queued and committed together by a single committer thread
+        GROUP_COMMIT
+    }
+
+}
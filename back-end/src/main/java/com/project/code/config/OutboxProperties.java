@@ -0,0 +1,27 @@
+package com.project.code.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    // events handed to a subscriber per call
+    private int batchSize = 100;
+
+    // ids are taken before commit, so a slow transaction can add an event below ids already delivered;
+    // ids skipped over are watched this long, then given up as rolled back or never used
+    private Duration gapTimeout = Duration.ofMinutes(5);
+
+    // delivered events are deleted once they are older than this
+    private Duration retention = Duration.ofDays(7);
+
+}
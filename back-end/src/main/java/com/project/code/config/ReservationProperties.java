@@ -0,0 +1,33 @@
+package com.project.code.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reservation")
+public class ReservationProperties {
+
+    private Duration defaultTtl = Duration.ofMinutes(15);
+
+    private Duration maxTtl = Duration.ofHours(1);
+
+    // expiry resolution, a reservation is released at most one tick after it expired
+    private Duration tickDuration = Duration.ofMillis(100);
+
+    // buckets of the timing wheel, a power of two
+    private int ticksPerWheel = 512;
+
+    // open holds a store may have at once, bounds the memory the holds take
+    private int maxHoldsPerStore = 10_000;
+
+    // open holds one customer may have at once, so a single client can't take a store's stock or its quota
+    private int maxHoldsPerCustomer = 5;
+
+}
@@ -0,0 +1,8 @@
+package com.project.code.exception;
+
+public class ImportAlreadyRunningException extends RuntimeException {
+
+    public ImportAlreadyRunningException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.code.exception;
+
+/** One record of an import could not be read or converted; the import rejects it and moves on. */
+public class MalformedImportRecordException extends RuntimeException {
+
+    public MalformedImportRecordException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.project.code.exception;
+
+public class OrderIntakeRejectedException extends RuntimeException {
+
+    public OrderIntakeRejectedException(String message) {
+        super(message);
+    }
+
+    public OrderIntakeRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
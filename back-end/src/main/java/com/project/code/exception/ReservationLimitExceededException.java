@@ -0,0 +1,8 @@
+package com.project.code.exception;
+
+public class ReservationLimitExceededException extends RuntimeException {
+
+    public ReservationLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.project.code.exception;
+
+public class ReservationNotFoundException extends RuntimeException {
+
+    public ReservationNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,141 @@
+package com.project.code.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * RFC 4180 CSV: comma separated, a header row naming the columns, fields in
+ * double quotes may hold commas, line breaks and doubled quotes. Header names
+ * are matched ignoring case and underscores, so both storeId and store_id
+ * work; columns nobody asked for are ignored.
+ */
+public final class CsvRecordReader implements ImportRecordReader {
+
+    private final Reader reader;
+    // read in blocks, BufferedReader.read() takes a lock per character
+    private final char[] buffer = new char[16 * 1024];
+    private int position;
+    private int limit;
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> fields = new ArrayList<>();
+    private final int[] columnIndexes;
+
+    public CsvRecordReader(Reader reader, List<String> columns) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV input is empty, expected a header row");
+        }
+        List<String> names = header.stream().map(CsvRecordReader::normalize).toList();
+        columnIndexes = new int[columns.size()];
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes[i] = names.indexOf(normalize(columns.get(i)));
+            if (columnIndexes[i] < 0) {
+                missing.add(columns.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("The CSV header " + header + " is missing the columns " + missing);
+        }
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        List<String> record = readRecord();
+        while (record != null && record.size() == 1 && record.get(0).isEmpty()) {
+            record = readRecord();
+        }
+        if (record == null) {
+            return null;
+        }
+        String[] values = new String[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            values[i] = columnIndexes[i] < record.size() ? record.get(columnIndexes[i]) : null;
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // the fields of the next record, in a list reused by the following call
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    // unterminated quote, keep what was read
+                    break;
+                }
+                if (c == '"') {
+                    c = read();
+                    if (c != '"') {
+                        quoted = false;
+                        continue;
+                    }
+                }
+                field.append((char) c);
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        int read = reader.read(buffer);
+        if (read <= 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static String normalize(String column) {
+        // spreadsheet exports start with a byte order mark
+        return column.replace("\uFEFF", "").strip().replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.project.code.importer;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import com.project.code.Model.ImportResult;
+import com.project.code.Service.DataImportService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports a file from the command line and exits, instead of serving requests:
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none \
+ *     --import-file=products.csv.gz --import-kind=products [--import-format=csv] [--import-name=...]
+ * </pre>
+ * The format follows the file name (.ndjson or .jsonl, otherwise CSV, either
+ * one optionally gzipped) and the name defaults to the file name, so running
+ * the same command again resumes an import that stopped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DataImportCommand implements ApplicationRunner {
+
+    private final DataImportService dataImportService;
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("import-file")) {
+            return;
+        }
+        int exitCode = 0;
+        try {
+            importFile(args);
+        } catch (Exception e) {
+            log.error("Import failed, run the same command again to resume it", e);
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+
+    private void importFile(ApplicationArguments args) throws Exception {
+        Path file = Path.of(required(args, "import-file"));
+        String fileName = file.getFileName().toString();
+        boolean gzipped = fileName.endsWith(".gz");
+        String baseName = gzipped ? fileName.substring(0, fileName.length() - 3) : fileName;
+        ImportKind kind = ImportKind.of(required(args, "import-kind"));
+        String formatOption = optional(args, "import-format");
+        ImportFormat format = formatOption == null ? ImportFormat.ofFileName(baseName) : ImportFormat.of(formatOption);
+        String nameOption = optional(args, "import-name");
+        String name = nameOption == null ? fileName : nameOption;
+
+        ImportResult result;
+        try (InputStream in = open(file, gzipped)) {
+            result = dataImportService.importRecords(name, kind, format, in);
+        }
+        log.info("Imported {} rows of {} after {} committed by an earlier run: {}", result.getRowsRead(), file,
+                result.getResumedFrom(), result.getCounts());
+        result.getRejected().forEach(rejected -> log.warn("Rejected row {}: {} {}", rejected.row(),
+                rejected.status(), rejected.reason() == null ? "" : rejected.reason()));
+        if (result.getRejectedCount() > result.getRejected().size()) {
+            log.warn("... and {} more rejected rows", result.getRejectedCount() - result.getRejected().size());
+        }
+    }
+
+    private static InputStream open(Path file, boolean gzipped) throws Exception {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 64 * 1024);
+        return gzipped ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    private static String required(ApplicationArguments args, String name) {
+        String value = optional(args, name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.project.code.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public enum ImportFormat {
+
+    CSV,
+    NDJSON;
+
+    public static ImportFormat of(String name) {
+        return valueOf(name.strip().toUpperCase(Locale.ROOT));
+    }
+
+    // .ndjson and .jsonl files are NDJSON, anything else is read as CSV
+    public static ImportFormat ofFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".ndjson") || lowerCase.endsWith(".jsonl") ? NDJSON : CSV;
+    }
+
+    /** Reads UTF-8 records of the given columns; a CSV header is read and checked here. */
+    public ImportRecordReader open(InputStream in, List<String> columns, ObjectMapper objectMapper)
+            throws IOException {
+        return switch (this) {
+            case CSV -> new CsvRecordReader(new InputStreamReader(in, StandardCharsets.UTF_8), columns);
+            case NDJSON -> new NdjsonRecordReader(
+                    new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)), objectMapper, columns);
+        };
+    }
+
+}
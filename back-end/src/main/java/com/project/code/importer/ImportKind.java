@@ -0,0 +1,86 @@
+package com.project.code.importer;
+
+import java.util.List;
+import java.util.Locale;
+
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.ProductDto;
+import com.project.code.Model.StoreDto;
+import com.project.code.exception.MalformedImportRecordException;
+
+/**
+ * What an import holds, the columns each record must have and the DTO it is
+ * converted to: ProductDto keyed by sku, StoreDto keyed by name and address,
+ * InventoryUpdateDto keyed by store and product.
+ */
+public enum ImportKind {
+
+    PRODUCTS(List.of("name", "category", "price", "sku")),
+    STORES(List.of("name", "address")),
+    INVENTORY(List.of("storeId", "productId", "stockLevel"));
+
+    private final List<String> columns;
+
+    ImportKind(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public static ImportKind of(String name) {
+        return valueOf(name.strip().toUpperCase(Locale.ROOT));
+    }
+
+    public List<String> columns() {
+        return columns;
+    }
+
+    /** Converts the values read for {@link #columns()}, in that order. */
+    public Object parse(String[] values) {
+        return switch (this) {
+            case PRODUCTS -> new ProductDto(null, text(values, 0), text(values, 1), price(values, 2), text(values, 3));
+            case STORES -> new StoreDto(text(values, 0), text(values, 1));
+            case INVENTORY -> new InventoryUpdateDto(id(values, 0), id(values, 1), stockLevel(values, 2));
+        };
+    }
+
+    private String text(String[] values, int column) {
+        String value = values[column] == null ? "" : values[column].strip();
+        if (value.isEmpty()) {
+            throw new MalformedImportRecordException(columns.get(column) + " is missing");
+        }
+        return value;
+    }
+
+    private double price(String[] values, int column) {
+        try {
+            double price = Double.parseDouble(text(values, column));
+            if (price >= 0 && Double.isFinite(price)) {
+                return price;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new MalformedImportRecordException(columns.get(column) + " is not a price: " + values[column]);
+    }
+
+    private long id(String[] values, int column) {
+        try {
+            return Long.parseLong(text(values, column));
+        } catch (NumberFormatException e) {
+            throw new MalformedImportRecordException(columns.get(column) + " is not an id: " + values[column]);
+        }
+    }
+
+    private int stockLevel(String[] values, int column) {
+        try {
+            int stockLevel = Integer.parseInt(text(values, column));
+            if (stockLevel >= 0) {
+                return stockLevel;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new MalformedImportRecordException(
+                columns.get(column) + " is not a stock level: " + values[column]);
+    }
+
+}
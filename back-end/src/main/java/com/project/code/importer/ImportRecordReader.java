@@ -0,0 +1,22 @@
+package com.project.code.importer;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of an import one at a time, so the input is never held in
+ * memory as a whole.
+ */
+public interface ImportRecordReader extends Closeable {
+
+    /**
+     * The values of the next record in the order of the kind's columns, null
+     * for a column the record doesn't have, or null at the end of the input.
+     * Blank lines are skipped and not counted as records.
+     *
+     * @throws com.project.code.exception.MalformedImportRecordException when this
+     *         record can't be read; the reader is positioned at the next one
+     */
+    String[] next() throws IOException;
+
+}
@@ -0,0 +1,59 @@
+package com.project.code.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.exception.MalformedImportRecordException;
+
+/**
+ * Newline-delimited JSON: one object per line, fields named like the kind's
+ * columns. A line that isn't a JSON object is rejected on its own.
+ */
+public final class NdjsonRecordReader implements ImportRecordReader {
+
+    private final BufferedReader reader;
+    private final ObjectMapper objectMapper;
+    private final List<String> columns;
+
+    public NdjsonRecordReader(BufferedReader reader, ObjectMapper objectMapper, List<String> columns) {
+        this.reader = reader;
+        this.objectMapper = objectMapper;
+        this.columns = columns;
+    }
+
+    @Override
+    public String[] next() throws IOException {
+        String line = reader.readLine();
+        while (line != null && line.isBlank()) {
+            line = reader.readLine();
+        }
+        if (line == null) {
+            return null;
+        }
+        JsonNode object;
+        try {
+            object = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new MalformedImportRecordException("Malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!object.isObject()) {
+            throw new MalformedImportRecordException("Expected a JSON object");
+        }
+        String[] values = new String[columns.size()];
+        for (int i = 0; i < values.length; i++) {
+            JsonNode value = object.get(columns.get(i));
+            values[i] = value == null || value.isNull() ? null : value.asText();
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+}
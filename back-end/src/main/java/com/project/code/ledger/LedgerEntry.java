@@ -0,0 +1,15 @@
+package com.project.code.ledger;
+
+import java.time.Instant;
+
+import com.project.code.Model.StockChangedEvent.Reason;
+
+/**
+ * One stock change in the ledger. sequence numbers the ledger's entries from
+ * 1 without gaps; eventId is the outbox event the entry was recorded from.
+ * stockLevel is the level after the change when the writer knew it, null when
+ * only the delta is known.
+ */
+public record LedgerEntry(long sequence, long eventId, Instant recordedAt, long storeId, long productId, int delta,
+        Integer stockLevel, Reason reason) {
+}
@@ -0,0 +1,181 @@
+package com.project.code.ledger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+
+import com.project.code.Model.StockChangedEvent.Reason;
+
+/**
+ * Ledger file of a fixed number of fixed-size entries, memory-mapped whole
+ * when it is opened. Entries are only ever appended, so writes go to the page
+ * cache in file order and {@link #force} syncs everything appended since the
+ * last one in a single call.
+ * <p>
+ * Each entry carries its sequence and a checksum. Opening a segment scans it
+ * up to the first entry that is missing, out of sequence or torn by a crash,
+ * takes that as the end and zeroes everything behind it, so neither the torn
+ * entry nor one that outlived it comes back once the sequence reaches it again.
+ */
+public final class LedgerSegment implements Closeable {
+
+    public static final String EXTENSION = ".log";
+
+    static final int ENTRY_BYTES = 56;
+
+    // the checksum covers everything in front of it
+    private static final int CHECKSUM_OFFSET = ENTRY_BYTES - Integer.BYTES;
+    private static final int UNKNOWN_LEVEL = -1;
+    private static final Reason[] REASONS = Reason.values();
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long firstSequence;
+    private final int capacity;
+    private int size;
+
+    private LedgerSegment(Path path, FileChannel channel, MappedByteBuffer buffer, long firstSequence,
+            int capacity) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.firstSequence = firstSequence;
+        this.capacity = capacity;
+    }
+
+    /** The file of the segment starting at firstSequence; names sort in sequence order. */
+    public static Path path(Path directory, long firstSequence) {
+        return directory.resolve("ledger-%020d%s".formatted(firstSequence, EXTENSION));
+    }
+
+    /**
+     * Opens the segment at path, creating it with room for capacity entries if
+     * it doesn't exist. An existing segment keeps the capacity it was created with.
+     */
+    public static LedgerSegment open(Path path, int capacity) throws IOException {
+        String name = path.getFileName().toString();
+        long firstSequence = Long.parseLong(name.substring("ledger-".length(), name.length() - EXTENSION.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            long existing = channel.size();
+            int entries = existing > 0 ? (int) (existing / ENTRY_BYTES) : capacity;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) entries * ENTRY_BYTES);
+            LedgerSegment segment = new LedgerSegment(path, channel, buffer, firstSequence, entries);
+            segment.recover();
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    /** Sequence of the last entry, firstSequence - 1 while the segment is empty. */
+    public long lastSequence() {
+        return firstSequence + size - 1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    /** Writes the entry behind the last one; its sequence must follow the last one's. */
+    public void append(LedgerEntry entry) {
+        if (isFull()) {
+            throw new IllegalStateException("Ledger segment " + path + " is full");
+        }
+        if (entry.sequence() != lastSequence() + 1) {
+            throw new IllegalArgumentException("Expected ledger sequence " + (lastSequence() + 1) + " but got "
+                    + entry.sequence());
+        }
+        int offset = size * ENTRY_BYTES;
+        buffer.putLong(offset, entry.sequence())
+                .putLong(offset + 8, entry.eventId())
+                .putLong(offset + 16, entry.recordedAt().toEpochMilli())
+                .putLong(offset + 24, entry.storeId())
+                .putLong(offset + 32, entry.productId())
+                .putInt(offset + 40, entry.delta())
+                .putInt(offset + 44, entry.stockLevel() != null ? entry.stockLevel() : UNKNOWN_LEVEL)
+                .put(offset + 48, (byte) entry.reason().ordinal());
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(offset));
+        size++;
+    }
+
+    /** The entry at index, 0 being the one with firstSequence. */
+    public LedgerEntry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int offset = index * ENTRY_BYTES;
+        int stockLevel = buffer.getInt(offset + 44);
+        return new LedgerEntry(
+                buffer.getLong(offset),
+                buffer.getLong(offset + 8),
+                Instant.ofEpochMilli(buffer.getLong(offset + 16)),
+                buffer.getLong(offset + 24),
+                buffer.getLong(offset + 32),
+                buffer.getInt(offset + 40),
+                stockLevel != UNKNOWN_LEVEL ? stockLevel : null,
+                REASONS[buffer.get(offset + 48)]);
+    }
+
+    /** Syncs every entry appended so far to the disk. */
+    public void force() {
+        buffer.force();
+    }
+
+    // the mapping stays valid until the buffer is collected, closing only releases the file
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void recover() {
+        while (size < capacity && isValid(size)) {
+            size++;
+        }
+        // pages can reach the disk out of order, an entry written after the torn one may have survived it
+        boolean zeroed = false;
+        for (int offset = size * ENTRY_BYTES; offset < capacity * ENTRY_BYTES; offset += Long.BYTES) {
+            if (buffer.getLong(offset) != 0) {
+                buffer.putLong(offset, 0);
+                zeroed = true;
+            }
+        }
+        if (zeroed) {
+            buffer.force();
+        }
+    }
+
+    private boolean isValid(int index) {
+        int offset = index * ENTRY_BYTES;
+        return buffer.getLong(offset) == firstSequence + index
+                && Byte.toUnsignedInt(buffer.get(offset + 48)) < REASONS.length
+                && buffer.getInt(offset + CHECKSUM_OFFSET) == checksum(offset);
+    }
+
+    private int checksum(int offset) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, CHECKSUM_OFFSET));
+        return (int) crc.getValue();
+    }
+
+}
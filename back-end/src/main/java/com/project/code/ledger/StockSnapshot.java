@@ -0,0 +1,96 @@
+package com.project.code.ledger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Stock level of every row right after the ledger entry with the given
+ * sequence, the highest outbox event id in the ledger up to there and the
+ * one the ledger was seeded at. Written to a
+ * temporary file, synced and moved into place, so a snapshot under its final
+ * name is always whole; a checksum at the end catches one damaged since.
+ */
+public record StockSnapshot(long sequence, long lastEventId, long seededEventId, List<Level> levels) {
+
+    public static final String EXTENSION = ".snap";
+
+    private static final int MAGIC = 0x534e4132;
+
+    public record Level(long storeId, long productId, int stockLevel) {
+    }
+
+    /** The file of the snapshot at sequence; names sort in sequence order. */
+    public static Path path(Path directory, long sequence) {
+        return directory.resolve("snapshot-%020d%s".formatted(sequence, EXTENSION));
+    }
+
+    public static void write(Path path, long sequence, long lastEventId, long seededEventId,
+            Collection<Level> levels) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeLong(sequence);
+            out.writeLong(lastEventId);
+            out.writeLong(seededEventId);
+            out.writeInt(levels.size());
+            for (Level level : levels) {
+                out.writeLong(level.storeId());
+                out.writeLong(level.productId());
+                out.writeInt(level.stockLevel());
+            }
+            out.writeInt((int) checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static StockSnapshot read(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path)) {
+            CheckedInputStream checked = new CheckedInputStream(new BufferedInputStream(file, 1 << 16),
+                    new CRC32C());
+            DataInputStream in = new DataInputStream(checked);
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a stock snapshot: " + path);
+            }
+            long sequence = in.readLong();
+            long lastEventId = in.readLong();
+            long seededEventId = in.readLong();
+            int count = in.readInt();
+            List<Level> levels = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                levels.add(new Level(in.readLong(), in.readLong(), in.readInt()));
+            }
+            int expected = (int) checked.getChecksum().getValue();
+            if (in.readInt() != expected) {
+                throw new IOException("Stock snapshot is damaged: " + path);
+            }
+            return new StockSnapshot(sequence, lastEventId, seededEventId, List.copyOf(levels));
+        }
+    }
+
+}
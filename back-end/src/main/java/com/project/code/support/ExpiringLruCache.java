@@ -0,0 +1,82 @@
+package com.project.code.support;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Small in-memory cache bounded by size (least recently used entries are
+ * evicted first) and by age (entries older than ttl are treated as missing).
+ */
+public class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<K, Entry<V>> entries;
+    // a lock instead of synchronized so virtual threads don't pin their carrier while waiting
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ExpiringLruCache(int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > ExpiringLruCache.this.maxSize;
+            }
+        };
+    }
+
+    public Optional<V> get(K key) {
+        lock.lock();
+        try {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return Optional.empty();
+            }
+            if (System.nanoTime() - entry.createdAt() > ttlNanos) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.value());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(K key, V value) {
+        lock.lock();
+        try {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(K key) {
+        lock.lock();
+        try {
+            entries.remove(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+
+}
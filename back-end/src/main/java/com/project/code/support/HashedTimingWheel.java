@@ -0,0 +1,152 @@
+package com.project.code.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timing wheel (Varghese & Lauck) for many short-lived timeouts.
+ * Scheduling and cancelling are O(1); a single worker thread advances one
+ * bucket per tick and runs the tasks that are due, so timeouts fire up to one
+ * tick late. Tasks run on the worker thread and must be quick.
+ */
+@Slf4j
+public class HashedTimingWheel implements AutoCloseable {
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final long startTime;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // only touched by the worker thread
+    private long tick;
+
+    public HashedTimingWheel(String name, Duration tickDuration, int ticksPerWheel) {
+        if (ticksPerWheel <= 0 || Integer.bitCount(ticksPerWheel) != 1) {
+            throw new IllegalArgumentException("ticksPerWheel must be a power of two");
+        }
+        this.tickNanos = tickDuration.toNanos();
+        this.wheel = new Bucket[ticksPerWheel];
+        for (int i = 0; i < ticksPerWheel; i++) {
+            wheel[i] = new Bucket();
+        }
+        this.mask = ticksPerWheel - 1;
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public Timeout schedule(Runnable task, Duration delay) {
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime + delay.toNanos());
+        pending.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long deadline = tickNanos * (tick + 1);
+            if (!sleepUntil(deadline)) {
+                return;
+            }
+            transferPending();
+            expire(wheel[(int) (tick & mask)], deadline);
+            tick++;
+        }
+    }
+
+    private boolean sleepUntil(long deadline) {
+        long sleepNanos;
+        while ((sleepNanos = deadline - (System.nanoTime() - startTime)) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long dueTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (dueTick - tick) / wheel.length;
+            // already overdue timeouts go into the current bucket
+            long bucketTick = Math.max(dueTick, tick);
+            wheel[(int) (bucketTick & mask)].timeouts.add(timeout);
+        }
+    }
+
+    private void expire(Bucket bucket, long deadline) {
+        Iterator<Timeout> iterator = bucket.timeouts.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0 && timeout.deadline <= deadline) {
+                iterator.remove();
+                timeout.fire();
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    // the timeouts hashed to one tick, a holder because an array of List<Timeout> can't be created
+    private static final class Bucket {
+
+        private final List<Timeout> timeouts = new ArrayList<>();
+    }
+
+    public static final class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /** The task won't run once this returns, unless it already started. */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        private void fire() {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Timing wheel task failed", e);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+package com.project.code.support;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Stock level per (storeId, productId) in one primitive array: open
+ * addressing with linear probing, the key packed into a long and the level
+ * stored in the slot next to it, so a lookup touches one cache line and
+ * allocates nothing. Reads are optimistic and never block; writes take the
+ * lock, which only other writes wait for.
+ * <p>
+ * Ids must lie in 1..2^32-1 to be packed; other ids are never indexed and
+ * read as {@link #MISSING}.
+ */
+public class StockLevelIndex {
+
+    public static final int MISSING = -1;
+
+    private static final long EMPTY = 0L;
+    private static final double MAX_LOAD = 0.6;
+
+    // a StampedLock is not reentrant, which the index never needs
+    private final StampedLock lock = new StampedLock();
+
+    // slots[2 * i] holds a packed key, slots[2 * i + 1] its level; both in one array so a
+    // reader racing a resize sees a key and a level of the same table
+    private long[] slots;
+    private int size;
+
+    public StockLevelIndex(int expectedSize) {
+        slots = new long[2 * capacityFor(Math.max(expectedSize, 16))];
+    }
+
+    /** The level of the row, or {@link #MISSING} when it isn't indexed. */
+    public int get(long storeId, long productId) {
+        long key = key(storeId, productId);
+        if (key == EMPTY) {
+            return MISSING;
+        }
+        long stamp = lock.tryOptimisticRead();
+        int level = find(slots, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                level = find(slots, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return level;
+    }
+
+    /** Sets the level of the row, indexing it if it wasn't. Returns false for ids that can't be packed. */
+    public boolean put(long storeId, long productId, int stockLevel) {
+        long key = key(storeId, productId);
+        if (key == EMPTY) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(slots, key);
+            if (slots[slot] == EMPTY) {
+                if (size + 1 > (slots.length / 2) * MAX_LOAD) {
+                    resize();
+                    slot = slotOf(slots, key);
+                }
+                slots[slot] = key;
+                size++;
+            }
+            slots[slot + 1] = stockLevel;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Moves the level of an indexed row by delta, never below zero. Returns
+     * false and changes nothing when the row isn't indexed.
+     */
+    public boolean add(long storeId, long productId, int delta) {
+        long key = key(storeId, productId);
+        if (key == EMPTY) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(slots, key);
+            if (slots[slot] == EMPTY) {
+                return false;
+            }
+            slots[slot + 1] = Math.max(slots[slot + 1] + delta, 0);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long storeId, long productId) {
+        long key = key(storeId, productId);
+        if (key == EMPTY) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int slot = slotOf(slots, key);
+            if (slots[slot] != EMPTY) {
+                delete(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Removes the product from every store, a scan of the whole table. */
+    public void removeProduct(long productId) {
+        long stamp = lock.writeLock();
+        try {
+            int slot = 0;
+            while (slot < slots.length) {
+                long key = slots[slot];
+                if (key != EMPTY && (key & 0xFFFF_FFFFL) == productId) {
+                    // the next key moves into this slot, look at it again
+                    delete(slot);
+                } else {
+                    slot += 2;
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    static long key(long storeId, long productId) {
+        if (storeId <= 0 || productId <= 0 || storeId > 0xFFFF_FFFFL || productId > 0xFFFF_FFFFL) {
+            return EMPTY;
+        }
+        return storeId << 32 | productId;
+    }
+
+    // reads a table that may be written concurrently: the probe is bounded, the caller validates the result
+    private static int find(long[] table, long key) {
+        int mask = table.length - 2;
+        int slot = (int) (mix(key) << 1) & mask;
+        for (int probed = 0; probed < table.length; probed += 2) {
+            long current = table[slot];
+            if (current == key) {
+                return (int) table[slot + 1];
+            }
+            if (current == EMPTY) {
+                return MISSING;
+            }
+            slot = (slot + 2) & mask;
+        }
+        return MISSING;
+    }
+
+    // the slot holding key, or the empty slot it would go to
+    private static int slotOf(long[] table, long key) {
+        int mask = table.length - 2;
+        int slot = (int) (mix(key) << 1) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 2) & mask;
+        }
+        return slot;
+    }
+
+    // backward shift deletion: keys further along the probe run move up, so no tombstones are left
+    private void delete(int slot) {
+        int mask = slots.length - 2;
+        int gap = slot;
+        int next = (gap + 2) & mask;
+        while (slots[next] != EMPTY) {
+            int home = (int) (mix(slots[next]) << 1) & mask;
+            // the key at next may fill the gap when its home slot doesn't lie in (gap, next]
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                slots[gap + 1] = slots[next + 1];
+                gap = next;
+            }
+            next = (next + 2) & mask;
+        }
+        slots[gap] = EMPTY;
+        slots[gap + 1] = 0;
+        size--;
+    }
+
+    private void resize() {
+        long[] old = slots;
+        long[] resized = new long[old.length * 2];
+        for (int slot = 0; slot < old.length; slot += 2) {
+            if (old[slot] != EMPTY) {
+                int target = slotOf(resized, old[slot]);
+                resized[target] = old[slot];
+                resized[target + 1] = old[slot + 1];
+            }
+        }
+        slots = resized;
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.ceil(expectedSize / MAX_LOAD));
+        return capacity < expectedSize / MAX_LOAD ? capacity * 2 : capacity;
+    }
+
+    // murmur3's finalizer, packed ids are sequential and would cluster otherwise
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb34fe5d51a75L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+}
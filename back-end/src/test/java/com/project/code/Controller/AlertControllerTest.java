@@ -0,0 +1,104 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.project.code.Model.LowStockAlert;
+import com.project.code.Model.LowStockAlert.Type;
+import com.project.code.Model.ReorderThreshold;
+import com.project.code.Model.ReorderThresholdDto;
+import com.project.code.Service.LowStockAlertService;
+import com.project.code.exception.InventoryNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class AlertControllerTest {
+
+    @Mock
+    private LowStockAlertService lowStockAlertService;
+
+    @InjectMocks
+    private AlertController alertController;
+
+    @Test
+    void setThreshold_shouldReturnThreshold() {
+        // Arrange
+        ReorderThresholdDto request = new ReorderThresholdDto(1L, 2L, 5, null);
+        when(lowStockAlertService.setThreshold(request)).thenReturn(new ReorderThreshold(1L, 2L, 5, 10));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = alertController.setThreshold(request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("message")).isEqualTo("Reorder threshold set successfully");
+        assertThat(response.getBody()).containsKey("threshold");
+    }
+
+    @Test
+    void setThreshold_shouldReturnBadRequest_whenThresholdIsInvalid() {
+        // Arrange
+        ReorderThresholdDto request = new ReorderThresholdDto(1L, 2L, 5, 5);
+        when(lowStockAlertService.setThreshold(request))
+                .thenThrow(new IllegalArgumentException("Clear level must be above the reorder level"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = alertController.setThreshold(request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().get("message")).isEqualTo("Clear level must be above the reorder level");
+    }
+
+    @Test
+    void setThreshold_shouldReturnNotFound_whenRowIsNotStocked() {
+        // Arrange
+        ReorderThresholdDto request = new ReorderThresholdDto(1L, 2L, 5, null);
+        when(lowStockAlertService.setThreshold(request))
+                .thenThrow(new InventoryNotFoundException("Inventory of StoreId=1 ProductId=2 not found"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = alertController.setThreshold(request);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void removeThreshold_shouldReturnNotFound_whenThereIsNone() {
+        // Arrange
+        when(lowStockAlertService.removeThreshold(1L, 2L)).thenReturn(false);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = alertController.removeThreshold(1L, 2L);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+    }
+
+    @Test
+    void getLowStockAlerts_shouldReturnAlertsAfterId() {
+        // Arrange
+        List<LowStockAlert> alerts = List.of(new LowStockAlert(4, Type.LOW, 1, 2, 3, 5, Instant.now()));
+        when(lowStockAlertService.alertsAfter(3)).thenReturn(alerts);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = alertController.getLowStockAlerts(3);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("alerts")).isEqualTo(alerts);
+    }
+
+}
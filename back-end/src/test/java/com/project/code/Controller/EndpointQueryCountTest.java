@@ -0,0 +1,256 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.Service.AvailabilityIndexService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Number of SQL statements each read endpoint issues, JSON serialization
+ * included. Every product has inventory in both stores, so an N+1 on any
+ * association shows up as a higher count.
+ */
+// the relay polls once at startup, its consumers' statements would land in the measurements
+@SpringBootTest(properties = "outbox.poll-interval-millis=3600000")
+class EndpointQueryCountTest {
+
+    private static final int PRODUCTS = 6;
+    // statistics are global, other scheduled jobs can add statements to a measurement;
+    // the fewest statements over a few runs are the request's own
+    private static final int ATTEMPTS = 4;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private AvailabilityIndexService availabilityIndexService;
+
+    private MockMvc mockMvc;
+    private Statistics statistics;
+    private Store store1;
+    private List<Product> products;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        Store store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        products = new ArrayList<>();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            Product product = productRepository.save(new Product("Phone" + i, "Mobile", 100.00 * i, "SKU00" + i));
+            inventoryRepository.save(new Inventory(store1, product, 100));
+            inventoryRepository.save(new Inventory(store2, product, 100));
+            products.add(product);
+        }
+
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    void getStoreProducts() throws Exception {
+        assertThat(streamedStatementsOf(get("/api/v1/inventories/stores/{storeId}", store1.getId()))).isEqualTo(1);
+        assertThat(streamedStatementsOf(get("/api/v1/inventories/stores/{storeId}", store1.getId())
+                .param("page", "1")
+                .param("size", "2")
+                .param("sort", "stockLevel,desc"))).isEqualTo(1);
+    }
+
+    @Test
+    void filterInventoryProducts() throws Exception {
+        assertThat(statementsOf(get("/api/v1/inventories/filter/null/null"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/inventories/filter/Mobile/null"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/inventories/filter/null/Phone"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/inventories/filter/Mobile/Phone"))).isEqualTo(1);
+    }
+
+    @Test
+    void searchInventoryProducts() throws Exception {
+        assertThat(statementsOf(get("/api/v1/inventories/search")
+                .param("name", "Phone")
+                .param("storeId", String.valueOf(store1.getId())))).isEqualTo(1);
+    }
+
+    @Test
+    void validateQuantity() throws Exception {
+        assertThat(statementsOf(get("/api/v1/inventories/validate")
+                .param("productId", String.valueOf(products.get(0).getId()))
+                .param("storeId", String.valueOf(store1.getId()))
+                .param("quantity", "1"))).isEqualTo(2);
+    }
+
+    @Test
+    void validateQuantity_shouldNotQuery_whenRowIsIndexed() throws Exception {
+        // the rows above were saved without stock events, a reload indexes them
+        availabilityIndexService.reload();
+
+        assertThat(statementsOf(get("/api/v1/inventories/validate")
+                .param("productId", String.valueOf(products.get(0).getId()))
+                .param("storeId", String.valueOf(store1.getId()))
+                .param("quantity", "1"))).isEqualTo(0);
+    }
+
+    @Test
+    void checkCartAvailability() throws Exception {
+        String request = """
+                {"storeId": %d, "items": [{"productId": %d, "quantity": 1}, {"productId": %d, "quantity": 2},
+                    {"productId": %d, "quantity": 3}]}""".formatted(store1.getId(), products.get(0).getId(),
+                products.get(1).getId(), products.get(2).getId());
+        RequestBuilder checkAvailability = post("/api/v1/inventories/availability")
+                .contentType(MediaType.APPLICATION_JSON).content(request);
+
+        // one query for the whole cart, none once its rows are indexed
+        assertThat(statementsOf(checkAvailability)).isEqualTo(1);
+        availabilityIndexService.reload();
+        assertThat(statementsOf(checkAvailability)).isEqualTo(0);
+    }
+
+    @Test
+    void listProducts() throws Exception {
+        assertThat(statementsOf(get("/api/v1/products"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/products/category/null/Mobile"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/products/searchProduct/Phone"))).isEqualTo(1);
+    }
+
+    @Test
+    void getProductById() throws Exception {
+        assertThat(statementsOf(get("/api/v1/products/{id}", products.get(0).getId()))).isEqualTo(1);
+    }
+
+    @Test
+    void getProductsByCategoryAndStore() throws Exception {
+        assertThat(statementsOf(get("/api/v1/products/filter/{category}/{storeId}", "Mobile", store1.getId())))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void placeOrder() throws Exception {
+        StringBuilder lines = new StringBuilder();
+        for (Product product : products) {
+            if (!lines.isEmpty()) {
+                lines.append(',');
+            }
+            lines.append("""
+                    {"id": %d, "name": "%s", "price": %s, "quantity": 1, "total": %s}"""
+                    .formatted(product.getId(), product.getName(), product.getPrice(), product.getPrice()));
+        }
+        String request = """
+                {"storeId": %d, "customerName": "Customer One", "customerEmail": "customer1@mail.com",
+                 "customerPhone": "0939451111", "datetime": "2025-01-01T10:00:00", "purchaseProduct": [%s]}"""
+                .formatted(store1.getId(), lines);
+
+        // first order creates the customer, a repeat order must cost the same however many orders exist
+        mockMvc.perform(post("/api/v1/stores/placeOrder").contentType(MediaType.APPLICATION_JSON).content(request))
+                .andExpect(status().isOk());
+        // pooled sequences fetch a new block every few orders, the cheapest of four orders is one without
+        long repeatOrder = statementsOf(
+                post("/api/v1/stores/placeOrder").contentType(MediaType.APPLICATION_JSON).content(request));
+
+        assertThat(repeatOrder).isEqualTo(8);
+    }
+
+    @Test
+    void orderHistory() throws Exception {
+        String request = """
+                {"storeId": %d, "customerName": "Customer One", "customerEmail": "customer1@mail.com",
+                 "customerPhone": "0939451111", "datetime": "2025-01-01T10:00:00",
+                 "purchaseProduct": [{"id": %d, "name": "Phone1", "price": 100.0, "quantity": 1, "total": 100.0},
+                                     {"id": %d, "name": "Phone2", "price": 200.0, "quantity": 1, "total": 200.0}]}"""
+                .formatted(store1.getId(), products.get(0).getId(), products.get(1).getId());
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/v1/stores/placeOrder").contentType(MediaType.APPLICATION_JSON).content(request))
+                    .andExpect(status().isOk());
+        }
+
+        // a page is one query however many orders and lines it holds
+        assertThat(streamedStatementsOf(get("/api/v1/orders/stores/{storeId}", store1.getId()))).isEqualTo(1);
+        assertThat(streamedStatementsOf(get("/api/v1/orders").param("limit", "2"))).isEqualTo(1);
+    }
+
+    @Test
+    void salesReports() throws Exception {
+        // the rollups answer from per-day rows, never from the order tables
+        assertThat(statementsOf(get("/api/v1/reports/stores/revenue"))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/reports/stores/{storeId}/categories", store1.getId()))).isEqualTo(1);
+        assertThat(statementsOf(get("/api/v1/reports/products/top"))).isEqualTo(1);
+    }
+
+    private long streamedStatementsOf(RequestBuilder requestBuilder) throws Exception {
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            statistics.clear();
+            MvcResult result = mockMvc.perform(requestBuilder).andExpect(request().asyncStarted()).andReturn();
+            mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+            fewest = Math.min(fewest, statistics.getPrepareStatementCount());
+        }
+        return fewest;
+    }
+
+    private long statementsOf(RequestBuilder request) throws Exception {
+        long fewest = Long.MAX_VALUE;
+        for (int i = 0; i < ATTEMPTS; i++) {
+            statistics.clear();
+            mockMvc.perform(request).andExpect(status().isOk());
+            fewest = Math.min(fewest, statistics.getPrepareStatementCount());
+        }
+        return fewest;
+    }
+
+}
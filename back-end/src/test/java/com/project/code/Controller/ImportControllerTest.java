@@ -0,0 +1,97 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.project.code.Model.ImportCheckpoint;
+import com.project.code.Model.ImportResult;
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.Repo.ImportCheckpointRepository;
+import com.project.code.Service.DataImportService;
+import com.project.code.importer.ImportFormat;
+import com.project.code.importer.ImportKind;
+
+@ExtendWith(MockitoExtension.class)
+class ImportControllerTest {
+
+    @Mock
+    private DataImportService dataImportService;
+
+    @Mock
+    private ImportCheckpointRepository importCheckpointRepository;
+
+    @InjectMocks
+    private ImportController importController;
+
+    private final InputStream body = new ByteArrayInputStream(new byte[0]);
+
+    @Test
+    void importRecords_shouldReturnCountsAndRejectedRows() throws Exception {
+        // Arrange
+        ImportResult result = new ImportResult("products-june", ImportKind.PRODUCTS, 0, 10);
+        result.add(1, Status.CREATED, null);
+        result.add(2, Status.INVALID, "price is missing");
+        result.setRowsRead(2);
+        when(dataImportService.importRecords("products-june", ImportKind.PRODUCTS, ImportFormat.NDJSON, body))
+                .thenReturn(result);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = importController.importRecords("products", "products-june",
+                "ndjson", body);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("message")).isEqualTo("Import products-june processed 2 rows");
+        assertThat(response.getBody().get("counts")).isEqualTo(Map.of(Status.CREATED, 1L, Status.INVALID, 1L));
+        assertThat(response.getBody().get("rejected")).isEqualTo(List.of(
+                new ImportResult.Rejected(2, Status.INVALID, "price is missing")));
+    }
+
+    @Test
+    void importRecords_shouldReturnBadRequest_whenKindIsUnknown() {
+        // Act
+        ResponseEntity<Map<String, Object>> response = importController.importRecords("customers", "customers-june",
+                "csv", body);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verifyNoInteractions(dataImportService);
+    }
+
+    @Test
+    void importRecords_shouldReturnRowsCommitted_whenTheImportFails() throws Exception {
+        // Arrange
+        when(dataImportService.importRecords(eq("stock"), eq(ImportKind.INVENTORY), eq(ImportFormat.CSV), any()))
+                .thenThrow(new IllegalStateException("Database error"));
+        ImportCheckpoint checkpoint = new ImportCheckpoint("stock", ImportKind.INVENTORY);
+        checkpoint.setRowsCommitted(4_000);
+        when(importCheckpointRepository.findById("stock")).thenReturn(Optional.of(checkpoint));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = importController.importRecords("inventory", "stock", "csv",
+                body);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().get("message")).isEqualTo("Error importing stock: Database error");
+        assertThat(response.getBody().get("rowsCommitted")).isEqualTo(4_000L);
+    }
+
+}
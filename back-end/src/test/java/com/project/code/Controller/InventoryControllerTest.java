@@ -1,14 +1,18 @@
 package com.project.code.Controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,16 +20,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.project.code.Model.AvailabilityRequestDto;
+import com.project.code.Model.CatalogPageRequest;
 import com.project.code.Model.CombinedRequest;
 import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.ItemAvailabilityDto;
 import com.project.code.Model.Product;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Model.StockItemDto;
 import com.project.code.Model.Store;
 import com.project.code.Repo.InventoryRepository;
 import com.project.code.Repo.ProductRepository;
+import com.project.code.Service.AvailabilityIndexService;
+import com.project.code.Service.InventoryBulkService;
 import com.project.code.Service.ServiceClass;
+import com.project.code.Service.ShardedStockService;
+import com.project.code.Service.StockReservationService;
+import com.project.code.Service.StoreCatalogService;
+import com.project.code.exception.InvalidPageRequestException;
+import com.project.code.exception.InventoryNotFoundException;
 
 @ExtendWith(MockitoExtension.class)
 class InventoryControllerTest {
@@ -39,6 +60,24 @@ class InventoryControllerTest {
     @Mock
     private ServiceClass serviceClass;
 
+    @Mock
+    private ShardedStockService shardedStockService;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private InventoryBulkService inventoryBulkService;
+
+    @Mock
+    private AvailabilityIndexService availabilityIndexService;
+
+    @Mock
+    private StoreCatalogService storeCatalogService;
+
     @InjectMocks
     private InventoryController inventoryController;
 
@@ -81,6 +120,39 @@ class InventoryControllerTest {
         verify(inventoryRepository).save(any(Inventory.class));
     }
 
+    @Test
+    void updateInventory_shouldPublishStockChange() {
+        // Arrange
+        Inventory existingInventory = new Inventory(store, product, 4);
+        when(serviceClass.ValidateProductId(1L)).thenReturn(true);
+        when(serviceClass.getInventoryId(inventory)).thenReturn(existingInventory);
+
+        // Act
+        inventoryController.updateInventory(combinedRequest);
+
+        // Assert
+        verify(eventPublisher).publishEvent(new StockChangedEvent(1L, 1L, 6, 10, Reason.ADJUSTMENT));
+    }
+
+    @Test
+    void updateInventory_shouldReturnConflict_whenTheRowChangedSinceTheCallerReadIt() {
+        // Arrange
+        Inventory existingInventory = new Inventory(store, product, 4);
+        existingInventory.setVersion(3L);
+        inventory.setVersion(2L);
+        when(serviceClass.ValidateProductId(1L)).thenReturn(true);
+        when(serviceClass.getInventoryId(inventory)).thenReturn(existingInventory);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.updateInventory(combinedRequest);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().get("inventory")).isSameAs(existingInventory);
+        assertThat(existingInventory.getStockLevel()).isEqualTo(4);
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+    }
+
     @Test
     void updateInventory_shouldReturnNotFound_whenProductDoesNotExist() {
         // Arrange
@@ -126,6 +198,42 @@ class InventoryControllerTest {
         verify(serviceClass).ValidateProductId(1L);
     }
 
+    @Test
+    void bulkUpdateInventory_shouldReturnCountsAndRejectedEntries() {
+        // Arrange
+        List<InventoryUpdateDto> entries = List.of(
+                new InventoryUpdateDto(1L, 1L, 5),
+                new InventoryUpdateDto(1L, 2L, -1));
+        InventoryBulkResult result = new InventoryBulkResult();
+        result.add(0, entries.get(0), InventoryBulkResult.Status.UPDATED);
+        result.add(1, entries.get(1), InventoryBulkResult.Status.INVALID);
+        when(inventoryBulkService.update(entries)).thenReturn(result);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.bulkUpdateInventory(entries);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("message")).isEqualTo("Bulk inventory update processed 2 entries");
+        assertThat(response.getBody().get("counts")).isEqualTo(Map.of(
+                InventoryBulkResult.Status.UPDATED, 1, InventoryBulkResult.Status.INVALID, 1));
+        assertThat(response.getBody().get("rejected")).isEqualTo(List.of(
+                new InventoryBulkResult.Rejected(1, 1L, 2L, InventoryBulkResult.Status.INVALID)));
+    }
+
+    @Test
+    void bulkUpdateInventory_shouldReturnInternalServerError_whenExceptionOccurs() {
+        // Arrange
+        when(inventoryBulkService.update(any())).thenThrow(new RuntimeException("Database error"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.bulkUpdateInventory(List.of());
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().get("message")).isEqualTo("Error updating inventory in bulk: Database error");
+    }
+
     @Test
     void saveInventory_shouldReturnCreatedResponse_whenInventoryIsSavedSuccessfully() {
         // Arrange
@@ -176,39 +284,29 @@ class InventoryControllerTest {
     }
 
     @Test
-    void getAllProducts_shouldReturnOkResponse_withProducts() {
-        // Arrange
-        List<Inventory> inventories = List.of(inventory);
-        when(inventoryRepository.findByStoreId(1L)).thenReturn(inventories);
-
+    void getStoreProducts_shouldStreamTheRequestedPage() throws Exception {
         // Act
-        ResponseEntity<Map<String, Object>> response = inventoryController.getAllProducts(1L);
+        ResponseEntity<StreamingResponseBody> response = inventoryController.getStoreProducts(1L, 2, 100,
+                "stockLevel,desc");
+        response.getBody().writeTo(new ByteArrayOutputStream());
 
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(response.getBody()).containsKey("products");
-        verify(inventoryRepository).findByStoreId(1L);
+        verify(storeCatalogService).writeStoreProducts(eq(1L),
+                eq(new CatalogPageRequest(2, 100, CatalogPageRequest.Sort.STOCK_LEVEL, true)), any());
     }
 
     @Test
-    void getAllProducts_shouldReturnInternalServerError_whenExceptionOccurs() {
-        // Arrange
-        when(inventoryRepository.findByStoreId(1L)).thenThrow(new RuntimeException("Database error"));
-
-        // Act
-        ResponseEntity<Map<String, Object>> response = inventoryController.getAllProducts(1L);
-
-        // Assert
-        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
-        assertThat(response.getBody().get("message")).isEqualTo("Error retrieving products: Database error");
-        verify(inventoryRepository).findByStoreId(1L);
+    void getStoreProducts_shouldRejectAnUnknownSortField() {
+        assertThatThrownBy(() -> inventoryController.getStoreProducts(1L, null, null, "inventories"))
+                .isInstanceOf(InvalidPageRequestException.class);
     }
 
     @Test
     void getProductName_shouldReturnAllProducts_whenBothCategoryAndNameAreNull() {
         // Arrange
         List<Product> products = List.of(product);
-        when(productRepository.findAll()).thenReturn(products);
+        when(productRepository.findAllWithInventoriesBy()).thenReturn(products);
 
         // Act
         ResponseEntity<Map<String, Object>> response = inventoryController.getProductName("null", "null");
@@ -216,14 +314,14 @@ class InventoryControllerTest {
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).containsKey("product");
-        verify(productRepository).findAll();
+        verify(productRepository).findAllWithInventoriesBy();
     }
 
     @Test
     void getProductName_shouldReturnProductsByName_whenCategoryIsNull() {
         // Arrange
         List<Product> products = List.of(product);
-        when(productRepository.findProductBySubName("Test")).thenReturn(products);
+        when(productRepository.findWithInventoriesBySubName("Test")).thenReturn(products);
 
         // Act
         ResponseEntity<Map<String, Object>> response = inventoryController.getProductName("null", "Test");
@@ -231,14 +329,14 @@ class InventoryControllerTest {
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).containsKey("product");
-        verify(productRepository).findProductBySubName("Test");
+        verify(productRepository).findWithInventoriesBySubName("Test");
     }
 
     @Test
     void getProductName_shouldReturnProductsByCategory_whenNameIsNull() {
         // Arrange
         List<Product> products = List.of(product);
-        when(productRepository.findByCategory("Test Category")).thenReturn(products);
+        when(productRepository.findWithInventoriesByCategory("Test Category")).thenReturn(products);
 
         // Act
         ResponseEntity<Map<String, Object>> response = inventoryController.getProductName("Test Category", "null");
@@ -246,7 +344,7 @@ class InventoryControllerTest {
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).containsKey("product");
-        verify(productRepository).findByCategory("Test Category");
+        verify(productRepository).findWithInventoriesByCategory("Test Category");
     }
 
     @Test
@@ -267,7 +365,7 @@ class InventoryControllerTest {
     @Test
     void getProductName_shouldReturnInternalServerError_whenExceptionOccurs() {
         // Arrange
-        when(productRepository.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(productRepository.findAllWithInventoriesBy()).thenThrow(new RuntimeException("Database error"));
 
         // Act
         ResponseEntity<Map<String, Object>> response = inventoryController.getProductName("null", "null");
@@ -275,7 +373,7 @@ class InventoryControllerTest {
         // Assert
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
         assertThat(response.getBody().get("message")).isEqualTo("Error filtering products: Database error");
-        verify(productRepository).findAll();
+        verify(productRepository).findAllWithInventoriesBy();
     }
 
     @Test
@@ -320,6 +418,7 @@ class InventoryControllerTest {
         assertThat(response.getBody().get("message")).isEqualTo("Product and related inventory deleted successfully");
         verify(serviceClass).ValidateProductId(1L);
         verify(inventoryRepository).deleteByProductId(1L);
+        verify(availabilityIndexService).productRemoved(1L);
         verify(productRepository).deleteById(1L);
     }
 
@@ -407,6 +506,56 @@ class InventoryControllerTest {
         verify(inventoryRepository).findByStoreAndProduct(any(Store.class), eq(product));
     }
 
+    @Test
+    void validateQuantity_shouldAnswerFromIndex_whenRowIsIndexed() {
+        // Arrange
+        when(availabilityIndexService.stockLevel(1L, 1L)).thenReturn(OptionalInt.of(10));
+        when(stockReservationService.reservedQuantity(1L, 1L)).thenReturn(3);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.validateQuantity(1L, 1L, 8);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("available")).isEqualTo(false);
+        assertThat(response.getBody().get("availableStock")).isEqualTo(7);
+        verify(productRepository, never()).findById(any());
+        verify(inventoryRepository, never()).findByStoreAndProduct(any(), any());
+    }
+
+    @Test
+    void checkAvailability_shouldReportEveryItem_andWhetherAllAreAvailable() {
+        // Arrange
+        List<StockItemDto> items = List.of(new StockItemDto(1L, 5), new StockItemDto(2L, 5));
+        when(availabilityIndexService.checkAvailability(1L, items)).thenReturn(List.of(
+                new ItemAvailabilityDto(1L, 5, 10, true),
+                new ItemAvailabilityDto(2L, 5, 4, false)));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController
+                .checkAvailability(new AvailabilityRequestDto(1L, items));
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("available")).isEqualTo(false);
+        assertThat((List<?>) response.getBody().get("items")).hasSize(2);
+    }
+
+    @Test
+    void checkAvailability_shouldReturnBadRequest_whenItemsAreMissing() {
+        // Arrange
+        when(availabilityIndexService.checkAvailability(1L, List.of()))
+                .thenThrow(new IllegalArgumentException("At least one item is required"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController
+                .checkAvailability(new AvailabilityRequestDto(1L, List.of()));
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().get("message")).isEqualTo("At least one item is required");
+    }
+
     @Test
     void validateQuantity_shouldReturnNotFound_whenProductDoesNotExist() {
         // Arrange
@@ -436,4 +585,72 @@ class InventoryControllerTest {
         assertThat(response.getBody().get("available")).isEqualTo(false);
         verify(productRepository).findById(1L);
     }
+
+    @Test
+    void validateQuantity_shouldReturnTotalOfShards_whenInventoryIsSharded() {
+        // Arrange
+        inventory.setStockLevel(0);
+        inventory.setShardCount(4);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryRepository.findByStoreAndProduct(any(Store.class), eq(product)))
+                .thenReturn(Optional.of(inventory));
+        when(shardedStockService.totalStock(inventory)).thenReturn(12);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.validateQuantity(1L, 1L, 11);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("available")).isEqualTo(true);
+        assertThat(response.getBody().get("availableStock")).isEqualTo(12);
+        verify(shardedStockService).totalStock(inventory);
+    }
+
+    @Test
+    void updateInventory_shouldSpreadStockOverShards_whenInventoryIsSharded() {
+        // Arrange
+        Inventory existingInventory = new Inventory(store, product, 0);
+        existingInventory.setShardCount(4);
+        when(serviceClass.ValidateProductId(1L)).thenReturn(true);
+        when(serviceClass.getInventoryId(inventory)).thenReturn(existingInventory);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.updateInventory(combinedRequest);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("message")).isEqualTo("Inventory updated successfully");
+        verify(shardedStockService).setTotalStock(existingInventory, 10);
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+    }
+
+    @Test
+    void reshardInventory_shouldReturnNotFound_whenInventoryDoesNotExist() {
+        // Arrange
+        when(shardedStockService.reshard(1L, 1L, 4)).thenThrow(new InventoryNotFoundException("Inventory not found"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.reshardInventory(1L, 1L, 4);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody().get("message")).isEqualTo("Inventory not found");
+    }
+
+    @Test
+    void validateQuantity_shouldNotCountReservedStock() {
+        // Arrange
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryRepository.findByStoreAndProduct(any(Store.class), eq(product)))
+                .thenReturn(Optional.of(inventory));
+        when(stockReservationService.reservedQuantity(1L, 1L)).thenReturn(6);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = inventoryController.validateQuantity(1L, 1L, 5);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("available")).isEqualTo(false);
+        assertThat(response.getBody().get("availableStock")).isEqualTo(4);
+    }
 }
@@ -0,0 +1,144 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.project.code.Model.OrderPageCursor;
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.OrderSummaryDto;
+import com.project.code.Service.OrderArchiveService;
+import com.project.code.Service.OrderHistoryService;
+import com.project.code.exception.InvalidPageRequestException;
+
+@ExtendWith(MockitoExtension.class)
+class OrderControllerTest {
+
+    @Mock
+    private OrderHistoryService orderHistoryService;
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @InjectMocks
+    private OrderController orderController;
+
+    @Test
+    void getStoreOrders_streamsThePageAfterTheCursor() throws Exception {
+        // Arrange
+        LocalDateTime orderDate = LocalDateTime.of(2025, 1, 1, 10, 0);
+        String cursor = new OrderPageCursor(orderDate, 42L).encode();
+
+        // Act
+        ResponseEntity<StreamingResponseBody> response = orderController.getStoreOrders(1L, null, null, cursor, 20);
+        response.getBody().writeTo(new ByteArrayOutputStream());
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        verify(orderHistoryService).writeStoreOrders(eq(1L),
+                eq(new OrderPageRequest(LocalDateTime.of(1000, 1, 1, 0, 0), orderDate, 42L, 20)), any());
+    }
+
+    @Test
+    void getCustomerOrders_defaultPageSize() throws Exception {
+        // Act
+        orderController.getCustomerOrders(7L, null, null, null, null).getBody().writeTo(new ByteArrayOutputStream());
+
+        // Assert
+        verify(orderHistoryService).writeCustomerOrders(eq(7L),
+                eq(OrderPageRequest.of(null, null, null, OrderPageRequest.DEFAULT_PAGE_SIZE)), any());
+    }
+
+    @Test
+    void getOrders_rejectsInvalidParametersBeforeStreaming() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2025, 1, 2, 0, 0);
+
+        // Act & Assert
+        assertThatThrownBy(() -> orderController.getOrders(from, from.minusDays(1), null, null))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> orderController.getOrders(null, null, null, OrderPageRequest.MAX_PAGE_SIZE + 1))
+                .isInstanceOf(InvalidPageRequestException.class);
+        assertThatThrownBy(() -> orderController.getOrders(null, null, "not-a-cursor", null))
+                .isInstanceOf(InvalidPageRequestException.class);
+        verifyNoInteractions(orderHistoryService);
+    }
+
+    @Test
+    void getOrder_foundInTheHotTablesOrTheArchive() {
+        // Arrange
+        OrderSummaryDto order = new OrderSummaryDto(42L, LocalDateTime.of(2024, 1, 1, 10, 0), 1L, 7L,
+                "Customer One", 200.00, 2);
+        when(orderHistoryService.findOrder(42L)).thenReturn(Optional.of(order));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = orderController.getOrder(42L);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsEntry("order", order);
+    }
+
+    @Test
+    void getOrder_unknownId() {
+        // Arrange
+        when(orderHistoryService.findOrder(42L)).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = orderController.getOrder(42L);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(response.getBody()).containsEntry("message", "Order not found with ID: 42");
+    }
+
+    @Test
+    void archiveOrders_reportsTheRun() {
+        // Arrange
+        when(orderArchiveService.archive()).thenReturn(3L);
+        when(orderArchiveService.archivedBefore()).thenReturn(LocalDate.of(2024, 7, 1));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = orderController.archiveOrders();
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody())
+                .containsEntry("archived", 3L)
+                .containsEntry("archivedBefore", LocalDate.of(2024, 7, 1));
+    }
+
+    @Test
+    void archiveOrders_failedRun() {
+        // Arrange
+        when(orderArchiveService.archive()).thenThrow(new IllegalStateException("disk full"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = orderController.archiveOrders();
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody()).containsEntry("message", "Error archiving orders: disk full");
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.project.code.Model.StoreSalesDto;
+import com.project.code.Service.SalesReportService;
+import com.project.code.Service.SalesRollupService;
+
+@ExtendWith(MockitoExtension.class)
+class ReportControllerTest {
+
+    @Mock
+    private SalesReportService salesReportService;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    @InjectMocks
+    private ReportController reportController;
+
+    @Test
+    void getRevenueByStore_returnsRowsAndStartDate() {
+        // Arrange
+        LocalDate since = LocalDate.of(2025, 1, 1);
+        List<StoreSalesDto> stores = List.of(new StoreSalesDto(1L, "Store1", 3, 5, 500.00));
+        when(salesReportService.since(30)).thenReturn(since);
+        when(salesReportService.revenueByStore(30)).thenReturn(stores);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = reportController.getRevenueByStore(30);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsEntry("since", since).containsEntry("stores", stores);
+    }
+
+    @Test
+    void getRevenueByStore_whenDaysOutOfRange_returnsBadRequest() {
+        // Arrange
+        when(salesReportService.since(0)).thenThrow(new IllegalArgumentException("days must be between 1 and 366"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = reportController.getRevenueByStore(0);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).containsEntry("message", "days must be between 1 and 366");
+    }
+
+    @Test
+    void rebuildRollups() {
+        // Act
+        ResponseEntity<Map<String, Object>> response = reportController.rebuildRollups();
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(salesRollupService).rebuild();
+    }
+
+}
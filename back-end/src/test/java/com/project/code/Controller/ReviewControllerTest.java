@@ -7,6 +7,7 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -59,9 +60,9 @@ class ReviewControllerTest {
         // Arrange
         List<Review> reviews = Arrays.asList(review1, review2);
         when(reviewService.getReviewsByStoreAndProduct(1L, 1L)).thenReturn(reviews);
-        when(customerRepository.findById(1L)).thenReturn(java.util.Optional.of(customer));
-        when(customerRepository.findById(2L))
-                .thenReturn(java.util.Optional.of(new Customer("Jane Doe", "jane@example.com", "0987654321")));
+        Customer otherCustomer = new Customer("Jane Doe", "jane@example.com", "0987654321");
+        otherCustomer.setId(2L);
+        when(customerRepository.findAllById(Set.of(1L, 2L))).thenReturn(List.of(customer, otherCustomer));
 
         // Act
         ResponseEntity<Map<String, Object>> response = reviewController.getReviews(1L, 1L);
@@ -79,10 +80,11 @@ class ReviewControllerTest {
         assertThat(firstReview).containsKey("comment");
         assertThat(firstReview).containsKey("rating");
         assertThat(firstReview).containsKey("customerName");
+        assertThat(returnedReviews.get(0).get("customerName")).isEqualTo("John Doe");
+        assertThat(returnedReviews.get(1).get("customerName")).isEqualTo("Jane Doe");
 
         verify(reviewService).getReviewsByStoreAndProduct(1L, 1L);
-        verify(customerRepository).findById(1L);
-        verify(customerRepository).findById(2L);
+        verify(customerRepository).findAllById(Set.of(1L, 2L));
     }
 
     @Test
@@ -90,7 +92,7 @@ class ReviewControllerTest {
         // Arrange
         List<Review> reviews = Arrays.asList(review1);
         when(reviewService.getReviewsByStoreAndProduct(1L, 1L)).thenReturn(reviews);
-        when(customerRepository.findById(1L)).thenReturn(java.util.Optional.empty());
+        when(customerRepository.findAllById(Set.of(1L))).thenReturn(List.of());
 
         // Act
         ResponseEntity<Map<String, Object>> response = reviewController.getReviews(1L, 1L);
@@ -107,7 +109,7 @@ class ReviewControllerTest {
         assertThat(review.get("customerName")).isEqualTo("Unknown Customer");
 
         verify(reviewService).getReviewsByStoreAndProduct(1L, 1L);
-        verify(customerRepository).findById(1L);
+        verify(customerRepository).findAllById(Set.of(1L));
     }
 
     @Test
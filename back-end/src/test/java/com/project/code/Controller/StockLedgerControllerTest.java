@@ -0,0 +1,77 @@
+package com.project.code.Controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Service.StockLedgerService;
+import com.project.code.ledger.LedgerEntry;
+
+@ExtendWith(MockitoExtension.class)
+class StockLedgerControllerTest {
+
+    @Mock
+    private StockLedgerService stockLedgerService;
+
+    @InjectMocks
+    private StockLedgerController stockLedgerController;
+
+    @Test
+    void getHistory_shouldReturnEntriesOfTheRow() {
+        // Arrange
+        List<LedgerEntry> entries = List.of(new LedgerEntry(3, 40, Instant.now(), 1, 2, -1, 9, Reason.SALE));
+        when(stockLedgerService.history(1L, 2L, 100)).thenReturn(entries);
+        when(stockLedgerService.lastSequence()).thenReturn(3L);
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = stockLedgerController.getHistory(1L, 2L, 100);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody().get("entries")).isEqualTo(entries);
+        assertThat(response.getBody().get("lastSequence")).isEqualTo(3L);
+    }
+
+    @Test
+    void getLevelsAt_shouldReturnBadRequest_whenSequenceIsOutOfRange() {
+        // Arrange
+        when(stockLedgerService.levelsAt(1L, 99L))
+                .thenThrow(new IllegalArgumentException("Ledger sequence must be between 0 and 3"));
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = stockLedgerController.getLevelsAt(1L, 99L);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody().get("message")).isEqualTo("Ledger sequence must be between 0 and 3");
+    }
+
+    @Test
+    void restore_shouldReturnCounts() {
+        // Arrange
+        when(stockLedgerService.restore(1L, 2L)).thenReturn(new InventoryBulkResult());
+
+        // Act
+        ResponseEntity<Map<String, Object>> response = stockLedgerController.restore(1L, 2L);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsKeys("counts", "rejected");
+        verify(stockLedgerService).restore(1L, 2L);
+    }
+
+}
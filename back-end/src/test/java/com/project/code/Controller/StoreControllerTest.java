@@ -2,6 +2,8 @@ package com.project.code.Controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -20,6 +22,8 @@ import com.project.code.Model.OrderDetails;
 import com.project.code.Model.PlaceOrderRequestDTO;
 import com.project.code.Model.PurchaseProductDTO;
 import com.project.code.Model.StoreDto;
+import com.project.code.Service.GroupCommitOrderIntake;
+import com.project.code.Service.OrderIdempotencyService;
 import com.project.code.Service.OrderService;
 import com.project.code.Service.StoreService;
 
@@ -32,6 +36,12 @@ class StoreControllerTest {
     @Mock
     private StoreService storeService;
 
+    @Mock
+    private GroupCommitOrderIntake groupCommitOrderIntake;
+
+    @Mock
+    private OrderIdempotencyService orderIdempotencyService;
+
     @InjectMocks
     private StoreController storeController;
 
@@ -61,7 +71,7 @@ class StoreControllerTest {
         when(orderService.saveOrder(any(PlaceOrderRequestDTO.class))).thenReturn(orderDetails);
 
         // Act
-        ApiResponse<OrderDetails> response = storeController.placeOrder(placeOrderRequest);
+        ApiResponse<OrderDetails> response = storeController.placeOrder(placeOrderRequest, null);
 
         // Assert
         assertThat(response.getStatus()).isEqualTo("success");
@@ -70,6 +80,35 @@ class StoreControllerTest {
         verify(orderService).saveOrder(any(PlaceOrderRequestDTO.class));
     }
 
+    @Test
+    void placeOrder_shouldGoThroughTheIntakeQueue_whenGroupCommitIsEnabled() {
+        // Arrange
+        when(groupCommitOrderIntake.isEnabled()).thenReturn(true);
+        when(groupCommitOrderIntake.placeOrder(placeOrderRequest, null)).thenReturn(orderDetails);
+
+        // Act
+        ApiResponse<OrderDetails> response = storeController.placeOrder(placeOrderRequest, null);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo("success");
+        assertThat(response.getData()).isEqualTo(orderDetails);
+        verify(groupCommitOrderIntake).placeOrder(placeOrderRequest, null);
+        verify(orderService, never()).saveOrder(any(PlaceOrderRequestDTO.class));
+    }
+
+    @Test
+    void placeOrder_shouldGoThroughTheIdempotencyService_whenKeyIsGiven() {
+        // Arrange
+        when(orderIdempotencyService.placeOrder(eq("key-1"), eq(placeOrderRequest), any())).thenReturn(orderDetails);
+
+        // Act
+        ApiResponse<OrderDetails> response = storeController.placeOrder(placeOrderRequest, "key-1");
+
+        // Assert
+        assertThat(response.getData()).isEqualTo(orderDetails);
+        verify(orderIdempotencyService).placeOrder(eq("key-1"), eq(placeOrderRequest), any());
+    }
+
     @Test
     void addStore_shouldReturnSuccessResponse_whenStoreIsAddedSuccessfully() {
         // Arrange
@@ -6,6 +6,8 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 class InventoryTest {
 
     private Store store;
@@ -126,4 +128,20 @@ class InventoryTest {
             throw new RuntimeException(e);
         }
     }
+
+    @Test
+    void version_ShouldStartAtZeroAndOnlyCountAsGivenWhenTheRequestCarriesIt() throws Exception {
+        // Arrange
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        // Act
+        Inventory withoutVersion = objectMapper.readValue("{\"stockLevel\": 5}", Inventory.class);
+        Inventory withVersion = objectMapper.readValue("{\"stockLevel\": 5, \"version\": 0}", Inventory.class);
+
+        // Assert
+        assertThat(withoutVersion.getVersion()).isZero();
+        assertThat(withoutVersion.isVersionGiven()).isFalse();
+        assertThat(withVersion.getVersion()).isZero();
+        assertThat(withVersion.isVersionGiven()).isTrue();
+    }
 }
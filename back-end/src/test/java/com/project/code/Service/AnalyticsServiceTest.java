@@ -0,0 +1,157 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.BasketSizeDto;
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderPlacedEvent;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.ProductSalesDto;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class AnalyticsServiceTest {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private Store store2;
+    private Product phone;
+    private Product laptop;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        // orders of earlier tests still on their way through the outbox, the reloads below drop them
+        outboxRelay.relay();
+        analyticsService.refresh();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        phone = productRepository.save(new Product("Phone1", "Mobile", 100.00, "SKU001"));
+        laptop = productRepository.save(new Product("Laptop1", "Computer", 1000.00, "SKU002"));
+        for (Store store : List.of(store1, store2)) {
+            inventoryRepository.save(new Inventory(store, phone, 100));
+            inventoryRepository.save(new Inventory(store, laptop, 100));
+        }
+    }
+
+    @Test
+    void reload_answersFromTheLoadedLines() {
+        // Arrange
+        placeOrder(store1, line(phone, 2), line(laptop, 1));
+        placeOrder(store2, line(phone, 5));
+
+        // Act
+        analyticsService.reload();
+
+        // Assert
+        assertThat(analyticsService.topSellers(null, null, null, 10)).containsExactly(
+                new ProductSalesDto(phone.getId(), "Phone1", 7, 700.00),
+                new ProductSalesDto(laptop.getId(), "Laptop1", 1, 1000.00));
+        assertThat(analyticsService.revenueByCategory(store1.getId(), LocalDate.now(), LocalDate.now()))
+                .containsExactly(
+                        new CategorySalesDto("Computer", 1, 1000.00),
+                        new CategorySalesDto("Mobile", 2, 200.00));
+        assertThat(analyticsService.basketSizes(null, null, null))
+                .containsExactly(new BasketSizeDto(3, 1), new BasketSizeDto(5, 1));
+        assertThat(analyticsService.topSellers(null, LocalDate.now().plusDays(1), null, 10)).isEmpty();
+    }
+
+    @Test
+    void refresh_appendsNewOrdersAndSkipsLoadedOnes() {
+        // Arrange
+        placeOrder(store1, line(phone, 1));
+        analyticsService.reload();
+        OrderDetails loaded = orderDetailsRepository.findAll().get(0);
+        Product tablet = productRepository.save(new Product("Tablet1", "Tablet", 500.00, "SKU003"));
+
+        // Act, the outbox hands over an order the load already read and one it didn't
+        analyticsService.handle(1L, new OrderPlacedEvent(loaded.getId(), store1.getId(), 1L, 100.00,
+                loaded.getOrderDate(), List.of(new OrderPlacedEvent.Line(phone.getId(), "Mobile", 1, 100.00))));
+        analyticsService.handle(2L, new OrderPlacedEvent(loaded.getId() + 1000, store2.getId(), 1L, 1000.00,
+                LocalDateTime.now(), List.of(new OrderPlacedEvent.Line(tablet.getId(), "Tablet", 2, 500.00))));
+        analyticsService.refresh();
+
+        // Assert
+        assertThat(analyticsService.columns().orderCount()).isEqualTo(2);
+        assertThat(analyticsService.topSellers(null, null, null, 10)).containsExactly(
+                new ProductSalesDto(tablet.getId(), "Tablet1", 2, 1000.00),
+                new ProductSalesDto(phone.getId(), "Phone1", 1, 100.00));
+    }
+
+    @Test
+    void refresh_skipsRedeliveredOrders() {
+        // Arrange
+        placeOrder(store1, line(phone, 1));
+        analyticsService.reload();
+        OrderDetails loaded = orderDetailsRepository.findAll().get(0);
+        OrderPlacedEvent placed = new OrderPlacedEvent(loaded.getId() + 1000, store2.getId(), 1L, 1000.00,
+                LocalDateTime.now(), List.of(new OrderPlacedEvent.Line(laptop.getId(), "Computer", 1, 1000.00)));
+        analyticsService.handle(1L, placed);
+        analyticsService.refresh();
+
+        // Act, redelivered once after the refresh and twice in the same batch
+        analyticsService.handle(1L, placed);
+        analyticsService.handle(1L, placed);
+        analyticsService.refresh();
+
+        // Assert
+        assertThat(analyticsService.columns().orderCount()).isEqualTo(2);
+        assertThat(analyticsService.topSellers(null, null, null, 10)).containsExactlyInAnyOrder(
+                new ProductSalesDto(phone.getId(), "Phone1", 1, 100.00),
+                new ProductSalesDto(laptop.getId(), "Laptop1", 1, 1000.00));
+    }
+
+    private void placeOrder(Store store, PurchaseProductDTO... lines) {
+        orderService.saveOrder(new PlaceOrderRequestDTO(store.getId(), "Customer One", "customer1@mail.com",
+                "0939451111", LocalDateTime.now().toString(), List.of(lines)));
+    }
+
+    private PurchaseProductDTO line(Product product, int quantity) {
+        return new PurchaseProductDTO(product.getId(), product.getName(), product.getPrice(), quantity,
+                product.getPrice() * quantity);
+    }
+
+}
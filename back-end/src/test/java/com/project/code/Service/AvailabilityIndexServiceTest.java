@@ -0,0 +1,185 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.ItemAvailabilityDto;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StockItemDto;
+import com.project.code.Model.StockReservation;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class AvailabilityIndexServiceTest {
+
+    @Autowired
+    private AvailabilityIndexService availabilityIndexService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+    @Autowired
+    private ShardedStockService shardedStockService;
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private Product product1;
+    private Product product2;
+    private StockReservation reservation;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        product2 = productRepository.save(new Product("Product2", "Category1", 300.00, "SKU002"));
+        inventoryRepository.save(new Inventory(store1, product1, 10));
+        inventoryRepository.save(new Inventory(store1, product2, 4));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (reservation != null) {
+            stockReservationService.release(reservation.id());
+        }
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void stockLevel_shouldBeEmpty_untilRowIsLoaded() {
+        // rows saved through the repository publish no stock event
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product1.getId())).isEmpty();
+
+        // Action
+        availabilityIndexService.reload();
+
+        // Assert
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product1.getId())).hasValue(10);
+    }
+
+    @Test
+    void stockLevel_shouldFollowCheckoutAndBulkUpdate() {
+        // Arrange
+        availabilityIndexService.reload();
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer One",
+                "customer1@mail.com",
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 3,
+                        750.00)));
+
+        // Action
+        orderService.saveOrder(placeOrderRequest);
+        inventoryBulkService.update(List.of(new InventoryUpdateDto(store1.getId(), product2.getId(), 20)));
+
+        // Assert
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product1.getId())).hasValue(7);
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product2.getId())).hasValue(20);
+    }
+
+    @Test
+    void productRemoved_shouldDropItsRows() {
+        // Arrange
+        availabilityIndexService.reload();
+
+        // Action
+        availabilityIndexService.productRemoved(product1.getId());
+
+        // Assert
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product1.getId())).isEmpty();
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product2.getId())).hasValue(4);
+    }
+
+    @Test
+    void checkAvailability_shouldSumLines_andSubtractReservations() {
+        // Arrange
+        availabilityIndexService.reload();
+        reservation = stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 2)), Duration.ofMinutes(1));
+
+        // Action
+        List<ItemAvailabilityDto> availability = availabilityIndexService.checkAvailability(store1.getId(), List.of(
+                new StockItemDto(product1.getId(), 5),
+                new StockItemDto(product2.getId(), 5),
+                new StockItemDto(product1.getId(), 3)));
+
+        // Assert
+        assertThat(availability).containsExactly(
+                new ItemAvailabilityDto(product1.getId(), 8, 8, true),
+                new ItemAvailabilityDto(product2.getId(), 5, 4, false));
+    }
+
+    @Test
+    void checkAvailability_shouldQueryRowsNotIndexed_withShardsSummed() {
+        // Arrange, not loaded: every row comes from the database
+        Product product3 = productRepository.save(new Product("Product3", "Category1", 100.00, "SKU003"));
+        shardedStockService.reshard(store1.getId(), product1.getId(), 4);
+
+        // Action
+        List<ItemAvailabilityDto> availability = availabilityIndexService.checkAvailability(store1.getId(), List.of(
+                new StockItemDto(product1.getId(), 10),
+                new StockItemDto(product3.getId(), 1)));
+
+        // Assert
+        assertThat(availability).containsExactly(
+                new ItemAvailabilityDto(product1.getId(), 10, 10, true),
+                new ItemAvailabilityDto(product3.getId(), 1, 0, false));
+    }
+
+    @Test
+    void checkAvailability_shouldRejectNonPositiveQuantity() {
+        assertThatThrownBy(() -> availabilityIndexService.checkAvailability(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.ProductNotFoundException;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class CheckoutMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CheckoutMetrics checkoutMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        checkoutMetrics = new CheckoutMetrics(meterRegistry);
+    }
+
+    @Test
+    void phase_recordsSuccessWithLineBucket() {
+        // Act
+        String result = checkoutMetrics.phase("store", 3, () -> "ok");
+
+        // Assert
+        assertThat(result).isEqualTo("ok");
+        Timer timer = meterRegistry.get("checkout.phase")
+                .tags("phase", "store", "lines", "2-5", "outcome", CheckoutMetrics.SUCCESS).timer();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+
+    @Test
+    void phase_whenWorkThrows_recordsOutcomeAndRethrows() {
+        // Act
+        assertThatThrownBy(() -> checkoutMetrics.phase("inventory_update", 1, () -> {
+            throw new InventoryStockInsufficientException("Inventory stock insufficient");
+        })).isInstanceOf(InventoryStockInsufficientException.class);
+
+        // Assert
+        assertThat(meterRegistry.get("checkout.phase")
+                .tags("phase", "inventory_update", "outcome", CheckoutMetrics.INSUFFICIENT_STOCK).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void orderFailed_mapsNotFoundExceptions() {
+        // Act
+        checkoutMetrics.orderFailed(checkoutMetrics.start(), 25, new ProductNotFoundException("Product not found"));
+        checkoutMetrics.orderFailed(checkoutMetrics.start(), 25, new IllegalStateException("boom"));
+
+        // Assert
+        assertThat(meterRegistry.get("checkout.order").tags("lines", "21+", "outcome", CheckoutMetrics.NOT_FOUND)
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("checkout.order").tags("outcome", CheckoutMetrics.ERROR).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void retried_countsByReasonAndLockTimeoutsAreTheirOwnOutcome() {
+        // Act
+        checkoutMetrics.retried(CheckoutMetrics.LOCK_TIMEOUT);
+        checkoutMetrics.retried(CheckoutMetrics.LOCK_TIMEOUT);
+        checkoutMetrics.orderFailed(checkoutMetrics.start(), 2, new CannotAcquireLockException("Timeout trying to lock"));
+
+        // Assert
+        assertThat(meterRegistry.get("checkout.retries").tags("reason", CheckoutMetrics.LOCK_TIMEOUT).counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("checkout.order").tags("outcome", CheckoutMetrics.LOCK_TIMEOUT).timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void orderSucceededOnCommit_withoutTransaction_recordsRightAway() {
+        // Act
+        checkoutMetrics.orderSucceededOnCommit(checkoutMetrics.start(), 1);
+
+        // Assert
+        assertThat(meterRegistry.get("checkout.order").tags("lines", "1", "outcome", CheckoutMetrics.SUCCESS)
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void lineBucket() {
+        assertThat(CheckoutMetrics.lineBucket(1)).isEqualTo("1");
+        assertThat(CheckoutMetrics.lineBucket(5)).isEqualTo("2-5");
+        assertThat(CheckoutMetrics.lineBucket(6)).isEqualTo("6-20");
+        assertThat(CheckoutMetrics.lineBucket(21)).isEqualTo("21+");
+    }
+
+}
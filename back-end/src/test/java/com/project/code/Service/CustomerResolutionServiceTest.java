@@ -0,0 +1,181 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Model.Customer;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class CustomerResolutionServiceTest {
+
+    @Autowired
+    private CustomerResolutionService customerResolutionService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void resolveCustomerId_shouldCreateMissingCustomerOnce() {
+        // Action
+        long firstId = resolve("new.customer@mail.com");
+        long secondId = resolve("new.customer@mail.com");
+
+        // Assert
+        assertThat(secondId).isEqualTo(firstId);
+        assertThat(customerRepository.count()).isEqualTo(1);
+        Customer customer = customerRepository.findById(firstId).orElseThrow();
+        assertThat(customer.getName()).isEqualTo("New Customer");
+        assertThat(customer.getPhone()).isEqualTo("0939450000");
+    }
+
+    @Test
+    void resolveCustomerId_shouldReturnExistingCustomer() {
+        // Arrange
+        Customer customer = customerRepository.save(new Customer("Customer One", "customer1@mail.com", "0939451111"));
+
+        // Action
+        long customerId = resolve("customer1@mail.com");
+
+        // Assert
+        assertThat(customerId).isEqualTo(customer.getId());
+        assertThat(customerRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void resolveCustomerId_shouldNotReturnDeletedCustomer() {
+        // Arrange
+        long deletedId = resolve("customer1@mail.com");
+        customerRepository.deleteAll();
+
+        // Action
+        long customerId = resolve("customer1@mail.com");
+
+        // Assert
+        assertThat(customerId).isNotEqualTo(deletedId);
+        assertThat(customerRepository.findById(customerId)).isPresent();
+    }
+
+    @Test
+    void resolveCustomerId_shouldNotCacheCustomerOfRolledBackTransaction() {
+        // Arrange
+        transactionTemplate.executeWithoutResult(status -> {
+            customerResolutionService.resolveCustomerId("New Customer", "new.customer@mail.com", "0939450000");
+            status.setRollbackOnly();
+        });
+
+        // Action
+        long customerId = resolve("new.customer@mail.com");
+
+        // Assert
+        assertThat(customerRepository.findById(customerId)).isPresent();
+    }
+
+    @Test
+    void resolveCustomerId_shouldReturnTheRowOfAConcurrentCheckout_whenItsInsertLosesTheRace() {
+        // Arrange, the email was looked up and found missing, then another checkout committed it
+        transactionTemplate.executeWithoutResult(status -> {
+            customerResolutionService.resolveCustomerId("New Customer", "new.customer@mail.com", "0939450000");
+            status.setRollbackOnly();
+        });
+        jdbcTemplate.update("INSERT INTO customer (id, name, email, phone) VALUES (?, ?, ?, ?)", 999_999L,
+                "Other Checkout", "new.customer@mail.com", "0939459999");
+
+        // Action
+        long customerId = resolve("new.customer@mail.com");
+
+        // Assert
+        assertThat(customerId).isEqualTo(999_999L);
+        assertThat(customerRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void resolveCustomerId_shouldNotTakeIdsHibernateHandsOut() {
+        // Action
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(resolve("resolved" + i + "@mail.com"));
+            ids.add(customerRepository.save(new Customer("Saved", "saved" + i + "@mail.com", "0939451111")).getId());
+        }
+
+        // Assert
+        assertThat(ids).doesNotHaveDuplicates();
+        assertThat(customerRepository.count()).isEqualTo(6);
+    }
+
+    @Test
+    void saveOrder_shouldKeepUsingTheSameCustomerForRepeatOrders() {
+        // Arrange
+        Store store = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        Product product = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store, product, 10));
+        PlaceOrderRequestDTO request = new PlaceOrderRequestDTO(store.getId(), "Customer One", "customer1@mail.com",
+                "0939451111", LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product.getId(), product.getName(), product.getPrice(), 1, 250.00)));
+
+        // Action
+        long firstCustomerId = orderService.saveOrder(request).getCustomer().getId();
+        long secondCustomerId = orderService.saveOrder(request).getCustomer().getId();
+
+        // Assert
+        assertThat(secondCustomerId).isEqualTo(firstCustomerId);
+        assertThat(customerRepository.count()).isEqualTo(1);
+        assertThat(orderDetailsRepository.count()).isEqualTo(2);
+    }
+
+    private long resolve(String email) {
+        return transactionTemplate.execute(
+                status -> customerResolutionService.resolveCustomerId("New Customer", email, "0939450000"));
+    }
+
+}
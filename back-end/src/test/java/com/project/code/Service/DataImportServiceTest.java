@@ -0,0 +1,213 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.ImportCheckpoint;
+import com.project.code.Model.ImportResult;
+import com.project.code.Model.ImportResult.Rejected;
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.ImportCheckpointRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.ImportProperties;
+import com.project.code.importer.ImportFormat;
+import com.project.code.importer.ImportKind;
+
+@SpringBootTest
+class DataImportServiceTest {
+
+    @Autowired
+    private DataImportService dataImportService;
+    @Autowired
+    private ImportProperties importProperties;
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        importCheckpointRepository.deleteAll();
+        // several chunks out of a handful of records, duplicates are only caught within one
+        importProperties.setChunkSize(2);
+        importProperties.setQueueCapacity(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        importProperties.setChunkSize(1_000);
+        importProperties.setQueueCapacity(4);
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void importRecords_upsertsProductsBySkuAndReportsRejectedRows() throws Exception {
+        // Arrange
+        productRepository.save(new Product("Galaxy S21", "Mobile", 799.99, "SKU001"));
+        productRepository.save(new Product("iPhone 13", "Mobile", 999.99, "SKU002"));
+        String csv = """
+                name,category,price,sku
+                Galaxy S21,Mobile,749.99,SKU001
+                Galaxy S21 copy,Mobile,1.00,SKU001
+                iPhone 13,Mobile,999.99,SKU002
+                "MacBook Pro 16\"\"",Laptops and Monitors,2399.99,SKU008
+                Pixel 6,Mobile,cheap,SKU012
+                """;
+
+        // Act
+        ImportResult result = importCsv("products", ImportKind.PRODUCTS, csv);
+
+        // Assert
+        assertThat(result.getRowsRead()).isEqualTo(5);
+        assertThat(result.count(Status.UPDATED)).isEqualTo(1);
+        assertThat(result.count(Status.UNCHANGED)).isEqualTo(1);
+        assertThat(result.count(Status.CREATED)).isEqualTo(1);
+        assertThat(result.getRejected()).containsExactly(
+                new Rejected(2, Status.DUPLICATE, null),
+                new Rejected(5, Status.INVALID, "price is not a price: cheap"));
+        assertThat(productRepository.findBySku("SKU001").getPrice()).isEqualTo(749.99);
+        assertThat(productRepository.findBySku("SKU008").getName()).isEqualTo("MacBook Pro 16\"");
+        ImportCheckpoint checkpoint = importCheckpointRepository.findById("products").orElseThrow();
+        assertThat(checkpoint.isCompleted()).isTrue();
+        assertThat(checkpoint.getRowsCommitted()).isEqualTo(5);
+        assertThat(checkpoint.getRowsApplied()).isEqualTo(3);
+        assertThat(checkpoint.getRowsRejected()).isEqualTo(2);
+    }
+
+    @Test
+    void importRecords_readsStoresAndInventoryFromNdjson() throws Exception {
+        // Arrange
+        Product product = productRepository.save(new Product("Galaxy S21", "Mobile", 799.99, "SKU001"));
+        String stores = """
+                {"name": "Store1", "address": "111/1 Bangkok"}
+                {"name": "Store1", "address": "111/1 Bangkok"}
+                {"name": "Store2", "address": "222/2 Bangkok"}
+                not json
+                """;
+
+        // Act
+        ImportResult storeResult = dataImportService.importRecords("stores", ImportKind.STORES, ImportFormat.NDJSON,
+                input(stores));
+        Store store1 = storeRepository.findAll().stream().filter(store -> store.getName().equals("Store1"))
+                .findFirst().orElseThrow();
+        ImportResult inventoryResult = dataImportService.importRecords("inventory", ImportKind.INVENTORY,
+                ImportFormat.NDJSON, input("""
+                        {"storeId": %d, "productId": %d, "stockLevel": 25}
+                        {"storeId": %d, "productId": 999999, "stockLevel": 5}
+                        """.formatted(store1.getId(), product.getId(), store1.getId())));
+
+        // Assert
+        assertThat(storeResult.count(Status.CREATED)).isEqualTo(2);
+        assertThat(storeResult.getRejected()).extracting(Rejected::row, Rejected::status).containsExactly(
+                tuple(2L, Status.DUPLICATE), tuple(4L, Status.INVALID));
+        assertThat(storeRepository.count()).isEqualTo(2);
+        assertThat(inventoryResult.count(Status.CREATED)).isEqualTo(1);
+        assertThat(inventoryResult.getRejected()).containsExactly(new Rejected(2, Status.PRODUCT_NOT_FOUND, null));
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product).orElseThrow().getStockLevel())
+                .isEqualTo(25);
+    }
+
+    @Test
+    void importRecords_resumesAfterTheLastCommittedChunk() throws Exception {
+        // Arrange
+        StringBuilder csv = new StringBuilder("name,category,price,sku\n");
+        for (int i = 1; i <= 7; i++) {
+            csv.append("Product").append(i).append(",Category1,10.0,SKU00").append(i).append('\n');
+        }
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.UTF_8);
+        // the connection drops in the middle of row 6
+        InputStream dropped = new FailingInputStream(bytes, csv.indexOf("Product6") + 3);
+
+        // Act
+        assertThatThrownBy(() -> dataImportService.importRecords("products", ImportKind.PRODUCTS, ImportFormat.CSV,
+                dropped)).hasMessageContaining("failed after row 4");
+        long committed = productRepository.count();
+        ImportResult resumed = importCsv("products", ImportKind.PRODUCTS, csv.toString());
+
+        // Assert
+        assertThat(committed).isEqualTo(4);
+        assertThat(resumed.getResumedFrom()).isEqualTo(4);
+        assertThat(resumed.getRowsRead()).isEqualTo(3);
+        assertThat(resumed.count(Status.CREATED)).isEqualTo(3);
+        assertThat(productRepository.count()).isEqualTo(7);
+        assertThat(importCheckpointRepository.findById("products").orElseThrow().getRowsApplied()).isEqualTo(7);
+    }
+
+    private ImportResult importCsv(String name, ImportKind kind, String csv) throws IOException {
+        return dataImportService.importRecords(name, kind, ImportFormat.CSV, input(csv));
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // hands out the first bytes of the input, then fails like a dropped upload
+    private static class FailingInputStream extends InputStream {
+
+        private final byte[] bytes;
+        private final int failAt;
+        private int position;
+
+        FailingInputStream(byte[] bytes, int failAt) {
+            this.bytes = bytes;
+            this.failAt = failAt;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (position >= failAt) {
+                throw new IOException("Connection reset");
+            }
+            int read = Math.min(length, failAt - position);
+            System.arraycopy(bytes, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.LowStockAlert;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.ReorderThresholdDto;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.OrderProperties;
+import com.project.code.config.OrderProperties.IntakeMode;
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.OrderIntakeRejectedException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.Timer;
+
+@SpringBootTest
+class GroupCommitOrderIntakeTest {
+
+    @Autowired
+    private GroupCommitOrderIntake groupCommitOrderIntake;
+    @Autowired
+    private OrderProperties orderProperties;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private AvailabilityIndexService availabilityIndexService;
+    @Autowired
+    private LowStockAlertService lowStockAlertService;
+
+    private Store store1;
+    private Product product1;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store1, product1, 3));
+
+        orderProperties.getIntake().setMode(IntakeMode.GROUP_COMMIT);
+        // a wide window so all orders of a test land in the same batch
+        orderProperties.getIntake().setMaxWaitMillis(200);
+    }
+
+    @AfterEach
+    void resetMode() {
+        lowStockAlertService.removeThreshold(store1.getId(), product1.getId());
+        orderProperties.getIntake().setMode(IntakeMode.DIRECT);
+        orderProperties.getIntake().setMaxWaitMillis(5);
+    }
+
+    @Test
+    void submit_whenOneOrderOfTheBatchFails_theOthersAreCommitted() throws Exception {
+        // Action, the third order asks for more than the 1 unit left after the first two
+        CompletableFuture<OrderDetails> first = groupCommitOrderIntake.submit(order("c1@mail.com", 1), null);
+        CompletableFuture<OrderDetails> second = groupCommitOrderIntake.submit(order("c2@mail.com", 1), null);
+        CompletableFuture<OrderDetails> third = groupCommitOrderIntake.submit(order("c3@mail.com", 2), null);
+        CompletableFuture<OrderDetails> fourth = groupCommitOrderIntake.submit(order("c1@mail.com", 1), null);
+
+        // Assert
+        assertThat(first.get().getTotalPrice()).isEqualTo(250.00);
+        assertThat(second.get().getTotalPrice()).isEqualTo(250.00);
+        assertThat(fourth.get().getTotalPrice()).isEqualTo(250.00);
+        try {
+            third.get();
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(InventoryStockInsufficientException.class);
+        }
+        assertThat(third).isCompletedExceptionally();
+
+        assertThat(orderDetailsRepository.count()).isEqualTo(3);
+        assertThat(orderItemRepository.count()).isEqualTo(3);
+        assertThat(customerRepository.count()).isEqualTo(2);
+        Inventory inventory = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory.getStockLevel()).isEqualTo(0);
+    }
+
+    @Test
+    void placeOrder_rethrowsTheFailureOfTheOrder() {
+        // Action, Assert
+        assertThatThrownBy(() -> groupCommitOrderIntake.placeOrder(order("c1@mail.com", 5), null))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+        assertThat(orderDetailsRepository.count()).isEqualTo(0);
+        assertThat(customerRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    void submit_whenAnOrderLeavesTheBatchRollbackOnly_theOthersAreStillCommittedTogether() throws Exception {
+        // Arrange, a null store id fails inside the repository's transactional proxy
+        PlaceOrderRequestDTO noStore = order("c2@mail.com", 1);
+        noStore.setStoreId(null);
+        long ownCommits = ownTransactionCommits();
+
+        // Action
+        CompletableFuture<OrderDetails> first = groupCommitOrderIntake.submit(order("c1@mail.com", 1), null);
+        CompletableFuture<OrderDetails> second = groupCommitOrderIntake.submit(noStore, null);
+        CompletableFuture<OrderDetails> third = groupCommitOrderIntake.submit(order("c3@mail.com", 1), null);
+
+        // Assert
+        assertThat(first.get().getTotalPrice()).isEqualTo(250.00);
+        assertThat(third.get().getTotalPrice()).isEqualTo(250.00);
+        assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class);
+        assertThat(orderDetailsRepository.count()).isEqualTo(2);
+        assertThat(customerRepository.count()).isEqualTo(2);
+        // only orders placed in a transaction of their own time a commit phase
+        assertThat(ownTransactionCommits()).isEqualTo(ownCommits);
+    }
+
+    @Test
+    void submit_afterAnOrderRolledBackToItsSavepoint_itsCustomerIsNotCached() throws Exception {
+        // Arrange, the customer created by the failing order is rolled back with it
+        CompletableFuture<OrderDetails> first = groupCommitOrderIntake.submit(order("c1@mail.com", 1), null);
+        CompletableFuture<OrderDetails> failing = groupCommitOrderIntake.submit(order("c2@mail.com", 5), null);
+        first.get();
+        assertThatThrownBy(failing::get).hasCauseInstanceOf(InventoryStockInsufficientException.class);
+
+        // Action
+        OrderDetails orderDetails = groupCommitOrderIntake.placeOrder(order("c2@mail.com", 1), null);
+
+        // Assert
+        assertThat(customerRepository.findById(orderDetails.getCustomer().getId())).isPresent();
+        assertThat(customerRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void submit_whenAnOrderFailsAfterChangingStock_theChangeIsNeitherIndexedNorAlerted() throws Exception {
+        // Arrange, product1 is low at 1 unit
+        Product product2 = productRepository.save(new Product("Product2", "Category1", 100.00, "SKU002"));
+        inventoryRepository.save(new Inventory(store1, product2, 1));
+        availabilityIndexService.reload();
+        lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 1, null));
+        List<LowStockAlert> alerts = lowStockAlertService.alertsAfter(0);
+        long lastAlertId = alerts.isEmpty() ? 0 : alerts.get(alerts.size() - 1).id();
+        // takes product1 down to 1 before it finds product2 short
+        PlaceOrderRequestDTO failing = new PlaceOrderRequestDTO(store1.getId(), "Customer", "c2@mail.com",
+                "0939451111", LocalDateTime.now().toString(), List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1,
+                                product1.getPrice()),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 5,
+                                product2.getPrice() * 5)));
+
+        // Action
+        CompletableFuture<OrderDetails> first = groupCommitOrderIntake.submit(order("c1@mail.com", 1), null);
+        CompletableFuture<OrderDetails> second = groupCommitOrderIntake.submit(failing, null);
+        first.get();
+        assertThatThrownBy(second::get).hasCauseInstanceOf(InventoryStockInsufficientException.class);
+
+        // Assert
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel())
+                .isEqualTo(2);
+        assertThat(availabilityIndexService.stockLevel(store1.getId(), product1.getId())).isEqualTo(OptionalInt.of(2));
+        assertThat(lowStockAlertService.alertsAfter(lastAlertId)).isEmpty();
+    }
+
+    @Test
+    void submit_whenTheCommitterFailsWithAnError_failsTheBatchAndGoesOn() throws Exception {
+        // Arrange
+        OrderService failingOrderService = mock(OrderService.class);
+        OrderDetails placed = new OrderDetails();
+        when(failingOrderService.saveOrderInCurrentTransaction(any(), any()))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(placed);
+        GroupCommitOrderIntake intake = new GroupCommitOrderIntake(failingOrderService, new OrderProperties(),
+                entityManager(), transactionManager());
+
+        try {
+            // Action
+            CompletableFuture<OrderDetails> failed = intake.submit(order("c1@mail.com", 1), null);
+            assertThatThrownBy(() -> failed.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(OrderIntakeRejectedException.class);
+            CompletableFuture<OrderDetails> next = intake.submit(order("c2@mail.com", 1), null);
+
+            // Assert
+            assertThat(next.get(5, TimeUnit.SECONDS)).isSameAs(placed);
+        } finally {
+            intake.stop();
+        }
+    }
+
+    @Test
+    void placeOrder_whenTheCommitIsNotDoneInTime_isRejected() throws Exception {
+        // Arrange, the committer is stuck on the first order
+        OrderService stuckOrderService = mock(OrderService.class);
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch stuck = new CountDownLatch(1);
+        when(stuckOrderService.saveOrderInCurrentTransaction(any(), any())).thenAnswer(invocation -> {
+            committing.countDown();
+            stuck.await();
+            return new OrderDetails();
+        });
+        OrderProperties properties = new OrderProperties();
+        properties.getIntake().setCommitTimeoutMillis(200);
+        GroupCommitOrderIntake intake = new GroupCommitOrderIntake(stuckOrderService, properties,
+                entityManager(), transactionManager());
+
+        try {
+            intake.submit(order("c1@mail.com", 1), null);
+            committing.await(5, TimeUnit.SECONDS);
+
+            // Action, Assert
+            assertThatThrownBy(() -> intake.placeOrder(order("c2@mail.com", 1), null))
+                    .isInstanceOf(OrderIntakeRejectedException.class)
+                    .hasMessageContaining("not keeping up");
+        } finally {
+            stuck.countDown();
+            intake.stop();
+        }
+    }
+
+    // transactions without a resource, with synchronization like the real ones
+    private static PlatformTransactionManager transactionManager() {
+        return new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        };
+    }
+
+    // savepoints on a connection that isn't there
+    private static EntityManager entityManager() {
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        return entityManager;
+    }
+
+    private long ownTransactionCommits() {
+        return meterRegistry.find("checkout.phase").tag("phase", "commit").tag("outcome", CheckoutMetrics.SUCCESS)
+                .timers().stream().mapToLong(Timer::count).sum();
+    }
+
+    private PlaceOrderRequestDTO order(String email, int quantity) {
+        return new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer",
+                email,
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), quantity,
+                        product1.getPrice() * quantity)));
+    }
+
+}
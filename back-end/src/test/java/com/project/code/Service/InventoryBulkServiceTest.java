@@ -0,0 +1,181 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryBulkResult.Rejected;
+import com.project.code.Model.InventoryBulkResult.Status;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.Product;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Model.Store;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.InventoryProperties;
+
+@SpringBootTest
+class InventoryBulkServiceTest {
+
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+    @Autowired
+    private ShardedStockService shardedStockService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private InventoryProperties inventoryProperties;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private Product product1;
+    private Product product2;
+    private Product product3;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        product2 = productRepository.save(new Product("Product2", "Category1", 300.00, "SKU002"));
+        product3 = productRepository.save(new Product("Product3", "Category1", 100.00, "SKU003"));
+        inventoryRepository.save(new Inventory(store1, product1, 10));
+        inventoryRepository.save(new Inventory(store1, product2, 5));
+        // several chunks out of a handful of entries
+        inventoryProperties.getBulk().setChunkSize(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        inventoryProperties.getBulk().setChunkSize(1_000);
+    }
+
+    @Test
+    void update_appliesValidEntriesAndReportsTheOthersByPosition() {
+        // Arrange
+        List<InventoryUpdateDto> entries = List.of(
+                new InventoryUpdateDto(store1.getId(), product1.getId(), 7),
+                new InventoryUpdateDto(store1.getId(), product2.getId(), 5),
+                new InventoryUpdateDto(store1.getId(), product3.getId(), 12),
+                new InventoryUpdateDto(store1.getId(), product1.getId(), 99),
+                new InventoryUpdateDto(store1.getId(), 999_999L, 1),
+                new InventoryUpdateDto(999_999L, product1.getId(), 1),
+                new InventoryUpdateDto(store1.getId(), product2.getId(), -1),
+                new InventoryUpdateDto(null, product2.getId(), 1));
+
+        // Act
+        InventoryBulkResult result = inventoryBulkService.update(entries);
+
+        // Assert
+        assertThat(result.count(Status.UPDATED)).isEqualTo(1);
+        assertThat(result.count(Status.UNCHANGED)).isEqualTo(1);
+        assertThat(result.count(Status.CREATED)).isEqualTo(1);
+        assertThat(result.getRejected()).containsExactly(
+                new Rejected(3, store1.getId(), product1.getId(), Status.DUPLICATE),
+                new Rejected(4, store1.getId(), 999_999L, Status.PRODUCT_NOT_FOUND),
+                new Rejected(5, 999_999L, product1.getId(), Status.STORE_NOT_FOUND),
+                new Rejected(6, store1.getId(), product2.getId(), Status.INVALID),
+                new Rejected(7, null, product2.getId(), Status.INVALID));
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(7);
+        assertThat(inventory1.getVersion()).isEqualTo(1L);
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getVersion())
+                .isZero();
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product3).orElseThrow().getStockLevel())
+                .isEqualTo(12);
+    }
+
+    @Test
+    void update_readsAMissingVersionAsZero() {
+        // Arrange
+        // a row written before the version column was NOT NULL
+        jdbcTemplate.execute("ALTER TABLE inventory ALTER COLUMN version SET NULL");
+        try {
+            jdbcTemplate.update("UPDATE inventory SET version = NULL WHERE store_id = ? AND product_id = ?",
+                    store1.getId(), product1.getId());
+
+            // Act
+            InventoryBulkResult result = inventoryBulkService.update(
+                    List.of(new InventoryUpdateDto(store1.getId(), product1.getId(), 3)));
+
+            // Assert
+            assertThat(result.count(Status.UPDATED)).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT version FROM inventory WHERE store_id = ? AND product_id = ?", Long.class,
+                    store1.getId(), product1.getId())).isEqualTo(1L);
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE inventory ALTER COLUMN version SET NOT NULL");
+        }
+    }
+
+    @Test
+    void update_writesAStockEventForEveryChangedRow() {
+        // Arrange
+        List<InventoryUpdateDto> entries = List.of(
+                new InventoryUpdateDto(store1.getId(), product1.getId(), 4),
+                new InventoryUpdateDto(store1.getId(), product2.getId(), 5),
+                new InventoryUpdateDto(store1.getId(), product3.getId(), 2));
+
+        // Act
+        inventoryBulkService.update(entries);
+
+        // Assert
+        assertThat(outboxEventRepository.findAll()).extracting(outboxService::decode).containsExactlyInAnyOrder(
+                new StockChangedEvent(store1.getId(), product1.getId(), -6, 4, Reason.ADJUSTMENT),
+                new StockChangedEvent(store1.getId(), product3.getId(), 2, 2, Reason.ADJUSTMENT));
+    }
+
+    @Test
+    void update_spreadsTheLevelOfAShardedRowOverItsBuckets() {
+        // Arrange
+        Inventory sharded = shardedStockService.reshard(store1.getId(), product1.getId(), 3);
+
+        // Act
+        InventoryBulkResult result = inventoryBulkService.update(List.of(
+                new InventoryUpdateDto(store1.getId(), product1.getId(), 30)));
+
+        // Assert
+        assertThat(result.count(Status.UPDATED)).isEqualTo(1);
+        assertThat(shardedStockService.totalStock(inventoryRepository.findById(sharded.getId()).orElseThrow()))
+                .isEqualTo(30);
+        assertThat(inventoryShardRepository.sumStockLevel(sharded.getId())).isEqualTo(30);
+    }
+
+}
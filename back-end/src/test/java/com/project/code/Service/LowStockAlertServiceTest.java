@@ -0,0 +1,272 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.LowStockAlert;
+import com.project.code.Model.LowStockAlert.Type;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.ReorderThresholdDto;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.ReorderThresholdRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.exception.InventoryNotFoundException;
+
+@SpringBootTest
+class LowStockAlertServiceTest {
+
+    @Autowired
+    private LowStockAlertService lowStockAlertService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+    @Autowired
+    private ReorderThresholdRepository reorderThresholdRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private Product product1;
+    // the feed is shared by every test, each one reads what it raised
+    private long lastAlertId;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        reorderThresholdRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store1, product1, 10));
+
+        List<LowStockAlert> alerts = lowStockAlertService.alertsAfter(0);
+        lastAlertId = alerts.isEmpty() ? 0 : alerts.get(alerts.size() - 1).id();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void stockChanges_shouldAlertOnCrossingOnly_withHysteresis() {
+        // Arrange, low at 5 or less, recovered at 8 or more
+        lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 5, 8));
+
+        // Action
+        sell(4); // 6
+        sell(1); // 5, low
+        sell(2); // 3, still low
+        setStock(7); // below the clear level, still low
+        sell(3); // 4
+        setStock(8); // recovered
+        sell(1); // 7, above the reorder level
+
+        // Assert
+        assertThat(newAlerts()).extracting(LowStockAlert::type, LowStockAlert::stockLevel)
+                .containsExactly(tuple(Type.LOW, 5), tuple(Type.RECOVERED, 8));
+    }
+
+    @Test
+    void setThreshold_shouldAlertAtOnce_whenStockIsAlreadyLow() {
+        // Action
+        lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 10, null));
+
+        // Assert
+        assertThat(newAlerts()).extracting(LowStockAlert::type, LowStockAlert::stockLevel,
+                LowStockAlert::reorderLevel).containsExactly(tuple(Type.LOW, 10, 10));
+        assertThat(reorderThresholdRepository.findAll()).singleElement()
+                .satisfies(threshold -> assertThat(threshold.getClearLevel()).isEqualTo(15));
+    }
+
+    @Test
+    void removeThreshold_shouldStopAlerts() {
+        // Arrange
+        lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 5, 8));
+
+        // Action
+        boolean removed = lowStockAlertService.removeThreshold(store1.getId(), product1.getId());
+        sell(6);
+
+        // Assert
+        assertThat(removed).isTrue();
+        assertThat(newAlerts()).isEmpty();
+        assertThat(lowStockAlertService.removeThreshold(store1.getId(), product1.getId())).isFalse();
+    }
+
+    @Test
+    void setThreshold_shouldReject_clearLevelNotAboveReorderLevel() {
+        assertThatThrownBy(() -> lowStockAlertService
+                .setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 5, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void setThreshold_shouldReject_rowThatIsNotStocked() {
+        assertThatThrownBy(() -> lowStockAlertService
+                .setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId() + 1000, 5, null)))
+                .isInstanceOf(InventoryNotFoundException.class);
+    }
+
+    @Test
+    void stockChanges_shouldNotWaitForASlowStream() throws Exception {
+        // Arrange
+        lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product1.getId(), 5, 8));
+        StalledEmitter emitter = new StalledEmitter();
+        lowStockAlertService.subscribe(emitter, null);
+
+        try {
+            // Action, the sale raises an alert while the stream can't be written to
+            CompletableFuture.runAsync(() -> sell(6)).get(5, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(emitter.sent.getCount()).isEqualTo(1);
+        } finally {
+            emitter.writable.countDown();
+        }
+        assertThat(emitter.sent.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void stockChanges_shouldReachAStreamInTheOrderOfTheIds() throws Exception {
+        // Arrange
+        List<Product> products = new ArrayList<>(List.of(product1));
+        for (int i = 2; i <= 4; i++) {
+            Product product = productRepository.save(new Product("Product" + i, "Category1", 250.00, "SKU00" + i));
+            inventoryRepository.save(new Inventory(store1, product, 10));
+            products.add(product);
+        }
+        for (Product product : products) {
+            lowStockAlertService.setThreshold(new ReorderThresholdDto(store1.getId(), product.getId(), 5, 8));
+        }
+        RecordingEmitter emitter = new RecordingEmitter();
+        lowStockAlertService.subscribe(emitter, null);
+
+        // Action, every row goes low and recovers a few times, the rows at once
+        List<CompletableFuture<Void>> changes = products.stream()
+                .map(product -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 5; i++) {
+                        setStock(product, 3);
+                        setStock(product, 10);
+                    }
+                }))
+                .toList();
+        CompletableFuture.allOf(changes.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        // Assert
+        assertThat(newAlerts()).hasSize(40);
+        assertThat(emitter.received.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitter.ids).isSorted().doesNotHaveDuplicates();
+    }
+
+    private List<LowStockAlert> newAlerts() {
+        return lowStockAlertService.alertsAfter(lastAlertId);
+    }
+
+    private void sell(int quantity) {
+        orderService.saveOrder(new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer One",
+                "customer1@mail.com",
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), quantity,
+                        product1.getPrice() * quantity))));
+    }
+
+    private void setStock(int stockLevel) {
+        setStock(product1, stockLevel);
+    }
+
+    private void setStock(Product product, int stockLevel) {
+        inventoryBulkService.update(List.of(new InventoryUpdateDto(store1.getId(), product.getId(), stockLevel)));
+    }
+
+    // a client that keeps the ids of the alerts written to it, in the order they were written
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Long> ids = new CopyOnWriteArrayList<>();
+        private final CountDownLatch received = new CountDownLatch(40);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            builder.build().stream()
+                    .map(ResponseBodyEmitter.DataWithMediaType::getData)
+                    .filter(LowStockAlert.class::isInstance)
+                    .forEach(data -> {
+                        ids.add(((LowStockAlert) data).id());
+                        received.countDown();
+                    });
+        }
+    }
+
+    // a client whose connection doesn't take any data until it is made writable
+    private static class StalledEmitter extends SseEmitter {
+
+        private final CountDownLatch writable = new CountDownLatch(1);
+        private final CountDownLatch sent = new CountDownLatch(1);
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            try {
+                writable.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            sent.countDown();
+        }
+    }
+
+}
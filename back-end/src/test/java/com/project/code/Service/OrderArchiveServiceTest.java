@@ -0,0 +1,250 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.Customer;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderItem;
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Model.StoreDailySales;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreDailySalesRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.ArchiveProperties;
+
+@SpringBootTest
+class OrderArchiveServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private OrderArchiveService orderArchiveService;
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private ArchiveProperties archiveProperties;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private StoreDailySalesRepository storeDailySalesRepository;
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    private String defaultDirectory;
+    private Store store1;
+    private Store store2;
+    private Customer customer;
+    private Product product;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        // orders placed by earlier tests would otherwise reach the rollups after they were cleared
+        outboxRelay.relay();
+        storeDailySalesRepository.deleteAllInBatch();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        customer = customerRepository.save(new Customer("Customer One", "customer1@mail.com", "0939451111"));
+        product = productRepository.save(new Product("Phone1", "Mobile", 100.00, "SKU001"));
+
+        defaultDirectory = archiveProperties.getDirectory();
+        archiveProperties.setDirectory(directory.toString());
+        orderArchiveService.openSegments();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiveProperties.setDirectory(defaultDirectory);
+        archiveProperties.setMaxOrdersPerRun(100_000);
+        orderArchiveService.openSegments();
+    }
+
+    @Test
+    void archive_movesOrdersOlderThanMinAgeIntoASegment() {
+        // Arrange
+        LocalDateTime old = daysAgo(200);
+        OrderDetails first = order(store1, old, 2);
+        order(store1, old.plusHours(1), 1);
+        OrderDetails recent = order(store1, daysAgo(1), 1);
+
+        // Act
+        long archived = orderArchiveService.archive();
+
+        // Assert
+        assertThat(archived).isEqualTo(2);
+        assertThat(orderDetailsRepository.findAll()).extracting(OrderDetails::getId).containsExactly(recent.getId());
+        assertThat(orderItemRepository.count()).isEqualTo(1);
+        assertThat(orderArchiveService.archivedBefore()).isEqualTo(LocalDate.now().minusDays(180));
+        assertThat(orderHistoryService.findOrder(first.getId())).hasValueSatisfying(order -> {
+            assertThat(order.orderDate()).isEqualTo(old);
+            assertThat(order.storeId()).isEqualTo(store1.getId());
+            assertThat(order.customerName()).isEqualTo("Customer One");
+            assertThat(order.itemCount()).isEqualTo(2);
+        });
+        assertThat(orderArchiveService.archive()).isZero();
+    }
+
+    @Test
+    void archive_aCappedRunStopsAtAWholeDay() throws Exception {
+        // Arrange
+        archiveProperties.setMaxOrdersPerRun(2);
+        order(store1, daysAgo(300), 1);
+        for (int i = 0; i < 3; i++) {
+            order(store1, daysAgo(299).plusHours(i), 1);
+        }
+        order(store1, daysAgo(298), 1);
+
+        // Act
+        long firstRun = orderArchiveService.archive();
+        LocalDate firstArchivedBefore = orderArchiveService.archivedBefore();
+        // a single day above the cap goes whole
+        long secondRun = orderArchiveService.archive();
+        long thirdRun = orderArchiveService.archive();
+
+        // Assert
+        assertThat(List.of(firstRun, secondRun, thirdRun)).containsExactly(1L, 3L, 1L);
+        assertThat(firstArchivedBefore).isEqualTo(daysAgo(299).toLocalDate());
+        assertThat(orderDetailsRepository.count()).isZero();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(3);
+        }
+    }
+
+    @Test
+    void writeStoreOrders_pagesAcrossTheHotTablesAndTheArchive() throws Exception {
+        // Arrange
+        OrderDetails old1 = order(store1, daysAgo(200), 1);
+        OrderDetails old2 = order(store1, daysAgo(199), 1);
+        order(store2, daysAgo(199).plusHours(1), 1);
+        OrderDetails recent1 = order(store1, daysAgo(2), 1);
+        OrderDetails recent2 = order(store1, daysAgo(1), 1);
+        orderArchiveService.archive();
+
+        // Act
+        JsonNode page1 = storeOrders(OrderPageRequest.of(null, null, null, 3));
+        JsonNode page2 = storeOrders(OrderPageRequest.of(null, null, page1.get("nextCursor").asText(), 3));
+
+        // Assert
+        assertThat(orderIds(page1)).containsExactly(recent2.getId(), recent1.getId(), old2.getId());
+        assertThat(orderIds(page2)).containsExactly(old1.getId());
+        assertThat(page2.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void writeOrders_anOrderNotTrimmedYetIsWrittenOnce() throws Exception {
+        // Arrange
+        OrderDetails old = order(store1, daysAgo(200), 1);
+        orderArchiveService.archive();
+        // as if the run had stopped between publishing the segment and deleting the order
+        jdbcTemplate.update("""
+                INSERT INTO order_details (id, customer_id, store_id, total_price, order_date)
+                VALUES (?, ?, ?, ?, ?)""", old.getId(), customer.getId(), store1.getId(), 200.00, old.getOrderDate());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderHistoryService.writeOrders(OrderPageRequest.of(null, null, null, 10), out);
+
+        // Assert
+        assertThat(orderIds(objectMapper.readTree(out.toByteArray()))).containsExactly(old.getId());
+    }
+
+    @Test
+    void reloadAndRebuild_keepArchivedOrders() {
+        // Arrange
+        LocalDateTime old = daysAgo(200);
+        order(store1, old, 2);
+        order(store1, daysAgo(1), 1);
+        jdbcTemplate.update("""
+                INSERT INTO store_daily_sales (store_id, sales_date, order_count, units_sold, revenue)
+                VALUES (?, ?, 1, 2, 200.0)""", store1.getId(), old.toLocalDate());
+        orderArchiveService.archive();
+
+        // Act
+        analyticsService.reload();
+        salesRollupService.rebuild();
+
+        // Assert
+        assertThat(analyticsService.columns().orderCount()).isEqualTo(2);
+        assertThat(analyticsService.columns().lineCount()).isEqualTo(3);
+        assertThat(storeDailySalesRepository.findAll()).extracting(StoreDailySales::getSalesDate)
+                .containsExactlyInAnyOrder(old.toLocalDate(), daysAgo(1).toLocalDate());
+    }
+
+    private LocalDateTime daysAgo(int days) {
+        return LocalDate.now().minusDays(days).atTime(10, 0);
+    }
+
+    private OrderDetails order(Store store, LocalDateTime orderDate, int lines) {
+        OrderDetails order = new OrderDetails(customer, store);
+        order.setOrderDate(orderDate);
+        order.setTotalPrice(100.00 * lines);
+        order = orderDetailsRepository.save(order);
+        for (int i = 0; i < lines; i++) {
+            orderItemRepository.save(new OrderItem(order, product, 1, 100.00));
+        }
+        return order;
+    }
+
+    private JsonNode storeOrders(OrderPageRequest page) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderHistoryService.writeStoreOrders(store1.getId(), page, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private List<Long> orderIds(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("orders").forEach(order -> ids.add(order.get("orderId").asLong()));
+        return ids;
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.Customer;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderItem;
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class OrderHistoryServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 10, 0);
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private Store store2;
+    private Customer customer1;
+    private Customer customer2;
+    private List<OrderDetails> store1Orders;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        customer1 = customerRepository.save(new Customer("Customer One", "customer1@mail.com", "0939451111"));
+        customer2 = customerRepository.save(new Customer("Customer Two", "customer2@mail.com", "0939452222"));
+        Product product = productRepository.save(new Product("Phone1", "Mobile", 100.00, "SKU001"));
+
+        // one order per hour, the last two share a timestamp so the id breaks the tie
+        store1Orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OrderDetails order = order(i % 2 == 0 ? customer1 : customer2, store1, START.plusHours(Math.min(i, 3)));
+            orderItemRepository.save(new OrderItem(order, product, 2, 100.00));
+            store1Orders.add(order);
+        }
+        order(customer1, store2, START.plusHours(1));
+    }
+
+    @Test
+    void writeStoreOrders_pagesNewestFirstUntilTheLastPage() throws Exception {
+        // Act
+        JsonNode page1 = storeOrders(OrderPageRequest.of(null, null, null, 2));
+        JsonNode page2 = storeOrders(OrderPageRequest.of(null, null, page1.get("nextCursor").asText(), 2));
+        JsonNode page3 = storeOrders(OrderPageRequest.of(null, null, page2.get("nextCursor").asText(), 2));
+
+        // Assert
+        assertThat(orderIds(page1)).containsExactly(store1Orders.get(4).getId(), store1Orders.get(3).getId());
+        assertThat(orderIds(page2)).containsExactly(store1Orders.get(2).getId(), store1Orders.get(1).getId());
+        assertThat(orderIds(page3)).containsExactly(store1Orders.get(0).getId());
+        assertThat(page3.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void writeStoreOrders_fullLastPageHasNoNextCursor() throws Exception {
+        // Act
+        JsonNode page = storeOrders(OrderPageRequest.of(null, null, null, 5));
+
+        // Assert
+        assertThat(orderIds(page)).hasSize(5);
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void writeStoreOrders_rowsAreFlatSummaries() throws Exception {
+        // Act
+        JsonNode order = storeOrders(OrderPageRequest.of(null, null, null, 1)).get("orders").get(0);
+
+        // Assert
+        assertThat(order.get("orderId").asLong()).isEqualTo(store1Orders.get(4).getId());
+        assertThat(order.get("storeId").asLong()).isEqualTo(store1.getId());
+        assertThat(order.get("customerId").asLong()).isEqualTo(customer1.getId());
+        assertThat(order.get("customerName").asText()).isEqualTo("Customer One");
+        assertThat(order.get("itemCount").asLong()).isEqualTo(1);
+        assertThat(order.get("orderDate").asText()).isEqualTo("2025-01-01 13:00:00");
+    }
+
+    @Test
+    void writeCustomerOrders_onlyThatCustomersOrders() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderHistoryService.writeCustomerOrders(customer2.getId(), OrderPageRequest.of(null, null, null, 10), out);
+
+        // Assert
+        assertThat(orderIds(objectMapper.readTree(out.toByteArray())))
+                .containsExactly(store1Orders.get(3).getId(), store1Orders.get(1).getId());
+    }
+
+    @Test
+    void writeOrders_dateRangeIsFromInclusiveToExclusive() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderHistoryService.writeOrders(
+                OrderPageRequest.of(START.plusHours(1), START.plusHours(3), null, 10), out);
+
+        // Assert
+        JsonNode page = objectMapper.readTree(out.toByteArray());
+        assertThat(page.get("orders")).hasSize(3);
+        assertThat(orderIds(page)).contains(store1Orders.get(2).getId(), store1Orders.get(1).getId())
+                .doesNotContain(store1Orders.get(3).getId(), store1Orders.get(0).getId());
+    }
+
+    private OrderDetails order(Customer customer, Store store, LocalDateTime orderDate) {
+        OrderDetails order = new OrderDetails(customer, store);
+        order.setOrderDate(orderDate);
+        order.setTotalPrice(200.00);
+        return orderDetailsRepository.save(order);
+    }
+
+    private JsonNode storeOrders(OrderPageRequest page) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderHistoryService.writeStoreOrders(store1.getId(), page, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private List<Long> orderIds(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("orders").forEach(order -> ids.add(order.get("orderId").asLong()));
+        return ids;
+    }
+
+}
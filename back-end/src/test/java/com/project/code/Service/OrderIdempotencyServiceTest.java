@@ -0,0 +1,188 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.project.code.Model.IdempotencyKey;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Repo.IdempotencyKeyRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.config.OrderProperties;
+import com.project.code.exception.IdempotencyKeyMismatchException;
+import com.project.code.exception.InventoryStockInsufficientException;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private OrderDetailsRepository orderDetailsRepository;
+
+    private OrderIdempotencyService orderIdempotencyService;
+
+    private OrderDetails orderDetails;
+    private PlaceOrderRequestDTO request;
+
+    @BeforeEach
+    void setUp() {
+        orderIdempotencyService = new OrderIdempotencyService(
+                idempotencyKeyRepository, orderDetailsRepository, new OrderProperties());
+        orderDetails = new OrderDetails();
+        orderDetails.setId(1L);
+        request = request("customer1@mail.com", 1);
+    }
+
+    @Test
+    void placeOrder_shouldExecuteOnce_whenSameKeyIsRepeated() {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+
+        // Act
+        OrderDetails first = orderIdempotencyService.placeOrder("key-1", request, () -> {
+            executions.incrementAndGet();
+            return orderDetails;
+        });
+        OrderDetails second = orderIdempotencyService.placeOrder("key-1", request, () -> {
+            executions.incrementAndGet();
+            return new OrderDetails();
+        });
+
+        // Assert
+        assertThat(first).isSameAs(orderDetails);
+        assertThat(second).isSameAs(orderDetails);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void placeOrder_shouldWaitForInFlightOrder_whenDuplicateArrivesConcurrently() throws Exception {
+        // Arrange
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<OrderDetails> first = CompletableFuture.supplyAsync(() -> orderIdempotencyService
+                .placeOrder("key-1", request, () -> {
+                    executions.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return orderDetails;
+                }));
+        started.await(5, TimeUnit.SECONDS);
+
+        // Act
+        CompletableFuture<OrderDetails> duplicate = CompletableFuture.supplyAsync(() -> orderIdempotencyService
+                .placeOrder("key-1", request, () -> {
+                    executions.incrementAndGet();
+                    return new OrderDetails();
+                }));
+        Thread.sleep(50);
+        release.countDown();
+
+        // Assert
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(orderDetails);
+        assertThat(duplicate.get(5, TimeUnit.SECONDS)).isSameAs(orderDetails);
+        assertThat(executions.get()).isEqualTo(1);
+    }
+
+    @Test
+    void placeOrder_shouldReturnPersistedOrder_whenKeyIsNotCached() {
+        // Arrange
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(new IdempotencyKey("key-1", 1L, request.getCustomerEmail(),
+                OrderIdempotencyService.requestHash(request))));
+        when(orderDetailsRepository.findWithItemsById(1L)).thenReturn(Optional.of(orderDetails));
+
+        // Act
+        OrderDetails result = orderIdempotencyService.placeOrder("key-1", request, () -> {
+            throw new AssertionError("order must not be placed again");
+        });
+
+        // Assert
+        assertThat(result).isSameAs(orderDetails);
+    }
+
+    @Test
+    void placeOrder_shouldNotRememberFailures() {
+        // Arrange
+        assertThatThrownBy(() -> orderIdempotencyService.placeOrder("key-1", request, () -> {
+            throw new InventoryStockInsufficientException("Inventory stock insufficient");
+        })).isInstanceOf(InventoryStockInsufficientException.class);
+
+        // Act
+        OrderDetails result = orderIdempotencyService.placeOrder("key-1", request, () -> orderDetails);
+
+        // Assert
+        assertThat(result).isSameAs(orderDetails);
+    }
+
+    @Test
+    void placeOrder_shouldRefuseTheKey_whenItIsReusedForAnotherOrder() {
+        // Arrange
+        orderIdempotencyService.placeOrder("key-1", request, () -> orderDetails);
+
+        PlaceOrderRequestDTO reused = request("customer1@mail.com", 2);
+
+        // Act, Assert
+        assertThatThrownBy(() -> orderIdempotencyService.placeOrder("key-1", reused, () -> {
+            throw new AssertionError("order must not be placed");
+        })).isInstanceOf(IdempotencyKeyMismatchException.class).hasMessageContaining("different order");
+    }
+
+    @Test
+    void placeOrder_shouldRefuseAPersistedKey_whenAnotherCustomerReusesIt() {
+        // Arrange
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(new IdempotencyKey("key-1", 1L,
+                request.getCustomerEmail(), OrderIdempotencyService.requestHash(request))));
+
+        PlaceOrderRequestDTO reused = request("customer2@mail.com", 1);
+
+        // Act, Assert
+        assertThatThrownBy(() -> orderIdempotencyService.placeOrder("key-1", reused, () -> {
+            throw new AssertionError("order must not be placed");
+        })).isInstanceOf(IdempotencyKeyMismatchException.class).hasMessageContaining("another customer");
+    }
+
+    @Test
+    void requestHash_shouldIgnoreWhatTheOrderIsNotPlacedFrom() {
+        // Arrange
+        PlaceOrderRequestDTO resent = request("customer1@mail.com", 1);
+        resent.setDatetime("2030-01-01T00:00:00");
+        resent.setTotalPrice(1.0);
+
+        // Act, Assert
+        assertThat(OrderIdempotencyService.requestHash(resent)).isEqualTo(OrderIdempotencyService.requestHash(request));
+        assertThat(OrderIdempotencyService.requestHash(request("customer1@mail.com", 3)))
+                .isNotEqualTo(OrderIdempotencyService.requestHash(request));
+    }
+
+    private static PlaceOrderRequestDTO request(String email, int quantity) {
+        return new PlaceOrderRequestDTO(1L, "Customer", email, "0939451111", "2024-01-01T10:00:00",
+                List.of(new PurchaseProductDTO(2L, "Product", 250.00, quantity, 250.00 * quantity)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
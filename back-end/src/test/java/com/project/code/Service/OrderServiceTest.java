@@ -4,31 +4,58 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.project.code.Model.Customer;
 import com.project.code.Model.Inventory;
+import com.project.code.Model.IdempotencyKey;
 import com.project.code.Model.OrderDetails;
 import com.project.code.Model.OrderItem;
+import com.project.code.Model.OrderPlacedEvent;
 import com.project.code.Model.PlaceOrderRequestDTO;
 import com.project.code.Model.Product;
 import com.project.code.Model.PurchaseProductDTO;
 import com.project.code.Model.Store;
 import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.IdempotencyKeyRepository;
 import com.project.code.Repo.InventoryRepository;
 import com.project.code.Repo.OrderDetailsRepository;
 import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
 import com.project.code.Repo.ProductRepository;
 import com.project.code.Repo.StoreRepository;
+import com.project.code.config.OrderProperties;
+import com.project.code.config.OrderProperties.StockDeductionMode;
+import com.project.code.exception.InventoryNotFoundException;
 import com.project.code.exception.InventoryStockInsufficientException;
 import com.project.code.exception.ProductNotFoundException;
 import com.project.code.exception.StoreNotFoundException;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @SpringBootTest
 class OrderServiceTest {
 
@@ -47,6 +74,19 @@ class OrderServiceTest {
     @Autowired
     private StoreRepository storeRepository;
 
+    @Autowired
+    private OrderProperties orderProperties;
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private ConfigurableApplicationContext applicationContext;
+
     private Customer customer1;
     private Store store1;
     private Product product1;
@@ -54,6 +94,7 @@ class OrderServiceTest {
 
     @BeforeEach
     void setup() {
+        idempotencyKeyRepository.deleteAll();
         orderItemRepository.deleteAll();
         orderDetailsRepository.deleteAll();
         inventoryRepository.deleteAll();
@@ -72,6 +113,11 @@ class OrderServiceTest {
         inventoryRepository.save(new Inventory(store1, product2, 1));
     }
 
+    @AfterEach
+    void resetMode() {
+        orderProperties.setStockDeduction(StockDeductionMode.BATCHED);
+    }
+
     @Test
     void saveOrder_whenStockIsSufficient() {
         // Arrange
@@ -87,16 +133,19 @@ class OrderServiceTest {
         // Action
         orderService.saveOrder(placeOrderRequest);
         // Assert
-        List<OrderDetails> orderDetailsList = orderDetailsRepository.findAll();
-        OrderDetails orderDetails = orderDetailsList.get(0);
-        assertThat(orderDetails.getCustomer().getEmail()).isEqualTo(customer1.getEmail());
-        assertThat(orderDetails.getStore().getName()).isEqualTo(store1.getName());
-        assertThat(orderDetails.getTotalPrice()).isEqualTo(800.00);
-        assertThat(orderDetails.getOrderItems().size()).isEqualTo(2);
-        assertThat(orderDetails.getOrderItems().get(0).getProduct().getId()).isEqualTo(product1.getId());
-        assertThat(orderDetails.getOrderItems().get(1).getProduct().getId()).isEqualTo(product2.getId());
-        assertThat(orderDetails.getOrderItems().get(0).getQuantity()).isEqualTo(2);
-        assertThat(orderDetails.getOrderItems().get(1).getQuantity()).isEqualTo(1);
+        // the associations are lazy, read them while the order is attached
+        transactionTemplate.executeWithoutResult(status -> {
+            List<OrderDetails> orderDetailsList = orderDetailsRepository.findAll();
+            OrderDetails orderDetails = orderDetailsList.get(0);
+            assertThat(orderDetails.getCustomer().getEmail()).isEqualTo(customer1.getEmail());
+            assertThat(orderDetails.getStore().getName()).isEqualTo(store1.getName());
+            assertThat(orderDetails.getTotalPrice()).isEqualTo(800.00);
+            assertThat(orderDetails.getOrderItems().size()).isEqualTo(2);
+            assertThat(orderDetails.getOrderItems().get(0).getProduct().getId()).isEqualTo(product1.getId());
+            assertThat(orderDetails.getOrderItems().get(1).getProduct().getId()).isEqualTo(product2.getId());
+            assertThat(orderDetails.getOrderItems().get(0).getQuantity()).isEqualTo(2);
+            assertThat(orderDetails.getOrderItems().get(1).getQuantity()).isEqualTo(1);
+        });
         // check remaining stock levels
         Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
         Inventory inventory2 = inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow();
@@ -188,4 +237,558 @@ class OrderServiceTest {
         assertThat(inventory2.getStockLevel()).isEqualTo(1);
     }
 
+    @Test
+    void saveOrder_whenSameProductOnSeveralLines_deductsTheSumOfLines() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(placeOrderRequest);
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(500.00);
+        assertThat(orderItemRepository.findAll().size()).isEqualTo(2);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(0);
+    }
+
+    @Test
+    void saveOrder_whenSameProductOnSeveralLinesExceedsStock_returnException() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 2, 500.00),
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+
+        assertThat(orderDetailsRepository.findAll().size()).isEqualTo(0);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(2);
+    }
+
+    @Test
+    void saveOrder_whenInventoryIsNotExist_returnException() {
+        // Arrange
+        Product product3 = productRepository.save(new Product("Product3", "Category1", 100.00, "SKU003"));
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product3.getId(), product3.getName(), product3.getPrice(), 1, 100.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryNotFoundException.class)
+                .hasMessageContaining("ProductId=" + product3.getId());
+
+        assertThat(orderDetailsRepository.findAll().size()).isEqualTo(0);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(2);
+    }
+
+    @Test
+    void saveOrder_withConditionalUpdate_whenStockIsSufficient() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.CONDITIONAL_UPDATE);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 2, 500.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00)));
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(placeOrderRequest);
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(800.00);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        Inventory inventory2 = inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(0);
+        assertThat(inventory2.getStockLevel()).isEqualTo(0);
+    }
+
+    @Test
+    void saveOrder_withConditionalUpdate_whenStockIsInsufficient_returnException() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.CONDITIONAL_UPDATE);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 2, 600.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryStockInsufficientException.class)
+                .hasMessageContaining("ProductId=" + product2.getId());
+        // the first line was already decremented and has to be rolled back
+        assertThat(orderDetailsRepository.findAll().size()).isEqualTo(0);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        Inventory inventory2 = inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isEqualTo(2);
+        assertThat(inventory2.getStockLevel()).isEqualTo(1);
+    }
+
+    @Test
+    void saveOrder_withConditionalUpdate_whenInventoryIsNotExist_returnException() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.CONDITIONAL_UPDATE);
+        Product product3 = productRepository.save(new Product("Product3", "Category1", 100.00, "SKU003"));
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product3.getId(), product3.getName(), product3.getPrice(), 1, 100.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryNotFoundException.class);
+    }
+
+    @Test
+    void saveOrder_withPessimisticLocking_whenStockIsSufficient() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.PESSIMISTIC);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00),
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 2, 500.00)));
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(placeOrderRequest);
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(800.00);
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel()).isZero();
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getStockLevel()).isZero();
+    }
+
+    @Test
+    void saveOrder_withPessimisticLocking_whenStockIsInsufficient_returnException() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.PESSIMISTIC);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 2, 600.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryStockInsufficientException.class)
+                .hasMessageContaining("ProductId=" + product2.getId());
+        assertThat(orderDetailsRepository.findAll()).isEmpty();
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void saveOrder_withPessimisticLocking_crossedBasketsNeitherDeadlockNorOversell() throws Exception {
+        placeCrossedBasketsConcurrently(StockDeductionMode.PESSIMISTIC);
+    }
+
+    @Test
+    void saveOrder_withOptimisticLocking_whenStockIsSufficient() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.OPTIMISTIC);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 2, 500.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00)));
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(placeOrderRequest);
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(800.00);
+        Inventory inventory1 = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory1.getStockLevel()).isZero();
+        assertThat(inventory1.getVersion()).isEqualTo(1L);
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getStockLevel()).isZero();
+    }
+
+    @Test
+    void saveOrder_withOptimisticLocking_whenARowChangedSinceTheRead_rereadsOnlyThatRow() {
+        // Arrange
+        orderProperties.setStockDeduction(StockDeductionMode.OPTIMISTIC);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00)));
+        double conflictsBefore = inventoryConflicts();
+        // Action
+        OrderDetails orderDetails = transactionTemplate.execute(status -> {
+            // the order's fetch finds these rows already read, with the versions of this moment
+            inventoryRepository.findByStoreIdAndProductIdIn(store1.getId(), List.of(product1.getId(), product2.getId()));
+            // another order sells one unit of product1 and commits in the meantime
+            CompletableFuture.runAsync(() -> inventoryRepository.decrementStock(store1.getId(), product1.getId(), 1, 1))
+                    .join();
+            return orderService.saveOrder(placeOrderRequest);
+        });
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(550.00);
+        // product1 only, product2 was written with the version it was read with
+        assertThat(inventoryConflicts()).isEqualTo(conflictsBefore + 1);
+        // 2 in stock, one sold by the other order and one by this one
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel()).isZero();
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getStockLevel()).isZero();
+    }
+
+    @Test
+    void saveOrder_whenARowChangedSinceTheRead_failsInsteadOfOverwritingIt() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> transactionTemplate.execute(status -> {
+            inventoryRepository.findByStoreIdAndProductIdIn(store1.getId(), List.of(product1.getId()));
+            CompletableFuture.runAsync(() -> inventoryRepository.decrementStock(store1.getId(), product1.getId(), 1, 1))
+                    .join();
+            return orderService.saveOrder(placeOrderRequest);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+        // the concurrent sale stays, the stale batched write was rolled back
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel())
+                .isEqualTo(1);
+        assertThat(orderDetailsRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void saveOrder_whenARowChangedBeforeTheCommit_placesTheOrderAgainWithTheNewLevel() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        AtomicInteger sold = new AtomicInteger();
+        // the first attempt has deducted in memory when the event is published, another order sells one unit
+        // of product1 and commits before that attempt does
+        ApplicationListener<PayloadApplicationEvent<OrderPlacedEvent>> concurrentSale = ApplicationListener.forPayload(
+                event -> {
+                    if (sold.getAndIncrement() == 0) {
+                        CompletableFuture.runAsync(
+                                () -> inventoryRepository.decrementStock(store1.getId(), product1.getId(), 1, 1))
+                                .join();
+                    }
+                });
+        applicationContext.addApplicationListener(concurrentSale);
+        double conflictsBefore = inventoryConflicts();
+        double retriesBefore = retries(CheckoutMetrics.VERSION_CONFLICT);
+        // Action
+        OrderDetails orderDetails;
+        try {
+            orderDetails = orderService.saveOrder(placeOrderRequest);
+        } finally {
+            applicationContext.removeApplicationListener(concurrentSale);
+        }
+        // Assert
+        assertThat(orderDetails.getTotalPrice()).isEqualTo(250.00);
+        assertThat(inventoryConflicts()).isEqualTo(conflictsBefore + 1);
+        assertThat(retries(CheckoutMetrics.VERSION_CONFLICT)).isEqualTo(retriesBefore + 1);
+        // 2 in stock, one sold by the other order and one by the second attempt of this one
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel()).isZero();
+        assertThat(orderDetailsRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void saveOrder_withOptimisticLocking_crossedBasketsNeitherDeadlockNorOversell() throws Exception {
+        placeCrossedBasketsConcurrently(StockDeductionMode.OPTIMISTIC);
+    }
+
+    @Test
+    void saveOrder_withIdempotencyKey_storesTheKeyWithTheOrder() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(placeOrderRequest, "key-1");
+        // Assert
+        IdempotencyKey key = idempotencyKeyRepository.findById("key-1").orElseThrow();
+        assertThat(key.getOrderId()).isEqualTo(orderDetails.getId());
+        assertThat(key.getCustomerEmail()).isEqualTo(customer1.getEmail());
+        assertThat(key.getRequestHash()).isEqualTo(OrderIdempotencyService.requestHash(placeOrderRequest));
+        // the same lines as a retry answered from the table gets
+        assertThat(orderDetails.getOrderItems()).extracting(OrderItem::getQuantity).containsExactly(1);
+    }
+
+    @Test
+    void saveOrder_withIdempotencyKey_whenAnotherRequestStoredItFirst_failsAndKeepsTheirOrder() {
+        // Arrange
+        PlaceOrderRequestDTO first = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        PlaceOrderRequestDTO duplicate = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00)));
+        // the same key reached another instance, which placed and committed its order after this request
+        // had looked the key up and found nothing
+        OrderDetails theirs = orderService.saveOrder(first, "key-1");
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(duplicate, "key-1"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(idempotencyKeyRepository.findById("key-1").orElseThrow().getOrderId())
+                .isEqualTo(theirs.getId());
+        assertThat(orderDetailsRepository.count()).isEqualTo(1);
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getStockLevel())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void saveOrder_withIdempotencyKey_whenTheSameKeyIsPlacedConcurrently_storesOneOrder() throws Exception {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00)));
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<OrderDetails>> results = new ArrayList<>();
+        // Action
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return orderService.saveOrder(placeOrderRequest, "key-1");
+            }));
+        }
+        start.countDown();
+        List<OrderDetails> placed = new ArrayList<>();
+        for (Future<OrderDetails> result : results) {
+            try {
+                placed.add(result.get(30, TimeUnit.SECONDS));
+            } catch (ExecutionException e) {
+                // the key, or the row version, was taken by the other request
+            }
+        }
+        executor.shutdown();
+        // Assert
+        assertThat(placed).hasSize(1);
+        assertThat(orderDetailsRepository.count()).isEqualTo(1);
+        assertThat(idempotencyKeyRepository.findById("key-1").orElseThrow().getOrderId())
+                .isEqualTo(placed.get(0).getId());
+    }
+
+    @Test
+    void saveOrder_withIdempotencyKey_whenStockIsInsufficient_doesNotStoreTheKey() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 3, 750.00)));
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest, "key-1"))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+        assertThat(idempotencyKeyRepository.findById("key-1")).isEmpty();
+    }
+
+    @Test
+    void saveOrder_recordsEveryPhaseAndTheCommit() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 1, 250.00),
+                        new PurchaseProductDTO(product2.getId(), product2.getName(), product2.getPrice(), 1, 300.00)));
+        long ordersBefore = checkoutCount("checkout.order", "success");
+        long commitsBefore = phaseCount("commit", "success");
+        long inventoryFetchesBefore = phaseCount("inventory_fetch", "success");
+        // Action
+        orderService.saveOrder(placeOrderRequest);
+        // Assert
+        assertThat(checkoutCount("checkout.order", "success")).isEqualTo(ordersBefore + 1);
+        assertThat(phaseCount("commit", "success")).isEqualTo(commitsBefore + 1);
+        assertThat(phaseCount("inventory_fetch", "success")).isEqualTo(inventoryFetchesBefore + 1);
+        assertThat(meterRegistry.find("checkout.phase").tag("lines", "2-5").timers())
+                .extracting(timer -> timer.getId().getTag("phase"))
+                .contains("customer", "store", "products", "inventory_fetch", "inventory_update", "order_save",
+                        "order_items_save", "order_total_save", "events", "commit");
+    }
+
+    @Test
+    void saveOrder_whenStockIsInsufficient_tagsTheFailingPhase() {
+        // Arrange
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(
+                        new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 3, 750.00)));
+        long failedOrdersBefore = checkoutCount("checkout.order", CheckoutMetrics.INSUFFICIENT_STOCK);
+        long failedUpdatesBefore = phaseCount("inventory_update", CheckoutMetrics.INSUFFICIENT_STOCK);
+        // Action
+        assertThatThrownBy(() -> orderService.saveOrder(placeOrderRequest))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+        // Assert
+        assertThat(checkoutCount("checkout.order", CheckoutMetrics.INSUFFICIENT_STOCK))
+                .isEqualTo(failedOrdersBefore + 1);
+        assertThat(phaseCount("inventory_update", CheckoutMetrics.INSUFFICIENT_STOCK))
+                .isEqualTo(failedUpdatesBefore + 1);
+    }
+
+    // 8 threads place 200 one-unit baskets of the same 4 products, listed in opposite orders, against 60 units each
+    private void placeCrossedBasketsConcurrently(StockDeductionMode stockDeduction) throws Exception {
+        // Arrange
+        orderProperties.setStockDeduction(stockDeduction);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Product product = productRepository.save(new Product("Hot" + i, "Category1", 10.00, "HOT00" + i));
+            inventoryRepository.save(new Inventory(store1, product, 60));
+            products.add(product);
+        }
+        int threads = 8;
+        int ordersPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger unitsSold = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        List<Product> reversed = new ArrayList<>(products);
+        Collections.reverse(reversed);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            // half of the threads list the products ascending, the other half descending
+            List<Product> basket = t % 2 == 0 ? products : reversed;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ordersPerThread; i++) {
+                    try {
+                        orderService.saveOrder(basketOf(basket));
+                        unitsSold.addAndGet(basket.size());
+                    } catch (InventoryStockInsufficientException e) {
+                        soldOut.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        // Action
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        // Assert
+        assertThat(failures).isEmpty();
+        // 200 baskets of one unit each for 60 units of stock
+        assertThat(unitsSold.get()).isEqualTo(60 * products.size());
+        assertThat(soldOut.get()).isEqualTo(threads * ordersPerThread - 60);
+        for (Product product : products) {
+            assertThat(inventoryRepository.findByStoreAndProduct(store1, product).orElseThrow().getStockLevel())
+                    .isZero();
+        }
+        assertThat(orderItemRepository.count()).isEqualTo(60L * products.size());
+        // the relay would otherwise hand these orders to the outbox subscribers while later tests run
+        outboxEventRepository.deleteAll();
+    }
+
+    private PlaceOrderRequestDTO basketOf(List<Product> products) {
+        return new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                products.stream()
+                        .map(product -> new PurchaseProductDTO(product.getId(), product.getName(), product.getPrice(),
+                                1, product.getPrice()))
+                        .toList());
+    }
+
+    private double inventoryConflicts() {
+        return meterRegistry.find("inventory.version.conflicts").counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private double retries(String reason) {
+        return meterRegistry.find("checkout.retries").tag("reason", reason).counters().stream()
+                .mapToDouble(counter -> counter.count()).sum();
+    }
+
+    private long checkoutCount(String name, String outcome) {
+        return meterRegistry.find(name).tag("outcome", outcome).timers().stream()
+                .mapToLong(timer -> timer.count()).sum();
+    }
+
+    private long phaseCount(String phase, String outcome) {
+        return meterRegistry.find("checkout.phase").tag("phase", phase).tag("outcome", outcome).timers().stream()
+                .mapToLong(timer -> timer.count()).sum();
+    }
+
 }
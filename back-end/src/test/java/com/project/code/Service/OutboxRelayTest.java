@@ -0,0 +1,259 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+
+import com.project.code.Model.OutboxCursor;
+import com.project.code.Model.OutboxEvent;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Repo.OutboxCursorRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.config.OutboxProperties;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxCursorRepository outboxCursorRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ObjectProvider<OutboxSubscriber> subscribers;
+
+    private OutboxRelay outboxRelay;
+    private RecordingSubscriber subscriber;
+
+    @BeforeEach
+    void setUp() {
+        OutboxProperties outboxProperties = new OutboxProperties();
+        outboxProperties.setBatchSize(3);
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxCursorRepository, outboxService, subscribers,
+                outboxProperties);
+        subscriber = new RecordingSubscriber();
+    }
+
+    @Test
+    void deliverBatch_shouldHandEventsAfterTheCursorAndAdvanceIt() {
+        // Arrange
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 10)));
+        List<OutboxEvent> batch = List.of(outboxEvent(11), outboxEvent(12));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(10L, Limit.of(3)))
+                .thenReturn(batch);
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert
+        assertThat(handled).isEqualTo(2);
+        assertThat(subscriber.eventIds).containsExactly(11L, 12L);
+        assertThat(subscriber.flushes).isEqualTo(1);
+        assertThat(savedCursor().getLastEventId()).isEqualTo(12);
+    }
+
+    @Test
+    void deliverBatch_shouldStopAtTheFailingEvent() {
+        // Arrange
+        subscriber.failOn = 12;
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.empty());
+        List<OutboxEvent> batch = List.of(outboxEvent(11), outboxEvent(12), outboxEvent(13));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(0L, Limit.of(3)))
+                .thenReturn(batch);
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert, 12 and 13 are handed over again on the next poll
+        assertThat(handled).isEqualTo(1);
+        assertThat(subscriber.eventIds).containsExactly(11L);
+        assertThat(savedCursor().getLastEventId()).isEqualTo(11);
+    }
+
+    @Test
+    void deliverBatch_shouldKeepCursor_whenFirstEventFails() {
+        // Arrange
+        subscriber.failOn = 11;
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 10)));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(10L, Limit.of(3)))
+                .thenReturn(List.of(outboxEvent(11)));
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert
+        assertThat(handled).isEqualTo(0);
+        verify(outboxCursorRepository, never()).save(any());
+    }
+
+    @Test
+    void deliverBatch_shouldKeepCursor_whenFlushFails() {
+        // Arrange
+        subscriber.failFlush = true;
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 10)));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(10L, Limit.of(3)))
+                .thenReturn(List.of(outboxEvent(11), outboxEvent(12)));
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert, the batch is handed over again on the next poll
+        assertThat(handled).isEqualTo(0);
+        assertThat(subscriber.flushes).isEqualTo(1);
+        verify(outboxCursorRepository, never()).save(any());
+    }
+
+    @Test
+    void deliverBatch_shouldWatchSkippedIds_andHandThemOverOnceCommitted() {
+        // Arrange, 11 is still being written when 12 is delivered
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 10)));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(10L, Limit.of(3)))
+                .thenReturn(List.of(outboxEvent(12)));
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+        outboxRelay.deliverBatch(subscriber);
+        OutboxCursor cursor = savedCursor();
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(cursor));
+        when(outboxEventRepository.findByIdGreaterThanOrIdInOrderById(12L, List.of(11L), Limit.of(3)))
+                .thenReturn(List.of(outboxEvent(11)));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert
+        assertThat(handled).isEqualTo(1);
+        assertThat(subscriber.eventIds).containsExactly(12L, 11L);
+        assertThat(cursor.getLastEventId()).isEqualTo(12);
+        assertThat(cursor.getGaps()).isEmpty();
+    }
+
+    @Test
+    void deliverBatch_shouldGiveUpOnSkippedIds_afterTheGapTimeout() {
+        // Arrange
+        OutboxCursor cursor = new OutboxCursor("recorder", 12);
+        cursor.getGaps().put(11L, LocalDateTime.now().minusMinutes(6));
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(cursor));
+
+        // Act
+        int handled = outboxRelay.deliverBatch(subscriber);
+
+        // Assert
+        assertThat(handled).isEqualTo(0);
+        verify(outboxEventRepository).findByIdGreaterThanOrderById(12L, Limit.of(3));
+        assertThat(savedCursor().getGaps()).isEmpty();
+    }
+
+    @Test
+    void deliverBatch_shouldNotWatchIdsSkippedByOldEvents() {
+        // Arrange, a consumer catching up on events older than the gap timeout
+        OutboxEvent old = outboxEvent(20);
+        old.setCreatedAt(LocalDateTime.now().minusHours(1));
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 10)));
+        when(outboxEventRepository.findByIdGreaterThanOrderById(10L, Limit.of(3))).thenReturn(List.of(old));
+        when(outboxService.decode(any())).thenReturn(new StockChangedEvent(1, 1, -1, 9, Reason.SALE));
+
+        // Act
+        outboxRelay.deliverBatch(subscriber);
+
+        // Assert
+        assertThat(savedCursor().getGaps()).isEmpty();
+    }
+
+    @Test
+    void purgeDeliveredEvents_shouldKeepEventsTheSlowestConsumerHasNotSeen() {
+        // Arrange
+        when(subscribers.orderedStream()).thenReturn(Stream.of(subscriber));
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(new OutboxCursor("recorder", 42)));
+
+        // Act
+        outboxRelay.purgeDeliveredEvents();
+
+        // Assert
+        verify(outboxEventRepository).deleteDelivered(eq(42L), any());
+    }
+
+    @Test
+    void purgeDeliveredEvents_shouldKeepEventsFromTheFirstSkippedIdOn() {
+        // Arrange
+        OutboxCursor cursor = new OutboxCursor("recorder", 42);
+        cursor.getGaps().put(40L, LocalDateTime.now());
+        when(subscribers.orderedStream()).thenReturn(Stream.of(subscriber));
+        when(outboxCursorRepository.findById("recorder")).thenReturn(Optional.of(cursor));
+
+        // Act
+        outboxRelay.purgeDeliveredEvents();
+
+        // Assert
+        verify(outboxEventRepository).deleteDelivered(eq(39L), any());
+    }
+
+    private OutboxCursor savedCursor() {
+        ArgumentCaptor<OutboxCursor> cursor = ArgumentCaptor.forClass(OutboxCursor.class);
+        verify(outboxCursorRepository).save(cursor.capture());
+        assertThat(cursor.getValue().getConsumer()).isEqualTo("recorder");
+        return cursor.getValue();
+    }
+
+    private static OutboxEvent outboxEvent(long id) {
+        OutboxEvent outboxEvent = new OutboxEvent("StockChangedEvent", "{}");
+        outboxEvent.setId(id);
+        return outboxEvent;
+    }
+
+    private static class RecordingSubscriber implements OutboxSubscriber {
+
+        private final List<Long> eventIds = new ArrayList<>();
+        private long failOn = -1;
+        private boolean failFlush;
+        private int flushes;
+
+        @Override
+        public String consumerName() {
+            return "recorder";
+        }
+
+        @Override
+        public void handle(long eventId, Object event) {
+            if (eventId == failOn) {
+                throw new IllegalStateException("consumer down");
+            }
+            eventIds.add(eventId);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+            if (failFlush) {
+                throw new IllegalStateException("disk full");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,219 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.project.code.Controller.InventoryController;
+import com.project.code.Model.CombinedRequest;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderPlacedEvent;
+import com.project.code.Model.OutboxEvent;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxCursorRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.exception.InventoryStockInsufficientException;
+
+@SpringBootTest
+class OutboxServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private OutboxService outboxService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private InventoryController inventoryController;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OutboxCursorRepository outboxCursorRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Store store1;
+    private Product product1;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        outboxCursorRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store1, product1, 5));
+    }
+
+    @Test
+    void saveOrder_shouldWriteOrderAndStockEventsInItsTransaction() {
+        // Action
+        OrderDetails orderDetails = orderService.saveOrder(order(2));
+
+        // Assert
+        List<Object> events = outboxEventRepository.findAll().stream().map(outboxService::decode).toList();
+        assertThat(events).hasSize(2);
+        assertThat(events.get(0))
+                .isEqualTo(new StockChangedEvent(store1.getId(), product1.getId(), -2, 3, Reason.SALE));
+        OrderPlacedEvent orderPlaced = (OrderPlacedEvent) events.get(1);
+        assertThat(orderPlaced.orderId()).isEqualTo(orderDetails.getId());
+        assertThat(orderPlaced.totalPrice()).isEqualTo(500.00);
+        assertThat(orderPlaced.lines())
+                .containsExactly(new OrderPlacedEvent.Line(product1.getId(), "Category1", 2, 250.00));
+    }
+
+    @Test
+    void saveOrder_shouldWriteNoEvents_whenOrderIsRolledBack() {
+        // Action
+        assertThatThrownBy(() -> orderService.saveOrder(order(6)))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+
+        // Assert
+        assertThat(outboxEventRepository.count()).isEqualTo(0);
+    }
+
+    @Test
+    void updateInventory_shouldWriteStockEvent() {
+        // Arrange
+        CombinedRequest request = new CombinedRequest();
+        request.setProduct(product1);
+        request.setInventory(new Inventory(store1, product1, 8));
+
+        // Action
+        inventoryController.updateInventory(request);
+
+        // Assert
+        List<OutboxEvent> outboxEvents = outboxEventRepository.findAll();
+        assertThat(outboxEvents).hasSize(1);
+        assertThat(outboxService.decode(outboxEvents.get(0)))
+                .isEqualTo(new StockChangedEvent(store1.getId(), product1.getId(), 3, 8, Reason.ADJUSTMENT));
+    }
+
+    @Test
+    void deliverBatch_shouldResumeFromPersistedCursor() {
+        // Arrange
+        orderService.saveOrder(order(1));
+        List<Long> firstDelivery = new ArrayList<>();
+        outboxRelay.deliverBatch(subscriber(firstDelivery));
+        orderService.saveOrder(order(1));
+
+        // Action
+        List<Long> secondDelivery = new ArrayList<>();
+        outboxRelay.deliverBatch(subscriber(secondDelivery));
+
+        // Assert
+        assertThat(firstDelivery).hasSize(2);
+        assertThat(secondDelivery).hasSize(2);
+        assertThat(secondDelivery.get(0)).isGreaterThan(firstDelivery.get(1));
+        assertThat(outboxCursorRepository.findById("test-consumer").orElseThrow().getLastEventId())
+                .isEqualTo(secondDelivery.get(1));
+    }
+
+    @Test
+    void deliverBatch_shouldHandOverAnEventCommittedAfterALaterOne() throws Exception {
+        // Arrange, a slow transaction writes an event and commits only after an order placed behind it
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> transactionTemplate
+                .executeWithoutResult(status -> {
+                    outboxService.onStockChanged(
+                            new StockChangedEvent(store1.getId(), product1.getId(), 1, 6, Reason.RESTOCK));
+                    outboxEventRepository.flush();
+                    written.countDown();
+                    await(release);
+                }));
+        written.await(5, TimeUnit.SECONDS);
+        orderService.saveOrder(order(1));
+        List<Long> beforeCommit = new ArrayList<>();
+        outboxRelay.deliverBatch(subscriber(beforeCommit));
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+
+        // Action
+        List<Long> afterCommit = new ArrayList<>();
+        outboxRelay.deliverBatch(subscriber(afterCommit));
+
+        // Assert
+        assertThat(beforeCommit).hasSize(2);
+        assertThat(afterCommit).hasSize(1);
+        assertThat(afterCommit.get(0)).isLessThan(beforeCommit.get(0));
+        assertThat(outboxCursorRepository.findById("test-consumer").orElseThrow().getGaps())
+                .doesNotContainKey(afterCommit.get(0));
+    }
+
+    private OutboxSubscriber subscriber(List<Long> deliveredIds) {
+        return new OutboxSubscriber() {
+            @Override
+            public String consumerName() {
+                return "test-consumer";
+            }
+
+            @Override
+            public void handle(long eventId, Object event) {
+                deliveredIds.add(eventId);
+            }
+        };
+    }
+
+    private PlaceOrderRequestDTO order(int quantity) {
+        return new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer One",
+                "customer1@mail.com",
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), quantity,
+                        product1.getPrice() * quantity)));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
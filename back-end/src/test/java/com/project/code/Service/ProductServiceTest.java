@@ -17,10 +17,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import com.project.code.Model.Inventory;
 import com.project.code.Model.Product;
 import com.project.code.Model.ProductDto;
-import com.project.code.Model.Store;
 import com.project.code.Repo.InventoryRepository;
 import com.project.code.Repo.ProductRepository;
 
@@ -36,6 +34,9 @@ class ProductServiceTest {
     @Mock
     private ServiceClass serviceClass;
 
+    @Mock
+    private AvailabilityIndexService availabilityIndexService;
+
     @InjectMocks
     private ProductService productService;
 
@@ -175,13 +176,8 @@ class ProductServiceTest {
     @Test
     void getProductByCategoryAndStoreId_shouldReturnFilteredProducts() {
         // Arrange
-        Store store = new Store("Test Store", "Test Address");
-        store.setId(1L);
-        Inventory inventory = new Inventory(store, product, 10);
-        product.setInventories(List.of(inventory));
-
         List<Product> products = List.of(product);
-        when(productRepository.findProductByCategory("Test Category")).thenReturn(products);
+        when(productRepository.findByCategoryAndStoreId("Test Category", 1L)).thenReturn(products);
 
         // Act
         List<ProductDto> result = productService.getProductByCategoryAndStoreId("Test Category", 1L);
@@ -189,7 +185,7 @@ class ProductServiceTest {
         // Assert
         assertThat(result).hasSize(1);
         assertThat(result.get(0)).isEqualTo(productDto);
-        verify(productRepository).findProductByCategory("Test Category");
+        verify(productRepository).findByCategoryAndStoreId("Test Category", 1L);
     }
 
     @Test
@@ -203,6 +199,7 @@ class ProductServiceTest {
         // Assert
         verify(serviceClass).ValidateProductId(1L);
         verify(inventoryRepository).deleteByProductId(1L);
+        verify(availabilityIndexService).productRemoved(1L);
         verify(productRepository).deleteById(1L);
     }
 
@@ -218,6 +215,7 @@ class ProductServiceTest {
 
         verify(serviceClass).ValidateProductId(1L);
         verify(inventoryRepository, never()).deleteByProductId(1L);
+        verify(availabilityIndexService, never()).productRemoved(1L);
         verify(productRepository, never()).deleteById(1L);
     }
 
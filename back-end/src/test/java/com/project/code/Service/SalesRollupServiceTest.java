@@ -0,0 +1,214 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.Customer;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.OrderDetails;
+import com.project.code.Model.OrderItem;
+import com.project.code.Model.OutboxCursor;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.ProductSalesDto;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StoreSalesDto;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CategoryStoreDailySalesRepository;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxCursorRepository;
+import com.project.code.Repo.ProductDailySalesRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreDailySalesRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.exception.InventoryStockInsufficientException;
+
+@SpringBootTest
+class SalesRollupServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private SalesReportService salesReportService;
+    @Autowired
+    private StoreDailySalesRepository storeDailySalesRepository;
+    @Autowired
+    private ProductDailySalesRepository productDailySalesRepository;
+    @Autowired
+    private CategoryStoreDailySalesRepository categoryStoreDailySalesRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxCursorRepository outboxCursorRepository;
+
+    private Store store1;
+    private Store store2;
+    private Product phone;
+    private Product charger;
+    private Product laptop;
+
+    @BeforeEach
+    void setup() {
+        // orders placed by earlier tests would otherwise reach the rollups after they were cleared
+        outboxRelay.relay();
+        storeDailySalesRepository.deleteAllInBatch();
+        productDailySalesRepository.deleteAllInBatch();
+        categoryStoreDailySalesRepository.deleteAllInBatch();
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        phone = productRepository.save(new Product("Phone1", "Mobile", 100.00, "SKU001"));
+        charger = productRepository.save(new Product("Charger1", "Mobile", 10.00, "SKU002"));
+        laptop = productRepository.save(new Product("Laptop1", "Computer", 1000.00, "SKU003"));
+        for (Store store : List.of(store1, store2)) {
+            for (Product product : List.of(phone, charger, laptop)) {
+                inventoryRepository.save(new Inventory(store, product, 10));
+            }
+        }
+    }
+
+    @Test
+    void relay_incrementsEveryRollupOfTheDay() {
+        // Arrange
+        placeOrder(store1, line(phone, 2), line(charger, 3));
+        placeOrder(store1, line(laptop, 1), line(phone, 1));
+        placeOrder(store2, line(charger, 1));
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        assertThat(salesReportService.revenueByStore(1)).containsExactly(
+                new StoreSalesDto(store1.getId(), "Store1", 2, 7, 1330.00),
+                new StoreSalesDto(store2.getId(), "Store2", 1, 1, 10.00));
+        assertThat(salesReportService.revenueByCategory(store1.getId(), 1)).containsExactly(
+                new CategorySalesDto("Computer", 1, 1000.00),
+                new CategorySalesDto("Mobile", 6, 330.00));
+        assertThat(salesReportService.topSellingProducts(1, 2)).containsExactly(
+                new ProductSalesDto(charger.getId(), "Charger1", 4, 40.00),
+                new ProductSalesDto(phone.getId(), "Phone1", 3, 300.00));
+        assertThat(salesReportService.dailySalesOfStore(store2.getId(), 30)).singleElement()
+                .satisfies(day -> assertThat(day.getOrderCount()).isEqualTo(1));
+    }
+
+    @Test
+    void relay_rolledBackOrderIsNotCounted() {
+        // Arrange
+        placeOrder(store1, line(phone, 1));
+        assertThatThrownBy(() -> placeOrder(store1, line(charger, 1), line(phone, 100)))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        assertThat(salesReportService.revenueByStore(1)).containsExactly(
+                new StoreSalesDto(store1.getId(), "Store1", 1, 1, 100.00));
+        assertThat(salesReportService.topSellingProducts(1, 10)).extracting(ProductSalesDto::productId)
+                .containsExactly(phone.getId());
+    }
+
+    @Test
+    void relay_eventHandedOverAgainIsNotCountedTwice() {
+        // Arrange
+        placeOrder(store1, line(phone, 2));
+        outboxRelay.relay();
+        // the relay failed to store the cursor after the rollups were flushed, it starts over
+        OutboxCursor cursor = outboxCursorRepository.findById(salesRollupService.consumerName()).orElseThrow();
+        cursor.setLastEventId(0);
+        cursor.getGaps().clear();
+        outboxCursorRepository.save(cursor);
+
+        // Act
+        outboxRelay.relay();
+
+        // Assert
+        assertThat(salesReportService.revenueByStore(1)).containsExactly(
+                new StoreSalesDto(store1.getId(), "Store1", 1, 2, 200.00));
+        assertThat(salesReportService.topSellingProducts(1, 10)).containsExactly(
+                new ProductSalesDto(phone.getId(), "Phone1", 2, 200.00));
+    }
+
+    @Test
+    void rebuild_ordersStillInTheOutboxAreNotCountedAgain() {
+        // Arrange
+        placeOrder(store1, line(phone, 2));
+
+        // Act
+        salesRollupService.rebuild();
+        outboxRelay.relay();
+
+        // Assert
+        assertThat(salesReportService.revenueByStore(1)).containsExactly(
+                new StoreSalesDto(store1.getId(), "Store1", 1, 2, 200.00));
+    }
+
+    @Test
+    void rebuild_matchesIncrementalRollupsAndCoversOlderOrders() {
+        // Arrange
+        placeOrder(store1, line(phone, 2), line(charger, 3));
+        placeOrder(store2, line(laptop, 1));
+        outboxRelay.relay();
+        List<StoreSalesDto> incremental = salesReportService.revenueByStore(1);
+        // an order from before the rollups existed, 40 days ago
+        Customer customer = customerRepository.findAll().get(0);
+        OrderDetails oldOrder = new OrderDetails(customer, store2);
+        oldOrder.setOrderDate(LocalDateTime.now().minusDays(40));
+        oldOrder.setTotalPrice(100.00);
+        oldOrder = orderDetailsRepository.save(oldOrder);
+        orderItemRepository.save(new OrderItem(oldOrder, phone, 1, 100.00));
+
+        // Act
+        salesRollupService.rebuild();
+
+        // Assert
+        assertThat(salesReportService.revenueByStore(1)).isEqualTo(incremental);
+        assertThat(salesReportService.revenueByStore(30)).isEqualTo(incremental);
+        assertThat(salesReportService.revenueByStore(60)).containsExactly(
+                new StoreSalesDto(store2.getId(), "Store2", 2, 2, 1100.00),
+                new StoreSalesDto(store1.getId(), "Store1", 1, 5, 230.00));
+    }
+
+    private void placeOrder(Store store, PurchaseProductDTO... lines) {
+        orderService.saveOrder(new PlaceOrderRequestDTO(store.getId(), "Customer One", "customer1@mail.com",
+                "0939451111", LocalDateTime.now().toString(), List.of(lines)));
+    }
+
+    private PurchaseProductDTO line(Product product, int quantity) {
+        return new PurchaseProductDTO(product.getId(), product.getName(), product.getPrice(), quantity,
+                product.getPrice() * quantity);
+    }
+
+}
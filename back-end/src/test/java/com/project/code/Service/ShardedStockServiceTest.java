@@ -0,0 +1,125 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Customer;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryShard;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class ShardedStockServiceTest {
+
+    @Autowired
+    private ShardedStockService shardedStockService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Customer customer1;
+    private Store store1;
+    private Product product1;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        customer1 = customerRepository.save(new Customer("Customer One", "customer1@mail.com", "0939451111"));
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store1, product1, 10));
+    }
+
+    @Test
+    void reshard_shouldSpreadStockOverBuckets() {
+        // Action
+        Inventory inventory = shardedStockService.reshard(store1.getId(), product1.getId(), 4);
+        // Assert
+        List<InventoryShard> shards = inventoryShardRepository.findByInventoryIdOrderByShardIndex(inventory.getId());
+        assertThat(shards).extracting(InventoryShard::getStockLevel).containsExactly(3, 3, 2, 2);
+        assertThat(inventory.getStockLevel()).isEqualTo(0);
+        assertThat(shardedStockService.totalStock(inventory)).isEqualTo(10);
+    }
+
+    @Test
+    void reshard_toZero_shouldFoldBucketsBackIntoTheRow() {
+        // Arrange
+        shardedStockService.reshard(store1.getId(), product1.getId(), 4);
+        // Action
+        Inventory inventory = shardedStockService.reshard(store1.getId(), product1.getId(), 0);
+        // Assert
+        assertThat(inventory.isSharded()).isFalse();
+        assertThat(inventory.getStockLevel()).isEqualTo(10);
+        assertThat(inventoryShardRepository.findByInventoryIdOrderByShardIndex(inventory.getId())).isEmpty();
+    }
+
+    @Test
+    void saveOrder_whenSkuIsSharded_deductsAcrossBuckets() {
+        // Arrange, no single bucket holds 7
+        shardedStockService.reshard(store1.getId(), product1.getId(), 4);
+        PlaceOrderRequestDTO placeOrderRequest = new PlaceOrderRequestDTO(
+                store1.getId(),
+                customer1.getName(),
+                customer1.getEmail(),
+                customer1.getPhone(),
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), 7,
+                        1750.00)));
+        // Action
+        orderService.saveOrder(placeOrderRequest);
+        // Assert
+        Inventory inventory = inventoryRepository.findByStoreIdAndProductId(store1.getId(), product1.getId())
+                .orElseThrow();
+        assertThat(inventory.getStockLevel()).isEqualTo(0);
+        assertThat(shardedStockService.totalStock(inventory)).isEqualTo(3);
+    }
+
+    @Test
+    void setTotalStock_shouldRedistributeOverExistingBuckets() {
+        // Arrange
+        Inventory inventory = shardedStockService.reshard(store1.getId(), product1.getId(), 2);
+        // Action
+        shardedStockService.setTotalStock(inventory, 5);
+        // Assert
+        List<InventoryShard> shards = inventoryShardRepository.findByInventoryIdOrderByShardIndex(inventory.getId());
+        assertThat(shards).extracting(InventoryShard::getStockLevel).containsExactly(3, 2);
+    }
+
+}
@@ -0,0 +1,264 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StockChangedEvent;
+import com.project.code.Model.StockChangedEvent.Reason;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.OutboxIdentityRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.LedgerProperties;
+import com.project.code.ledger.LedgerEntry;
+
+// off by default; a directory per context, cached contexts must not share the mapped files
+@SpringBootTest(properties = { "ledger.enabled=true", "ledger.directory=target/stock-ledger-${random.uuid}" })
+class StockLedgerServiceTest {
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private StockLedgerService stockLedgerService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private LedgerProperties ledgerProperties;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private OutboxIdentityRepository outboxIdentityRepository;
+
+    private String defaultDirectory;
+    private Store store1;
+    private Product product1;
+    private Product product2;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        product2 = productRepository.save(new Product("Product2", "Category1", 300.00, "SKU002"));
+        inventoryRepository.save(new Inventory(store1, product1, 10));
+        inventoryRepository.save(new Inventory(store1, product2, 4));
+
+        // an empty directory, the ledger seeds its first snapshot from the rows above
+        defaultDirectory = ledgerProperties.getDirectory();
+        ledgerProperties.setDirectory(directory.toString());
+        stockLedgerService.rebuild();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ledgerProperties.setDirectory(defaultDirectory);
+        stockLedgerService.rebuild();
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void stockChanges_shouldBeRecorded_andRebuiltFromSnapshotAndLog() {
+        // Arrange
+        sell(3);
+        inventoryBulkService.update(List.of(new InventoryUpdateDto(store1.getId(), product2.getId(), 20)));
+        outboxRelay.relay();
+        long snapshotSequence = stockLedgerService.snapshot();
+        sell(2);
+        outboxRelay.relay();
+
+        // Action
+        stockLedgerService.rebuild();
+
+        // Assert
+        assertThat(snapshotSequence).isEqualTo(2);
+        assertThat(stockLedgerService.lastSequence()).isEqualTo(3);
+        assertThat(stockLedgerService.stockLevel(store1.getId(), product1.getId())).hasValue(5);
+        assertThat(stockLedgerService.stockLevel(store1.getId(), product2.getId())).hasValue(20);
+        assertThat(stockLedgerService.history(store1.getId(), product1.getId(), 10))
+                .extracting(LedgerEntry::sequence, LedgerEntry::delta, LedgerEntry::reason)
+                .containsExactly(
+                        tuple(3L, -2, Reason.SALE),
+                        tuple(1L, -3, Reason.SALE));
+    }
+
+    @Test
+    void restore_shouldSetStockBackToTheGivenSequence() {
+        // Arrange, a bad bulk update after one sale
+        sell(1);
+        outboxRelay.relay();
+        long beforeBadUpdate = stockLedgerService.lastSequence();
+        inventoryBulkService.update(List.of(
+                new InventoryUpdateDto(store1.getId(), product1.getId(), 0),
+                new InventoryUpdateDto(store1.getId(), product2.getId(), 1)));
+        outboxRelay.relay();
+
+        // Action
+        stockLedgerService.restore(store1.getId(), beforeBadUpdate);
+        outboxRelay.relay();
+
+        // Assert
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow().getStockLevel())
+                .isEqualTo(9);
+        assertThat(inventoryRepository.findByStoreAndProduct(store1, product2).orElseThrow().getStockLevel())
+                .isEqualTo(4);
+        assertThat(stockLedgerService.history(store1.getId(), product1.getId(), 1)).singleElement()
+                .satisfies(entry -> {
+                    assertThat(entry.reason()).isEqualTo(Reason.ADJUSTMENT);
+                    assertThat(entry.stockLevel()).isEqualTo(9);
+                });
+    }
+
+    @Test
+    void handle_shouldIgnoreAnEventHandedOverAgain() {
+        // Arrange
+        sell(1);
+        outboxRelay.relay();
+        LedgerEntry recorded = stockLedgerService.history(store1.getId(), product1.getId(), 1).get(0);
+
+        // Action
+        stockLedgerService.handle(recorded.eventId(), new StockChangedEvent(store1.getId(), product1.getId(), -1,
+                null, Reason.SALE));
+
+        // Assert
+        assertThat(stockLedgerService.lastSequence()).isEqualTo(recorded.sequence());
+        assertThat(stockLedgerService.stockLevel(store1.getId(), product1.getId())).hasValue(9);
+    }
+
+    @Test
+    void handle_shouldRecordAnEventThatCommittedAfterALaterOne() {
+        // Arrange
+        sell(1);
+        outboxRelay.relay();
+        LedgerEntry first = stockLedgerService.history(store1.getId(), product1.getId(), 1).get(0);
+        sell(1);
+        outboxRelay.relay();
+
+        // Action, an id between the two sales that the relay skipped over
+        stockLedgerService.handle(first.eventId() + 1, new StockChangedEvent(store1.getId(), product2.getId(), -1,
+                null, Reason.SALE));
+
+        // Assert
+        assertThat(stockLedgerService.history(store1.getId(), product2.getId(), 1))
+                .extracting(LedgerEntry::eventId)
+                .containsExactly(first.eventId() + 1);
+        assertThat(stockLedgerService.stockLevel(store1.getId(), product2.getId())).hasValue(3);
+    }
+
+    @Test
+    void rebuild_shouldSeedAnew_whenTheOutboxWasRecreated() throws Exception {
+        // Arrange, the database was recreated: a new outbox whose event ids start over
+        sell(1);
+        outboxRelay.relay();
+        stockLedgerService.snapshot();
+        outboxIdentityRepository.deleteAll();
+
+        // Action
+        stockLedgerService.rebuild();
+
+        // Assert
+        assertThat(stockLedgerService.lastSequence()).isEqualTo(0);
+        assertThat(stockLedgerService.history(store1.getId(), product1.getId(), 10)).isEmpty();
+        assertThat(stockLedgerService.stockLevel(store1.getId(), product1.getId())).hasValue(9);
+        List<Path> superseded = supersededDirectories();
+        assertThat(superseded).hasSize(1);
+        try (Stream<Path> files = Files.list(superseded.get(0))) {
+            assertThat(files.map(file -> file.getFileName().toString())).contains("outbox-id",
+                    "ledger-00000000000000000001.log", "snapshot-00000000000000000000.snap",
+                    "snapshot-00000000000000000001.snap");
+        }
+    }
+
+    @Test
+    void rebuild_shouldKeepOnlyTheNewestSupersededFiles() throws Exception {
+        // Arrange, each rebuild finds the outbox recreated
+        List<Path> superseded = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            outboxIdentityRepository.deleteAll();
+            stockLedgerService.rebuild();
+            List<Path> current = supersededDirectories();
+            superseded.add(current.get(current.size() - 1));
+            // the directories are named by the millisecond they were set aside in
+            Thread.sleep(2);
+        }
+
+        // Assert
+        assertThat(supersededDirectories()).containsExactlyElementsOf(superseded.subList(1, 3));
+    }
+
+    @Test
+    void levelsAt_shouldRejectASequencePastTheEnd() {
+        assertThatThrownBy(() -> stockLedgerService.levelsAt(store1.getId(), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private List<Path> supersededDirectories() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("superseded-")).sorted().toList();
+        }
+    }
+
+    private void sell(int quantity) {
+        orderService.saveOrder(new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer One",
+                "customer1@mail.com",
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), quantity,
+                        product1.getPrice() * quantity))));
+    }
+
+}
@@ -0,0 +1,196 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.StockItemDto;
+import com.project.code.Model.StockReservation;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.config.ReservationProperties;
+import com.project.code.exception.InventoryStockInsufficientException;
+import com.project.code.exception.ReservationLimitExceededException;
+import com.project.code.exception.ReservationNotFoundException;
+
+@SpringBootTest
+class StockReservationServiceTest {
+
+    @Autowired
+    private StockReservationService stockReservationService;
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+    @Autowired
+    private ReservationProperties reservationProperties;
+
+    private Store store1;
+    private Product product1;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        product1 = productRepository.save(new Product("Product1", "Category1", 250.00, "SKU001"));
+        inventoryRepository.save(new Inventory(store1, product1, 5));
+    }
+
+    @AfterEach
+    void resetLimits() {
+        reservationProperties.setMaxHoldsPerStore(10_000);
+        reservationProperties.setMaxHoldsPerCustomer(5);
+    }
+
+    @Test
+    void reserve_shouldHoldStockAgainstOtherReservations() {
+        // Arrange
+        StockReservation reservation = stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 4)), Duration.ofMinutes(1));
+
+        // Action, Assert
+        assertThat(stockReservationService.reservedQuantity(store1.getId(), product1.getId())).isEqualTo(4);
+        assertThatThrownBy(() -> stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 2)), Duration.ofMinutes(1)))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+
+        stockReservationService.release(reservation.id());
+        assertThat(stockReservationService.reservedQuantity(store1.getId(), product1.getId())).isEqualTo(0);
+    }
+
+    @Test
+    void reserve_shouldExpireAfterTtl() throws InterruptedException {
+        // Arrange
+        StockReservation reservation = stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 4)), Duration.ofSeconds(1));
+
+        // Action
+        Thread.sleep(1_500);
+
+        // Assert
+        assertThat(stockReservationService.find(reservation.id())).isEmpty();
+        assertThat(stockReservationService.reservedQuantity(store1.getId(), product1.getId())).isEqualTo(0);
+    }
+
+    @Test
+    void saveOrder_withoutReservation_cannotTakeHeldStock() {
+        // Arrange
+        StockReservation reservation = stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 4)), Duration.ofMinutes(1));
+
+        // Action, Assert, only 1 of the 5 units is free
+        assertThatThrownBy(() -> orderService.saveOrder(order(2, null)))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+        stockReservationService.release(reservation.id());
+    }
+
+    @Test
+    void saveOrder_withReservation_sellsTheHeldStockAndReleasesTheHold() {
+        // Arrange
+        StockReservation reservation = stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 4)), Duration.ofMinutes(1));
+
+        // Action
+        orderService.saveOrder(order(4, reservation.id()));
+
+        // Assert
+        Inventory inventory = inventoryRepository.findByStoreAndProduct(store1, product1).orElseThrow();
+        assertThat(inventory.getStockLevel()).isEqualTo(1);
+        assertThat(stockReservationService.find(reservation.id())).isEmpty();
+        assertThat(stockReservationService.reservedQuantity(store1.getId(), product1.getId())).isEqualTo(0);
+    }
+
+    @Test
+    void saveOrder_withUnknownReservation_returnException() {
+        // Action, Assert
+        assertThatThrownBy(() -> orderService.saveOrder(order(1, "unknown")))
+                .isInstanceOf(ReservationNotFoundException.class);
+    }
+
+    @Test
+    void reserve_shouldCapTheOpenHoldsOfACustomer() {
+        // Arrange
+        reservationProperties.setMaxHoldsPerCustomer(2);
+        StockReservation first = reserveOne("jane@mail.com");
+        StockReservation second = reserveOne("jane@mail.com");
+
+        // Action, Assert
+        assertThatThrownBy(() -> reserveOne(" Jane@Mail.com"))
+                .isInstanceOf(ReservationLimitExceededException.class);
+        StockReservation otherCustomer = reserveOne("john@mail.com");
+        stockReservationService.release(first.id());
+        StockReservation third = reserveOne("jane@mail.com");
+
+        List.of(second, otherCustomer, third).forEach(reservation -> stockReservationService.release(reservation.id()));
+    }
+
+    @Test
+    void reserve_shouldCapTheOpenHoldsOfAStore_countingOnlyHoldsThatWereTaken() {
+        // Arrange
+        reservationProperties.setMaxHoldsPerStore(1);
+        assertThatThrownBy(() -> stockReservationService.reserve(store1.getId(),
+                List.of(new StockItemDto(product1.getId(), 6)), Duration.ofMinutes(1)))
+                .isInstanceOf(InventoryStockInsufficientException.class);
+        StockReservation reservation = reserveOne(null);
+
+        // Action, Assert
+        assertThatThrownBy(() -> reserveOne("jane@mail.com")).isInstanceOf(ReservationLimitExceededException.class);
+        stockReservationService.release(reservation.id());
+        // the customer's slot wasn't kept by the refused hold
+        reservationProperties.setMaxHoldsPerCustomer(1);
+        stockReservationService.release(reserveOne("jane@mail.com").id());
+    }
+
+    private StockReservation reserveOne(String customerEmail) {
+        return stockReservationService.reserve(store1.getId(), customerEmail,
+                List.of(new StockItemDto(product1.getId(), 1)), Duration.ofMinutes(1));
+    }
+
+    private PlaceOrderRequestDTO order(int quantity, String reservationId) {
+        PlaceOrderRequestDTO request = new PlaceOrderRequestDTO(
+                store1.getId(),
+                "Customer One",
+                "customer1@mail.com",
+                "0939451111",
+                LocalDateTime.now().toString(),
+                List.of(new PurchaseProductDTO(product1.getId(), product1.getName(), product1.getPrice(), quantity,
+                        product1.getPrice() * quantity)));
+        request.setReservationId(reservationId);
+        return request;
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.project.code.Service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.code.Model.CatalogPageRequest;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+@SpringBootTest
+class StoreCatalogServiceTest {
+
+    @Autowired
+    private StoreCatalogService storeCatalogService;
+    @Autowired
+    private ShardedStockService shardedStockService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store1;
+    private List<Product> products;
+
+    @BeforeEach
+    void setup() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        store1 = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        Store store2 = storeRepository.save(new Store("Store2", "222/2 Bangkok"));
+        products = new ArrayList<>();
+        int[] stockLevels = { 30, 10, 20 };
+        for (int i = 0; i < stockLevels.length; i++) {
+            Product product = productRepository.save(
+                    new Product("Phone" + (i + 1), "Mobile", 100.00 * (i + 1), "SKU00" + (i + 1)));
+            inventoryRepository.save(new Inventory(store1, product, stockLevels[i]));
+            inventoryRepository.save(new Inventory(store2, product, 99));
+            products.add(product);
+        }
+    }
+
+    @Test
+    void writeStoreProducts_shouldPageInIdOrderByDefault() throws Exception {
+        // Act
+        JsonNode page1 = storeProducts(CatalogPageRequest.of(0, 2, null));
+        JsonNode page2 = storeProducts(CatalogPageRequest.of(1, 2, null));
+
+        // Assert
+        assertThat(ids(page1)).containsExactly(products.get(0).getId(), products.get(1).getId());
+        assertThat(page1.get("hasNext").asBoolean()).isTrue();
+        assertThat(ids(page2)).containsExactly(products.get(2).getId());
+        assertThat(page2.get("hasNext").asBoolean()).isFalse();
+        assertThat(page2.get("page").asInt()).isEqualTo(1);
+    }
+
+    @Test
+    void writeStoreProducts_shouldSortByTotalStock_withShardsSummed() throws Exception {
+        // Arrange, the 10 of Phone2 spread over buckets still count as 10
+        shardedStockService.reshard(store1.getId(), products.get(1).getId(), 4);
+
+        // Act
+        JsonNode page = storeProducts(CatalogPageRequest.of(null, null, "stockLevel,desc"));
+
+        // Assert
+        assertThat(ids(page)).containsExactly(products.get(0).getId(), products.get(2).getId(),
+                products.get(1).getId());
+        JsonNode product = page.get("products").get(2);
+        assertThat(product.get("stockLevel").asLong()).isEqualTo(10);
+        assertThat(product.get("name").asText()).isEqualTo("Phone2");
+        assertThat(product.get("sku").asText()).isEqualTo("SKU002");
+        assertThat(product.has("inventories")).isFalse();
+    }
+
+    private JsonNode storeProducts(CatalogPageRequest page) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        storeCatalogService.writeStoreProducts(store1.getId(), page, out);
+        return objectMapper.readTree(out.toByteArray());
+    }
+
+    private static List<Long> ids(JsonNode page) {
+        List<Long> ids = new ArrayList<>();
+        page.get("products").forEach(product -> ids.add(product.get("id").asLong()));
+        return ids;
+    }
+
+}
@@ -0,0 +1,156 @@
+package com.project.code.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.code.Model.CategorySalesDto;
+import com.project.code.Model.ProductSalesDto;
+
+class OrderLineColumnsTest {
+
+    private OrderLineColumns.Builder builder;
+
+    @BeforeEach
+    void setup() {
+        // tiny initial capacity, so the columns grow while the orders are added
+        builder = new OrderLineColumns.Builder(1, 1);
+        builder.addOrder(1L, 10L, 100);
+        builder.addLine(501L, "Phone1", "Mobile", 2, 10_000);
+        builder.addLine(502L, "Charger1", "Mobile", 3, 1_000);
+        builder.addOrder(2L, 10L, 101);
+        builder.addLine(503L, "Laptop1", "Computer", 1, 100_000);
+        builder.addLine(501L, null, "Mobile", 1, 10_000);
+        builder.addOrder(3L, 20L, 101);
+        builder.addLine(502L, null, "Mobile", 1, 1_000);
+    }
+
+    @Test
+    void topSellers_ranksByUnitsThenProductId() {
+        // Arrange
+        OrderLineColumns columns = builder.snapshot();
+
+        // Act
+        List<ProductSalesDto> topSellers = columns.topSellers(columns.filter(null, 0, 1000), 2);
+
+        // Assert
+        assertThat(topSellers).containsExactly(
+                new ProductSalesDto(502L, "Charger1", 4, 40.00),
+                new ProductSalesDto(501L, "Phone1", 3, 300.00));
+    }
+
+    @Test
+    void revenueByCategory_filtersByStoreAndDay() {
+        // Arrange
+        OrderLineColumns columns = builder.snapshot();
+
+        // Act
+        List<CategorySalesDto> store10 = columns.revenueByCategory(columns.filter(10L, 0, 1000));
+        List<CategorySalesDto> day101 = columns.revenueByCategory(columns.filter(null, 101, 101));
+
+        // Assert
+        assertThat(store10).containsExactly(
+                new CategorySalesDto("Computer", 1, 1000.00),
+                new CategorySalesDto("Mobile", 6, 330.00));
+        assertThat(day101).containsExactly(
+                new CategorySalesDto("Computer", 1, 1000.00),
+                new CategorySalesDto("Mobile", 2, 110.00));
+    }
+
+    @Test
+    void filter_unknownStoreMatchesNothing() {
+        // Arrange
+        OrderLineColumns columns = builder.snapshot();
+
+        // Act, Assert
+        assertThat(columns.topSellers(columns.filter(99L, 0, 1000), 10)).isEmpty();
+    }
+
+    @Test
+    void basketSizeHistogram_countsOrdersByUnits() {
+        // Arrange
+        builder.addOrder(4L, 20L, 102);
+        builder.addLine(501L, null, "Mobile", 250, 10_000);
+        OrderLineColumns columns = builder.snapshot();
+
+        // Act
+        long[] histogram = columns.basketSizeHistogram(columns.filter(null, 0, 1000));
+
+        // Assert
+        assertThat(histogram[1]).isEqualTo(1);
+        assertThat(histogram[2]).isEqualTo(1);
+        assertThat(histogram[3]).isZero();
+        assertThat(histogram[5]).isEqualTo(1);
+        assertThat(histogram[OrderLineColumns.MAX_BASKET_UNITS]).isEqualTo(1);
+    }
+
+    @Test
+    void snapshot_isNotChangedByLaterAppends() {
+        // Arrange
+        OrderLineColumns before = builder.snapshot();
+
+        // Act
+        for (long order = 10; order < 100; order++) {
+            builder.addOrder(order, 30L, 200);
+            builder.addLine(600L + order, "Product" + order, "Tablet", 1, 500);
+        }
+
+        // Assert
+        assertThat(before.lineCount()).isEqualTo(5);
+        assertThat(before.revenueByCategory(before.filter(null, 0, 1000)))
+                .extracting(CategorySalesDto::category)
+                .containsExactly("Computer", "Mobile");
+        assertThat(builder.snapshot().lineCount()).isEqualTo(95);
+    }
+
+    @Test
+    void isLoaded_onlyCoversTheBulkLoad() {
+        // Arrange
+        builder.markLoaded();
+        builder.addOrder(7L, 10L, 103);
+
+        // Act, Assert
+        assertThat(builder.isLoaded(2L)).isTrue();
+        assertThat(builder.isLoaded(7L)).isFalse();
+    }
+
+    @Test
+    void parallelAggregation_matchesAPlainLoop() {
+        // Arrange, enough lines for several fork-join partitions
+        Random random = new Random(42);
+        OrderLineColumns.Builder large = new OrderLineColumns.Builder(0, 0);
+        int lines = OrderLineColumns.PARTITION_SIZE * 5 + 123;
+        long[] expectedUnits = new long[50];
+        long[] expectedCents = new long[50];
+        for (int line = 0; line < lines; line++) {
+            long store = random.nextInt(3);
+            int day = random.nextInt(30);
+            int product = random.nextInt(50);
+            int quantity = 1 + random.nextInt(5);
+            long priceCents = 100 + random.nextInt(10_000);
+            large.addOrder(line, store, day);
+            large.addLine(product, "Product" + product, "Category" + product % 7, quantity, priceCents);
+            if (store == 1 && day >= 10 && day <= 19) {
+                expectedUnits[product] += quantity;
+                expectedCents[product] += quantity * priceCents;
+            }
+        }
+        OrderLineColumns columns = large.snapshot();
+
+        // Act
+        List<ProductSalesDto> topSellers = columns.topSellers(columns.filter(1L, 10, 19), 50);
+
+        // Assert
+        assertThat(topSellers).hasSize(50);
+        for (ProductSalesDto product : topSellers) {
+            assertThat(product.unitsSold()).isEqualTo(expectedUnits[(int) product.productId()]);
+            assertThat(product.revenue()).isEqualTo(expectedCents[(int) product.productId()] / 100.0);
+        }
+        assertThat(topSellers).isSortedAccordingTo((a, b) -> Long.compare(b.unitsSold(), a.unitsSold()));
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.project.code.archive;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class OrderSegmentTest {
+
+    private static final LocalDateTime NEWEST = LocalDateTime.of(2024, 3, 10, 18, 30, 15, 123_456_000);
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void publish_roundTripsEveryOrderNewestFirstAcrossBlocks() throws Exception {
+        // Arrange
+        List<ArchivedOrder> orders = orders(10);
+
+        // Act
+        try (OrderSegment segment = write(orders, 3)) {
+
+            // Assert
+            assertThat(segment.orders()).containsExactlyElementsOf(orders);
+            assertThat(segment.orderCount()).isEqualTo(10);
+            assertThat(segment.lineCount()).isEqualTo(orders.stream().mapToLong(order -> order.lines().size()).sum());
+            assertThat(segment.firstDay()).isEqualTo(LocalDate.of(2024, 3, 1));
+            assertThat(segment.archivedBefore()).isEqualTo(LocalDate.of(2024, 3, 11));
+        }
+    }
+
+    @Test
+    void open_readsAPublishedSegmentBack() throws Exception {
+        // Arrange
+        List<ArchivedOrder> orders = orders(5);
+        write(orders, 2).close();
+
+        // Act
+        try (OrderSegment segment = OrderSegment.open(directory.resolve("orders.seg"))) {
+
+            // Assert
+            assertThat(segment.orders()).containsExactlyElementsOf(orders);
+            assertThat(segment.archivedBefore()).isEqualTo(LocalDate.of(2024, 3, 11));
+        }
+    }
+
+    @Test
+    void orders_onlyTheDateRangeBothEndsInclusive() throws Exception {
+        // Arrange
+        List<ArchivedOrder> orders = orders(10);
+
+        try (OrderSegment segment = write(orders, 3)) {
+            // Act
+            List<ArchivedOrder> range = segment.orders(orders.get(6).orderDate(), orders.get(2).orderDate()).toList();
+
+            // Assert
+            assertThat(range).containsExactlyElementsOf(orders.subList(2, 7));
+        }
+    }
+
+    @Test
+    void find_looksAnOrderUpById() throws Exception {
+        // Arrange
+        List<ArchivedOrder> orders = orders(10);
+
+        try (OrderSegment segment = write(orders, 3)) {
+            // Act & Assert
+            assertThat(segment.find(orders.get(7).orderId())).contains(orders.get(7));
+            assertThat(segment.find(12345L)).isEmpty();
+        }
+    }
+
+    @Test
+    void close_dropsAnUnpublishedSegment() throws Exception {
+        // Arrange
+        Path path = directory.resolve("orders.seg");
+
+        // Act
+        try (OrderSegment.Writer writer = OrderSegment.create(path, 4)) {
+            for (ArchivedOrder order : orders(6)) {
+                writer.add(order);
+            }
+        }
+
+        // Assert
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    private OrderSegment write(List<ArchivedOrder> orders, int blockSize) throws Exception {
+        try (OrderSegment.Writer writer = OrderSegment.create(directory.resolve("orders.seg"), blockSize)) {
+            for (ArchivedOrder order : orders) {
+                writer.add(order);
+            }
+            return writer.publish(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 11));
+        }
+    }
+
+    // one order a day, newest first, with 0 to 2 lines and a missing customer name now and then
+    private List<ArchivedOrder> orders(int count) {
+        List<ArchivedOrder> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<ArchivedOrder.Line> lines = new ArrayList<>();
+            for (int j = 0; j < i % 3; j++) {
+                lines.add(new ArchivedOrder.Line(100 + j, j + 1, 9.99 * (j + 1)));
+            }
+            orders.add(new ArchivedOrder(1000 - i * 7, NEWEST.minusDays(i), i % 2 + 1, 50 + i,
+                    i == 4 ? null : "Customer " + i, 19.98 * i, List.copyOf(lines)));
+        }
+        return orders;
+    }
+
+}
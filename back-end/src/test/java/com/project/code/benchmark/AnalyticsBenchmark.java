@@ -0,0 +1,75 @@
+package com.project.code.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.project.code.analytics.OrderLineColumns;
+
+/**
+ * Query latency of the in-memory order-line columns over 20M synthetic lines
+ * (5M orders of four lines, 200 stores, 10k products, 40 categories, 2 years).
+ * Run with: mvn test -Pbenchmark -Dtest=AnalyticsBenchmark
+ */
+@Tag("benchmark")
+class AnalyticsBenchmark {
+
+    private static final int ORDERS = 5_000_000;
+    private static final int LINES_PER_ORDER = 4;
+    private static final int STORES = 200;
+    private static final int PRODUCTS = 10_000;
+    private static final int DAYS = 730;
+    private static final int ROUNDS = 20;
+
+    @Test
+    void analyticsQueries() {
+        long started = System.nanoTime();
+        OrderLineColumns columns = seed();
+        System.out.println("built %d lines in %.1f s".formatted(columns.lineCount(),
+                (System.nanoTime() - started) / 1e9));
+
+        int firstDay = 19_000;
+        OrderLineColumns.Filter everything = columns.filter(null, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        OrderLineColumns.Filter lastMonthOfOneStore = columns.filter(7L, firstDay + DAYS - 30, firstDay + DAYS);
+
+        System.out.println("query                              | p50 ms | max ms");
+        report("top sellers, all lines", () -> columns.topSellers(everything, 10));
+        report("top sellers, one store, 30 days", () -> columns.topSellers(lastMonthOfOneStore, 10));
+        report("revenue by category, all lines", () -> columns.revenueByCategory(everything));
+        report("basket sizes, all orders", () -> columns.basketSizeHistogram(everything));
+    }
+
+    private OrderLineColumns seed() {
+        Random random = new Random(42);
+        OrderLineColumns.Builder builder = new OrderLineColumns.Builder(ORDERS * LINES_PER_ORDER, ORDERS);
+        for (int order = 0; order < ORDERS; order++) {
+            builder.addOrder(order, random.nextInt(STORES), 19_000 + order / (ORDERS / DAYS + 1));
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                int product = random.nextInt(PRODUCTS);
+                builder.addLine(product, "Product" + product, "Category" + product % 40, 1 + random.nextInt(3),
+                        100 + product);
+            }
+        }
+        return builder.snapshot();
+    }
+
+    private void report(String label, Supplier<Object> query) {
+        // warm up the JIT before timing
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            query.get();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        System.out.println("%-34s | %6.1f | %6.1f".formatted(label, nanos[ROUNDS / 2] / 1e6,
+                nanos[ROUNDS - 1] / 1e6));
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.project.code.benchmark;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.ImportResult;
+import com.project.code.Repo.ImportCheckpointRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Service.DataImportService;
+import com.project.code.importer.ImportFormat;
+import com.project.code.importer.ImportKind;
+
+/**
+ * A product catalog import streamed from a generated CSV that never exists
+ * in memory as a whole, reporting the rate and the heap in use while it runs.
+ * The default is sized for a laptop run; the 10M row case is
+ * -Dimport.benchmark.rows=10000000.
+ * Run with: mvn test -Pbenchmark -Dtest=DataImportBenchmark
+ */
+@Tag("benchmark")
+// statement logging would dominate the timings
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class DataImportBenchmark {
+
+    private static final long ROWS = Long.getLong("import.benchmark.rows", 1_000_000L);
+    private static final long SAMPLE_MILLIS = 200;
+
+    @Autowired
+    private DataImportService dataImportService;
+    @Autowired
+    private ImportCheckpointRepository importCheckpointRepository;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void productImport() throws Exception {
+        cleanUp();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long heapBefore = memory.getHeapMemoryUsage().getUsed();
+
+        // the peak is sampled, a GC between two samples hides the spike but not a heap that keeps growing
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long started = System.nanoTime();
+        ImportResult result;
+        try {
+            result = dataImportService.importRecords("benchmark-products", ImportKind.PRODUCTS, ImportFormat.CSV,
+                    new GeneratedCsv(ROWS));
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        System.gc();
+        long heapAfter = memory.getHeapMemoryUsage().getUsed();
+
+        System.out.println("rows       | seconds | rows/sec | heap before MB | peak MB | after MB");
+        System.out.println("%10d | %7.1f | %8.0f | %14d | %7d | %8d".formatted(result.getRowsRead(), seconds,
+                result.getRowsRead() / seconds, heapBefore >> 20, peakHeap.get() >> 20, heapAfter >> 20));
+        System.out.println("import result " + result.getCounts());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAllInBatch();
+        importCheckpointRepository.deleteAll();
+    }
+
+    // a products CSV produced line by line as it is read
+    private static class GeneratedCsv extends InputStream {
+
+        private final long rows;
+        private long row;
+        private byte[] line = "name,category,price,sku\n".getBytes(StandardCharsets.UTF_8);
+        private int position;
+
+        GeneratedCsv(long rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            int read = 0;
+            while (read < length) {
+                if (position == line.length) {
+                    if (row == rows) {
+                        break;
+                    }
+                    row++;
+                    line = ("Product" + row + ",Category" + (row % 50) + "," + (row % 1000) + ".99,BENCH" + row
+                            + "\n").getBytes(StandardCharsets.UTF_8);
+                    position = 0;
+                }
+                int n = Math.min(length - read, line.length - position);
+                System.arraycopy(line, position, buffer, offset + read, n);
+                position += n;
+                read += n;
+            }
+            return read == 0 && length > 0 ? -1 : read;
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.project.code.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.Service.OrderService;
+
+/**
+ * Bulk insert throughput: product and inventory seeding through saveAll, and
+ * order lines written by saveOrder.
+ * Run with: mvn test -Pbenchmark -Dtest=InsertThroughputBenchmark
+ */
+@Tag("benchmark")
+// statement logging would dominate the timings
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class InsertThroughputBenchmark {
+
+    private static final int SEED_ROWS = 10_000;
+    private static final int SEED_CHUNK = 1_000;
+    private static final int ORDERS = 500;
+    private static final int LINES_PER_ORDER = 20;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    void insertThroughput() {
+        // first round warms up the JIT and the connection pool
+        run();
+        double[] rates = run();
+
+        System.out.println("workload                        | rows/sec");
+        System.out.println("product seeding (saveAll)       | %8.0f".formatted(rates[0]));
+        System.out.println("inventory seeding (saveAll)     | %8.0f".formatted(rates[1]));
+        System.out.println("order lines (saveOrder, %2d/order) | %8.0f".formatted(LINES_PER_ORDER, rates[2]));
+    }
+
+    private double[] run() {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        Store store = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+
+        List<Product> products = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int chunk = 0; chunk < SEED_ROWS; chunk += SEED_CHUNK) {
+            List<Product> batch = new ArrayList<>();
+            for (int i = chunk; i < chunk + SEED_CHUNK; i++) {
+                batch.add(new Product("Product" + i, "Category1", 10.00, "SKU" + i));
+            }
+            products.addAll(productRepository.saveAll(batch));
+        }
+        double productRate = SEED_ROWS / seconds(started);
+
+        started = System.nanoTime();
+        for (int chunk = 0; chunk < SEED_ROWS; chunk += SEED_CHUNK) {
+            List<Inventory> batch = new ArrayList<>();
+            for (int i = chunk; i < chunk + SEED_CHUNK; i++) {
+                batch.add(new Inventory(store, products.get(i), 1_000_000));
+            }
+            inventoryRepository.saveAll(batch);
+        }
+        double inventoryRate = SEED_ROWS / seconds(started);
+
+        started = System.nanoTime();
+        for (int order = 0; order < ORDERS; order++) {
+            List<PurchaseProductDTO> lines = new ArrayList<>();
+            for (int line = 0; line < LINES_PER_ORDER; line++) {
+                Product product = products.get((order * LINES_PER_ORDER + line) % SEED_ROWS);
+                lines.add(new PurchaseProductDTO(product.getId(), product.getName(), product.getPrice(), 1,
+                        product.getPrice()));
+            }
+            orderService.saveOrder(new PlaceOrderRequestDTO(store.getId(), "Customer One", "customer1@mail.com",
+                    "0939451111", LocalDateTime.now().toString(), lines));
+        }
+        double orderLineRate = ORDERS * LINES_PER_ORDER / seconds(started);
+
+        return new double[] { productRate, inventoryRate, orderLineRate };
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000_000.0;
+    }
+
+}
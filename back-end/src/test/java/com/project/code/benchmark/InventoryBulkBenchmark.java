@@ -0,0 +1,107 @@
+package com.project.code.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.code.Controller.InventoryController;
+import com.project.code.Model.CombinedRequest;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.InventoryBulkResult;
+import com.project.code.Model.InventoryUpdateDto;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OutboxEventRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.Service.InventoryBulkService;
+
+/**
+ * A nightly stock sync of one store: every row set to a new level through
+ * PUT /inventories/update one row at a time, and through the bulk update.
+ * Run with: mvn test -Pbenchmark -Dtest=InventoryBulkBenchmark
+ */
+@Tag("benchmark")
+// statement logging would dominate the timings
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class InventoryBulkBenchmark {
+
+    private static final int ROWS = 200_000;
+    // the single-row endpoint is timed on a slice, the whole sync would take too long
+    private static final int SINGLE_ROWS = 2_000;
+    // far above anything the sequences hand out while the benchmark runs
+    private static final long FIRST_ID = 1_000_000_000L;
+
+    @Autowired
+    private InventoryController inventoryController;
+    @Autowired
+    private InventoryBulkService inventoryBulkService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    void stockSync() {
+        cleanUp();
+        Store store = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        jdbcTemplate.update("""
+                INSERT INTO product (id, name, category, price, sku)
+                SELECT CAST(? AS BIGINT) + x, 'Product' || x, 'Category1', 10.0, 'SKU' || x
+                FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))""", FIRST_ID, ROWS - 1);
+        jdbcTemplate.update("""
+                INSERT INTO inventory (id, store_id, product_id, stock_level, shard_count, version)
+                SELECT CAST(? AS BIGINT) + x, CAST(? AS BIGINT), CAST(? AS BIGINT) + x, 100, 0, 0
+                FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))""", FIRST_ID, store.getId(), FIRST_ID, ROWS - 1);
+
+        long started = System.nanoTime();
+        for (int i = 0; i < SINGLE_ROWS; i++) {
+            Product product = new Product();
+            product.setId(FIRST_ID + i);
+            CombinedRequest request = new CombinedRequest();
+            request.setProduct(product);
+            request.setInventory(new Inventory(store, product, 50));
+            inventoryController.updateInventory(request);
+        }
+        double singleRate = SINGLE_ROWS / seconds(started);
+
+        List<InventoryUpdateDto> entries = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            entries.add(new InventoryUpdateDto(store.getId(), FIRST_ID + i, 75));
+        }
+        started = System.nanoTime();
+        InventoryBulkResult result = inventoryBulkService.update(entries);
+        double bulkRate = ROWS / seconds(started);
+
+        System.out.println("path                             | rows/sec");
+        System.out.println("PUT /inventories/update, per row | %8.0f".formatted(singleRate));
+        System.out.println("bulk update                      | %8.0f".formatted(bulkRate));
+        System.out.println("bulk result " + result.getCounts());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAllInBatch();
+        inventoryRepository.deleteAllInBatch();
+        productRepository.deleteAllInBatch();
+        storeRepository.deleteAll();
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000_000.0;
+    }
+
+}
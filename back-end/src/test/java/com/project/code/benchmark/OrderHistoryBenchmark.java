@@ -0,0 +1,124 @@
+package com.project.code.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.project.code.Model.Customer;
+import com.project.code.Model.OrderPageCursor;
+import com.project.code.Model.OrderPageRequest;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.Service.OrderHistoryService;
+
+/**
+ * Order history page latency for a store with a million orders, at the newest
+ * page and at cursors deep into the history.
+ * Run with: mvn test -Pbenchmark -Dtest=OrderHistoryBenchmark
+ */
+@Tag("benchmark")
+// statement logging would dominate the timings
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class OrderHistoryBenchmark {
+
+    private static final int ORDERS = 1_000_000;
+    // far above anything the sequences hand out while the benchmark runs
+    private static final long FIRST_ID = 1_000_000_000L;
+    private static final LocalDateTime START = LocalDateTime.of(2020, 1, 1, 0, 0);
+    private static final int ROUNDS = 200;
+
+    @Autowired
+    private OrderHistoryService orderHistoryService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    void orderHistoryPages() throws Exception {
+        cleanUp();
+        Store store = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        Customer customer = customerRepository.save(new Customer("Customer One", "customer1@mail.com", "0939451111"));
+        Product product = productRepository.save(new Product("Phone1", "Mobile", 100.00, "SKU001"));
+
+        // one order a minute with two lines each, seeded in SQL since the ORM would take minutes
+        long started = System.nanoTime();
+        jdbcTemplate.update("""
+                INSERT INTO order_details (id, customer_id, store_id, total_price, order_date)
+                SELECT CAST(? AS BIGINT) + x, CAST(? AS BIGINT), CAST(? AS BIGINT), 200.0,
+                       DATEADD(MINUTE, x, CAST(? AS TIMESTAMP)) FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))""",
+                FIRST_ID, customer.getId(), store.getId(), START, ORDERS - 1);
+        jdbcTemplate.update("""
+                INSERT INTO order_item (id, order_id, product_id, quantity, price)
+                SELECT CAST(? AS BIGINT) + x, CAST(? AS BIGINT) + x / 2, CAST(? AS BIGINT), 1, 100.0
+                FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))""",
+                FIRST_ID, FIRST_ID, product.getId(), 2L * ORDERS - 1);
+        System.out.println("seeded %d orders in %.1f s".formatted(ORDERS, (System.nanoTime() - started) / 1e9));
+
+        System.out.println("page                          | p50 ms | p99 ms | bytes");
+        for (int pageSize : new int[] { 50, 1000 }) {
+            report("newest, %4d rows".formatted(pageSize), store.getId(), null, pageSize);
+            report("middle, %4d rows".formatted(pageSize), store.getId(), cursorAt(ORDERS / 2), pageSize);
+            report("oldest, %4d rows".formatted(pageSize), store.getId(), cursorAt(pageSize + 1), pageSize);
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        orderItemRepository.deleteAllInBatch();
+        orderDetailsRepository.deleteAllInBatch();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private String cursorAt(int minute) {
+        return new OrderPageCursor(START.plusMinutes(minute), FIRST_ID + minute).encode();
+    }
+
+    private void report(String label, long storeId, String cursor, int pageSize) throws Exception {
+        OrderPageRequest page = OrderPageRequest.of(null, null, cursor, pageSize);
+        // warm up the JIT and the page cache before timing
+        for (int i = 0; i < 20; i++) {
+            orderHistoryService.writeStoreOrders(storeId, page, OutputStream.nullOutputStream());
+        }
+        long[] nanos = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long started = System.nanoTime();
+            orderHistoryService.writeStoreOrders(storeId, page, OutputStream.nullOutputStream());
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        orderHistoryService.writeStoreOrders(storeId, page, body);
+        System.out.println("%-29s | %6.2f | %6.2f | %8d".formatted(label,
+                nanos[ROUNDS / 2] / 1e6, nanos[ROUNDS * 99 / 100] / 1e6, body.size()));
+    }
+
+}
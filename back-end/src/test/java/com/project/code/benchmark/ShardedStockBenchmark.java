@@ -0,0 +1,128 @@
+package com.project.code.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.project.code.Model.Inventory;
+import com.project.code.Model.PlaceOrderRequestDTO;
+import com.project.code.Model.Product;
+import com.project.code.Model.PurchaseProductDTO;
+import com.project.code.Model.Store;
+import com.project.code.Repo.CustomerRepository;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.InventoryShardRepository;
+import com.project.code.Repo.OrderDetailsRepository;
+import com.project.code.Repo.OrderItemRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+import com.project.code.Service.OrderService;
+import com.project.code.Service.ShardedStockService;
+
+/**
+ * Checkout throughput of a single hot SKU against the number of stock buckets.
+ * Run with: mvn test -Pbenchmark -Dtest=ShardedStockBenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+class ShardedStockBenchmark {
+
+    private static final int THREADS = 16;
+    private static final long DURATION_MILLIS = 5_000;
+
+    @Autowired
+    private OrderService orderService;
+    @Autowired
+    private ShardedStockService shardedStockService;
+    @Autowired
+    private InventoryRepository inventoryRepository;
+    @Autowired
+    private InventoryShardRepository inventoryShardRepository;
+    @Autowired
+    private OrderDetailsRepository orderDetailsRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private CustomerRepository customerRepository;
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    void checkoutThroughputByBucketCount() throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (int shardCount : new int[] { 0, 1, 2, 4, 8, 16 }) {
+            double ordersPerSecond = run(shardCount);
+            rows.add("%7d | %10.0f".formatted(shardCount, ordersPerSecond));
+        }
+
+        System.out.println("buckets | orders/sec (" + THREADS + " threads, one hot SKU)");
+        rows.forEach(System.out::println);
+    }
+
+    private double run(int shardCount) throws Exception {
+        orderItemRepository.deleteAll();
+        orderDetailsRepository.deleteAll();
+        inventoryShardRepository.deleteAll();
+        inventoryRepository.deleteAll();
+        productRepository.deleteAll();
+        storeRepository.deleteAll();
+        customerRepository.deleteAll();
+
+        Store store = storeRepository.save(new Store("Store1", "111/1 Bangkok"));
+        Product product = productRepository.save(new Product("Hot Product", "Category1", 10.00, "HOT001"));
+        inventoryRepository.save(new Inventory(store, product, 10_000_000));
+        shardedStockService.reshard(store.getId(), product.getId(), shardCount);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong completed = new AtomicLong();
+        AtomicLong customerSeq = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        long started = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    while (running.get()) {
+                        // a new customer per order keeps the customer lookup out of the measurement
+                        long seq = customerSeq.incrementAndGet();
+                        orderService.saveOrder(new PlaceOrderRequestDTO(
+                                store.getId(),
+                                "Customer " + seq,
+                                "bench" + seq + "@mail.com",
+                                "0900000000",
+                                LocalDateTime.now().toString(),
+                                List.of(new PurchaseProductDTO(product.getId(), product.getName(), 10.00, 1,
+                                        10.00))));
+                        completed.incrementAndGet();
+                    }
+                } finally {
+                    // a failed order ends this thread, the run must still finish
+                    done.countDown();
+                }
+            });
+        }
+
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        done.await();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        return completed.get() / seconds;
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.project.code.benchmark;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.project.code.CodeApplication;
+import com.project.code.Model.Inventory;
+import com.project.code.Model.Product;
+import com.project.code.Model.Store;
+import com.project.code.Repo.InventoryRepository;
+import com.project.code.Repo.ProductRepository;
+import com.project.code.Repo.StoreRepository;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Throughput and tail latency of placeOrder and the catalog endpoints with requests
+ * handled on Tomcat's platform thread pool and on virtual threads. Each model runs its
+ * own application against an H2 TCP server, so JDBC calls block on a socket the way
+ * they do against a networked database, and is driven over HTTP by a fixed number of
+ * clients. Needs Java 21, run with:
+ * JAVA_HOME=&lt;jdk 21&gt; mvn test -Pvirtual-threads,benchmark -Dtest=VirtualThreadBenchmark
+ * Tune with -Dbenchmark.clients, -Dbenchmark.tomcat-threads and -Dbenchmark.seconds.
+ */
+@Tag("benchmark")
+class VirtualThreadBenchmark {
+
+    // more clients than request threads, so the platform model queues them
+    private static final int CLIENTS = Integer.getInteger("benchmark.clients", 400);
+    private static final int TOMCAT_THREADS = Integer.getInteger("benchmark.tomcat-threads", 200);
+    private static final long DURATION_MILLIS = TimeUnit.SECONDS.toMillis(Long.getLong("benchmark.seconds", 10));
+    private static final long WARMUP_MILLIS = 3_000;
+    private static final int PRODUCTS = 50;
+    private static final int CUSTOMERS = 100;
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "virtual threads need Java 21");
+
+        Server database = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        List<String> rows = new ArrayList<>();
+        Map<String, Integer> pinnedAt = new ConcurrentHashMap<>();
+        try {
+            rows.addAll(run(database, false));
+            // every park of a virtual thread that can't unmount, wherever it happens
+            try (RecordingStream pinned = new RecordingStream()) {
+                pinned.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+                pinned.onEvent("jdk.VirtualThreadPinned", event -> pinnedAt.merge(frameOf(event), 1, Integer::sum));
+                pinned.startAsync();
+                rows.addAll(run(database, true));
+            }
+        } finally {
+            database.stop();
+        }
+
+        System.out.println("threads  | endpoints  | clients |  req/sec | p50 ms | p99 ms | p99.9 ms | errors");
+        rows.forEach(System.out::println);
+        System.out.println("pinned virtual threads: " + pinnedAt.values().stream().mapToInt(Integer::intValue).sum());
+        pinnedAt.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .limit(10)
+                .forEach(entry -> System.out.println("%8d  %s".formatted(entry.getValue(), entry.getKey())));
+    }
+
+    private List<String> run(Server database, boolean virtual) throws Exception {
+        String threads = virtual ? "virtual" : "platform";
+        SpringApplicationBuilder application = new SpringApplicationBuilder(CodeApplication.class);
+        if (virtual) {
+            application.profiles("virtual-threads");
+        }
+        ConfigurableApplicationContext context = application.run(
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "--spring.datasource.url=jdbc:h2:tcp://localhost:%d/mem:%s;DB_CLOSE_DELAY=-1"
+                        .formatted(database.getPort(), threads),
+                // statement logging would dominate the timings
+                "--spring.jpa.show-sql=false");
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            Store store = context.getBean(StoreRepository.class).save(new Store("Store1", "111/1 Bangkok"));
+            List<Long> productIds = new ArrayList<>();
+            for (int i = 1; i <= PRODUCTS; i++) {
+                Product product = context.getBean(ProductRepository.class)
+                        .save(new Product("Phone" + i, "Mobile", 100.00, "SKU%03d".formatted(i)));
+                context.getBean(InventoryRepository.class).save(new Inventory(store, product, 1_000_000_000));
+                productIds.add(product.getId());
+            }
+
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            List<URI> catalog = List.of(
+                    URI.create(baseUrl + "/api/v1/products"),
+                    URI.create(baseUrl + "/api/v1/products/" + productIds.get(0)),
+                    URI.create(baseUrl + "/api/v1/inventories/stores/" + store.getId()),
+                    URI.create(baseUrl + "/api/v1/inventories/filter/Mobile/null"));
+            URI placeOrder = URI.create(baseUrl + "/api/v1/stores/placeOrder");
+
+            return List.of(
+                    load(client, threads, "catalog", () -> HttpRequest.newBuilder(
+                            catalog.get(ThreadLocalRandom.current().nextInt(catalog.size()))).build()),
+                    load(client, threads, "placeOrder", () -> HttpRequest.newBuilder(placeOrder)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(orderOf(store.getId(), productIds)))
+                            .build()));
+        } finally {
+            context.close();
+        }
+    }
+
+    private String load(HttpClient client, String threads, String endpoints, Supplier<HttpRequest> requests)
+            throws Exception {
+        measure(client, requests, WARMUP_MILLIS, new AtomicLong());
+        AtomicLong errors = new AtomicLong();
+        long[] nanos = measure(client, requests, DURATION_MILLIS, errors);
+        Arrays.sort(nanos);
+        return "%-8s | %-10s | %7d | %8.0f | %6.1f | %6.1f | %8.1f | %6d".formatted(threads, endpoints, CLIENTS,
+                nanos.length * 1000.0 / DURATION_MILLIS, percentile(nanos, 50), percentile(nanos, 99),
+                percentile(nanos, 99.9), errors.get());
+    }
+
+    private long[] measure(HttpClient client, Supplier<HttpRequest> requests, long durationMillis,
+            AtomicLong errors) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        try {
+            List<Future<long[]>> clients = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> {
+                    long[] nanos = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = requests.get();
+                        long started = System.nanoTime();
+                        try {
+                            if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (IOException e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == nanos.length) {
+                            nanos = Arrays.copyOf(nanos, count * 2);
+                        }
+                        nanos[count++] = System.nanoTime() - started;
+                    }
+                    return Arrays.copyOf(nanos, count);
+                }));
+            }
+
+            long[] all = new long[0];
+            for (Future<long[]> future : clients) {
+                long[] nanos = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + nanos.length);
+                System.arraycopy(nanos, 0, all, offset, nanos.length);
+            }
+            return all;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String orderOf(long storeId, List<Long> productIds) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int customer = random.nextInt(CUSTOMERS);
+        // two different products
+        int first = random.nextInt(PRODUCTS);
+        int second = (first + 1 + random.nextInt(PRODUCTS - 1)) % PRODUCTS;
+        return """
+                {"storeId": %d, "customerName": "Customer %d", "customerEmail": "customer%d@mail.com",
+                 "customerPhone": "0939451111", "datetime": "2025-01-01T10:00:00",
+                 "purchaseProduct": [{"id": %d, "name": "Phone", "price": 100.0, "quantity": 1, "total": 100.0},
+                                     {"id": %d, "name": "Phone", "price": 100.0, "quantity": 1, "total": 100.0}]}"""
+                .formatted(storeId, customer, customer, productIds.get(first), productIds.get(second));
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, (long) (sortedNanos.length * percentile / 100));
+        return sortedNanos[index] / 1e6;
+    }
+
+    private static String frameOf(RecordedEvent event) {
+        // the first frame outside the JDK is the code holding the monitor or doing native work
+        if (event.getStackTrace() == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return "JDK only";
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.project.code.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class CsvRecordReaderTest {
+
+    private static final List<String> COLUMNS = List.of("name", "category", "price", "sku");
+
+    @Test
+    void next_readsQuotedFieldsWithCommasQuotesAndLineBreaks() throws Exception {
+        // Arrange
+        String csv = "name,category,price,sku\r\n"
+                + "\"MacBook Pro 16\"\"\",Laptops,2399.99,SKU008\r\n"
+                + "\"Sony, WH-1000XM4\",\"Head\nphones\",349.99,SKU010\n";
+
+        // Act
+        List<String[]> records = readAll(csv);
+
+        // Assert
+        assertThat(records).containsExactly(
+                new String[] { "MacBook Pro 16\"", "Laptops", "2399.99", "SKU008" },
+                new String[] { "Sony, WH-1000XM4", "Head\nphones", "349.99", "SKU010" });
+    }
+
+    @Test
+    void next_mapsColumnsByHeaderNameIgnoringCaseAndExtraColumns() throws Exception {
+        // Arrange
+        String csv = "\uFEFFid,SKU,Price,category,name\n1,SKU001,799.99,Mobile,Galaxy S21\n";
+
+        // Act
+        List<String[]> records = readAll(csv);
+
+        // Assert
+        assertThat(records).containsExactly(new String[] { "Galaxy S21", "Mobile", "799.99", "SKU001" });
+    }
+
+    @Test
+    void next_skipsBlankLinesAndLeavesMissingTrailingColumnsNull() throws Exception {
+        // Arrange
+        String csv = "name,category,price,sku\n\nGalaxy S21,Mobile\n\n";
+
+        // Act
+        List<String[]> records = readAll(csv);
+
+        // Assert
+        assertThat(records).containsExactly(new String[] { "Galaxy S21", "Mobile", null, null });
+    }
+
+    @Test
+    void constructor_rejectsAHeaderWithoutTheRequiredColumns() {
+        // Act & Assert
+        assertThatThrownBy(() -> new CsvRecordReader(new StringReader("name,price\n"), COLUMNS))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("[category, sku]");
+    }
+
+    private List<String[]> readAll(String csv) throws Exception {
+        List<String[]> records = new ArrayList<>();
+        try (CsvRecordReader reader = new CsvRecordReader(new StringReader(csv), COLUMNS)) {
+            String[] record;
+            while ((record = reader.next()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+}
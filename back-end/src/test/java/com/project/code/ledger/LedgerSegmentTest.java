@@ -0,0 +1,87 @@
+package com.project.code.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.project.code.Model.StockChangedEvent.Reason;
+
+class LedgerSegmentTest {
+
+    private static final Instant RECORDED_AT = Instant.parse("2024-03-10T18:30:15.123Z");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void open_readsAppendedEntriesBack() throws Exception {
+        // Arrange
+        Path path = LedgerSegment.path(directory, 1);
+        try (LedgerSegment segment = LedgerSegment.open(path, 8)) {
+            segment.append(entry(1, 7));
+            segment.append(entry(2, null));
+            segment.force();
+        }
+
+        // Act
+        try (LedgerSegment segment = LedgerSegment.open(path, 8)) {
+
+            // Assert
+            assertThat(segment.size()).isEqualTo(2);
+            assertThat(segment.lastSequence()).isEqualTo(2);
+            assertThat(List.of(segment.get(0), segment.get(1))).containsExactly(entry(1, 7), entry(2, null));
+        }
+    }
+
+    @Test
+    void open_endsAtATornEntry_andDropsTheEntriesBehindIt() throws Exception {
+        // Arrange
+        Path path = LedgerSegment.path(directory, 1);
+        try (LedgerSegment segment = LedgerSegment.open(path, 8)) {
+            segment.append(entry(1, 7));
+            segment.append(entry(2, 6));
+            segment.append(entry(3, 5));
+            segment.force();
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[] { 42 }), LedgerSegment.ENTRY_BYTES + 40);
+        }
+
+        // Act
+        try (LedgerSegment segment = LedgerSegment.open(path, 8)) {
+            segment.append(entry(2, 4));
+        }
+
+        // Assert, entry 3 outlived the torn one but doesn't come back behind the new 2
+        try (LedgerSegment segment = LedgerSegment.open(path, 8)) {
+            assertThat(segment.size()).isEqualTo(2);
+            assertThat(segment.get(1)).isEqualTo(entry(2, 4));
+        }
+    }
+
+    @Test
+    void append_rejectsAnEntryOutOfSequence_andOneBeyondCapacity() throws Exception {
+        try (LedgerSegment segment = LedgerSegment.open(LedgerSegment.path(directory, 5), 1)) {
+            assertThatThrownBy(() -> segment.append(entry(6, 1))).isInstanceOf(IllegalArgumentException.class);
+
+            segment.append(entry(5, 1));
+
+            assertThat(segment.isFull()).isTrue();
+            assertThatThrownBy(() -> segment.append(entry(6, 1))).isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    private static LedgerEntry entry(long sequence, Integer stockLevel) {
+        return new LedgerEntry(sequence, sequence + 100, RECORDED_AT, 1, 2, -1, stockLevel, Reason.SALE);
+    }
+
+}
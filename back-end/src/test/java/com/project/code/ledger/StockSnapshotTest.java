@@ -0,0 +1,52 @@
+package com.project.code.ledger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class StockSnapshotTest {
+
+    private static final List<StockSnapshot.Level> LEVELS = List.of(
+            new StockSnapshot.Level(1, 2, 10),
+            new StockSnapshot.Level(1, 3, 0));
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void read_returnsWhatWasWritten() throws Exception {
+        // Arrange
+        Path path = StockSnapshot.path(directory, 12);
+
+        // Act
+        StockSnapshot.write(path, 12, 40, 7, LEVELS);
+
+        // Assert
+        assertThat(StockSnapshot.read(path)).isEqualTo(new StockSnapshot(12, 40, 7, LEVELS));
+        assertThat(Files.exists(path.resolveSibling(path.getFileName() + ".tmp"))).isFalse();
+    }
+
+    @Test
+    void read_rejectsADamagedSnapshot() throws Exception {
+        // Arrange
+        Path path = StockSnapshot.path(directory, 12);
+        StockSnapshot.write(path, 12, 40, 7, LEVELS);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.wrap(new byte[] { 42 }), 30);
+        }
+
+        // Act & Assert
+        assertThatThrownBy(() -> StockSnapshot.read(path)).isInstanceOf(IOException.class);
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.project.code.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class ExpiringLruCacheTest {
+
+    @Test
+    void get_shouldReturnCachedValue() {
+        // Arrange
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+
+        // Act, Assert
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("b")).isEmpty();
+    }
+
+    @Test
+    void put_shouldEvictLeastRecentlyUsed_whenFull() {
+        // Arrange
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+
+        // Act
+        cache.put("c", 3);
+
+        // Assert
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).contains(1);
+        assertThat(cache.get("b")).isEmpty();
+        assertThat(cache.get("c")).contains(3);
+    }
+
+    @Test
+    void get_shouldTreatExpiredEntryAsMissing() throws InterruptedException {
+        // Arrange
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, Duration.ofMillis(10));
+        cache.put("a", 1);
+
+        // Act
+        Thread.sleep(20);
+
+        // Assert
+        assertThat(cache.get("a")).isEmpty();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    void invalidate_shouldRemoveEntry() {
+        // Arrange
+        ExpiringLruCache<String, Integer> cache = new ExpiringLruCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", 1);
+
+        // Act
+        cache.invalidate("a");
+
+        // Assert
+        assertThat(cache.get("a")).isEmpty();
+    }
+
+}
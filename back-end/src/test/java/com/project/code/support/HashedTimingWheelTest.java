@@ -0,0 +1,74 @@
+package com.project.code.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.project.code.support.HashedTimingWheel.Timeout;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel timingWheel;
+
+    @BeforeEach
+    void setUp() {
+        // 8 buckets of 10ms, one rotation is 80ms
+        timingWheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timingWheel.close();
+    }
+
+    @Test
+    void schedule_shouldRunTaskAfterDelay() throws InterruptedException {
+        // Arrange
+        CountDownLatch fired = new CountDownLatch(1);
+        long started = System.nanoTime();
+
+        // Act
+        timingWheel.schedule(fired::countDown, Duration.ofMillis(50));
+
+        // Assert
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void schedule_shouldWaitForRemainingRounds_whenDelayIsLongerThanOneRotation() throws InterruptedException {
+        // Arrange
+        CountDownLatch fired = new CountDownLatch(1);
+        long started = System.nanoTime();
+
+        // Act
+        timingWheel.schedule(fired::countDown, Duration.ofMillis(250));
+
+        // Assert
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - started).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void cancel_shouldPreventTaskFromRunning() throws InterruptedException {
+        // Arrange
+        AtomicBoolean fired = new AtomicBoolean();
+        Timeout timeout = timingWheel.schedule(() -> fired.set(true), Duration.ofMillis(30));
+
+        // Act
+        timeout.cancel();
+        Thread.sleep(100);
+
+        // Assert
+        assertThat(timeout.isCancelled()).isTrue();
+        assertThat(fired.get()).isFalse();
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.project.code.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class StockLevelIndexTest {
+
+    @Test
+    void get_shouldReturnLevel_ofIndexedRow() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(4);
+        index.put(1, 2, 10);
+
+        // Act, Assert
+        assertThat(index.get(1, 2)).isEqualTo(10);
+        assertThat(index.get(2, 1)).isEqualTo(StockLevelIndex.MISSING);
+    }
+
+    @Test
+    void put_shouldGrowTable_andKeepEveryRow() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(1);
+
+        // Act
+        for (int productId = 1; productId <= 10_000; productId++) {
+            index.put(productId % 7 + 1, productId, productId);
+        }
+
+        // Assert
+        assertThat(index.size()).isEqualTo(10_000);
+        for (int productId = 1; productId <= 10_000; productId++) {
+            assertThat(index.get(productId % 7 + 1, productId)).isEqualTo(productId);
+        }
+    }
+
+    @Test
+    void add_shouldMoveIndexedLevel_andIgnoreMissingRow() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(4);
+        index.put(1, 1, 5);
+
+        // Act
+        boolean indexed = index.add(1, 1, -3);
+        boolean missing = index.add(1, 2, -3);
+
+        // Assert
+        assertThat(indexed).isTrue();
+        assertThat(missing).isFalse();
+        assertThat(index.get(1, 1)).isEqualTo(2);
+        assertThat(index.get(1, 2)).isEqualTo(StockLevelIndex.MISSING);
+    }
+
+    @Test
+    void remove_shouldKeepRowsProbedPastIt() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(16);
+        for (int productId = 1; productId <= 200; productId++) {
+            index.put(1, productId, productId);
+        }
+
+        // Act
+        for (int productId = 1; productId <= 200; productId += 2) {
+            index.remove(1, productId);
+        }
+
+        // Assert
+        assertThat(index.size()).isEqualTo(100);
+        for (int productId = 1; productId <= 200; productId++) {
+            assertThat(index.get(1, productId)).isEqualTo(productId % 2 == 0 ? productId : StockLevelIndex.MISSING);
+        }
+    }
+
+    @Test
+    void removeProduct_shouldRemoveItFromEveryStore() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(4);
+        for (int storeId = 1; storeId <= 50; storeId++) {
+            index.put(storeId, 1, 10);
+            index.put(storeId, 2, 20);
+        }
+
+        // Act
+        index.removeProduct(1);
+
+        // Assert
+        assertThat(index.size()).isEqualTo(50);
+        for (int storeId = 1; storeId <= 50; storeId++) {
+            assertThat(index.get(storeId, 1)).isEqualTo(StockLevelIndex.MISSING);
+            assertThat(index.get(storeId, 2)).isEqualTo(20);
+        }
+    }
+
+    @Test
+    void put_shouldRefuseIds_thatCannotBePacked() {
+        // Arrange
+        StockLevelIndex index = new StockLevelIndex(4);
+
+        // Act, Assert
+        assertThat(index.put(0, 1, 1)).isFalse();
+        assertThat(index.put(1, 1L << 32, 1)).isFalse();
+        assertThat(index.get(1, 1L << 32)).isEqualTo(StockLevelIndex.MISSING);
+    }
+
+}
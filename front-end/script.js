@@ -778,17 +778,30 @@ function validateQuantity(OrderNo) {
   if (!quantity || !productId || !storeId) {
     return;
   }
-  let url = `${apiURL}/api/v1/inventories/validate/${quantity}/${storeId}/${productId}`;
+  // the whole cart in one request, lines of the same product count together
+  let items = [];
+  for (let i = 1; i <= Ordercount; i++) {
+    let lineProductId = document.getElementById(`orderProductId${i}`);
+    let lineQuantity = document.getElementById(`orderProductQuantity${i}`);
+    if (lineProductId && lineQuantity && lineProductId.value && parseInt(lineQuantity.value) > 0) {
+      items.push({ productId: lineProductId.value, quantity: parseInt(lineQuantity.value) });
+    }
+  }
+  if (items.length === 0) {
+    return;
+  }
+  let url = `${apiURL}/api/v1/inventories/availability`;
   fetch(url, {
-    method: "GET",
+    method: "POST",
     headers: { "content-type": "application/json" },
+    body: JSON.stringify({ storeId: storeId, items: items }),
   })
     .then((response) => {
       return response.json();
     })
     .then((data) => {
-      if (!data) {
-        alert("Limited Quantity Available, Reduce quantity");
+      if (!data.available) {
+        alert(data.message || "Limited Quantity Available, Reduce quantity");
       }
     })
     .catch((error) => {